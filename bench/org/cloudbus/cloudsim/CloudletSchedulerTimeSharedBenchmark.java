@@ -0,0 +1,54 @@
+package org.cloudbus.cloudsim;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fog.bench.Benchmark;
+
+/**
+ * Updating the processing of the cloudlets of a VM with the time shared scheduler. The cloudlets are long
+ * enough not to finish during the benchmark, so every operation advances all of them.
+ */
+public class CloudletSchedulerTimeSharedBenchmark extends Benchmark {
+
+	private CloudletSchedulerTimeShared scheduler;
+	private List<Double> mipsShare;
+	private double time;
+
+	@Override
+	public String getName() {
+		return "CloudletSchedulerTimeShared.updateVmProcessing";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("cloudlets", new String[]{"1", "10", "100", "1000"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) {
+		int cloudlets = Integer.parseInt(params.get("cloudlets"));
+		mipsShare = new ArrayList<Double>();
+		mipsShare.add(1000.0);
+		scheduler = new CloudletSchedulerTimeShared();
+		scheduler.setCurrentMipsShare(mipsShare);
+		UtilizationModel full = new UtilizationModelFull();
+		for (int i = 0; i < cloudlets; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 1000000000000L, 1, 0, 0, full, full, full);
+			// as the datacenter does, so that the cloudlet has not run anywhere yet
+			cloudlet.setResourceParameter(0, 0);
+			scheduler.cloudletSubmit(cloudlet);
+		}
+		time = 0;
+	}
+
+	@Override
+	public Object run() {
+		time += 0.001;
+		return scheduler.updateVmProcessing(time, mipsShare);
+	}
+}
@@ -0,0 +1,104 @@
+package org.cloudbus.cloudsim;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.fog.bench.Benchmark;
+import org.fog.bench.BenchmarkDevices;
+
+/**
+ * Updating the processing of the VMs of a datacenter and checking their finished cloudlets, as the datacenter
+ * does at every processing event, when only some of the VMs run cloudlets. The cloudlets are long enough not
+ * to finish during the benchmark.
+ */
+public class DatacenterBenchmark extends Benchmark {
+
+	private static final int VMS_PER_HOST = 4;
+
+	private SimulationContext context;
+	private SimulationContext previous;
+	private Datacenter datacenter;
+	private List<Host> hosts;
+	private double time;
+
+	@Override
+	public String getName() {
+		return "Datacenter.updateCloudletProcessing";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("hosts", new String[]{"100", "1000"});
+		params.put("active", new String[]{"0.01", "0.1", "1"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) throws Exception {
+		int hostCount = Integer.parseInt(params.get("hosts"));
+		double active = Double.parseDouble(params.get("active"));
+
+		context = new SimulationContext(1);
+		previous = SimulationContext.bind(context);
+		BenchmarkDevices.initSimulationDiscardingEvents();
+
+		hosts = new ArrayList<Host>();
+		List<Vm> vms = new ArrayList<Vm>();
+		for (int i = 0; i < hostCount; i++) {
+			List<Pe> peList = new ArrayList<Pe>();
+			peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+			Host host = new Host(i, new RamProvisionerSimple(8192), new BwProvisionerSimple(1000000), 1000000,
+					peList, new VmSchedulerTimeShared(peList));
+			for (int j = 0; j < VMS_PER_HOST; j++) {
+				Vm vm = new Vm(vms.size(), 1, 250, 1, 512, 1000, 1000, "Xen", new CloudletSchedulerTimeShared());
+				host.vmCreate(vm);
+				vms.add(vm);
+			}
+			hosts.add(host);
+		}
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen", hosts,
+				10.0, 3.0, 0.05, 0.001, 0.0);
+		datacenter = new Datacenter("datacenter", characteristics, new VmAllocationPolicySimple(hosts),
+				new LinkedList<Storage>(), 0);
+
+		time = 0;
+		processVms();
+		UtilizationModel full = new UtilizationModelFull();
+		int activeVms = (int) Math.round(vms.size() * active);
+		for (int i = 0; i < activeVms; i++) {
+			// spread the active VMs over the hosts
+			Vm vm = vms.get((int) ((long) i * vms.size() / activeVms));
+			Cloudlet cloudlet = new Cloudlet(i, 1000000000000L, 1, 0, 0, full, full, full);
+			cloudlet.setResourceParameter(0, 0);
+			vm.getCloudletScheduler().cloudletSubmit(cloudlet);
+		}
+	}
+
+	private double processVms() {
+		double smallerTime = Double.MAX_VALUE;
+		for (Host host : hosts) {
+			smallerTime = Math.min(smallerTime, host.updateVmsProcessing(time));
+		}
+		datacenter.checkCloudletCompletion();
+		return smallerTime;
+	}
+
+	@Override
+	public Object run() {
+		time += 0.001;
+		return processVms();
+	}
+
+	@Override
+	public void tearDown() {
+		SimulationContext.bind(previous);
+	}
+}
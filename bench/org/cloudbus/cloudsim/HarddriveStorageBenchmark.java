@@ -0,0 +1,58 @@
+package org.cloudbus.cloudsim;
+
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.bench.Benchmark;
+
+/**
+ * Getting the files of a harddrive by name, as a datacenter does for the files a cloudlet requires. Every
+ * operation gets a random file of the harddrive, with the time taken to read it.
+ */
+public class HarddriveStorageBenchmark extends Benchmark {
+
+	private SimulationContext previous;
+	private HarddriveStorage storage;
+	private String[] fileNames;
+	private Random random;
+
+	@Override
+	public String getName() {
+		return "HarddriveStorage.getFile";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("files", new String[]{"100", "10000"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) throws Exception {
+		previous = SimulationContext.bind(new SimulationContext(1));
+		CloudSim.init(1, Calendar.getInstance(), false);
+		int files = Integer.parseInt(params.get("files"));
+		storage = new HarddriveStorage(1000000000);
+		fileNames = new String[files];
+		for (int i = 0; i < files; i++) {
+			fileNames[i] = "file-" + i;
+			storage.addFile(new File(fileNames[i], 1 + i % 100));
+		}
+		random = new Random(1);
+	}
+
+	@Override
+	public Object run() {
+		return storage.getFile(fileNames[random.nextInt(fileNames.length)]);
+	}
+
+	@Override
+	public void tearDown() {
+		SimulationContext.bind(previous);
+	}
+}
@@ -0,0 +1,97 @@
+package org.cloudbus.cloudsim;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.fog.bench.Benchmark;
+
+/**
+ * Loading the PlanetLab utilization models of the VMs of a power experiment, every model reading its trace
+ * file or all models reading a trace pack of the same traces. The trace pack is mapped once, in the setup,
+ * as the shared loader maps it once per run. Every operation loads the models and sums their utilizations at
+ * the start of an interval.
+ */
+public class UtilizationTracePackBenchmark extends Benchmark {
+
+	private static final int DATA_SAMPLES = 289;
+	private static final double SCHEDULING_INTERVAL = 300;
+
+	private boolean pack;
+	private File folder;
+	private List<String> paths;
+	private UtilizationTracePack tracePack;
+
+	@Override
+	public String getName() {
+		return "UtilizationModelPlanetLabInMemory.load";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("source", new String[]{"files", "pack"});
+		params.put("traces", new String[]{"1000", "10000"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) throws Exception {
+		pack = params.get("source").equals("pack");
+		int traces = Integer.parseInt(params.get("traces"));
+		folder = File.createTempFile("planetlab", "");
+		folder.delete();
+		folder.mkdir();
+		Random random = new Random(1);
+		paths = new ArrayList<String>();
+		for (int i = 0; i < traces; i++) {
+			File file = new File(folder, "trace-" + i);
+			PrintWriter writer = new PrintWriter(file);
+			for (int j = 0; j < DATA_SAMPLES - 1; j++) {
+				writer.println(random.nextInt(101));
+			}
+			writer.close();
+			paths.add(file.getPath());
+		}
+		if (pack) {
+			String fileName = new File(folder, "traces.pack").getPath();
+			UtilizationTracePack.write(paths, DATA_SAMPLES, fileName);
+			tracePack = UtilizationTracePack.open(fileName);
+		}
+	}
+
+	@Override
+	public Object run() throws IOException {
+		double utilization = 0;
+		for (String path : paths) {
+			UtilizationModel model;
+			if (pack) {
+				model = new UtilizationModelPlanetLabInMemory(tracePack, new File(path).getName(), SCHEDULING_INTERVAL);
+			} else {
+				model = new UtilizationModelPlanetLabInMemory(path, SCHEDULING_INTERVAL, DATA_SAMPLES);
+			}
+			utilization += model.getUtilization(SCHEDULING_INTERVAL);
+		}
+		return utilization;
+	}
+
+	@Override
+	public void tearDown() {
+		tracePack = null;
+		for (File file : folder.listFiles()) {
+			file.delete();
+		}
+		folder.delete();
+	}
+
+	@Override
+	public TimeUnit getTimeUnit() {
+		return TimeUnit.MILLISECONDS;
+	}
+}
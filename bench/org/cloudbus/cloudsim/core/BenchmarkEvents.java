@@ -0,0 +1,15 @@
+package org.cloudbus.cloudsim.core;
+
+/**
+ * Creates events for benchmarks of entities outside this package, which cannot call the constructors of
+ * {@link SimEvent}.
+ */
+public class BenchmarkEvents {
+
+	/**
+	 * @return an event sent from one entity to another, due now
+	 */
+	public static SimEvent newEvent(int src, int dest, int tag, Object data) {
+		return new SimEvent(SimEvent.SEND, CloudSim.clock(), src, dest, tag, data);
+	}
+}
@@ -0,0 +1,72 @@
+package org.cloudbus.cloudsim.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.fog.bench.Benchmark;
+
+/**
+ * Selecting events from the deferred queue: every operation selects the first event of a random entity
+ * with a random tag, and defers a new event in its place.
+ */
+public class DeferredQueueBenchmark extends Benchmark {
+
+	private static final int TAGS = 8;
+
+	private DeferredQueue queue;
+	private Random random;
+	private int entities;
+	private int eventsPerEntity;
+	private Predicate[] predicates;
+	private double time;
+
+	@Override
+	public String getName() {
+		return "DeferredQueue.select";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("entities", new String[]{"10", "1000"});
+		params.put("eventsPerEntity", new String[]{"10", "100"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) {
+		entities = Integer.parseInt(params.get("entities"));
+		eventsPerEntity = Integer.parseInt(params.get("eventsPerEntity"));
+		predicates = new Predicate[TAGS];
+		for (int tag = 0; tag < TAGS; tag++)
+			predicates[tag] = new PredicateType(tag);
+	}
+
+	@Override
+	public void setupIteration() {
+		queue = new DeferredQueue();
+		random = new Random(42);
+		time = 0;
+		for (int i = 0; i < eventsPerEntity; i++) {
+			for (int entity = 0; entity < entities; entity++)
+				queue.addEvent(newEvent(entity, random.nextInt(TAGS)));
+		}
+	}
+
+	@Override
+	public Object run() {
+		int entity = random.nextInt(entities);
+		SimEvent event = queue.select(entity, predicates[random.nextInt(TAGS)]);
+		if (event != null)
+			queue.addEvent(newEvent(entity, random.nextInt(TAGS)));
+		return event;
+	}
+
+	private SimEvent newEvent(int entity, int tag) {
+		time += 0.1;
+		return new SimEvent(SimEvent.SEND, time, 0, entity, tag, null);
+	}
+}
@@ -0,0 +1,68 @@
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.fog.bench.Benchmark;
+
+/**
+ * Inserting into and popping from the future event list, in the hold model: the queue holds a fixed number
+ * of events, and every operation pops the first event and schedules a new one a random delay after it.
+ */
+public class FutureQueueBenchmark extends Benchmark {
+
+	private FutureQueue queue;
+	private Random random;
+	private int size;
+	private final List<SimEvent> batch = new ArrayList<SimEvent>();
+
+	@Override
+	public String getName() {
+		return "FutureQueue.hold";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("queue", new String[]{"treeset", "heap", "calendar"});
+		params.put("size", new String[]{"100", "10000", "1000000"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) {
+		size = Integer.parseInt(params.get("size"));
+		String type = params.get("queue");
+		if (type.equals("heap"))
+			queue = new HeapFutureQueue();
+		else if (type.equals("calendar"))
+			queue = new CalendarFutureQueue();
+		else
+			queue = new FutureQueue();
+	}
+
+	@Override
+	public void setupIteration() {
+		queue.clear();
+		random = new Random(42);
+		for (int i = 0; i < size; i++)
+			queue.addEvent(newEvent(random.nextDouble() * 100));
+	}
+
+	@Override
+	public Object run() {
+		batch.clear();
+		SimEvent first = queue.peek();
+		queue.pollAll(first.eventTime(), batch);
+		for (int i = 0; i < batch.size(); i++)
+			queue.addEvent(newEvent(first.eventTime() + random.nextDouble() * 100));
+		return first;
+	}
+
+	private SimEvent newEvent(double time) {
+		return new SimEvent(SimEvent.SEND, time, 1, 2, 0, null);
+	}
+}
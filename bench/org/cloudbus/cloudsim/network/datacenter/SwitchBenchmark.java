@@ -0,0 +1,143 @@
+package org.cloudbus.cloudsim.network.datacenter;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.fog.bench.Benchmark;
+
+/**
+ * Forwarding packets between the VMs of the hosts of a datacenter network of a root switch, two aggregate
+ * switches and two edge switches with two hosts each. The VMs send bursts of 50 packets to random VMs on
+ * other hosts every millisecond. Every operation runs a whole simulation in a fresh simulation context.
+ */
+public class SwitchBenchmark extends Benchmark {
+
+	private static final int HOSTS = 4;
+	private static final int VMS = 8;
+	private static final int BURST = 50;
+
+	private int packets;
+
+	@Override
+	public String getName() {
+		return "Switch.forward";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("packets", new String[]{"1000", "10000"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) {
+		packets = Integer.parseInt(params.get("packets"));
+	}
+
+	@Override
+	public Object run() throws Exception {
+		SimulationContext previous = SimulationContext.bind(new SimulationContext(1));
+		try {
+			CloudSim.init(1, Calendar.getInstance(), false);
+			List<Host> hosts = new ArrayList<Host>();
+			for (int i = 0; i < HOSTS; i++) {
+				List<Pe> peList = new ArrayList<Pe>();
+				peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+				hosts.add(new NetworkHost(i, new RamProvisionerSimple(100000), new BwProvisionerSimple(100000), 100000,
+						peList, new VmSchedulerTimeShared(peList)));
+			}
+			NetworkDatacenter dc = new NetworkDatacenter("dc", new DatacenterCharacteristics("x86", "Linux", "Xen",
+					hosts, 10, 3, 0.05, 0.001, 0), new VmAllocationPolicySimple(hosts), new LinkedList<Storage>(), 0);
+
+			RootSwitch root = new RootSwitch("root", NetworkConstants.ROOT_LEVEL, dc);
+			final Receiver receiver = new Receiver();
+			final EdgeSwitch[] edges = new EdgeSwitch[2];
+			for (int i = 0; i < 2; i++) {
+				AggregateSwitch aggregate = new AggregateSwitch("agg-" + i, NetworkConstants.Agg_LEVEL, dc);
+				edges[i] = new EdgeSwitch("edge-" + i, NetworkConstants.EDGE_LEVEL, dc) {
+					@Override
+					protected void processhostpacket(SimEvent ev) {
+						receiver.packets++;
+					}
+				};
+				root.downlinkswitches.add(aggregate);
+				aggregate.uplinkswitches.add(root);
+				aggregate.downlinkswitches.add(edges[i]);
+				edges[i].uplinkswitches.add(aggregate);
+				for (int j = 0; j < HOSTS / 2; j++) {
+					edges[i].hostlist.put(i * HOSTS / 2 + j, (NetworkHost) hosts.get(i * HOSTS / 2 + j));
+				}
+			}
+			for (int vm = 0; vm < VMS; vm++) {
+				int host = vm % HOSTS;
+				dc.VmtoHostlist.put(vm, host);
+				dc.VmToSwitchid.put(vm, edges[host / (HOSTS / 2)].getId());
+			}
+
+			new SimEntity("sender") {
+
+				private final Random random = new Random(1);
+				private int sent;
+
+				@Override
+				public void startEntity() {
+					schedule(getId(), 0, CloudSimTags.Network_Event_send);
+				}
+
+				@Override
+				public void processEvent(SimEvent ev) {
+					for (int i = 0; i < BURST && sent < packets; i++, sent++) {
+						int sender = random.nextInt(VMS);
+						int reciever = (sender + 1 + random.nextInt(HOSTS - 1)) % HOSTS + HOSTS * random.nextInt(VMS / HOSTS);
+						HostPacket pkt = new HostPacket(sender, reciever, 100 + random.nextInt(5) * 1000, CloudSim.clock(),
+								-1, sender, reciever);
+						int host = sender % HOSTS;
+						sendNow(edges[host / (HOSTS / 2)].getId(), CloudSimTags.Network_Event_UP,
+								new NetworkPacket(host, pkt, sender, 0));
+					}
+					if (sent < packets) {
+						schedule(getId(), 0.001, CloudSimTags.Network_Event_send);
+					}
+				}
+
+				@Override
+				public void shutdownEntity() {
+				}
+			};
+			CloudSim.startSimulation();
+			return receiver.packets;
+		} finally {
+			SimulationContext.bind(previous);
+		}
+	}
+
+	@Override
+	public TimeUnit getTimeUnit() {
+		return TimeUnit.MILLISECONDS;
+	}
+
+	private static class Receiver {
+		private long packets;
+	}
+}
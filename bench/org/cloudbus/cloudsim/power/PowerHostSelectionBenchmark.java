@@ -0,0 +1,57 @@
+package org.cloudbus.cloudsim.power;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.CloudletSchedulerDynamicWorkload;
+import org.cloudbus.cloudsim.Host;
+
+/**
+ * Finding the hosts to migrate VMs to with the adaptive migration policies, on the datacenter of
+ * {@link PowerPolicyBenchmark}. Every operation looks for a host for each of a batch of VMs, without
+ * allocating them, so that the hosts compete on their power increase and are checked for over-utilization.
+ */
+public class PowerHostSelectionBenchmark extends PowerPolicyBenchmark {
+
+	private static final int VMS_TO_PLACE = 16;
+
+	private List<PowerVm> vmsToPlace;
+
+	@Override
+	public String getName() {
+		return "PowerVmAllocationPolicyMigration.findHostForVm";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("policy", new String[]{"lr", "iqr"});
+		params.put("hosts", new String[]{"100", "1000"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) throws Exception {
+		super.setup(params);
+		vmsToPlace = new ArrayList<PowerVm>();
+		for (int i = 0; i < VMS_TO_PLACE; i++) {
+			double mips = 250 * (1 + i % 4);
+			vmsToPlace.add(new PowerVm(-1 - i, 0, mips, 1, 870, 100, 2500, 1, "Xen",
+					new CloudletSchedulerDynamicWorkload(mips, 1), 300));
+		}
+	}
+
+	@Override
+	public Object run() {
+		int found = 0;
+		for (PowerVm vm : vmsToPlace) {
+			if (policy.findHostForVm(vm, Collections.<Host> emptySet()) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+}
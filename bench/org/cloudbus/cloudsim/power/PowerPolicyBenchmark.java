@@ -0,0 +1,117 @@
+package org.cloudbus.cloudsim.power;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.CloudletSchedulerDynamicWorkload;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.VmSchedulerTimeSharedOverSubscription;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.power.models.PowerModelSpecPowerHpProLiantMl110G5Xeon3075;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.fog.bench.Benchmark;
+import org.fog.bench.BenchmarkDevices;
+
+/**
+ * Detecting the overloaded hosts of a datacenter with the adaptive migration policies, once per scheduling
+ * interval. Every operation adds a utilization value to the history of each VM, as the VMs do at the end
+ * of an interval, and checks every host, as the policy does when optimizing the allocation.
+ */
+public class PowerPolicyBenchmark extends Benchmark {
+
+	private static final int VMS_PER_HOST = 4;
+
+	private SimulationContext context;
+	private SimulationContext previous;
+	protected PowerVmAllocationPolicyMigrationAbstract policy;
+	protected List<PowerHost> hosts;
+	private List<PowerVm> vms;
+	private Random random;
+
+	@Override
+	public String getName() {
+		return "PowerVmAllocationPolicyMigration.isHostOverUtilized";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("policy", new String[]{"lr", "lrr", "iqr", "mad"});
+		params.put("hosts", new String[]{"100", "1000"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) throws Exception {
+		context = new SimulationContext(1);
+		previous = SimulationContext.bind(context);
+		BenchmarkDevices.initSimulationDiscardingEvents();
+
+		hosts = new ArrayList<PowerHost>();
+		vms = new ArrayList<PowerVm>();
+		int hostCount = Integer.parseInt(params.get("hosts"));
+		for (int i = 0; i < hostCount; i++) {
+			List<Pe> peList = new ArrayList<Pe>();
+			peList.add(new Pe(0, new PeProvisionerSimple(2660)));
+			peList.add(new Pe(1, new PeProvisionerSimple(2660)));
+			PowerHost host = new PowerHostUtilizationHistory(i, new RamProvisionerSimple(8192),
+					new BwProvisionerSimple(1000000), 1000000, peList, new VmSchedulerTimeSharedOverSubscription(peList),
+					new PowerModelSpecPowerHpProLiantMl110G5Xeon3075());
+			for (int j = 0; j < VMS_PER_HOST; j++) {
+				double mips = 250 * (1 + j);
+				PowerVm vm = new PowerVm(vms.size(), 0, mips, 1, 870, 100, 2500, 1, "Xen",
+						new CloudletSchedulerDynamicWorkload(mips, 1), 300);
+				host.vmCreate(vm);
+				vms.add(vm);
+			}
+			hosts.add(host);
+		}
+
+		PowerVmSelectionPolicy selectionPolicy = new PowerVmSelectionPolicyMinimumMigrationTime();
+		PowerVmAllocationPolicyMigrationAbstract fallback = new PowerVmAllocationPolicyMigrationStaticThreshold(
+				hosts, selectionPolicy, 0.8);
+		String name = params.get("policy");
+		if (name.equals("lr")) {
+			policy = new PowerVmAllocationPolicyMigrationLocalRegression(hosts, selectionPolicy, 1.2, 300, fallback);
+		} else if (name.equals("lrr")) {
+			policy = new PowerVmAllocationPolicyMigrationLocalRegressionRobust(hosts, selectionPolicy, 1.2, 300, fallback);
+		} else if (name.equals("iqr")) {
+			policy = new PowerVmAllocationPolicyMigrationInterQuartileRange(hosts, selectionPolicy, 1.5, fallback);
+		} else {
+			policy = new PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation(hosts, selectionPolicy, 2.5, fallback);
+		}
+
+		random = new Random(1);
+		for (int i = 0; i < PowerVm.HISTORY_LENGTH; i++) {
+			addUtilizationValues();
+		}
+	}
+
+	private void addUtilizationValues() {
+		for (PowerVm vm : vms) {
+			vm.addUtilizationHistoryValue(random.nextDouble());
+		}
+	}
+
+	@Override
+	public Object run() {
+		addUtilizationValues();
+		int overUtilized = 0;
+		for (PowerHost host : hosts) {
+			if (policy.isHostOverUtilized(host)) {
+				overUtilized++;
+			}
+		}
+		return overUtilized;
+	}
+
+	@Override
+	public void tearDown() {
+		SimulationContext.bind(previous);
+	}
+}
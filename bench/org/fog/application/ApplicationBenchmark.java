@@ -0,0 +1,59 @@
+package org.fog.application;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fog.application.selectivity.FractionalSelectivity;
+import org.fog.bench.Benchmark;
+import org.fog.entities.Tuple;
+import org.fog.entities.TuplePool;
+
+/**
+ * Creating the tuples a module emits when it executes a tuple, for a module with many outgoing edges. Half of
+ * the edges are triggered by the executed tuple type and half by another type. The emitted tuples are
+ * returned to the tuple pool, as actuators do.
+ */
+public class ApplicationBenchmark extends Benchmark {
+
+	private Application application;
+	private Tuple inputTuple;
+
+	@Override
+	public String getName() {
+		return "Application.getResultantTuples";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("edges", new String[]{"2", "16", "128"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) {
+		int edges = Integer.parseInt(params.get("edges"));
+		application = Application.createApplication("bench", 1);
+		application.addAppModule("operator", 10);
+		for (int i = 0; i < edges; i++) {
+			String inputType = i % 2 == 0 ? "IN" : "OTHER";
+			application.addAppModule("consumer-" + i, 10);
+			application.addAppEdge("operator", "consumer-" + i, 1000, 500, "OUT-" + i, Tuple.UP, AppEdge.MODULE);
+			application.addTupleMapping("operator", inputType, "OUT-" + i, new FractionalSelectivity(1.0));
+		}
+		inputTuple = new Tuple("bench", 0, Tuple.UP, 1000, 1, 500, 100, Tuple.FULL_UTILIZATION,
+				Tuple.FULL_UTILIZATION, Tuple.FULL_UTILIZATION);
+		inputTuple.setUserId(1);
+		inputTuple.setTupleType("IN");
+	}
+
+	@Override
+	public Object run() {
+		List<Tuple> tuples = application.getResultantTuples("operator", inputTuple, 2, 3);
+		TuplePool tuplePool = TuplePool.getInstance();
+		for (Tuple tuple : tuples)
+			tuplePool.release(tuple);
+		return tuples;
+	}
+}
@@ -0,0 +1,69 @@
+package org.fog.bench;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A benchmark run by {@link BenchmarkRunner}: an operation that is timed repeatedly for every combination
+ * of the values of its parameters.
+ * <p>
+ * {@link #setup(Map)} is called once for every combination of parameters, {@link #setupIteration()}
+ * before every warmup and measurement iteration, and {@link #run()} as many times as fit in an iteration.
+ */
+public abstract class Benchmark {
+
+	/**
+	 * @return the name under which the results are reported, e.g. <tt>FutureQueue.holdModel</tt>
+	 */
+	public abstract String getName();
+
+	/**
+	 * @return name of every parameter -> the values it is benchmarked with
+	 */
+	public Map<String, String[]> getParams() {
+		return new LinkedHashMap<String, String[]>();
+	}
+
+	/**
+	 * Prepares the benchmark for a combination of parameters.
+	 * @param params name of every parameter -> its value
+	 * @throws Exception
+	 */
+	public void setup(Map<String, String> params) throws Exception {
+	}
+
+	/**
+	 * Prepares the benchmark for an iteration, e.g. restores a queue the operation drains.
+	 * @throws Exception
+	 */
+	public void setupIteration() throws Exception {
+	}
+
+	/**
+	 * Runs the operation once.
+	 * @return a result of the operation, which the runner consumes so that the work is not optimized away
+	 * @throws Exception
+	 */
+	public abstract Object run() throws Exception;
+
+	/**
+	 * Releases what {@link #setup(Map)} created.
+	 */
+	public void tearDown() {
+	}
+
+	/**
+	 * @return the number of operations one call of {@link #run()} performs; the time is reported per operation
+	 */
+	public int getOperationsPerInvocation() {
+		return 1;
+	}
+
+	/**
+	 * @return the unit the time per operation is reported in
+	 */
+	public TimeUnit getTimeUnit() {
+		return TimeUnit.NANOSECONDS;
+	}
+}
@@ -0,0 +1,91 @@
+package org.fog.bench;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.FutureQueue;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
+import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDeviceCharacteristics;
+import org.fog.entities.MicroserviceFogDevice;
+import org.fog.policy.AppModuleAllocationPolicy;
+import org.fog.scheduler.StreamOperatorScheduler;
+import org.fog.utils.FogLinearPowerModel;
+import org.fog.utils.FogUtils;
+
+/**
+ * Creates the simulation and the fog devices of the benchmarks, configured like the gateways of the VRGame example.
+ */
+public class BenchmarkDevices {
+
+	/**
+	 * Initialises the simulation context bound to the calling thread with a future queue that discards the
+	 * events sent to it, so that the measured operations do not accumulate events between the invocations.
+	 */
+	public static void initSimulationDiscardingEvents() {
+		CloudSim.init(1, Calendar.getInstance(), false, new FutureQueue() {
+			@Override
+			public void addEvent(SimEvent newEvent) {
+			}
+
+			@Override
+			public void addEventFirst(SimEvent newEvent) {
+			}
+		});
+	}
+
+	/**
+	 * Creates a fog device in the simulation context bound to the calling thread, which must have been
+	 * initialised with <tt>CloudSim.init</tt>.
+	 * @param name name of the device
+	 * @return the device, without parent or children
+	 * @throws Exception
+	 */
+	public static FogDevice createFogDevice(String name) throws Exception {
+		PowerHost host = createHost();
+		return new FogDevice(name, createCharacteristics(host), new AppModuleAllocationPolicy(hostList(host)),
+				new LinkedList<Storage>(), 10, 10000, 10000, 0, 0);
+	}
+
+	/**
+	 * Creates a microservice fog device in the simulation context bound to the calling thread, which must have
+	 * been initialised with <tt>CloudSim.init</tt>.
+	 * @param name name of the device
+	 * @param deviceType e.g. <tt>MicroserviceFogDevice.FCN</tt>
+	 * @return the device, without parent, children or cluster
+	 * @throws Exception
+	 */
+	public static MicroserviceFogDevice createMicroserviceFogDevice(String name, String deviceType) throws Exception {
+		PowerHost host = createHost();
+		return new MicroserviceFogDevice(name, createCharacteristics(host), new AppModuleAllocationPolicy(hostList(host)),
+				new LinkedList<Storage>(), 10, 10000, 10000, 10000, 0, 0, deviceType);
+	}
+
+	private static PowerHost createHost() {
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerOverbooking(2800)));
+		return new PowerHost(FogUtils.generateEntityId(), new RamProvisionerSimple(4000),
+				new BwProvisionerOverbooking(10000), 1000000, peList, new StreamOperatorScheduler(peList),
+				new FogLinearPowerModel(107.339, 83.4333));
+	}
+
+	private static List<Host> hostList(PowerHost host) {
+		List<Host> hostList = new ArrayList<Host>();
+		hostList.add(host);
+		return hostList;
+	}
+
+	private static FogDeviceCharacteristics createCharacteristics(PowerHost host) {
+		return new FogDeviceCharacteristics("x86", "Linux", "Xen", host, 10.0, 3.0, 0.05, 0.001, 0.0);
+	}
+}
@@ -0,0 +1,261 @@
+package org.fog.bench;
+
+import java.io.FileWriter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeSharedBenchmark;
+import org.cloudbus.cloudsim.DatacenterBenchmark;
+import org.cloudbus.cloudsim.HarddriveStorageBenchmark;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationTracePackBenchmark;
+import org.cloudbus.cloudsim.core.DeferredQueueBenchmark;
+import org.cloudbus.cloudsim.core.FutureQueueBenchmark;
+import org.cloudbus.cloudsim.network.datacenter.SwitchBenchmark;
+import org.cloudbus.cloudsim.power.PowerHostSelectionBenchmark;
+import org.cloudbus.cloudsim.power.PowerPolicyBenchmark;
+import org.fog.application.ApplicationBenchmark;
+import org.fog.entities.FogDeviceBenchmark;
+import org.fog.entities.SensorGroupBenchmark;
+import org.fog.placement.LocationHandlerBenchmark;
+import org.fog.placement.PlacementBenchmark;
+import org.fog.scheduler.TupleSchedulerBenchmark;
+import org.fog.test.perfeval.SimulationBenchmark;
+import org.fog.utils.RoutingBenchmark;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Runs the benchmarks of the simulation kernel and of the fog hot paths and writes the results as JSON, in
+ * the layout of JMH's JSON results so that runs of different versions can be compared with the usual tools.
+ * <p>
+ * Every benchmark is run in average time mode: after the warmup iterations, the time per operation is
+ * measured in every measurement iteration, and the score is the mean with its 99.9% confidence interval.
+ * <p>
+ * Usage: BenchmarkRunner [-f regex] [-wi warmup iterations] [-i iterations] [-r seconds per iteration]
+ * [-p name=value,value...] [-o results.json]
+ */
+public class BenchmarkRunner {
+
+	private static final PrintStream STDOUT = System.out;
+
+	private static final PrintStream DISCARD = new PrintStream(new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	});
+
+	/** Consumes the results of the operations, so that they are not optimized away. */
+	private static volatile int sink;
+
+	private Pattern filter = Pattern.compile(".*");
+	private int warmupIterations = 3;
+	private int measurementIterations = 5;
+	private double iterationSeconds = 1;
+	private String output = "benchmark-results.json";
+	private final Map<String, String[]> paramOverrides = new LinkedHashMap<String, String[]>();
+
+	public static List<Benchmark> getBenchmarks() {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		benchmarks.add(new FutureQueueBenchmark());
+		benchmarks.add(new DeferredQueueBenchmark());
+		benchmarks.add(new CloudletSchedulerTimeSharedBenchmark());
+		benchmarks.add(new TupleSchedulerBenchmark());
+		benchmarks.add(new DatacenterBenchmark());
+		benchmarks.add(new UtilizationTracePackBenchmark());
+		benchmarks.add(new HarddriveStorageBenchmark());
+		benchmarks.add(new SwitchBenchmark());
+		benchmarks.add(new PowerPolicyBenchmark());
+		benchmarks.add(new PowerHostSelectionBenchmark());
+		benchmarks.add(new FogDeviceBenchmark());
+		benchmarks.add(new SensorGroupBenchmark());
+		benchmarks.add(new ApplicationBenchmark());
+		benchmarks.add(new RoutingBenchmark());
+		benchmarks.add(new LocationHandlerBenchmark());
+		benchmarks.add(new PlacementBenchmark());
+		benchmarks.add(new SimulationBenchmark());
+		return benchmarks;
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner();
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if (i + 1 >= args.length)
+				throw new IllegalArgumentException("Missing value of option " + option);
+			String value = args[++i];
+			if (option.equals("-f"))
+				runner.filter = Pattern.compile(value);
+			else if (option.equals("-wi"))
+				runner.warmupIterations = Integer.parseInt(value);
+			else if (option.equals("-i"))
+				runner.measurementIterations = Integer.parseInt(value);
+			else if (option.equals("-r"))
+				runner.iterationSeconds = Double.parseDouble(value);
+			else if (option.equals("-o"))
+				runner.output = value;
+			else if (option.equals("-p")) {
+				int equals = value.indexOf('=');
+				runner.paramOverrides.put(value.substring(0, equals), value.substring(equals + 1).split(","));
+			} else
+				throw new IllegalArgumentException("Unknown option " + option);
+		}
+		runner.run(getBenchmarks());
+	}
+
+	@SuppressWarnings("unchecked")
+	public void run(List<Benchmark> benchmarks) throws Exception {
+		Log.disable();
+		JSONArray results = new JSONArray();
+		for (Benchmark benchmark : benchmarks) {
+			if (!filter.matcher(benchmark.getName()).find())
+				continue;
+			Map<String, String[]> params = new LinkedHashMap<String, String[]>(benchmark.getParams());
+			for (String name : paramOverrides.keySet()) {
+				if (params.containsKey(name))
+					params.put(name, paramOverrides.get(name));
+			}
+			for (Map<String, String> combination : combinations(params)) {
+				results.add(run(benchmark, combination));
+			}
+		}
+		Writer writer = new FileWriter(output);
+		try {
+			results.writeJSONString(writer);
+		} finally {
+			writer.close();
+		}
+		STDOUT.println("Results written to " + output);
+	}
+
+	@SuppressWarnings("unchecked")
+	private JSONObject run(Benchmark benchmark, Map<String, String> params) throws Exception {
+		STDOUT.println("# Benchmark: " + benchmark.getName() + " " + params);
+		double[] scores = new double[measurementIterations];
+		System.setOut(DISCARD);
+		try {
+			benchmark.setup(params);
+			for (int i = 0; i < warmupIterations; i++) {
+				double score = iteration(benchmark);
+				STDOUT.println("Warmup iteration " + (i + 1) + ": " + score + " " + unit(benchmark));
+			}
+			for (int i = 0; i < measurementIterations; i++) {
+				scores[i] = iteration(benchmark);
+				STDOUT.println("Iteration " + (i + 1) + ": " + scores[i] + " " + unit(benchmark));
+			}
+		} finally {
+			benchmark.tearDown();
+			System.setOut(STDOUT);
+		}
+
+		double mean = 0;
+		for (double score : scores)
+			mean += score;
+		mean /= scores.length;
+		double error = Double.NaN;
+		if (scores.length > 1) {
+			double variance = 0;
+			for (double score : scores)
+				variance += (score - mean) * (score - mean);
+			variance /= scores.length - 1;
+			double t = new TDistribution(scores.length - 1).inverseCumulativeProbability(1 - 0.001 / 2);
+			error = t * Math.sqrt(variance / scores.length);
+		}
+		STDOUT.println("Result: " + mean + " +- " + error + " " + unit(benchmark));
+
+		JSONObject result = new JSONObject();
+		result.put("benchmark", benchmark.getName());
+		result.put("mode", "avgt");
+		result.put("threads", 1);
+		result.put("forks", 1);
+		result.put("warmupIterations", warmupIterations);
+		result.put("warmupTime", iterationSeconds + " s");
+		result.put("measurementIterations", measurementIterations);
+		result.put("measurementTime", iterationSeconds + " s");
+		JSONObject paramsJson = new JSONObject();
+		paramsJson.putAll(params);
+		result.put("params", paramsJson);
+
+		JSONObject primaryMetric = new JSONObject();
+		primaryMetric.put("score", mean);
+		primaryMetric.put("scoreError", error);
+		JSONArray confidence = new JSONArray();
+		confidence.add(mean - error);
+		confidence.add(mean + error);
+		primaryMetric.put("scoreConfidence", confidence);
+		primaryMetric.put("scoreUnit", unit(benchmark));
+		JSONArray rawData = new JSONArray();
+		JSONArray fork = new JSONArray();
+		for (double score : scores)
+			fork.add(score);
+		rawData.add(fork);
+		primaryMetric.put("rawData", rawData);
+		result.put("primaryMetric", primaryMetric);
+		return result;
+	}
+
+	/**
+	 * Runs the operation of a benchmark for the duration of an iteration, and at least once.
+	 * @return the average time per operation
+	 */
+	private double iteration(Benchmark benchmark) throws Exception {
+		benchmark.setupIteration();
+		long duration = (long) (iterationSeconds * 1e9);
+		long invocations = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		int hash = 0;
+		do {
+			Object result = benchmark.run();
+			if (result != null)
+				hash += System.identityHashCode(result);
+			invocations++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < duration);
+		sink += hash;
+		double nanosPerOperation = (double) elapsed / (invocations * benchmark.getOperationsPerInvocation());
+		return nanosPerOperation / TimeUnit.NANOSECONDS.convert(1, benchmark.getTimeUnit());
+	}
+
+	private static String unit(Benchmark benchmark) {
+		switch (benchmark.getTimeUnit()) {
+		case NANOSECONDS:
+			return "ns/op";
+		case MICROSECONDS:
+			return "us/op";
+		case MILLISECONDS:
+			return "ms/op";
+		default:
+			return "s/op";
+		}
+	}
+
+	private static List<Map<String, String>> combinations(Map<String, String[]> params) {
+		List<Map<String, String>> combinations = new ArrayList<Map<String, String>>();
+		combinations.add(new LinkedHashMap<String, String>());
+		for (Map.Entry<String, String[]> param : params.entrySet()) {
+			List<Map<String, String>> extended = new ArrayList<Map<String, String>>();
+			for (Map<String, String> combination : combinations) {
+				for (String value : param.getValue()) {
+					Map<String, String> copy = new LinkedHashMap<String, String>(combination);
+					copy.put(param.getKey(), value);
+					extended.add(copy);
+				}
+			}
+			combinations = extended;
+		}
+		return combinations;
+	}
+}
@@ -0,0 +1,82 @@
+package org.fog.entities;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.BenchmarkEvents;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.bench.Benchmark;
+import org.fog.bench.BenchmarkDevices;
+import org.fog.utils.FogEvents;
+
+/**
+ * Forwarding a tuple that arrives at a gateway without modules: up to its parent, or down to all of its
+ * children. The events the gateway sends are discarded, and its links are freed after every operation, so
+ * that every operation finds the gateway in the same state.
+ */
+public class FogDeviceBenchmark extends Benchmark {
+
+	private SimulationContext context;
+	private SimulationContext previous;
+	private FogDevice gateway;
+	private SimEvent arrival;
+
+	@Override
+	public String getName() {
+		return "FogDevice.processTupleArrival";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("direction", new String[]{"up", "down"});
+		params.put("children", new String[]{"10", "100", "1000"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) throws Exception {
+		int children = Integer.parseInt(params.get("children"));
+		boolean up = params.get("direction").equals("up");
+
+		context = new SimulationContext(1);
+		previous = SimulationContext.bind(context);
+		BenchmarkDevices.initSimulationDiscardingEvents();
+
+		FogDevice proxy = BenchmarkDevices.createFogDevice("proxy-server");
+		gateway = BenchmarkDevices.createFogDevice("d-0");
+		gateway.setParentId(proxy.getId());
+		gateway.setUplinkLatency(4);
+		proxy.getChildrenIds().add(gateway.getId());
+		proxy.getChildToLatencyMap().put(gateway.getId(), 4.0);
+		for (int i = 0; i < children; i++) {
+			FogDevice mobile = BenchmarkDevices.createFogDevice("m-0-" + i);
+			mobile.setParentId(gateway.getId());
+			mobile.setUplinkLatency(2);
+			gateway.getChildrenIds().add(mobile.getId());
+			gateway.getChildToLatencyMap().put(mobile.getId(), 2.0);
+		}
+
+		Tuple tuple = new Tuple("bench", 0, up ? Tuple.UP : Tuple.DOWN, 1000, 1, 500, 100,
+				Tuple.FULL_UTILIZATION, Tuple.FULL_UTILIZATION, Tuple.FULL_UTILIZATION);
+		tuple.setUserId(1);
+		tuple.setTupleType(up ? "_SENSOR" : "GLOBAL_GAME_STATE");
+		tuple.setDestModuleName(up ? "concentration_calculator" : "client");
+		int source = up ? gateway.getChildrenIds().get(0) : proxy.getId();
+		arrival = BenchmarkEvents.newEvent(source, gateway.getId(), FogEvents.TUPLE_ARRIVAL, tuple);
+	}
+
+	@Override
+	public Object run() {
+		gateway.processTupleArrival(arrival);
+		gateway.setNorthLinkBusy(false);
+		gateway.setSouthLinkBusy(false);
+		return arrival;
+	}
+
+	@Override
+	public void tearDown() {
+		SimulationContext.bind(previous);
+	}
+}
@@ -0,0 +1,109 @@
+package org.fog.entities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.application.AppEdge;
+import org.fog.application.AppLoop;
+import org.fog.application.Application;
+import org.fog.bench.Benchmark;
+import org.fog.utils.FogEvents;
+import org.fog.utils.distribution.DeterministicDistribution;
+
+/**
+ * Emitting the tuples of camera sensors with a few deterministic transmit distributions for 100 seconds, every
+ * sensor scheduling its own emissions or all sensors in a group. The tuples go to a gateway that releases them.
+ * Every operation runs a whole simulation in a fresh simulation context.
+ */
+public class SensorGroupBenchmark extends Benchmark {
+
+	private static final double SIMULATION_TIME = 100;
+
+	private boolean group;
+	private int sensors;
+
+	@Override
+	public String getName() {
+		return "Sensor.transmit";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("emission", new String[]{"sensor", "group"});
+		params.put("sensors", new String[]{"1000", "10000"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) {
+		group = params.get("emission").equals("group");
+		sensors = Integer.parseInt(params.get("sensors"));
+	}
+
+	@Override
+	public Object run() throws Exception {
+		SimulationContext previous = SimulationContext.bind(new SimulationContext(1));
+		try {
+			CloudSim.init(1, Calendar.getInstance(), false);
+			Application application = Application.createApplication("bench", 1);
+			application.addAppModule("motion_detector", 10);
+			application.addAppEdge("CAMERA", "motion_detector", 1000, 20000, "CAMERA", Tuple.UP, AppEdge.SENSOR);
+			application.setLoops(new ArrayList<AppLoop>(Arrays.asList(new AppLoop(Arrays.asList("CAMERA", "motion_detector")))));
+
+			Gateway gateway = new Gateway();
+			SensorGroup sensorGroup = group ? new SensorGroup("sensor-group") : null;
+			for (int i = 0; i < sensors; i++) {
+				Sensor sensor = new Sensor("s-" + i, "CAMERA", 1, "bench", new DeterministicDistribution(1 + i % 5));
+				sensor.setApp(application);
+				sensor.setGatewayDeviceId(gateway.getId());
+				sensor.setLatency(1.0);
+				if (sensorGroup != null)
+					sensorGroup.addSensor(sensor);
+			}
+			CloudSim.terminateSimulation(SIMULATION_TIME);
+			CloudSim.startSimulation();
+			return gateway.tuples;
+		} finally {
+			SimulationContext.bind(previous);
+		}
+	}
+
+	@Override
+	public TimeUnit getTimeUnit() {
+		return TimeUnit.MILLISECONDS;
+	}
+
+	private static class Gateway extends SimEntity {
+
+		private long tuples;
+
+		Gateway() {
+			super("gateway");
+		}
+
+		@Override
+		public void startEntity() {
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (ev.getTag() == FogEvents.TUPLE_ARRIVAL) {
+				tuples++;
+				TuplePool.getInstance().release((Tuple) ev.getData());
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+}
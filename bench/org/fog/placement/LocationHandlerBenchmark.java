@@ -0,0 +1,92 @@
+package org.fog.placement;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.fog.bench.Benchmark;
+import org.fog.mobilitydata.DataParser;
+import org.fog.mobilitydata.Location;
+import org.fog.mobilitydata.MobilityTrace;
+
+/**
+ * Selecting the nearest gateway as the parent of a moving user, among gateways spread at random over the
+ * Melbourne CBD. Every operation selects the parent of the next user at the next event time of the traces.
+ */
+public class LocationHandlerBenchmark extends Benchmark {
+
+	private static final int USERS = 100;
+	private static final int EVENTS = 100;
+	private static final double EVENT_INTERVAL = 10;
+
+	private LocationHandler locationHandler;
+	private int operation;
+
+	@Override
+	public String getName() {
+		return "LocationHandler.determineParent";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("gateways", new String[]{"100", "1000", "10000"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) {
+		int gateways = Integer.parseInt(params.get("gateways"));
+		Random random = new Random(42);
+		DataParser dataParser = new DataParser();
+		dataParser.levelID.put("LevelsNum", 4);
+		dataParser.levelID.put("Cloud", 0);
+		dataParser.levelID.put("Proxy", 1);
+		dataParser.levelID.put("Gateway", 2);
+		dataParser.levelID.put("User", 3);
+		locationHandler = new LocationHandler(dataParser);
+
+		ArrayList<String> gatewayIds = new ArrayList<String>();
+		for (int i = 0; i < gateways; i++) {
+			String dataId = "res_" + i;
+			gatewayIds.add(dataId);
+			dataParser.resourceAndUserToLevel.put(dataId, 2);
+			dataParser.resourceLocationData.put(dataId, new Location(latitude(random), longitude(random), i % 8));
+			locationHandler.linkDataWithInstance(1000 + i, dataId);
+		}
+		dataParser.levelwiseResources.put(2, gatewayIds);
+
+		for (int i = 0; i < USERS; i++) {
+			double[] times = new double[EVENTS];
+			double[] latitudes = new double[EVENTS];
+			double[] longitudes = new double[EVENTS];
+			for (int j = 0; j < EVENTS; j++) {
+				times[j] = (j + 1) * EVENT_INTERVAL;
+				latitudes[j] = latitude(random);
+				longitudes[j] = longitude(random);
+			}
+			String dataId = "usr_" + i;
+			dataParser.usersLocation.put(dataId, new MobilityTrace(times, latitudes, longitudes));
+			dataParser.resourceAndUserToLevel.put(dataId, 3);
+			locationHandler.linkDataWithInstance(i, dataId);
+		}
+		operation = 0;
+	}
+
+	@Override
+	public Object run() {
+		int user = operation % USERS;
+		double time = (operation / USERS % EVENTS + 1) * EVENT_INTERVAL;
+		operation++;
+		return locationHandler.determineParent(user, time);
+	}
+
+	private static double latitude(Random random) {
+		return -37.82 + random.nextDouble() * 0.02;
+	}
+
+	private static double longitude(Random random) {
+		return 144.95 + random.nextDouble() * 0.03;
+	}
+}
@@ -0,0 +1,145 @@
+package org.fog.placement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.application.AppEdge;
+import org.fog.application.Application;
+import org.fog.bench.Benchmark;
+import org.fog.bench.BenchmarkDevices;
+import org.fog.entities.ControllerComponent;
+import org.fog.entities.FogDevice;
+import org.fog.entities.MicroserviceFogDevice;
+import org.fog.entities.PlacementRequest;
+import org.fog.entities.Tuple;
+
+/**
+ * Placing a batch of placement requests with the clustered microservice placement, sequential or parallel.
+ * The gateways are grouped in clusters of eight under a proxy and the cloud, and every request comes from a
+ * user of its own. The modules of a request are placed on the gateway of its user, its cluster and the proxy;
+ * the gateways have different capacities, so that the clusters have to be ordered. Every operation places the
+ * whole batch from the initial resources.
+ */
+public class PlacementBenchmark extends Benchmark {
+
+	private static final int GATEWAYS = 64;
+	private static final int CLUSTER_SIZE = 8;
+
+	private SimulationContext context;
+	private SimulationContext previous;
+	private int logic;
+	private int fonId;
+	private List<FogDevice> fogDevices;
+	private Map<String, Application> applicationInfo;
+	private Map<Integer, Map<String, Double>> resourceAvailability;
+	private List<Integer> users;
+
+	@Override
+	public String getName() {
+		return "MicroservicePlacementLogic.run";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("logic", new String[]{"clustered", "parallel"});
+		params.put("requests", new String[]{"64", "512"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) throws Exception {
+		logic = params.get("logic").equals("parallel") ? PlacementLogicFactory.PARALLEL_CLUSTERED_MICROSERVICES_PLACEMENT
+				: PlacementLogicFactory.CLUSTERED_MICROSERVICES_PLACEMENT;
+		int requests = Integer.parseInt(params.get("requests"));
+
+		context = new SimulationContext(1);
+		previous = SimulationContext.bind(context);
+		BenchmarkDevices.initSimulationDiscardingEvents();
+
+		fogDevices = new ArrayList<FogDevice>();
+		resourceAvailability = new HashMap<Integer, Map<String, Double>>();
+		MicroserviceFogDevice cloud = BenchmarkDevices.createMicroserviceFogDevice("cloud", MicroserviceFogDevice.CLOUD);
+		addDevice(cloud, 1000000);
+		MicroserviceFogDevice proxy = BenchmarkDevices.createMicroserviceFogDevice("proxy-server", MicroserviceFogDevice.FON);
+		connect(cloud, proxy);
+		addDevice(proxy, 4000);
+		fonId = proxy.getId();
+
+		List<MicroserviceFogDevice> gateways = new ArrayList<MicroserviceFogDevice>();
+		for (int i = 0; i < GATEWAYS; i++) {
+			MicroserviceFogDevice gateway = BenchmarkDevices.createMicroserviceFogDevice("d-" + i, MicroserviceFogDevice.FCN);
+			connect(proxy, gateway);
+			addDevice(gateway, 1000 + (i * 7 % 5) * 400);
+			gateways.add(gateway);
+		}
+		for (int i = 0; i < GATEWAYS; i++) {
+			List<Integer> members = new ArrayList<Integer>();
+			for (int j = i - i % CLUSTER_SIZE; j < i - i % CLUSTER_SIZE + CLUSTER_SIZE; j++) {
+				if (j != i)
+					members.add(gateways.get(j).getId());
+			}
+			gateways.get(i).setIsInCluster(true);
+			gateways.get(i).setClusterMembers(members);
+		}
+
+		users = new ArrayList<Integer>();
+		for (int i = 0; i < requests; i++) {
+			MicroserviceFogDevice user = BenchmarkDevices.createMicroserviceFogDevice("m-" + i, MicroserviceFogDevice.CLIENT);
+			connect(gateways.get(i % GATEWAYS), user);
+			addDevice(user, 500);
+			users.add(user.getId());
+		}
+
+		Application application = Application.createApplication("bench", 1);
+		application.addAppModule("client", 128, 100, 100);
+		application.addAppModule("processor", 512, 700, 200);
+		application.addAppModule("analytics", 512, 500, 200);
+		application.addAppModule("storage", 512, 200, 200);
+		application.addAppEdge("client", "processor", 1000, 500, "RAW", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("processor", "analytics", 1000, 500, "PROCESSED", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("analytics", "storage", 1000, 500, "ANALYSED", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("processor", "client", 1000, 500, "RESULT", Tuple.DOWN, AppEdge.MODULE);
+		application.setSpecialPlacementInfo("storage", "cloud");
+		applicationInfo = new HashMap<String, Application>();
+		applicationInfo.put(application.getAppId(), application);
+	}
+
+	private void addDevice(FogDevice device, double cpu) {
+		fogDevices.add(device);
+		Map<String, Double> resources = new HashMap<String, Double>();
+		resources.put(ControllerComponent.CPU, cpu);
+		resources.put(ControllerComponent.RAM, 4000.0);
+		resources.put(ControllerComponent.STORAGE, 1000000.0);
+		resourceAvailability.put(device.getId(), resources);
+	}
+
+	private static void connect(FogDevice parent, FogDevice child) {
+		child.setParentId(parent.getId());
+		parent.getChildrenIds().add(child.getId());
+	}
+
+	@Override
+	public Object run() {
+		Map<Integer, Map<String, Double>> resources = new HashMap<Integer, Map<String, Double>>();
+		for (Map.Entry<Integer, Map<String, Double>> entry : resourceAvailability.entrySet())
+			resources.put(entry.getKey(), new HashMap<String, Double>(entry.getValue()));
+		List<PlacementRequest> placementRequests = new ArrayList<PlacementRequest>();
+		for (int i = 0; i < users.size(); i++) {
+			Map<String, Integer> placed = new HashMap<String, Integer>();
+			placed.put("client", users.get(i));
+			placementRequests.add(new PlacementRequest("bench", i, users.get(i), placed));
+		}
+		MicroservicePlacementLogic placementLogic = new PlacementLogicFactory().getPlacementLogic(logic, fonId);
+		return placementLogic.run(fogDevices, applicationInfo, resources, placementRequests);
+	}
+
+	@Override
+	public void tearDown() {
+		SimulationContext.bind(previous);
+	}
+}
@@ -0,0 +1,79 @@
+package org.fog.scheduler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.fog.bench.Benchmark;
+
+/**
+ * Updating the processing of the tuples of a module, with the time shared scheduler of CloudSim or the tuple
+ * scheduler. Every operation advances all the tuples and takes the finished ones, which are replaced by new
+ * tuples of random length so that the number of running tuples stays the same.
+ */
+public class TupleSchedulerBenchmark extends Benchmark {
+
+	private CloudletSchedulerTimeShared scheduler;
+	private List<Double> mipsShare;
+	private UtilizationModel full;
+	private Random random;
+	private double time;
+	private int nextId;
+
+	@Override
+	public String getName() {
+		return "TupleScheduler.updateVmProcessing";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("scheduler", new String[]{"timeShared", "tuple"});
+		params.put("tuples", new String[]{"10", "100", "1000", "10000"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) {
+		int tuples = Integer.parseInt(params.get("tuples"));
+		mipsShare = new ArrayList<Double>();
+		mipsShare.add(1000.0);
+		if (params.get("scheduler").equals("tuple")) {
+			scheduler = new TupleScheduler(1000, 1);
+		} else {
+			scheduler = new CloudletSchedulerTimeShared();
+		}
+		full = new UtilizationModelFull();
+		random = new Random(1);
+		time = 0;
+		nextId = 0;
+		scheduler.updateVmProcessing(time, mipsShare);
+		for (int i = 0; i < tuples; i++) {
+			submit();
+		}
+	}
+
+	private void submit() {
+		Cloudlet cloudlet = new Cloudlet(nextId++, 1 + random.nextInt(200), 1, 0, 0, full, full, full);
+		// as the datacenter does, so that the cloudlet has not run anywhere yet
+		cloudlet.setResourceParameter(0, 0);
+		scheduler.cloudletSubmit(cloudlet);
+	}
+
+	@Override
+	public Object run() {
+		time += 0.01;
+		double nextEvent = scheduler.updateVmProcessing(time, mipsShare);
+		while (scheduler.isFinishedCloudlets()) {
+			scheduler.getNextFinishedCloudlet();
+			submit();
+		}
+		return nextEvent;
+	}
+}
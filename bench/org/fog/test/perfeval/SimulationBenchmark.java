@@ -0,0 +1,78 @@
+package org.fog.test.perfeval;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.bench.Benchmark;
+import org.fog.entities.FogDevice;
+
+/**
+ * A whole simulation of the VRGame or DCNS example, from the creation of the entities to the end of the
+ * simulation, at increasing scales. Every operation runs in a fresh simulation context with the same seed, so
+ * that every operation simulates the same events.
+ */
+public class SimulationBenchmark extends Benchmark {
+
+	private String example;
+	private int scale;
+	private int numOfDepts;
+	private int numOfMobilesPerDept;
+	private int numOfAreas;
+	private int numOfCamerasPerArea;
+
+	@Override
+	public String getName() {
+		return "Simulation.run";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("example", new String[]{"vrgame", "dcns"});
+		params.put("scale", new String[]{"1", "2", "4"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) {
+		example = params.get("example");
+		scale = Integer.parseInt(params.get("scale"));
+		numOfDepts = VRGameFog.numOfDepts;
+		numOfMobilesPerDept = VRGameFog.numOfMobilesPerDept;
+		numOfAreas = DCNSFog.numOfAreas;
+		numOfCamerasPerArea = DCNSFog.numOfCamerasPerArea;
+		if (example.equals("vrgame"))
+			VRGameFog.numOfDepts = numOfDepts * scale;
+		else if (example.equals("dcns"))
+			DCNSFog.numOfAreas = numOfAreas * scale;
+		else
+			throw new IllegalArgumentException("Unknown example:" + example);
+	}
+
+	@Override
+	public Object run() throws Exception {
+		SimulationContext previous = SimulationContext.bind(new SimulationContext(1));
+		try {
+			List<FogDevice> fogDevices = example.equals("vrgame") ? VRGameFog.simulate() : DCNSFog.simulate();
+			return fogDevices;
+		} finally {
+			SimulationContext.bind(previous);
+		}
+	}
+
+	@Override
+	public void tearDown() {
+		VRGameFog.numOfDepts = numOfDepts;
+		VRGameFog.numOfMobilesPerDept = numOfMobilesPerDept;
+		DCNSFog.numOfAreas = numOfAreas;
+		DCNSFog.numOfCamerasPerArea = numOfCamerasPerArea;
+	}
+
+	@Override
+	public TimeUnit getTimeUnit() {
+		return TimeUnit.MILLISECONDS;
+	}
+}
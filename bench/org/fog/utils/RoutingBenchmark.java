@@ -0,0 +1,77 @@
+package org.fog.utils;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.bench.Benchmark;
+import org.fog.bench.BenchmarkDevices;
+import org.fog.entities.FogDevice;
+
+/**
+ * Computing the routing table of the shortest paths between all devices of a hierarchical topology: a cloud,
+ * proxy servers, gateways and mobiles, each device with ten children.
+ */
+public class RoutingBenchmark extends Benchmark {
+
+	private static final int FANOUT = 10;
+
+	private SimulationContext previous;
+	private List<FogDevice> fogDevices;
+
+	@Override
+	public String getName() {
+		return "ShortestPathRoutingGenerator.generateRoutingTable";
+	}
+
+	@Override
+	public Map<String, String[]> getParams() {
+		Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+		params.put("devices", new String[]{"100", "1000", "3000"});
+		return params;
+	}
+
+	@Override
+	public void setup(Map<String, String> params) throws Exception {
+		int devices = Integer.parseInt(params.get("devices"));
+		previous = SimulationContext.bind(new SimulationContext(1));
+		CloudSim.init(1, Calendar.getInstance(), false);
+
+		fogDevices = new ArrayList<FogDevice>();
+		FogDevice cloud = BenchmarkDevices.createFogDevice("cloud");
+		cloud.setParentId(-1);
+		fogDevices.add(cloud);
+		// breadth first, so that every level is full before the next one starts
+		for (int i = 0; fogDevices.size() < devices; i++) {
+			FogDevice parent = fogDevices.get(i);
+			for (int j = 0; j < FANOUT && fogDevices.size() < devices; j++) {
+				FogDevice child = BenchmarkDevices.createFogDevice(parent.getName() + "-" + j);
+				child.setParentId(parent.getId());
+				child.setUplinkLatency(2 + i % 5);
+				parent.getChildrenIds().add(child.getId());
+				parent.getChildToLatencyMap().put(child.getId(), child.getUplinkLatency());
+				fogDevices.add(child);
+			}
+		}
+	}
+
+	@Override
+	public Object run() {
+		return ShortestPathRoutingGenerator.generateRoutingTable(fogDevices);
+	}
+
+	@Override
+	public void tearDown() {
+		SimulationContext.bind(previous);
+	}
+
+	@Override
+	public TimeUnit getTimeUnit() {
+		return TimeUnit.MILLISECONDS;
+	}
+}
@@ -27,6 +27,9 @@ public abstract class CloudletScheduler {
 	/** The current mips share. */
 	private List<Double> currentMipsShare;
 
+	/** The VM whose cloudlets are scheduled. */
+	private Vm vm;
+
 	/**
 	 * Creates a new CloudletScheduler object. This method must be invoked before starting the
 	 * actual simulation.
@@ -129,6 +132,46 @@ public abstract class CloudletScheduler {
 	 */
 	public abstract boolean isFinishedCloudlets();
 
+	/**
+	 * Tells whether the scheduler reports every cloudlet it finishes with
+	 * {@link #notifyCloudletFinished()}. The hosts check the VMs of schedulers that do for finished
+	 * cloudlets only when they report one, and the VMs of the other schedulers at every completion
+	 * check. A subclass that finishes cloudlets without the report, e.g. by overriding
+	 * {@link #cloudletFinish(ResCloudlet)} without calling the overridden method, must return
+	 * $false.
+	 * 
+	 * @return $true if the scheduler reports its finished cloudlets, $false otherwise
+	 * @see Host#pollVmsWithFinishedCloudlets()
+	 */
+	protected boolean reportsFinishedCloudlets() {
+		return false;
+	}
+
+	/**
+	 * Reports to the hosts of the VM that a cloudlet was added to the finished list, so that the
+	 * datacenter returns it at its next completion check.
+	 * 
+	 * @see #reportsFinishedCloudlets()
+	 */
+	protected void notifyCloudletFinished() {
+		if (vm != null) {
+			vm.reportFinishedCloudlet();
+		}
+	}
+
+	/**
+	 * Tells whether the scheduler has no cloudlet to process nor finished cloudlet to return, so
+	 * that updating its processing would only record the time and the MIPS share of the update.
+	 * Schedulers that cannot tell are never idle.
+	 * 
+	 * @return $true if the scheduler is idle, $false otherwise
+	 * @pre $none
+	 * @post $none
+	 */
+	public boolean isIdle() {
+		return false;
+	}
+
 	/**
 	 * Returns the next cloudlet in the finished list, $null if this list is empty.
 	 * 
@@ -248,4 +291,13 @@ public abstract class CloudletScheduler {
 		return currentMipsShare;
 	}
 
+	/**
+	 * Sets the VM whose cloudlets are scheduled.
+	 * 
+	 * @param vm the vm
+	 */
+	void setVm(Vm vm) {
+		this.vm = vm;
+	}
+
 }
@@ -155,6 +155,7 @@ public class CloudletSchedulerDynamicWorkload extends CloudletSchedulerTimeShare
 		rcl.setCloudletStatus(Cloudlet.SUCCESS);
 		rcl.finalizeCloudlet();
 		getCloudletFinishedList().add(rcl);
+		notifyCloudletFinished();
 	}
 
 	/**
@@ -273,6 +273,7 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 		rcl.setCloudletStatus(Cloudlet.SUCCESS);
 		rcl.finalizeCloudlet();
 		getCloudletFinishedList().add(rcl);
+		notifyCloudletFinished();
 		usedPes -= rcl.getNumberOfPes();
 	}
 
@@ -454,6 +455,16 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 		return totalUtilization;
 	}
 
+	/**
+	 * The scheduler reports every cloudlet it finishes.
+	 * 
+	 * @return $true
+	 */
+	@Override
+	protected boolean reportsFinishedCloudlets() {
+		return true;
+	}
+
 	/**
 	 * Informs about completion of some cloudlet in the VM managed by this scheduler.
 	 * 
@@ -466,6 +477,16 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 		return getCloudletFinishedList().size() > 0;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.CloudletScheduler#isIdle()
+	 */
+	@Override
+	public boolean isIdle() {
+		return getCloudletExecList().isEmpty() && getCloudletWaitingList().isEmpty()
+				&& getCloudletFinishedList().isEmpty();
+	}
+
 	/**
 	 * Returns the next cloudlet in the finished list, $null if this list is empty.
 	 * 
@@ -251,6 +251,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		rcl.setCloudletStatus(Cloudlet.SUCCESS);
 		rcl.finalizeCloudlet();
 		getCloudletFinishedList().add(rcl);
+		notifyCloudletFinished();
 	}
 
 	/**
@@ -367,6 +368,16 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		return totalUtilization;
 	}
 
+	/**
+	 * The scheduler reports every cloudlet it finishes.
+	 * 
+	 * @return $true
+	 */
+	@Override
+	protected boolean reportsFinishedCloudlets() {
+		return true;
+	}
+
 	/**
 	 * Informs about completion of some cloudlet in the VM managed by this scheduler.
 	 * 
@@ -379,6 +390,15 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		return getCloudletFinishedList().size() > 0;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.CloudletScheduler#isIdle()
+	 */
+	@Override
+	public boolean isIdle() {
+		return getCloudletExecList().isEmpty() && getCloudletFinishedList().isEmpty();
+	}
+
 	/**
 	 * Returns the next cloudlet in the finished list, $null if this list is empty.
 	 * 
@@ -892,7 +892,8 @@ public class Datacenter extends SimEntity {
 
 	/**
 	 * Verifies if some cloudlet inside this PowerDatacenter already finished. If yes, send it to
-	 * the User/Broker
+	 * the User/Broker. Only the VMs whose cloudlet scheduler reported finished cloudlets are
+	 * checked, see {@link Host#pollVmsWithFinishedCloudlets()}.
 	 * 
 	 * @pre $none
 	 * @post $none
@@ -901,7 +902,7 @@ public class Datacenter extends SimEntity {
 		List<? extends Host> list = getVmAllocationPolicy().getHostList();
 		for (int i = 0; i < list.size(); i++) {
 			Host host = list.get(i);
-			for (Vm vm : host.getVmList()) {
+			for (Vm vm : host.pollVmsWithFinishedCloudlets()) {
 				while (vm.getCloudletScheduler().isFinishedCloudlets()) {
 					Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
 					if (cl != null) {
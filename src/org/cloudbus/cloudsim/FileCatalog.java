@@ -0,0 +1,219 @@
+package org.cloudbus.cloudsim;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The files of a storage, indexed by name, in the order they were added. A file keeps the place where it
+ * was added when it is renamed.
+ * <p>
+ * The catalog also keeps the prefix sums of the sizes of the files, in a Fenwick tree over the places, so that
+ * the position of a file on the storage, the total size of the files added before it and of the file itself,
+ * is found without summing the sizes of the files before it. The size of a file is the size it had when it
+ * was added.
+ */
+class FileCatalog implements Iterable<File> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The name of every file -> its place. */
+	private final Map<String, Integer> places;
+
+	/** The file at every place, or null where a file was removed. */
+	private File[] files;
+
+	/** The name of the file at every place. */
+	private String[] names;
+
+	/** The size of the file at every place. */
+	private int[] sizes;
+
+	/** The Fenwick tree of the sizes, indexed from 1. */
+	private long[] tree;
+
+	/** The number of places taken, including the places of removed files. */
+	private int used;
+
+	FileCatalog() {
+		places = new HashMap<String, Integer>();
+		files = new File[INITIAL_CAPACITY];
+		names = new String[INITIAL_CAPACITY];
+		sizes = new int[INITIAL_CAPACITY];
+		tree = new long[INITIAL_CAPACITY + 1];
+	}
+
+	/**
+	 * @return the number of files
+	 */
+	int size() {
+		return places.size();
+	}
+
+	/**
+	 * @param fileName the name of a file
+	 * @return the file, or null if there is no file of that name
+	 */
+	File get(String fileName) {
+		Integer place = places.get(fileName);
+		return place == null ? null : files[place];
+	}
+
+	/**
+	 * @param fileName the name of a file in the catalog
+	 * @return the total size of the files added before the file and of the file itself
+	 */
+	long getPosition(String fileName) {
+		long position = 0;
+		for (int i = places.get(fileName) + 1; i > 0; i -= i & -i) {
+			position += tree[i];
+		}
+		return position;
+	}
+
+	/**
+	 * @return the total size of the files
+	 */
+	long getTotalSize() {
+		long size = 0;
+		for (int i = used; i > 0; i -= i & -i) {
+			size += tree[i];
+		}
+		return size;
+	}
+
+	/**
+	 * Adds a file after the files already in the catalog.
+	 *
+	 * @param file a file whose name is not in the catalog
+	 */
+	void add(File file) {
+		if (used == files.length) {
+			compact(places.size() < used / 2 ? files.length : files.length * 2);
+		}
+		int place = used++;
+		files[place] = file;
+		names[place] = file.getName();
+		sizes[place] = file.getSize();
+		places.put(file.getName(), place);
+		for (int i = place + 1; i < tree.length; i += i & -i) {
+			tree[i] += sizes[place];
+		}
+	}
+
+	/**
+	 * @param fileName the name of a file
+	 * @return the removed file, or null if there is no file of that name
+	 */
+	File remove(String fileName) {
+		Integer place = places.remove(fileName);
+		if (place == null) {
+			return null;
+		}
+		File file = files[place];
+		for (int i = place + 1; i < tree.length; i += i & -i) {
+			tree[i] -= sizes[place];
+		}
+		files[place] = null;
+		names[place] = null;
+		sizes[place] = 0;
+		return file;
+	}
+
+	/**
+	 * Changes the name under which a file is found.
+	 *
+	 * @param fileName the name of a file in the catalog
+	 * @param newName a name that is not in the catalog
+	 */
+	void rename(String fileName, String newName) {
+		int place = places.remove(fileName);
+		places.put(newName, place);
+		names[place] = newName;
+	}
+
+	/**
+	 * @return the names of the files, in the order the files were added
+	 */
+	List<String> getNames() {
+		List<String> names = new ArrayList<String>(places.size());
+		for (int place = 0; place < used; place++) {
+			if (files[place] != null) {
+				names.add(this.names[place]);
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Iterates over the files in the order they were added.
+	 */
+	@Override
+	public Iterator<File> iterator() {
+		return new Iterator<File>() {
+
+			private int place = next(0);
+
+			private int next(int from) {
+				while (from < used && files[from] == null) {
+					from++;
+				}
+				return from;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return place < used;
+			}
+
+			@Override
+			public File next() {
+				if (place >= used) {
+					throw new NoSuchElementException();
+				}
+				File file = files[place];
+				place = next(place + 1);
+				return file;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Moves the files to the first places, dropping the places of removed files, and rebuilds the tree.
+	 */
+	private void compact(int capacity) {
+		File[] oldFiles = files;
+		String[] oldNames = names;
+		int[] oldSizes = sizes;
+		files = new File[capacity];
+		names = new String[capacity];
+		sizes = new int[capacity];
+		tree = new long[capacity + 1];
+		int place = 0;
+		for (int i = 0; i < used; i++) {
+			if (oldFiles[i] != null) {
+				files[place] = oldFiles[i];
+				names[place] = oldNames[i];
+				sizes[place] = oldSizes[i];
+				places.put(oldNames[i], place);
+				place++;
+			}
+		}
+		used = place;
+		for (int i = 1; i <= capacity; i++) {
+			tree[i] += sizes[i - 1];
+			int parent = i + (i & -i);
+			if (parent <= capacity) {
+				tree[parent] += tree[i];
+			}
+		}
+	}
+}
@@ -30,11 +30,11 @@ import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
  */
 public class HarddriveStorage implements Storage {
 
-	/** a list storing the names of all the files on the harddrive. */
-	private List<String> nameList;
+	/** the files stored on the harddrive, indexed by name. */
+	private FileCatalog catalog;
 
-	/** a list storing all the files stored on the harddrive. */
-	private List<File> fileList;
+	/** the queue of the requests to the harddrive, or null if requests do not wait for each other. */
+	private StorageRequestQueue requestQueue;
 
 	/** the name of the harddrive. */
 	private final String name;
@@ -101,8 +101,8 @@ public class HarddriveStorage implements Storage {
 	 * created.
 	 */
 	private void init() {
-		fileList = new ArrayList<File>();
-		nameList = new ArrayList<String>();
+		catalog = new FileCatalog();
+		requestQueue = null;
 		gen = null;
 		currentSize = 0;
 
@@ -141,7 +141,7 @@ public class HarddriveStorage implements Storage {
 	 */
 	@Override
 	public int getNumStoredFile() {
-		return fileList.size();
+		return catalog.size();
 	}
 
 	/**
@@ -205,7 +205,7 @@ public class HarddriveStorage implements Storage {
 			return true;
 		}
 
-		Iterator<File> it = fileList.iterator();
+		Iterator<File> it = catalog.iterator();
 		File file = null;
 		int deletedFileSize = 0;
 
@@ -344,6 +344,29 @@ public class HarddriveStorage implements Storage {
 		return avgSeekTime;
 	}
 
+	/**
+	 * Sets the queue of the requests to this harddrive. With a queue, a request made while the
+	 * harddrive is busy waits for the requests made before it, and the seek time depends on the
+	 * position of the previous request.
+	 * 
+	 * @param requestQueue the queue of the requests, or null if requests do not wait for each other
+	 */
+	public void setRequestQueue(StorageRequestQueue requestQueue) {
+		if (requestQueue != null) {
+			requestQueue.setStorage(this);
+		}
+		this.requestQueue = requestQueue;
+	}
+
+	/**
+	 * Gets the queue of the requests to this harddrive.
+	 * 
+	 * @return the queue of the requests, or null if requests do not wait for each other
+	 */
+	public StorageRequestQueue getRequestQueue() {
+		return requestQueue;
+	}
+
 	/**
 	 * Gets the file with the specified name. The time taken (in seconds) for getting the file can
 	 * also be found using {@link gridsim.datagrid.File#getTransactionTime()}.
@@ -360,38 +383,73 @@ public class HarddriveStorage implements Storage {
 			return obj;
 		}
 
-		Iterator<File> it = fileList.iterator();
-		int size = 0;
-		int index = 0;
-		boolean found = false;
-		File tempFile = null;
-
 		// find the file in the disk
-		while (it.hasNext()) {
-			tempFile = it.next();
-			size += tempFile.getSize();
-			if (tempFile.getName().equals(fileName)) {
-				found = true;
-				obj = tempFile;
-				break;
-			}
-
-			index++;
-		}
+		obj = catalog.get(fileName);
 
 		// if the file is found, then determine the time taken to get it
-		if (found) {
-			obj = fileList.get(index);
-			double seekTime = getSeekTime(size);
-			double transferTime = getTransferTime(obj.getSize());
+		if (obj != null) {
+			long position = catalog.getPosition(fileName);
+			if (requestQueue != null) {
+				obj.setTransactionTime(requestQueue.serve(position, obj.getSize()));
+			} else {
+				double seekTime = getSeekTime((int) position);
+				double transferTime = getTransferTime(obj.getSize());
 
-			// total time for this operation
-			obj.setTransactionTime(seekTime + transferTime);
+				// total time for this operation
+				obj.setTransactionTime(seekTime + transferTime);
+			}
 		}
 
 		return obj;
 	}
 
+	/**
+	 * Gets the files with the specified names at once. The time taken (in seconds) for getting
+	 * each file can be found using {@link gridsim.datagrid.File#getTransactionTime()}. With a
+	 * request queue, the files are read in the order of the policy of the queue; otherwise each
+	 * file is got as by {@link #getFile(String)}.
+	 * 
+	 * @param fileNames the names of the needed files
+	 * @return the file with every specified filename, or null where there is no such file
+	 */
+	public List<File> getFiles(List<String> fileNames) {
+		List<File> files = new ArrayList<File>(fileNames.size());
+		if (requestQueue == null) {
+			for (String fileName : fileNames) {
+				files.add(getFile(fileName));
+			}
+			return files;
+		}
+
+		List<File> found = new ArrayList<File>();
+		List<Long> positions = new ArrayList<Long>();
+		for (String fileName : fileNames) {
+			File obj = null;
+			if (fileName == null || fileName.length() == 0) {
+				Log.printLine(name + ".getFiles(): Warning - invalid " + "file name.");
+			} else {
+				obj = catalog.get(fileName);
+			}
+			if (obj != null) {
+				found.add(obj);
+				positions.add(catalog.getPosition(fileName));
+			}
+			files.add(obj);
+		}
+
+		long[] requestPositions = new long[found.size()];
+		int[] requestSizes = new int[found.size()];
+		for (int i = 0; i < requestPositions.length; i++) {
+			requestPositions[i] = positions.get(i);
+			requestSizes[i] = found.get(i).getSize();
+		}
+		double[] times = requestQueue.serve(requestPositions, requestSizes);
+		for (int i = 0; i < times.length; i++) {
+			found.get(i).setTransactionTime(times[i]);
+		}
+		return files;
+	}
+
 	/**
 	 * Gets the list of file names located on this storage.
 	 * 
@@ -399,7 +457,7 @@ public class HarddriveStorage implements Storage {
 	 */
 	@Override
 	public List<String> getFileNameList() {
-		return nameList;
+		return catalog.getNames();
 	}
 
 	/**
@@ -409,7 +467,7 @@ public class HarddriveStorage implements Storage {
 	 * @param fileSize the size of a file in MB
 	 * @return the seek time in seconds
 	 */
-	private double getSeekTime(int fileSize) {
+	protected double getSeekTime(int fileSize) {
 		double result = 0;
 
 		if (gen != null) {
@@ -429,7 +487,7 @@ public class HarddriveStorage implements Storage {
 	 * @param fileSize the size of the transferred file
 	 * @return the transfer time in seconds
 	 */
-	private double getTransferTime(int fileSize) {
+	protected double getTransferTime(int fileSize) {
 		double result = 0;
 		if (fileSize > 0 && capacity != 0) {
 			result = (fileSize * maxTransferRate) / capacity;
@@ -488,13 +546,18 @@ public class HarddriveStorage implements Storage {
 
 		// check if the same file name is alredy taken
 		if (!contains(file.getName())) {
-			double seekTime = getSeekTime(file.getSize());
-			double transferTime = getTransferTime(file.getSize());
+			if (requestQueue != null) {
+				catalog.add(file);                // add the file into the HD
+				currentSize += file.getSize();    // increment the current HD size
+				result = requestQueue.serve(catalog.getPosition(file.getName()), file.getSize());
+			} else {
+				double seekTime = getSeekTime(file.getSize());
+				double transferTime = getTransferTime(file.getSize());
 
-			fileList.add(file);               // add the file into the HD
-			nameList.add(file.getName());     // add the name to the name list
-			currentSize += file.getSize();    // increment the current HD size
-			result = seekTime + transferTime;  // add total time
+				catalog.add(file);                // add the file into the HD
+				currentSize += file.getSize();    // increment the current HD size
+				result = seekTime + transferTime;  // add total time
+			}
 		}
 		file.setTransactionTime(result);
 		return result;
@@ -538,20 +601,11 @@ public class HarddriveStorage implements Storage {
 			return null;
 		}
 
-		Iterator<File> it = fileList.iterator();
-		File file = null;
-		while (it.hasNext()) {
-			file = it.next();
-			String name = file.getName();
-
-			// if a file is found then delete
-			if (fileName.equals(name)) {
-				double result = deleteFile(file);
-				file.setTransactionTime(result);
-				break;
-			} else {
-				file = null;
-			}
+		// if a file is found then delete
+		File file = catalog.get(fileName);
+		if (file != null) {
+			double result = deleteFile(file);
+			file.setTransactionTime(result);
 		}
 		return file;
 	}
@@ -583,13 +637,24 @@ public class HarddriveStorage implements Storage {
 		if (!isFileValid(file, "deleteFile()")) {
 			return result;
 		}
+
+		if (requestQueue != null) {
+			if (contains(file)) {
+				long position = catalog.getPosition(file.getName());
+				catalog.remove(file.getName());   // remove the file HD
+				currentSize -= file.getSize();    // decrement the current HD space
+				result = requestQueue.serve(position, file.getSize());
+				file.setTransactionTime(result);
+			}
+			return result;
+		}
+
 		double seekTime = getSeekTime(file.getSize());
 		double transferTime = getTransferTime(file.getSize());
 
 		// check if the file is in the storage
 		if (contains(file)) {
-			fileList.remove(file);            // remove the file HD
-			nameList.remove(file.getName());  // remove the name from name list
+			catalog.remove(file.getName());   // remove the file HD
 			currentSize -= file.getSize();    // decrement the current HD space
 			result = seekTime + transferTime;  // total time
 			file.setTransactionTime(result);
@@ -610,15 +675,7 @@ public class HarddriveStorage implements Storage {
 			Log.printLine(name + ".contains(): Warning - invalid file name");
 			return result;
 		}
-		// check each file in the list
-		Iterator<String> it = nameList.iterator();
-		while (it.hasNext()) {
-			String name = it.next();
-			if (name.equals(fileName)) {
-				result = true;
-				break;
-			}
-		}
+		result = catalog.get(fileName) != null;
 		return result;
 	}
 
@@ -656,26 +713,17 @@ public class HarddriveStorage implements Storage {
 			return result;
 		}
 
-		// replace the file name in the file (physical) list
-		File obj = getFile(file.getName());
+		// replace the file name in the file (physical) list and in the catalog
+		String oldName = file.getName();
+		// a rename does not read the file, so it makes no request to the queue
+		File obj = requestQueue != null ? catalog.get(oldName) : getFile(oldName);
 		if (obj == null) {
 			return result;
-		} else {
-			obj.setName(newName);
-		}
-
-		// replace the file name in the name list
-		Iterator<String> it = nameList.iterator();
-		while (it.hasNext()) {
-			String name = it.next();
-			if (name.equals(file.getName())) {
-				file.setTransactionTime(0);
-				nameList.remove(name);
-				nameList.add(newName);
-				result = true;
-				break;
-			}
 		}
+		obj.setName(newName);
+		catalog.rename(oldName, newName);
+		file.setTransactionTime(0);
+		result = true;
 
 		return result;
 	}
@@ -8,7 +8,10 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.lists.PeList;
@@ -56,6 +59,18 @@ public class Host {
 	/** The datacenter where the host is placed. */
 	private Datacenter datacenter;
 
+	/** The number of VMs whose processing this host deferred while they are idle. */
+	private int idleVmCount;
+
+	/** The time of the last update of the processing of the VMs. */
+	private double vmsProcessingTime;
+
+	/** The VMs whose cloudlet scheduler reported finished cloudlets to return. */
+	private final Set<Vm> vmsWithFinishedCloudlets = new HashSet<Vm>();
+
+	/** The number of VMs in the VM list whose scheduler does not report its finished cloudlets. */
+	private int unreportedVmCount;
+
 	/**
 	 * Instantiates a new host.
 	 * 
@@ -85,6 +100,12 @@ public class Host {
 
 	/**
 	 * Requests updating of processing of cloudlets in the VMs running in this host.
+	 * <p>
+	 * The VMs found idle by an update, with no cloudlet to process nor to return, are not updated
+	 * again until they are used: updating them would only record the time and the MIPS share of the
+	 * update, which is done when their cloudlet scheduler is next requested, see
+	 * {@link Vm#getCloudletScheduler()}, or before the MIPS allocated on the host change. A host
+	 * whose VMs are all idle has nothing to update.
 	 * 
 	 * @param currentTime the current time
 	 * @return expected time of completion of the next cloudlet in all VMs in this host.
@@ -94,22 +115,115 @@ public class Host {
 	 */
 	public double updateVmsProcessing(double currentTime) {
 		double smallerTime = Double.MAX_VALUE;
+		boolean deferring = isIdleVmProcessingDeferred();
+		if (idleVmCount == getVmList().size()) {
+			vmsProcessingTime = currentTime;
+			return smallerTime;
+		}
 
 		for (Vm vm : getVmList()) {
+			if (vm.getDeferringHost() == this) {
+				continue;
+			}
 			double time = vm.updateVmProcessing(currentTime, getVmScheduler().getAllocatedMipsForVm(vm));
 			if (time > 0.0 && time < smallerTime) {
 				smallerTime = time;
 			}
+			if (deferring && vm.getDeferringHost() == null && !vm.isInMigration() && vm.isIdle()) {
+				vm.setDeferringHost(this);
+				idleVmCount++;
+			}
 		}
+		vmsProcessingTime = currentTime;
 		return smallerTime;
 	}
 
+	/**
+	 * Tells whether the processing of idle VMs is deferred until they are used. It is not for hosts
+	 * that change the MIPS allocated to their VMs whenever they update their processing.
+	 * 
+	 * @return true, if the processing of idle VMs is deferred
+	 */
+	protected boolean isIdleVmProcessingDeferred() {
+		return true;
+	}
+
+	/**
+	 * Brings the processing of a VM up to date, as of the last update of the processing of the VMs
+	 * of the host, if it was deferred.
+	 * 
+	 * @param vm the vm
+	 */
+	void updateIdleVmProcessing(Vm vm) {
+		if (vm.getDeferringHost() != this) {
+			return;
+		}
+		resumeVmProcessing(vm);
+		vm.updateVmProcessing(vmsProcessingTime, getVmScheduler().getAllocatedMipsForVm(vm));
+	}
+
+	/**
+	 * Stops deferring the processing of a VM, without updating it.
+	 * 
+	 * @param vm the vm
+	 */
+	void resumeVmProcessing(Vm vm) {
+		vm.setDeferringHost(null);
+		idleVmCount--;
+	}
+
+	/**
+	 * Brings the processing of all the idle VMs up to date, before the MIPS allocated to them change.
+	 */
+	protected void updateIdleVmsProcessing() {
+		if (idleVmCount == 0) {
+			return;
+		}
+		for (Vm vm : getVmList()) {
+			updateIdleVmProcessing(vm);
+		}
+	}
+
+	/**
+	 * Records that a VM of the host has finished cloudlets to return.
+	 * 
+	 * @param vm the vm
+	 */
+	void addVmWithFinishedCloudlets(Vm vm) {
+		vmsWithFinishedCloudlets.add(vm);
+	}
+
+	/**
+	 * Gets the VMs of the host that may have finished cloudlets to return, in the order of the VM
+	 * list, and forgets the reported ones, so that the datacenter checks only these VMs for
+	 * completed cloudlets: the VMs that reported finished cloudlets, and the VMs whose scheduler does
+	 * not report them, except those deferred while idle.
+	 * 
+	 * @return the VMs
+	 * @see CloudletScheduler#reportsFinishedCloudlets()
+	 */
+	public List<Vm> pollVmsWithFinishedCloudlets() {
+		if (vmsWithFinishedCloudlets.isEmpty() && unreportedVmCount == 0) {
+			return Collections.emptyList();
+		}
+		List<Vm> vms = new ArrayList<Vm>();
+		for (Vm vm : getVmList()) {
+			if (vmsWithFinishedCloudlets.contains(vm)
+					|| (!vm.reportsFinishedCloudlets() && vm.getDeferringHost() == null)) {
+				vms.add(vm);
+			}
+		}
+		vmsWithFinishedCloudlets.clear();
+		return vms;
+	}
+
 	/**
 	 * Adds the migrating in vm.
 	 * 
 	 * @param vm the vm
 	 */
 	public void addMigratingInVm(Vm vm) {
+		updateIdleVmsProcessing();
 		vm.setInMigration(true);
 
 		if (!getVmsMigratingIn().contains(vm)) {
@@ -141,7 +255,7 @@ public class Host {
 			setStorage(getStorage() - vm.getSize());
 
 			getVmsMigratingIn().add(vm);
-			getVmList().add(vm);
+			addToVmList(vm);
 			updateVmsProcessing(CloudSim.clock());
 			vm.getHost().updateVmsProcessing(CloudSim.clock());
 		}
@@ -155,7 +269,7 @@ public class Host {
 	public void removeMigratingInVm(Vm vm) {
 		vmDeallocate(vm);
 		getVmsMigratingIn().remove(vm);
-		getVmList().remove(vm);
+		removeFromVmList(vm);
 		getVmScheduler().getVmsMigratingIn().remove(vm.getUid());
 		vm.setInMigration(false);
 	}
@@ -164,9 +278,10 @@ public class Host {
 	 * Reallocate migrating in vms.
 	 */
 	public void reallocateMigratingInVms() {
+		updateIdleVmsProcessing();
 		for (Vm vm : getVmsMigratingIn()) {
 			if (!getVmList().contains(vm)) {
-				getVmList().add(vm);
+				addToVmList(vm);
 			}
 			if (!getVmScheduler().getVmsMigratingIn().contains(vm.getUid())) {
 				getVmScheduler().getVmsMigratingIn().add(vm.getUid());
@@ -200,6 +315,7 @@ public class Host {
 	 * @post $none
 	 */
 	public boolean vmCreate(Vm vm) {
+		updateIdleVmsProcessing();
 		if (getStorage() < vm.getSize()) {
 			Log.printLine("[VmScheduler.vmCreate] Allocation of VM #" + vm.getId() + " to Host #" + getId()
 					+ " failed by storage");
@@ -228,7 +344,7 @@ public class Host {
 		}
 
 		setStorage(getStorage() - vm.getSize());
-		getVmList().add(vm);
+		addToVmList(vm);
 		vm.setHost(this);
 		return true;
 	}
@@ -243,7 +359,7 @@ public class Host {
 	public void vmDestroy(Vm vm) {
 		if (vm != null) {
 			vmDeallocate(vm);
-			getVmList().remove(vm);
+			removeFromVmList(vm);
 			vm.setHost(null);
 		}
 	}
@@ -257,10 +373,43 @@ public class Host {
 	public void vmDestroyAll() {
 		vmDeallocateAll();
 		for (Vm vm : getVmList()) {
+			vm.removeListingHost(this);
 			vm.setHost(null);
 			setStorage(getStorage() + vm.getSize());
 		}
 		getVmList().clear();
+		unreportedVmCount = 0;
+	}
+
+	/**
+	 * Adds a VM to the VM list. The finished cloudlets of the VM are reported to all the hosts that
+	 * have it in their VM list.
+	 * 
+	 * @param vm the vm
+	 */
+	private void addToVmList(Vm vm) {
+		getVmList().add(vm);
+		vm.addListingHost(this);
+		if (!vm.reportsFinishedCloudlets()) {
+			unreportedVmCount++;
+		}
+		if (vm.getCloudletScheduler().isFinishedCloudlets()) {
+			addVmWithFinishedCloudlets(vm);
+		}
+	}
+
+	/**
+	 * Removes a VM from the VM list.
+	 * 
+	 * @param vm the vm
+	 */
+	private void removeFromVmList(Vm vm) {
+		if (getVmList().remove(vm)) {
+			vm.removeListingHost(this);
+			if (!vm.reportsFinishedCloudlets()) {
+				unreportedVmCount--;
+			}
+		}
 	}
 
 	/**
@@ -269,6 +418,7 @@ public class Host {
 	 * @param vm the VM
 	 */
 	protected void vmDeallocate(Vm vm) {
+		updateIdleVmsProcessing();
 		getRamProvisioner().deallocateRamForVm(vm);
 		getBwProvisioner().deallocateBwForVm(vm);
 		getVmScheduler().deallocatePesForVm(vm);
@@ -279,6 +429,7 @@ public class Host {
 	 * Deallocate all hostList for the VM.
 	 */
 	protected void vmDeallocateAll() {
+		updateIdleVmsProcessing();
 		getRamProvisioner().deallocateRamForAllVms();
 		getBwProvisioner().deallocateBwForAllVms();
 		getVmScheduler().deallocatePesForAllVms();
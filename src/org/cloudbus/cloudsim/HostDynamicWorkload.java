@@ -56,6 +56,17 @@ public class HostDynamicWorkload extends Host {
 		setPreviousUtilizationMips(0);
 	}
 
+	/**
+	 * The processing of idle VMs is never deferred, as the host reallocates the MIPS of all its VMs
+	 * whenever it updates their processing.
+	 * 
+	 * @return false
+	 */
+	@Override
+	protected boolean isIdleVmProcessingDeferred() {
+		return false;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see cloudsim.Host#updateVmsProcessing(double)
@@ -0,0 +1,111 @@
+package org.cloudbus.cloudsim;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * The network path of one or more {@link SanStorage SANs}, whose bandwidth is shared by the transfers of
+ * their files.
+ * <p>
+ * A transfer takes the bandwidth the transfers started before it leave, up to the bandwidth of the connection
+ * of its SAN, from the current simulation time until the file is transferred. The bandwidth it takes is
+ * reserved, so later transfers do not slow down the transfers started before them, and the transfers over the
+ * path never exceed its bandwidth.
+ */
+public class SanNetworkPath {
+
+	/** The bandwidth of the path in MB/sec. */
+	private final double bandwidth;
+
+	/** The time of every change of the reserved bandwidth -> the bandwidth reserved from that time on. */
+	private final TreeMap<Double, Double> reserved;
+
+	/**
+	 * Creates a network path.
+	 *
+	 * @param bandwidth the bandwidth of the path in MB/sec
+	 * @throws ParameterException when the bandwidth is not positive
+	 */
+	public SanNetworkPath(double bandwidth) throws ParameterException {
+		if (bandwidth <= 0) {
+			throw new ParameterException("SanNetworkPath(): Error - bandwidth <= 0.");
+		}
+		this.bandwidth = bandwidth;
+		reserved = new TreeMap<Double, Double>();
+		reserved.put(0.0, 0.0);
+	}
+
+	/**
+	 * Gets the bandwidth of the path.
+	 *
+	 * @return the bandwidth in MB/sec
+	 */
+	public double getBandwidth() {
+		return bandwidth;
+	}
+
+	/**
+	 * Gets the bandwidth reserved by the transfers at the current simulation time.
+	 *
+	 * @return the reserved bandwidth in MB/sec
+	 */
+	public double getReservedBandwidth() {
+		return reserved.floorEntry(CloudSim.clock()).getValue();
+	}
+
+	/**
+	 * Transfers a file over the path from the current simulation time.
+	 *
+	 * @param fileSize the size of the file in MB
+	 * @param maxRate the bandwidth of the connection of the SAN in MB/sec
+	 * @return the time taken (in seconds) for transferring the file
+	 */
+	double transfer(int fileSize, double maxRate) {
+		double now = CloudSim.clock();
+		// the reservations that ended before now are no longer needed
+		Double start = reserved.floorKey(now);
+		if (start == null) {
+			reserved.put(now, 0.0);
+		} else {
+			reserved.headMap(start, false).clear();
+			if (start < now) {
+				reserved.put(now, reserved.remove(start));
+			}
+		}
+		if (fileSize <= 0 || maxRate <= 0) {
+			return 0;
+		}
+
+		double remaining = fileSize;
+		double time = now;
+		while (true) {
+			double available = Math.min(maxRate, bandwidth - reserved.get(time));
+			Double next = reserved.higherKey(time);
+			double end = next == null ? Double.POSITIVE_INFINITY : next;
+			if (available > 0 && remaining <= available * (end - time)) {
+				double finish = time + remaining / available;
+				if (finish < end && !reserved.containsKey(finish)) {
+					reserved.put(finish, reserved.get(time));
+				}
+				reserve(time, finish, available);
+				return finish - now;
+			}
+			if (available > 0) {
+				remaining -= available * (end - time);
+				reserve(time, end, available);
+			}
+			time = end;
+		}
+	}
+
+	/**
+	 * Reserves bandwidth from a time at which the reserved bandwidth changes until the next change.
+	 */
+	private void reserve(double from, double to, double rate) {
+		for (Map.Entry<Double, Double> entry : reserved.subMap(from, true, to, false).entrySet()) {
+			entry.setValue(entry.getValue() + rate);
+		}
+	}
+}
@@ -15,8 +15,9 @@ import java.util.List;
  * SANStorage represents a storage area network composed of a set of harddisks connected in a LAN.
  * Capacity of individual disks are abstracted, thus only the overall capacity of the SAN is
  * considered. WARNING: This class is not yet fully functional. Effects of network contention are
- * not considered in the simulation. So, time for file transfer is underestimated in the presence of
- * high network load.
+ * only considered when the SAN has a {@link SanNetworkPath network path}, whose bandwidth its transfers
+ * share with the transfers of the other SANs on the path. Otherwise, time for file transfer is
+ * underestimated in the presence of high network load.
  * 
  * @author Rodrigo N. Calheiros
  * @since CloudSim Toolkit 1.0
@@ -29,6 +30,9 @@ public class SanStorage extends HarddriveStorage {
 	/** The network latency. */
 	double networkLatency;
 
+	/** The network path shared with other SANs, or null if the network has no contention. */
+	private SanNetworkPath networkPath;
+
 	/**
 	 * Creates a new SAN with a given capacity, latency, and bandwidth of the network connection.
 	 * 
@@ -59,6 +63,28 @@ public class SanStorage extends HarddriveStorage {
 		this.networkLatency = networkLatency;
 	}
 
+	/**
+	 * Sets the network path of this SAN. With a path, the files are transferred at the rate of the
+	 * SAN connection, as far as the transfers started before on the path leave it. As without a
+	 * path, a file takes its size times {@link #bandwidth} seconds over the connection, so the rate
+	 * is 1 / bandwidth MB/sec, and a transfer that meets no other transfer on the path takes the
+	 * same time as without a path.
+	 * 
+	 * @param networkPath the network path, or null if the network has no contention
+	 */
+	public void setNetworkPath(SanNetworkPath networkPath) {
+		this.networkPath = networkPath;
+	}
+
+	/**
+	 * Gets the network path of this SAN.
+	 * 
+	 * @return the network path, or null if the network has no contention
+	 */
+	public SanNetworkPath getNetworkPath() {
+		return networkPath;
+	}
+
 	/**
 	 * Adds a file for which the space has already been reserved.
 	 * 
@@ -68,12 +94,34 @@ public class SanStorage extends HarddriveStorage {
 	@Override
 	public double addReservedFile(File file) {
 		double time = super.addReservedFile(file);
+		if (networkPath != null) {
+			// the file was transferred when it was added
+			return time;
+		}
 		time += networkLatency;
 		time += file.getSize() * bandwidth;
 
 		return time;
 	}
 
+	/**
+	 * Adds the time taken (in seconds) for transferring a file over the network.
+	 * 
+	 * @param time the time taken by the storage
+	 * @param file the transferred file
+	 * @return the total time taken
+	 */
+	private double addNetworkTime(double time, File file) {
+		time += networkLatency;
+		if (networkPath != null) {
+			// the connection takes bandwidth seconds per MB, as without a path
+			time += networkPath.transfer(file.getSize(), 1 / bandwidth);
+		} else {
+			time += file.getSize() * bandwidth;
+		}
+		return time;
+	}
+
 	/**
 	 * Gets the maximum transfer rate of the storage in MB/sec.
 	 * 
@@ -100,12 +148,16 @@ public class SanStorage extends HarddriveStorage {
 	 */
 	@Override
 	public double addFile(File file) {
+		if (networkPath == null) {
+			return addNetworkTime(super.addFile(file), file);
+		}
+		// only a file that is added is transferred over the network path
+		boolean contained = contains(file);
 		double time = super.addFile(file);
-
-		time += networkLatency;
-		time += file.getSize() * bandwidth;
-
-		return time;
+		if (contained || !contains(file)) {
+			return time;
+		}
+		return addNetworkTime(time, file);
 	}
 
 	/**
@@ -155,12 +207,16 @@ public class SanStorage extends HarddriveStorage {
 	 */
 	@Override
 	public double deleteFile(File file) {
+		if (networkPath == null) {
+			return addNetworkTime(super.deleteFile(file), file);
+		}
+		// only a file that is deleted is transferred over the network path
+		boolean contained = contains(file);
 		double time = super.deleteFile(file);
-
-		time += networkLatency;
-		time += file.getSize() * bandwidth;
-
-		return time;
+		if (!contained || contains(file)) {
+			return time;
+		}
+		return addNetworkTime(time, file);
 	}
 
 }
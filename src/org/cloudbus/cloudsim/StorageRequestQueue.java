@@ -0,0 +1,173 @@
+package org.cloudbus.cloudsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * A queue of the requests to a {@link HarddriveStorage}, for simulating the contention of the storage.
+ * <p>
+ * The storage serves one request at a time, so the transfers never exceed its maximum transfer rate: a
+ * request made while the storage is busy waits for the requests made before it, and the time of every
+ * operation of the storage is the time from the current simulation time until the request is served. The seek
+ * time of a request depends on the distance from the position of the previous request, the positions of the
+ * files being given by the order they were added to the storage.
+ * <p>
+ * The requests made at once, by {@link HarddriveStorage#getFiles(List)}, are served in the order of the
+ * policy of the queue: in the order they were made with {@link #FCFS}, or with {@link #ELEVATOR} in the order
+ * of their positions, from the position of the previous request onwards in the direction the storage was
+ * moving, then back.
+ */
+public class StorageRequestQueue {
+
+	/** Serves the requests in the order they were made. */
+	public static final int FCFS = 0;
+
+	/** Serves the requests made at once in the order of their positions. */
+	public static final int ELEVATOR = 1;
+
+	private final int policy;
+
+	/** The storage whose requests are queued. */
+	private HarddriveStorage storage;
+
+	/** The time the storage finishes serving the requests made so far. */
+	private double busyUntil;
+
+	/** The position of the previous request, in MB. */
+	private long headPosition;
+
+	/** Whether the storage moves towards larger positions. */
+	private boolean ascending;
+
+	/**
+	 * Creates a request queue.
+	 *
+	 * @param policy the order requests made at once are served in: {@link #FCFS} or {@link #ELEVATOR}
+	 */
+	public StorageRequestQueue(int policy) {
+		if (policy != FCFS && policy != ELEVATOR) {
+			throw new IllegalArgumentException("Unknown request queue policy " + policy);
+		}
+		this.policy = policy;
+		ascending = true;
+	}
+
+	/**
+	 * Gets the order requests made at once are served in.
+	 *
+	 * @return {@link #FCFS} or {@link #ELEVATOR}
+	 */
+	public int getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Gets the time the storage finishes serving the requests made so far.
+	 *
+	 * @return the time
+	 */
+	public double getBusyUntil() {
+		return busyUntil;
+	}
+
+	/**
+	 * Binds the queue to the storage whose requests it queues.
+	 *
+	 * @param storage the storage
+	 */
+	void setStorage(HarddriveStorage storage) {
+		if (this.storage != null && this.storage != storage) {
+			throw new IllegalStateException("The request queue already belongs to storage " + this.storage.getName());
+		}
+		this.storage = storage;
+	}
+
+	/**
+	 * Serves a request after the requests made before it.
+	 *
+	 * @param position the position of the file in MB
+	 * @param fileSize the size of the file in MB
+	 * @return the time from the current simulation time until the request is served, in seconds
+	 */
+	double serve(long position, int fileSize) {
+		return serve(new long[] { position }, new int[] { fileSize })[0];
+	}
+
+	/**
+	 * Serves requests made at once after the requests made before them, in the order of the policy.
+	 *
+	 * @param positions the position of the file of every request in MB
+	 * @param fileSizes the size of the file of every request in MB
+	 * @return the time from the current simulation time until every request is served, in seconds
+	 */
+	double[] serve(final long[] positions, int[] fileSizes) {
+		double now = CloudSim.clock();
+		double time = Math.max(now, busyUntil);
+		double[] times = new double[positions.length];
+		for (int request : getOrder(positions)) {
+			long distance = Math.abs(positions[request] - headPosition);
+			time += storage.getSeekTime((int) distance) + storage.getTransferTime(fileSizes[request]);
+			if (positions[request] != headPosition) {
+				ascending = positions[request] > headPosition;
+			}
+			headPosition = positions[request];
+			times[request] = time - now;
+		}
+		busyUntil = time;
+		return times;
+	}
+
+	/**
+	 * Gets the order requests made at once are served in.
+	 *
+	 * @param positions the position of the file of every request
+	 * @return the requests in the order they are served
+	 */
+	private List<Integer> getOrder(final long[] positions) {
+		Integer[] requests = new Integer[positions.length];
+		for (int i = 0; i < requests.length; i++) {
+			requests[i] = i;
+		}
+		if (policy == FCFS) {
+			return Arrays.asList(requests);
+		}
+
+		Arrays.sort(requests, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer request1, Integer request2) {
+				return Long.compare(positions[request1], positions[request2]);
+			}
+		});
+		// the requests ahead of the head in the direction it moves, then the others in the other direction
+		List<Integer> order = new ArrayList<Integer>(requests.length);
+		if (ascending) {
+			for (Integer request : requests) {
+				if (positions[request] >= headPosition) {
+					order.add(request);
+				}
+			}
+			for (int i = requests.length - 1; i >= 0; i--) {
+				if (positions[requests[i]] < headPosition) {
+					order.add(requests[i]);
+				}
+			}
+		} else {
+			for (int i = requests.length - 1; i >= 0; i--) {
+				if (positions[requests[i]] <= headPosition) {
+					order.add(requests[i]);
+				}
+			}
+			for (Integer request : requests) {
+				if (positions[request] > headPosition) {
+					order.add(request);
+				}
+			}
+		}
+		return order;
+	}
+}
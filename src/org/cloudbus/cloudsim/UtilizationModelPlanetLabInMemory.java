@@ -12,8 +12,14 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 	/** The scheduling interval. */
 	private double schedulingInterval;
 
-	/** The data (5 min * 288 = 24 hours). */
+	/** The data (5 min * 288 = 24 hours), or null when the data is read from a trace pack. */
 	private final double[] data; 
+
+	/** The trace pack holding the data, or null when the data was read into {@link #data}. */
+	private final UtilizationTracePack pack;
+
+	/** The index of the trace in the pack. */
+	private final int trace;
 	
 	/**
 	 * Instantiates a new utilization model PlanetLab.
@@ -26,6 +32,8 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 			throws NumberFormatException,
 			IOException {
 		data = new double[289];
+		pack = null;
+		trace = -1;
 		setSchedulingInterval(schedulingInterval);
 		BufferedReader input = new BufferedReader(new FileReader(inputPath));
 		int n = data.length;
@@ -49,6 +57,8 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 			IOException {
 		setSchedulingInterval(schedulingInterval);
 		data = new double[dataSamples];
+		pack = null;
+		trace = -1;
 		BufferedReader input = new BufferedReader(new FileReader(inputPath));
 		int n = data.length;
 		for (int i = 0; i < n - 1; i++) {
@@ -58,6 +68,24 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 		input.close();
 	}
 
+	/**
+	 * Instantiates a new utilization model PlanetLab reading its data from a trace of a trace pack. The model
+	 * gives the same utilizations as when reading the trace file the trace was packed from.
+	 * 
+	 * @param pack the trace pack
+	 * @param traceName the name of the trace in the pack
+	 * @param schedulingInterval the scheduling interval
+	 */
+	public UtilizationModelPlanetLabInMemory(UtilizationTracePack pack, String traceName, double schedulingInterval) {
+		setSchedulingInterval(schedulingInterval);
+		data = null;
+		this.pack = pack;
+		trace = pack.getTraceIndex(traceName);
+		if (trace < 0) {
+			throw new IllegalArgumentException("There is no trace " + traceName + " in the trace pack");
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see cloudsim.power.UtilizationModel#getUtilization(double)
@@ -65,18 +93,31 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 	@Override
 	public double getUtilization(double time) {
 		if (time % getSchedulingInterval() == 0) {
-			return data[(int) time / (int) getSchedulingInterval()];
+			return getData((int) time / (int) getSchedulingInterval());
 		}
 		int time1 = (int) Math.floor(time / getSchedulingInterval());
 		int time2 = (int) Math.ceil(time / getSchedulingInterval());
-		double utilization1 = data[time1];
-		double utilization2 = data[time2];
+		double utilization1 = getData(time1);
+		double utilization2 = getData(time2);
 		double delta = (utilization2 - utilization1) / ((time2 - time1) * getSchedulingInterval());
 		double utilization = utilization1 + delta * (time - time1 * getSchedulingInterval());
 		return utilization;
 
 	}
 
+	/**
+	 * Gets a sample of the data.
+	 * 
+	 * @param sample the index of the sample
+	 * @return the utilization
+	 */
+	private double getData(int sample) {
+		if (pack != null) {
+			return pack.getUtilization(trace, sample);
+		}
+		return data[sample];
+	}
+
 	/**
 	 * Sets the scheduling interval.
 	 * 
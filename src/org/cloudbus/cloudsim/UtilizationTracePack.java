@@ -0,0 +1,248 @@
+package org.cloudbus.cloudsim;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pack of utilization traces in the format of PlanetLab, read from a single memory-mapped file.
+ * <p>
+ * A trace pack file starts with {@link #MAGIC}, {@link #VERSION}, the number of traces, the number of samples of
+ * every trace and the number of bytes of a sample: 1 when all samples fit in an unsigned byte, 2 when they fit
+ * in a short. Then come the name of every trace, as its length and its UTF-8 bytes, and the column of samples
+ * of every trace. As in the trace files, a sample is a utilization in percents and the last sample of a trace
+ * repeats the one before it, so it is not stored.
+ * <p>
+ * A file is mapped once and the pack shared by all the {@link UtilizationModelPlanetLabInMemory utilization
+ * models} created from it, which read their samples from the mapped file rather than from arrays of their own.
+ */
+public class UtilizationTracePack {
+
+	public static final int MAGIC = 0x5554504B; // "UTPK"
+	public static final int VERSION = 1;
+
+	private static final int HEADER_BYTES = 20;
+
+	/** The utilization of every sample that fits in a byte. */
+	private static final double[] UTILIZATIONS = new double[256];
+
+	static {
+		for (int i = 0; i < UTILIZATIONS.length; i++) {
+			UTILIZATIONS[i] = i / 100.0;
+		}
+	}
+
+	/** The canonical path of every mapped file -> its pack. */
+	private static final Map<String, UtilizationTracePack> packs = new HashMap<String, UtilizationTracePack>();
+
+	private final ByteBuffer buffer;
+	private final String[] names;
+	private final Map<String, Integer> traces;
+	private final int samples;
+	private final int sampleBytes;
+	private final int dataOffset;
+
+	private UtilizationTracePack(ByteBuffer buffer, String fileName) throws IOException {
+		this.buffer = buffer;
+		if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+			throw new IOException(fileName + " is not a utilization trace pack");
+		}
+		int version = buffer.getInt(4);
+		if (version != VERSION) {
+			throw new IOException("Unsupported version " + version + " of utilization trace pack " + fileName);
+		}
+		int traceCount = buffer.getInt(8);
+		samples = buffer.getInt(12);
+		sampleBytes = buffer.getInt(16);
+
+		names = new String[traceCount];
+		traces = new HashMap<String, Integer>(traceCount * 2);
+		int position = HEADER_BYTES;
+		try {
+			for (int trace = 0; trace < traceCount; trace++) {
+				byte[] name = new byte[buffer.getShort(position) & 0xFFFF];
+				ByteBuffer view = buffer.duplicate();
+				view.position(position + 2);
+				view.get(name);
+				names[trace] = new String(name, StandardCharsets.UTF_8);
+				traces.put(names[trace], trace);
+				position += 2 + name.length;
+			}
+		} catch (IndexOutOfBoundsException e) {
+			throw new IOException("Utilization trace pack " + fileName + " is truncated");
+		}
+		dataOffset = position;
+		if (dataOffset + (long) traceCount * (samples - 1) * sampleBytes > buffer.capacity()) {
+			throw new IOException("Utilization trace pack " + fileName + " is truncated");
+		}
+	}
+
+	/**
+	 * Writes trace files to a trace pack. Every trace is named after its file, and read as
+	 * {@link UtilizationModelPlanetLabInMemory} reads it.
+	 *
+	 * @param inputPaths the trace files
+	 * @param dataSamples number of samples in every trace file
+	 * @param fileName the trace pack
+	 * @throws NumberFormatException the number format exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void write(List<String> inputPaths, int dataSamples, String fileName)
+			throws NumberFormatException,
+			IOException {
+		if (dataSamples < 2) {
+			throw new IllegalArgumentException("A trace needs at least 2 samples, not " + dataSamples);
+		}
+		int n = inputPaths.size();
+		byte[][] names = new byte[n][];
+		int[][] data = new int[n][dataSamples - 1];
+		boolean bytes = true;
+		for (int trace = 0; trace < n; trace++) {
+			names[trace] = new File(inputPaths.get(trace)).getName().getBytes(StandardCharsets.UTF_8);
+			if (names[trace].length > 0xFFFF) {
+				throw new IllegalArgumentException("Name of trace " + inputPaths.get(trace) + " is too long");
+			}
+			BufferedReader input = new BufferedReader(new FileReader(inputPaths.get(trace)));
+			try {
+				for (int i = 0; i < dataSamples - 1; i++) {
+					int sample = Integer.valueOf(input.readLine());
+					if (sample < Short.MIN_VALUE || sample > Short.MAX_VALUE) {
+						throw new IllegalArgumentException("Sample " + sample + " of trace " + inputPaths.get(trace)
+								+ " does not fit in a trace pack");
+					}
+					bytes &= sample >= 0 && sample <= 0xFF;
+					data[trace][i] = sample;
+				}
+			} finally {
+				input.close();
+			}
+		}
+
+		synchronized (packs) {
+			packs.remove(new File(fileName).getCanonicalPath());
+		}
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(n);
+			out.writeInt(dataSamples);
+			out.writeInt(bytes ? 1 : 2);
+			for (byte[] name : names) {
+				out.writeShort(name.length);
+				out.write(name);
+			}
+			for (int[] trace : data) {
+				for (int sample : trace) {
+					if (bytes) {
+						out.writeByte(sample);
+					} else {
+						out.writeShort(sample);
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Gets the pack of a trace pack file, mapping the file the first time it is asked for.
+	 *
+	 * @param fileName the trace pack
+	 * @return the pack
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static UtilizationTracePack open(String fileName) throws IOException {
+		String path = new File(fileName).getCanonicalPath();
+		synchronized (packs) {
+			UtilizationTracePack pack = packs.get(path);
+			if (pack == null) {
+				RandomAccessFile file = new RandomAccessFile(path, "r");
+				try {
+					FileChannel channel = file.getChannel();
+					if (channel.size() > Integer.MAX_VALUE) {
+						throw new IOException("Utilization trace pack " + fileName + " is larger than 2 GB");
+					}
+					pack = new UtilizationTracePack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+							fileName);
+				} finally {
+					file.close();
+				}
+				packs.put(path, pack);
+			}
+			return pack;
+		}
+	}
+
+	/**
+	 * Gets the number of traces.
+	 *
+	 * @return the number of traces
+	 */
+	public int getTraceCount() {
+		return names.length;
+	}
+
+	/**
+	 * Gets the name of a trace.
+	 *
+	 * @param trace the index of the trace
+	 * @return the name of the trace
+	 */
+	public String getTraceName(int trace) {
+		return names[trace];
+	}
+
+	/**
+	 * Gets the index of a trace.
+	 *
+	 * @param name the name of the trace
+	 * @return the index of the trace, or -1 if there is no trace of that name
+	 */
+	public int getTraceIndex(String name) {
+		Integer trace = traces.get(name);
+		return trace == null ? -1 : trace;
+	}
+
+	/**
+	 * Gets the number of samples of every trace.
+	 *
+	 * @return the number of samples
+	 */
+	public int getDataSamples() {
+		return samples;
+	}
+
+	/**
+	 * Gets the utilization of a sample of a trace.
+	 *
+	 * @param trace the index of the trace
+	 * @param sample the index of the sample
+	 * @return the utilization, as a fraction
+	 */
+	double getUtilization(int trace, int sample) {
+		if (sample < 0 || sample >= samples) {
+			throw new ArrayIndexOutOfBoundsException(sample);
+		}
+		if (sample == samples - 1) {
+			sample--;
+		}
+		int position = dataOffset + (trace * (samples - 1) + sample) * sampleBytes;
+		if (sampleBytes == 1) {
+			return UTILIZATIONS[buffer.get(position) & 0xFF];
+		}
+		return buffer.getShort(position) / 100.0;
+	}
+}
@@ -55,6 +55,12 @@ public class Vm {
 	/** The host. */
 	private Host host;
 
+	/** The host that deferred the processing of the VM while it is idle, if any. */
+	private Host deferringHost;
+
+	/** The hosts that have the VM in their VM list, usually only its host. */
+	private final List<Host> listingHosts = new ArrayList<Host>(1);
+
 	/** In migration flag. */
 	private boolean inMigration;
 
@@ -139,12 +145,81 @@ public class Vm {
 	 * @post $none
 	 */
 	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+		// this update supersedes the deferred one, which would only have recorded its time and MIPS share
+		if (deferringHost != null) {
+			deferringHost.resumeVmProcessing(this);
+		}
 		if (mipsShare != null) {
-			return getCloudletScheduler().updateVmProcessing(currentTime, mipsShare);
+			return cloudletScheduler.updateVmProcessing(currentTime, mipsShare);
 		}
 		return 0.0;
 	}
 
+	/**
+	 * Tells whether updating the processing of the VM would only record the time and the MIPS share
+	 * of the update, so that the host can defer it until the VM is used.
+	 * 
+	 * @return true, if the VM is idle
+	 */
+	protected boolean isIdle() {
+		return cloudletScheduler.isIdle();
+	}
+
+	/**
+	 * Gets the host that deferred the processing of the VM while it is idle.
+	 * 
+	 * @return the host, $null if the processing of the VM is up to date
+	 */
+	Host getDeferringHost() {
+		return deferringHost;
+	}
+
+	/**
+	 * Sets the host that deferred the processing of the VM while it is idle.
+	 * 
+	 * @param deferringHost the host, $null once the processing of the VM is up to date
+	 */
+	void setDeferringHost(Host deferringHost) {
+		this.deferringHost = deferringHost;
+	}
+
+	/**
+	 * Adds a host that has the VM in its VM list.
+	 * 
+	 * @param host the host
+	 */
+	void addListingHost(Host host) {
+		listingHosts.add(host);
+	}
+
+	/**
+	 * Removes a host that no longer has the VM in its VM list.
+	 * 
+	 * @param host the host
+	 */
+	void removeListingHost(Host host) {
+		listingHosts.remove(host);
+	}
+
+	/**
+	 * Tells whether the scheduler of the VM reports the cloudlets it finishes to the hosts.
+	 * 
+	 * @return true, if the finished cloudlets are reported
+	 */
+	boolean reportsFinishedCloudlets() {
+		return cloudletScheduler != null && cloudletScheduler.reportsFinishedCloudlets();
+	}
+
+	/**
+	 * Reports to the hosts that have the VM in their VM list that its scheduler finished a
+	 * cloudlet.
+	 */
+	void reportFinishedCloudlet() {
+		for (Host host : listingHosts) {
+			host.addVmWithFinishedCloudlets(this);
+		}
+	}
+
 	/**
 	 * Gets the current requested mips.
 	 * 
@@ -443,11 +518,14 @@ public class Vm {
 	}
 
 	/**
-	 * Gets the vm scheduler.
+	 * Gets the vm scheduler, with its processing brought up to date if the host deferred it.
 	 * 
 	 * @return the vm scheduler
 	 */
 	public CloudletScheduler getCloudletScheduler() {
+		if (deferringHost != null) {
+			deferringHost.updateIdleVmProcessing(this);
+		}
 		return cloudletScheduler;
 	}
 
@@ -458,6 +536,9 @@ public class Vm {
 	 */
 	protected void setCloudletScheduler(CloudletScheduler cloudletScheduler) {
 		this.cloudletScheduler = cloudletScheduler;
+		if (cloudletScheduler != null) {
+			cloudletScheduler.setVm(this);
+		}
 	}
 
 	/**
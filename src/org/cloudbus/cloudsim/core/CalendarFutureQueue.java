@@ -0,0 +1,461 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * A future event queue implemented as a calendar queue (R. Brown, 1988). Events are hashed by time
+ * into an array of buckets ("days") of fixed width; each bucket is kept sorted. The number of
+ * buckets and their width are recomputed from the event population whenever the queue doubles or
+ * halves, so that enqueue and dequeue take constant time on average. Events are delivered in the
+ * same order as {@link FutureQueue}.
+ *
+ * @see FutureQueue
+ */
+public class CalendarFutureQueue extends FutureQueue {
+
+	private static final int MIN_BUCKETS = 16;
+
+	/** The number of head events used to estimate the bucket width on resize. */
+	private static final int WIDTH_SAMPLE = 25;
+
+	/** Bucket indexes are saturated here so that scanning ahead never overflows. */
+	private static final long MAX_VIRTUAL_BUCKET = 1L << 62;
+
+	private Bucket[] buckets;
+
+	private double width;
+
+	/** Lower bound of the virtual bucket index of every event in the queue. */
+	private long current = 0;
+
+	/** The bucket holding the first event, or -1 if it has to be searched for. */
+	private int minBucket = -1;
+
+	private int size = 0;
+
+	/** The serial given to events added with {@link #addEvent(SimEvent)}. */
+	private long serial = 0;
+
+	/** The insertion counter, used to break ties between events with the same serial. */
+	private long order = 0;
+
+	/**
+	 * Creates a calendar queue with an initial bucket width of 1 time unit.
+	 */
+	public CalendarFutureQueue() {
+		this(1.0);
+	}
+
+	/**
+	 * Creates a calendar queue.
+	 *
+	 * @param initialWidth the initial width of a bucket, in simulation time units
+	 */
+	public CalendarFutureQueue(double initialWidth) {
+		if (initialWidth <= 0) {
+			throw new IllegalArgumentException("The bucket width should be positive, but is:" + initialWidth);
+		}
+		width = initialWidth;
+		buckets = newBuckets(MIN_BUCKETS);
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent, order++);
+		if (size > 2 * buckets.length) {
+			resize(buckets.length * 2);
+		}
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(newEvent, order++);
+		if (size > 2 * buckets.length) {
+			resize(buckets.length * 2);
+		}
+	}
+
+	@Override
+	public SimEvent peek() {
+		int b = findMin();
+		return b < 0 ? null : buckets[b].events[buckets[b].head];
+	}
+
+	@Override
+	public int pollAll(double time, List<SimEvent> batch) {
+		int count = 0;
+		int b = findMin();
+		while (b >= 0 && buckets[b].headTime() == time) {
+			batch.add(buckets[b].pollFirst());
+			size--;
+			count++;
+			if (buckets[b].isEmpty() || buckets[b].headTime() != time) {
+				minBucket = -1;
+				b = findMin();
+			}
+		}
+		if (count > 0) {
+			shrinkIfSparse();
+		}
+		return count;
+	}
+
+	@Override
+	public int removeAll(int src, Predicate p) {
+		int removed = 0;
+		for (Bucket bucket : buckets) {
+			removed += bucket.removeAll(src, p);
+		}
+		if (removed > 0) {
+			size -= removed;
+			minBucket = -1;
+			shrinkIfSparse();
+		}
+		return removed;
+	}
+
+	/**
+	 * Returns an iterator over a sorted snapshot of the queue. Removing through the iterator
+	 * removes the event from the queue.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		SimEvent[] events = new SimEvent[size];
+		double[] times = new double[size];
+		long[] serials = new long[size];
+		long[] orders = new long[size];
+		int n = 0;
+		for (Bucket bucket : buckets) {
+			for (int i = bucket.head; i < bucket.tail; i++, n++) {
+				events[n] = bucket.events[i];
+				times[n] = bucket.times[i];
+				serials[n] = bucket.serials[i];
+				orders[n] = bucket.orders[i];
+			}
+		}
+		return new SortedEventIterator(this, events, times, serials, orders, n);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		Bucket bucket = buckets[bucketOf(virtualBucket(event.eventTime()))];
+		if (!bucket.remove(event)) {
+			return false;
+		}
+		size--;
+		minBucket = -1;
+		shrinkIfSparse();
+		return true;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> toRemove) {
+		boolean changed = false;
+		for (SimEvent event : toRemove) {
+			changed |= remove(event);
+		}
+		return changed;
+	}
+
+	@Override
+	public void clear() {
+		buckets = newBuckets(MIN_BUCKETS);
+		size = 0;
+		current = 0;
+		minBucket = -1;
+	}
+
+	private void insert(SimEvent event, long eventOrder) {
+		double time = event.eventTime();
+		long v = virtualBucket(time);
+		int b = bucketOf(v);
+		buckets[b].insert(event, time, event.getSerial(), eventOrder);
+		size++;
+		if (v < current) {
+			current = v;
+			minBucket = -1;
+		} else if (minBucket >= 0 && b != minBucket
+				&& buckets[b].isHead(eventOrder) && buckets[b].headBefore(buckets[minBucket])) {
+			minBucket = b;
+		}
+	}
+
+	/**
+	 * Finds the bucket holding the first event, advancing the current bucket index.
+	 *
+	 * @return the bucket index, or -1 if the queue is empty
+	 */
+	private int findMin() {
+		if (size == 0) {
+			return -1;
+		}
+		if (minBucket >= 0) {
+			return minBucket;
+		}
+		int n = buckets.length;
+		for (int k = 0; k < n; k++) {
+			long v = current + k;
+			int b = bucketOf(v);
+			Bucket bucket = buckets[b];
+			if (!bucket.isEmpty() && virtualBucket(bucket.headTime()) == v) {
+				current = v;
+				minBucket = b;
+				return b;
+			}
+		}
+
+		// nothing within a whole year: search the heads directly
+		int best = -1;
+		for (int b = 0; b < n; b++) {
+			if (!buckets[b].isEmpty() && (best < 0 || buckets[b].headBefore(buckets[best]))) {
+				best = b;
+			}
+		}
+		current = virtualBucket(buckets[best].headTime());
+		minBucket = best;
+		return best;
+	}
+
+	private void shrinkIfSparse() {
+		if (buckets.length > MIN_BUCKETS && size < buckets.length / 2) {
+			resize(buckets.length / 2);
+		}
+	}
+
+	private void resize(int bucketCount) {
+		SimEvent[] events = new SimEvent[size];
+		double[] times = new double[size];
+		long[] serials = new long[size];
+		long[] orders = new long[size];
+		int n = 0;
+		for (Bucket bucket : buckets) {
+			for (int i = bucket.head; i < bucket.tail; i++, n++) {
+				events[n] = bucket.events[i];
+				times[n] = bucket.times[i];
+				serials[n] = bucket.serials[i];
+				orders[n] = bucket.orders[i];
+			}
+		}
+
+		double newWidth = estimateWidth(Arrays.copyOf(times, n));
+		if (newWidth > 0 && !Double.isInfinite(newWidth) && !Double.isNaN(newWidth)) {
+			width = newWidth;
+		}
+		buckets = newBuckets(bucketCount);
+		double minTime = Double.MAX_VALUE;
+		for (int i = 0; i < n; i++) {
+			buckets[bucketOf(virtualBucket(times[i]))].insert(events[i], times[i], serials[i], orders[i]);
+			minTime = Math.min(minTime, times[i]);
+		}
+		current = n > 0 ? virtualBucket(minTime) : 0;
+		minBucket = -1;
+	}
+
+	/**
+	 * Estimates the bucket width as three times the average separation of the first distinct event
+	 * times, ignoring separations larger than twice the average.
+	 */
+	private static double estimateWidth(double[] times) {
+		Arrays.sort(times);
+		double[] gaps = new double[WIDTH_SAMPLE];
+		int count = 0;
+		double total = 0;
+		for (int i = 1; i < times.length && count < WIDTH_SAMPLE; i++) {
+			double gap = times[i] - times[i - 1];
+			if (gap > 0) {
+				gaps[count++] = gap;
+				total += gap;
+			}
+		}
+		if (count == 0) {
+			return -1;
+		}
+		double average = total / count;
+		double trimmed = 0;
+		int trimmedCount = 0;
+		for (int i = 0; i < count; i++) {
+			if (gaps[i] <= 2 * average) {
+				trimmed += gaps[i];
+				trimmedCount++;
+			}
+		}
+		return 3 * trimmed / trimmedCount;
+	}
+
+	private long virtualBucket(double time) {
+		double v = Math.floor(time / width);
+		if (v >= MAX_VIRTUAL_BUCKET) {
+			return MAX_VIRTUAL_BUCKET;
+		}
+		return v <= 0 ? 0 : (long) v;
+	}
+
+	private int bucketOf(long virtualBucket) {
+		return (int) (virtualBucket % buckets.length);
+	}
+
+	private static Bucket[] newBuckets(int count) {
+		Bucket[] buckets = new Bucket[count];
+		for (int i = 0; i < count; i++) {
+			buckets[i] = new Bucket();
+		}
+		return buckets;
+	}
+
+	/**
+	 * A bucket of the calendar: a sorted array of events, consumed from the head.
+	 */
+	private static class Bucket {
+
+		private SimEvent[] events = new SimEvent[4];
+
+		private double[] times = new double[4];
+
+		private long[] serials = new long[4];
+
+		private long[] orders = new long[4];
+
+		private int head = 0;
+
+		private int tail = 0;
+
+		boolean isEmpty() {
+			return head == tail;
+		}
+
+		double headTime() {
+			return times[head];
+		}
+
+		boolean isHead(long eventOrder) {
+			return orders[head] == eventOrder;
+		}
+
+		boolean headBefore(Bucket other) {
+			return before(times[head], serials[head], orders[head], other.times[other.head],
+					other.serials[other.head], other.orders[other.head]);
+		}
+
+		void insert(SimEvent event, double time, long serial, long order) {
+			if (tail == events.length) {
+				if (head > 0) {
+					compact();
+				} else {
+					int capacity = events.length << 1;
+					events = Arrays.copyOf(events, capacity);
+					times = Arrays.copyOf(times, capacity);
+					serials = Arrays.copyOf(serials, capacity);
+					orders = Arrays.copyOf(orders, capacity);
+				}
+			}
+			int i = tail;
+			while (i > head && before(time, serial, order, times[i - 1], serials[i - 1], orders[i - 1])) {
+				move(i - 1, i);
+				i--;
+			}
+			events[i] = event;
+			times[i] = time;
+			serials[i] = serial;
+			orders[i] = order;
+			tail++;
+		}
+
+		SimEvent pollFirst() {
+			SimEvent event = events[head];
+			events[head++] = null;
+			if (head == tail) {
+				head = 0;
+				tail = 0;
+			}
+			return event;
+		}
+
+		boolean remove(SimEvent event) {
+			for (int i = head; i < tail; i++) {
+				if (events[i] == event) {
+					for (int j = i + 1; j < tail; j++) {
+						move(j, j - 1);
+					}
+					events[--tail] = null;
+					if (head == tail) {
+						head = 0;
+						tail = 0;
+					}
+					return true;
+				}
+			}
+			return false;
+		}
+
+		int removeAll(int src, Predicate p) {
+			int kept = head;
+			for (int i = head; i < tail; i++) {
+				SimEvent ev = events[i];
+				if (ev.getSource() == src && p.match(ev)) {
+					continue;
+				}
+				move(i, kept++);
+			}
+			int removed = tail - kept;
+			Arrays.fill(events, kept, tail, null);
+			tail = kept;
+			if (head == tail) {
+				head = 0;
+				tail = 0;
+			}
+			return removed;
+		}
+
+		private void compact() {
+			int n = tail - head;
+			System.arraycopy(events, head, events, 0, n);
+			System.arraycopy(times, head, times, 0, n);
+			System.arraycopy(serials, head, serials, 0, n);
+			System.arraycopy(orders, head, orders, 0, n);
+			Arrays.fill(events, n, tail, null);
+			head = 0;
+			tail = n;
+		}
+
+		private void move(int from, int to) {
+			events[to] = events[from];
+			times[to] = times[from];
+			serials[to] = serials[from];
+			orders[to] = orders[from];
+		}
+
+		private static boolean before(double timeA, long serialA, long orderA, double timeB, long serialB,
+				long orderB) {
+			if (timeA != timeB) {
+				return timeA < timeB;
+			}
+			if (serialA != serialB) {
+				return serialA < serialB;
+			}
+			return orderA < orderB;
+		}
+	}
+
+}
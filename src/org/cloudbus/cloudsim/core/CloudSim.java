@@ -29,6 +29,9 @@ import org.cloudbus.cloudsim.core.predicates.PredicateNone;
  * network. Later, nodes in such file are mapped to CloudSim entities. Delay calculated from the
  * BRITE model are added to the messages send through CloudSim. Messages using the old model are
  * converted to the apropriate methods with the correct parameters.
+ * <p>
+ * The state of the simulation is kept in the {@link SimulationContext} bound to the calling
+ * thread, so that independent simulations can run in parallel on different threads.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -39,32 +42,9 @@ public class CloudSim {
 	/** The Constant CLOUDSIM_VERSION_STRING. */
 	private static final String CLOUDSIM_VERSION_STRING = "3.0";
 
-	/** The id of CIS entity. */
-	private static int cisId = -1;
-
-	/** The id of CloudSimShutdown entity. */
-	@SuppressWarnings("unused")
-	private static int shutdownId = -1;
-
-	/** The CIS object. */
-	private static CloudInformationService cis = null;
-
 	/** The Constant NOT_FOUND. */
 	private static final int NOT_FOUND = -1;
 
-	/** The trace flag. */
-	@SuppressWarnings("unused")
-	private static boolean traceFlag = false;
-
-	/** The calendar. */
-	private static Calendar calendar = null;
-
-	/** The termination time. */
-	private static double terminateAt = -1;
-
-	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
-	private static double minTimeBetweenEvents = 0.1;
-	
 	/**
 	 * Initialises all the common attributes.
 	 * 
@@ -78,21 +58,22 @@ public class CloudSim {
 	 */
 	private static void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser)
 			throws Exception {
+		SimulationContext ctx = SimulationContext.current();
 		initialize();
 		// NOTE: the order for the below 3 lines are important
-		traceFlag = _traceFlag;
+		ctx.traceFlag = _traceFlag;
 
 		// Set the current Wall clock time as the starting time of
 		// simulation
 		if (_calendar == null) {
-			calendar = Calendar.getInstance();
+			ctx.calendar = Calendar.getInstance();
 		} else {
-			calendar = _calendar;
+			ctx.calendar = _calendar;
 		}
 
 		// creates a CloudSimShutdown object
 		CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
-		shutdownId = shutdown.getId();
+		ctx.shutdownId = shutdown.getId();
 	}
 
 	/**
@@ -117,14 +98,15 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag) {
+		SimulationContext ctx = SimulationContext.current();
 		try {
 			initCommonVariable(cal, traceFlag, numUser);
 
 			// create a GIS object
-			cis = new CloudInformationService("CloudInformationService");
+			ctx.cis = new CloudInformationService("CloudInformationService");
 
 			// set all the above entity IDs
-			cisId = cis.getId();
+			ctx.cisId = ctx.cis.getId();
 		} catch (IllegalArgumentException s) {
 			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
 			Log.printLine(s.getMessage());
@@ -158,16 +140,39 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag, double periodBetweenEvents) {
+		SimulationContext ctx = SimulationContext.current();
 	    if (periodBetweenEvents <= 0) {
 		throw new IllegalArgumentException("The minimal time between events should be positive, but is:" + periodBetweenEvents);
 	    }
 	    
 	    init(numUser, cal, traceFlag);
-	    minTimeBetweenEvents = periodBetweenEvents;
+	    ctx.minTimeBetweenEvents = periodBetweenEvents;
+	}
+
+	/**
+	 * Initialises CloudSim parameters using the given future event list. This method should be
+	 * called before creating any entities.
+	 * 
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param futureQueue the future event list to be used, e.g. a {@link HeapFutureQueue} or a
+	 *            {@link CalendarFutureQueue}; it is cleared before use
+	 * @see #init(int, Calendar, boolean)
+	 * @pre numUser >= 0
+	 * @post $none
+	 */
+	public static void init(int numUser, Calendar cal, boolean traceFlag, FutureQueue futureQueue) {
+		SimulationContext ctx = SimulationContext.current();
+		if (futureQueue == null) {
+			throw new IllegalArgumentException("The future event queue can't be null.");
+		}
+		futureQueue.clear();
+		ctx.nextFutureQueue = futureQueue;
+		init(numUser, cal, traceFlag);
 	}
-	
-	
-	
+
 	/**
 	 * Starts the execution of CloudSim simulation. It waits for complete execution of all entities,
 	 * i.e. until all entities threads reach non-RUNNABLE state or there are no more events in the
@@ -183,16 +188,17 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static double startSimulation() throws NullPointerException {
+		SimulationContext ctx = SimulationContext.current();
 		Log.printLine("Starting CloudSim version " + CLOUDSIM_VERSION_STRING);
 		try {
 			double clock = run();
 
-			// reset all static variables
-			cisId = -1;
-			shutdownId = -1;
-			cis = null;
-			calendar = null;
-			traceFlag = false;
+			// reset the state of the simulation context
+			ctx.cisId = -1;
+			ctx.shutdownId = -1;
+			ctx.cis = null;
+			ctx.calendar = null;
+			ctx.traceFlag = false;
 
 			return clock;
 		} catch (IllegalArgumentException e) {
@@ -229,7 +235,8 @@ public class CloudSim {
 	 * @return true, if successful; false otherwise.
 	 */
 	public static boolean terminateSimulation() {
-		running = false;
+		SimulationContext ctx = SimulationContext.current();
+		ctx.running = false;
 		printMessage("Simulation: Reached termination time.");
 		return true;
 	}
@@ -241,21 +248,22 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean terminateSimulation(double time) {
-		if (time <= clock) {
+		SimulationContext ctx = SimulationContext.current();
+		if (time <= ctx.clock) {
 			return false;
 		} else {
-			terminateAt = time;
+			ctx.terminateAt = time;
 		}
 		return true;
 	}
 
-	
 	/**
 	 * Returns the minimum time between events. Events within shorter periods after the last event are discarded. 
 	 * @return the minimum time between events.
 	 */
 	public static double getMinTimeBetweenEvents() {
-	    return minTimeBetweenEvents;
+		SimulationContext ctx = SimulationContext.current();
+	    return ctx.minTimeBetweenEvents;
 	}
 
 	/**
@@ -268,10 +276,11 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static Calendar getSimulationCalendar() {
+		SimulationContext ctx = SimulationContext.current();
 		// make a new copy
-		Calendar clone = calendar;
-		if (calendar != null) {
-			clone = (Calendar) calendar.clone();
+		Calendar clone = ctx.calendar;
+		if (ctx.calendar != null) {
+			clone = (Calendar) ctx.calendar.clone();
 		}
 
 		return clone;
@@ -285,7 +294,8 @@ public class CloudSim {
 	 * @post $result >= -1
 	 */
 	public static int getCloudInfoServiceEntityId() {
-		return cisId;
+		SimulationContext ctx = SimulationContext.current();
+		return ctx.cisId;
 	}
 
 	/**
@@ -298,59 +308,32 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static List<Integer> getCloudResourceList() {
-		if (cis == null) {
+		SimulationContext ctx = SimulationContext.current();
+		if (ctx.cis == null) {
 			return null;
 		}
 
-		return cis.getList();
+		return ctx.cis.getList();
 	}
 
 	// ======== SIMULATION METHODS ===============//
 
-	/** The entities. */
-	private static List<SimEntity> entities;
-
-	/** The future event queue. */
-	protected static FutureQueue future;
-
-	/** The deferred event queue. */
-	protected static DeferredQueue deferred;
-
-	/** The simulation clock. */
-	private static double clock;
-
-	/** Flag for checking if the simulation is running. */
-	private static boolean running;
-
-	/** The entities by name. */
-	private static Map<String, SimEntity> entitiesByName;
-
-	// The predicates used in entity wait methods
-	/** The wait predicates. */
-	private static Map<Integer, Predicate> waitPredicates;
-
-	/** The paused. */
-	private static boolean paused = false;
-
-	/** The pause at. */
-	private static long pauseAt = -1;
-
-	/** The abrupt terminate. */
-	private static boolean abruptTerminate = false;
-
 	/**
 	 * Initialise the simulation for stand alone simulations. This function should be called at the
 	 * start of the simulation.
 	 */
 	protected static void initialize() {
+		SimulationContext ctx = SimulationContext.current();
 		Log.printLine("Initialising...");
-		entities = new ArrayList<SimEntity>();
-		entitiesByName = new LinkedHashMap<String, SimEntity>();
-		future = new FutureQueue();
-		deferred = new DeferredQueue();
-		waitPredicates = new HashMap<Integer, Predicate>();
-		clock = 0;
-		running = false;
+		ctx.entities = new ArrayList<SimEntity>();
+		ctx.entitiesByName = new LinkedHashMap<String, SimEntity>();
+		ctx.future = ctx.nextFutureQueue != null ? ctx.nextFutureQueue : new FutureQueue();
+		ctx.nextFutureQueue = null;
+		ctx.deferred = new DeferredQueue();
+		ctx.batch = new ArrayList<SimEvent>();
+		ctx.waitPredicates = new HashMap<Integer, Predicate>();
+		ctx.clock = 0;
+		ctx.running = false;
 	}
 
 	// The two standard predicates
@@ -369,7 +352,8 @@ public class CloudSim {
 	 * @return the simulation time
 	 */
 	public static double clock() {
-		return clock;
+		SimulationContext ctx = SimulationContext.current();
+		return ctx.clock;
 	}
 
 	/**
@@ -378,7 +362,8 @@ public class CloudSim {
 	 * @return The number of entities
 	 */
 	public static int getNumEntities() {
-		return entities.size();
+		SimulationContext ctx = SimulationContext.current();
+		return ctx.entities.size();
 	}
 
 	/**
@@ -388,7 +373,8 @@ public class CloudSim {
 	 * @return The entity, or if it could not be found
 	 */
 	public static SimEntity getEntity(int id) {
-		return entities.get(id);
+		SimulationContext ctx = SimulationContext.current();
+		return ctx.entities.get(id);
 	}
 
 	/**
@@ -398,7 +384,8 @@ public class CloudSim {
 	 * @return The entity
 	 */
 	public static SimEntity getEntity(String name) {
-		return entitiesByName.get(name);
+		SimulationContext ctx = SimulationContext.current();
+		return ctx.entitiesByName.get(name);
 	}
 
 	/**
@@ -408,7 +395,8 @@ public class CloudSim {
 	 * @return The entity's unique id number
 	 */
 	public static int getEntityId(String name) {
-		SimEntity obj = entitiesByName.get(name);
+		SimulationContext ctx = SimulationContext.current();
+		SimEntity obj = ctx.entitiesByName.get(name);
 		if (obj == null) {
 			return NOT_FOUND;
 		} else {
@@ -455,10 +443,11 @@ public class CloudSim {
 	 * @return the entity iterator
 	 */
 	public static List<SimEntity> getEntityList() {
+		SimulationContext ctx = SimulationContext.current();
 		// create a new list to prevent the user from changing
 		// the list of entities used by Simulation
 		List<SimEntity> list = new LinkedList<SimEntity>();
-		list.addAll(entities);
+		list.addAll(ctx.entities);
 		return list;
 	}
 
@@ -471,19 +460,20 @@ public class CloudSim {
 	 * @param e The new entity
 	 */
 	public static void addEntity(SimEntity e) {
+		SimulationContext ctx = SimulationContext.current();
 		SimEvent evt;
-		if (running) {
+		if (ctx.running) {
 			// Post an event to make this entity
-			evt = new SimEvent(SimEvent.CREATE, clock, 1, 0, 0, e);
-			future.addEvent(evt);
+			evt = new SimEvent(SimEvent.CREATE, ctx.clock, 1, 0, 0, e);
+			ctx.future.addEvent(evt);
 		}
 		if (e.getId() == -1) { // Only add once!
 			
 			//System.out.println("From CloudSim.addEntity(): Adding SimEntity "+e.getName());
-			int id = entities.size();
+			int id = ctx.entities.size();
 			e.setId(id);
-			entities.add(e);
-			entitiesByName.put(e.getName(), e);
+			ctx.entities.add(e);
+			ctx.entitiesByName.put(e.getName(), e);
 		}
 	}
 
@@ -509,47 +499,37 @@ public class CloudSim {
 	 * @return true, if successful otherwise
 	 */
 	public static boolean runClockTick() {
+		SimulationContext ctx = SimulationContext.current();
 		SimEntity ent;
 		boolean queue_empty;
 		
-		int entities_size = entities.size();
+		int entities_size = ctx.entities.size();
 
 		for (int i = 0; i < entities_size; i++) {
-			ent = entities.get(i);
+			ent = ctx.entities.get(i);
 			if (ent.getState() == SimEntity.RUNNABLE) {
 				ent.run();
 			}
 		}
 				
 		// If there are more future events then deal with them
-		if (future.size() > 0) {
-			List<SimEvent> toRemove = new ArrayList<SimEvent>();
-			Iterator<SimEvent> fit = future.iterator();
+		if (ctx.future.size() > 0) {
 			queue_empty = false;
-			SimEvent first = fit.next();
-			processEvent(first);
-			future.remove(first);
-
-			fit = future.iterator();
-
-			// Check if next events are at same time...
-			boolean trymore = fit.hasNext();
-			while (trymore) {
-				SimEvent next = fit.next();
-				if (next.eventTime() == first.eventTime()) {
-					processEvent(next);
-					toRemove.add(next);
-					trymore = fit.hasNext();
-				} else {
-					trymore = false;
+			double time = ctx.future.peek().eventTime();
+
+			// Process all the events at the same time. Processing may add new events at this
+			// time, which come after the ones already polled.
+			do {
+				ctx.future.pollAll(time, ctx.batch);
+				for (int i = 0; i < ctx.batch.size(); i++) {
+					processEvent(ctx.batch.get(i));
 				}
-			}
-
-			future.removeAll(toRemove);
+				ctx.batch.clear();
+			} while (ctx.future.size() > 0 && ctx.future.peek().eventTime() == time);
 
 		} else {
 			queue_empty = true;
-			running = false;
+			ctx.running = false;
 			printMessage("Simulation: No more future events");
 		}
 
@@ -570,9 +550,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void hold(int src, long delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext ctx = SimulationContext.current();
+		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, ctx.clock + delay, src);
+		ctx.future.addEvent(e);
+		ctx.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -582,9 +563,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void pause(int src, double delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext ctx = SimulationContext.current();
+		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, ctx.clock + delay, src);
+		ctx.future.addEvent(e);
+		ctx.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -597,12 +579,13 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void send(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext ctx = SimulationContext.current();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEvent(e);
+		SimEvent e = new SimEvent(SimEvent.SEND, ctx.clock + delay, src, dest, tag, data);
+		ctx.future.addEvent(e);
 	}
 
 	/**
@@ -615,12 +598,13 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void sendFirst(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext ctx = SimulationContext.current();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEventFirst(e);
+		SimEvent e = new SimEvent(SimEvent.SEND, ctx.clock + delay, src, dest, tag, data);
+		ctx.future.addEventFirst(e);
 	}
 
 	/**
@@ -632,10 +616,11 @@ public class CloudSim {
 	 * @param p the p
 	 */
 	public static void wait(int src, Predicate p) {
-		entities.get(src).setState(SimEntity.WAITING);
+		SimulationContext ctx = SimulationContext.current();
+		ctx.entities.get(src).setState(SimEntity.WAITING);
 		if (p != SIM_ANY) {
 			// If a predicate has been used store it in order to check it
-			waitPredicates.put(src, p);
+			ctx.waitPredicates.put(src, p);
 		}
 	}
 
@@ -647,16 +632,8 @@ public class CloudSim {
 	 * @return the int
 	 */
 	public static int waiting(int d, Predicate p) {
-		int count = 0;
-		SimEvent event;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if ((event.getDestination() == d) && (p.match(event))) {
-				count++;
-			}
-		}
-		return count;
+		SimulationContext ctx = SimulationContext.current();
+		return ctx.deferred.count(d, p);
 	}
 
 	/**
@@ -667,16 +644,8 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent select(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				iterator.remove();
-				break;
-			}
-		}
-		return ev;
+		SimulationContext ctx = SimulationContext.current();
+		return ctx.deferred.select(src, p);
 	}
 
 	/**
@@ -687,15 +656,8 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent findFirstDeferred(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				break;
-			}
-		}
-		return ev;
+		SimulationContext ctx = SimulationContext.current();
+		return ctx.deferred.findFirst(src, p);
 	}
 
 	/**
@@ -706,8 +668,9 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent cancel(int src, Predicate p) {
+		SimulationContext ctx = SimulationContext.current();
 		SimEvent ev = null;
-		Iterator<SimEvent> iter = future.iterator();
+		Iterator<SimEvent> iter = ctx.future.iterator();
 		while (iter.hasNext()) {
 			ev = iter.next();
 			if (ev.getSource() == src && p.match(ev)) {
@@ -728,16 +691,8 @@ public class CloudSim {
 	 * @return true, if successful
 	 */
 	public static boolean cancelAll(int src, Predicate p) {
-		SimEvent ev = null;
-		int previousSize = future.size();
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
-			}
-		}
-		return previousSize < future.size();
+		SimulationContext ctx = SimulationContext.current();
+		return ctx.future.removeAll(src, p) > 0;
 	}
 
 	//
@@ -750,13 +705,14 @@ public class CloudSim {
 	 * @param e the e
 	 */
 	private static void processEvent(SimEvent e) {
+		SimulationContext ctx = SimulationContext.current();
 		int dest, src;
 		SimEntity dest_ent;
 		// Update the system's clock
-		if (e.eventTime() < clock) {
+		if (e.eventTime() < ctx.clock) {
 			throw new IllegalArgumentException("Past event detected.");
 		}
-		clock = e.eventTime();
+		ctx.clock = e.eventTime();
 
 		// Ok now process it
 		switch (e.getType()) {
@@ -775,19 +731,19 @@ public class CloudSim {
 					throw new IllegalArgumentException("Attempt to send to a null entity detected.");
 				} else {
 					int tag = e.getTag();
-					dest_ent = entities.get(dest);
+					dest_ent = ctx.entities.get(dest);
 					if (dest_ent.getState() == SimEntity.WAITING) {
 						Integer destObj = Integer.valueOf(dest);
-						Predicate p = waitPredicates.get(destObj);
+						Predicate p = ctx.waitPredicates.get(destObj);
 						if ((p == null) || (tag == 9999) || (p.match(e))) {
 							dest_ent.setEventBuffer((SimEvent) e.clone());
 							dest_ent.setState(SimEntity.RUNNABLE);
-							waitPredicates.remove(destObj);
+							ctx.waitPredicates.remove(destObj);
 						} else {
-							deferred.addEvent(e);
+							ctx.deferred.addEvent(e);
 						}
 					} else {
-						deferred.addEvent(e);
+						ctx.deferred.addEvent(e);
 					}
 				}
 				break;
@@ -797,7 +753,7 @@ public class CloudSim {
 				if (src < 0) {
 					throw new IllegalArgumentException("Null entity holding.");
 				} else {
-					entities.get(src).setState(SimEntity.RUNNABLE);
+					ctx.entities.get(src).setState(SimEntity.RUNNABLE);
 				}
 				break;
 
@@ -811,9 +767,10 @@ public class CloudSim {
 	 * simulations.
 	 */
 	public static void runStart() {
-		running = true;
+		SimulationContext ctx = SimulationContext.current();
+		ctx.running = true;
 		// Start all the entities
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : ctx.entities) {
 			//System.out.println("From CloudSim.runStart(): Starting SimEntity "+ent.getName());
 			ent.startEntity();
 		}
@@ -828,7 +785,8 @@ public class CloudSim {
 	 * @return if the simulation is still running, otherwise
 	 */
 	public static boolean running() {
-		return running;
+		SimulationContext ctx = SimulationContext.current();
+		return ctx.running;
 	}
 
 	/**
@@ -837,8 +795,9 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation() {
-		paused = true;
-		return paused;
+		SimulationContext ctx = SimulationContext.current();
+		ctx.paused = true;
+		return ctx.paused;
 	}
 
 	/**
@@ -848,10 +807,11 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation(long time) {
-		if (time <= clock) {
+		SimulationContext ctx = SimulationContext.current();
+		if (time <= ctx.clock) {
 			return false;
 		} else {
-			pauseAt = time;
+			ctx.pauseAt = time;
 		}
 		return true;
 	}
@@ -862,13 +822,14 @@ public class CloudSim {
 	 * @return if the simulation has been restarted or or otherwise.
 	 */
 	public static boolean resumeSimulation() {
-		paused = false;
+		SimulationContext ctx = SimulationContext.current();
+		ctx.paused = false;
 
-		if (pauseAt <= clock) {
-			pauseAt = -1;
+		if (ctx.pauseAt <= ctx.clock) {
+			ctx.pauseAt = -1;
 		}
 
-		return !paused;
+		return !ctx.paused;
 	}
 
 	/**
@@ -878,29 +839,29 @@ public class CloudSim {
 	 * @return the double last clock value
 	 */
 	public static double run() {
-		if (!running) {
+		SimulationContext ctx = SimulationContext.current();
+		if (!ctx.running) {
 			runStart();
 		}
 		while (true) {
-			if (runClockTick() || abruptTerminate) {
+			if (runClockTick() || ctx.abruptTerminate) {
 				break;
 			}
 
 			// this block allows termination of simulation at a specific time
-			if (terminateAt > 0.0 && clock >= terminateAt) {
+			if (ctx.terminateAt > 0.0 && ctx.clock >= ctx.terminateAt) {
 				terminateSimulation();
-				clock = terminateAt;
+				ctx.clock = ctx.terminateAt;
 				break;
 			}
 
-			if (pauseAt != -1
-					&& ((future.size() > 0 && clock <= pauseAt && pauseAt <= future.iterator().next()
-							.eventTime()) || future.size() == 0 && pauseAt <= clock)) {
+			if (ctx.pauseAt != -1
+					&& ((ctx.future.size() > 0 && ctx.clock <= ctx.pauseAt && ctx.pauseAt <= ctx.future.peek().eventTime()) || ctx.future.size() == 0 && ctx.pauseAt <= ctx.clock)) {
 				pauseSimulation();
-				clock = pauseAt;
+				ctx.clock = ctx.pauseAt;
 			}
 
-			while (paused) {
+			while (ctx.paused) {
 				try {
 					Thread.sleep(100);
 				} catch (InterruptedException e) {
@@ -922,39 +883,42 @@ public class CloudSim {
 	 * in user simulations.
 	 */
 	public static void finishSimulation() {
+		SimulationContext ctx = SimulationContext.current();
 		// Allow all entities to exit their body method
-		if (!abruptTerminate) {
-			for (SimEntity ent : entities) {
+		if (!ctx.abruptTerminate) {
+			for (SimEntity ent : ctx.entities) {
 				if (ent.getState() != SimEntity.FINISHED) {
 					ent.run();
 				}
 			}
 		}
 
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : ctx.entities) {
 			ent.shutdownEntity();
 		}
 
-		// reset all static variables
+		// reset the state of the simulation context
 		// Private data members
-		entities = null;
-		entitiesByName = null;
-		future = null;
-		deferred = null;
-		clock = 0L;
-		running = false;
+		ctx.entities = null;
+		ctx.entitiesByName = null;
+		ctx.future = null;
+		ctx.deferred = null;
+		ctx.batch = null;
+		ctx.clock = 0L;
+		ctx.running = false;
 
-		waitPredicates = null;
-		paused = false;
-		pauseAt = -1;
-		abruptTerminate = false;
+		ctx.waitPredicates = null;
+		ctx.paused = false;
+		ctx.pauseAt = -1;
+		ctx.abruptTerminate = false;
 	}
 
 	/**
 	 * Abruptally terminate.
 	 */
 	public static void abruptallyTerminate() {
-		abruptTerminate = true;
+		SimulationContext ctx = SimulationContext.current();
+		ctx.abruptTerminate = true;
 	}
 
 	/**
@@ -972,7 +936,8 @@ public class CloudSim {
 	 * @return true, if is paused
 	 */
 	public static boolean isPaused() {
-		return paused;
+		SimulationContext ctx = SimulationContext.current();
+		return ctx.paused;
 	}
 
 }
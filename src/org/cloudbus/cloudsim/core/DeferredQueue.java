@@ -8,15 +8,24 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateNone;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
- * This class implements the deferred event queue used by {@link Simulation}. The event queue uses a
- * linked list to store the events.
- * 
+ * This class implements the deferred event queue used by {@link Simulation}. The events are
+ * partitioned by destination entity: each entity has its own time-ordered linked list of events,
+ * and each of these events is also linked in a per-tag list of that entity. Selecting the events of
+ * an entity, in particular with {@link PredicateAny} or {@link PredicateType}, therefore only
+ * touches that entity's events. Within an entity, events are kept in time order, events with the
+ * same time being kept in insertion order.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see Simulation
@@ -24,65 +33,412 @@ import java.util.ListIterator;
  */
 public class DeferredQueue {
 
-	/** The list. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
+	/** The events of each entity, indexed by entity id. */
+	private EntityEvents[] entities = new EntityEvents[16];
+
+	/** The total number of events. */
+	private int size = 0;
+
+	/** The insertion counter, used to order events with the same time. */
+	private long serial = 0;
 
-	/** The max time. */
-	private double maxTime = -1;
+	/** Recycled list nodes. */
+	private Node freeNodes;
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
 	 * of the events.
-	 * 
+	 *
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
 		// The event has to be inserted as the last of all events
 		// with the same event_time(). Yes, this matters.
-		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
-			return;
+		int dest = newEvent.getDestination();
+		if (dest >= entities.length) {
+			entities = Arrays.copyOf(entities, Math.max(dest + 1, entities.length * 2));
 		}
+		EntityEvents owner = entities[dest];
+		if (owner == null) {
+			owner = new EntityEvents();
+			entities[dest] = owner;
+		}
+
+		Node node = newNode(newEvent);
+		owner.insert(node, owner.tagList(newEvent.getTag()));
+		size++;
+	}
 
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
+	/**
+	 * Removes the first event of an entity that matches a predicate.
+	 *
+	 * @param dest the id of the entity the events were sent to
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent select(int dest, Predicate p) {
+		Node node = findFirstNode(dest, p);
+		if (node == null) {
+			return null;
+		}
+		SimEvent event = node.event;
+		unlink(node);
+		return event;
+	}
+
+	/**
+	 * Finds the first event of an entity that matches a predicate, without removing it.
+	 *
+	 * @param dest the id of the entity the events were sent to
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent findFirst(int dest, Predicate p) {
+		Node node = findFirstNode(dest, p);
+		return node == null ? null : node.event;
+	}
+
+	/**
+	 * Counts the events of an entity that match a predicate.
+	 *
+	 * @param dest the id of the entity the events were sent to
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(int dest, Predicate p) {
+		EntityEvents owner = entityEvents(dest);
+		if (owner == null || owner.size == 0 || p instanceof PredicateNone) {
+			return 0;
+		}
+		if (p instanceof PredicateAny) {
+			return owner.size;
+		}
+
+		int count = 0;
+		if (p instanceof PredicateType) {
+			PredicateType type = (PredicateType) p;
+			for (int i = 0; i < type.getTagCount(); i++) {
+				if (!isDuplicateTag(type, i)) {
+					TagList tagList = owner.findTagList(type.getTag(i));
+					if (tagList != null) {
+						count += tagList.size;
+					}
+				}
 			}
+			return count;
 		}
 
-		list.add(newEvent);
+		for (Node node = owner.head; node != null; node = node.next) {
+			if (p.match(node.event)) {
+				count++;
+			}
+		}
+		return count;
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
-	 * 
+	 * Returns an iterator to the events in the queue, in time order. Removing through the iterator
+	 * removes the event from the queue.
+	 *
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		final Node[] nodes = new Node[size];
+		final SimEvent[] events = new SimEvent[size];
+		int n = 0;
+		for (EntityEvents owner : entities) {
+			if (owner != null) {
+				for (Node node = owner.head; node != null; node = node.next) {
+					nodes[n++] = node;
+				}
+			}
+		}
+		Arrays.sort(nodes, 0, n, new Comparator<Node>() {
+
+			@Override
+			public int compare(Node a, Node b) {
+				return a.before(b) ? -1 : (b.before(a) ? 1 : 0);
+			}
+		});
+		for (int i = 0; i < n; i++) {
+			events[i] = nodes[i].event;
+		}
+		final int count = n;
+
+		return new Iterator<SimEvent>() {
+
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < count;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (next >= count) {
+					throw new NoSuchElementException();
+				}
+				return events[next++];
+			}
+
+			@Override
+			public void remove() {
+				if (next == 0) {
+					throw new IllegalStateException();
+				}
+				// nodes are recycled, so make sure it still holds the event
+				Node node = nodes[next - 1];
+				if (node.event == events[next - 1]) {
+					unlink(node);
+				}
+			}
+		};
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		return size;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		entities = new EntityEvents[16];
+		size = 0;
+		freeNodes = null;
+	}
+
+	private Node findFirstNode(int dest, Predicate p) {
+		EntityEvents owner = entityEvents(dest);
+		if (owner == null || owner.size == 0 || p instanceof PredicateNone) {
+			return null;
+		}
+		if (p instanceof PredicateAny) {
+			return owner.head;
+		}
+
+		if (p instanceof PredicateType) {
+			PredicateType type = (PredicateType) p;
+			Node first = null;
+			for (int i = 0; i < type.getTagCount(); i++) {
+				TagList tagList = owner.findTagList(type.getTag(i));
+				if (tagList != null && tagList.head != null
+						&& (first == null || tagList.head.before(first))) {
+					first = tagList.head;
+				}
+			}
+			return first;
+		}
+
+		for (Node node = owner.head; node != null; node = node.next) {
+			if (p.match(node.event)) {
+				return node;
+			}
+		}
+		return null;
+	}
+
+	private EntityEvents entityEvents(int dest) {
+		return dest >= 0 && dest < entities.length ? entities[dest] : null;
+	}
+
+	private static boolean isDuplicateTag(PredicateType type, int index) {
+		int tag = type.getTag(index);
+		for (int i = 0; i < index; i++) {
+			if (type.getTag(i) == tag) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Node newNode(SimEvent event) {
+		Node node = freeNodes;
+		if (node != null) {
+			freeNodes = node.next;
+			node.next = null;
+		} else {
+			node = new Node();
+		}
+		node.event = event;
+		node.time = event.eventTime();
+		node.serial = serial++;
+		return node;
+	}
+
+	private void unlink(Node node) {
+		node.owner.remove(node);
+		size--;
+
+		node.event = null;
+		node.owner = null;
+		node.tagList = null;
+		node.prev = null;
+		node.tagPrev = null;
+		node.tagNext = null;
+		node.next = freeNodes;
+		freeNodes = node;
+	}
+
+	/**
+	 * An event in the queue, linked both in its entity's list and in its tag list.
+	 */
+	private static class Node {
+
+		private SimEvent event;
+
+		private double time;
+
+		private long serial;
+
+		private EntityEvents owner;
+
+		private TagList tagList;
+
+		private Node prev;
+
+		private Node next;
+
+		private Node tagPrev;
+
+		private Node tagNext;
+
+		boolean before(Node other) {
+			return time < other.time || (time == other.time && serial < other.serial);
+		}
+	}
+
+	/**
+	 * The events sent to one tag of an entity.
+	 */
+	private static class TagList {
+
+		private final int tag;
+
+		private Node head;
+
+		private Node tail;
+
+		private int size;
+
+		TagList(int tag) {
+			this.tag = tag;
+		}
+	}
+
+	/**
+	 * The events sent to one entity.
+	 */
+	private static class EntityEvents {
+
+		private Node head;
+
+		private Node tail;
+
+		private int size;
+
+		/** The tag lists; entities receive few distinct tags, so they are searched linearly. */
+		private TagList[] tagLists = new TagList[4];
+
+		private int tagCount;
+
+		TagList findTagList(int tag) {
+			for (int i = 0; i < tagCount; i++) {
+				if (tagLists[i].tag == tag) {
+					return tagLists[i];
+				}
+			}
+			return null;
+		}
+
+		TagList tagList(int tag) {
+			TagList tagList = findTagList(tag);
+			if (tagList == null) {
+				if (tagCount == tagLists.length) {
+					tagLists = Arrays.copyOf(tagLists, tagCount * 2);
+				}
+				tagList = new TagList(tag);
+				tagLists[tagCount++] = tagList;
+			}
+			return tagList;
+		}
+
+		/**
+		 * Inserts a node after all the nodes with the same or an earlier time, in both lists.
+		 */
+		void insert(Node node, TagList tagList) {
+			node.owner = this;
+			node.tagList = tagList;
+
+			Node after = tail;
+			while (after != null && after.time > node.time) {
+				after = after.prev;
+			}
+			node.prev = after;
+			node.next = after == null ? head : after.next;
+			if (node.next == null) {
+				tail = node;
+			} else {
+				node.next.prev = node;
+			}
+			if (after == null) {
+				head = node;
+			} else {
+				after.next = node;
+			}
+			size++;
+
+			after = tagList.tail;
+			while (after != null && after.time > node.time) {
+				after = after.tagPrev;
+			}
+			node.tagPrev = after;
+			node.tagNext = after == null ? tagList.head : after.tagNext;
+			if (node.tagNext == null) {
+				tagList.tail = node;
+			} else {
+				node.tagNext.tagPrev = node;
+			}
+			if (after == null) {
+				tagList.head = node;
+			} else {
+				after.tagNext = node;
+			}
+			tagList.size++;
+		}
+
+		void remove(Node node) {
+			if (node.prev == null) {
+				head = node.next;
+			} else {
+				node.prev.next = node.next;
+			}
+			if (node.next == null) {
+				tail = node.prev;
+			} else {
+				node.next.prev = node.prev;
+			}
+			size--;
+
+			TagList tagList = node.tagList;
+			if (node.tagPrev == null) {
+				tagList.head = node.tagNext;
+			} else {
+				node.tagPrev.tagNext = node.tagNext;
+			}
+			if (node.tagNext == null) {
+				tagList.tail = node.tagPrev;
+			} else {
+				node.tagNext.tagPrev = node.tagPrev;
+			}
+			tagList.size--;
+		}
 	}
 
-}
\ No newline at end of file
+}
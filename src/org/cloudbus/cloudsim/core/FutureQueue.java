@@ -10,12 +10,20 @@ package org.cloudbus.cloudsim.core;
 
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.SortedSet;
+import java.util.List;
 import java.util.TreeSet;
 
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
 /**
  * This class implements the future event queue used by {@link Simulation}. The event queue uses a
  * {@link TreeSet} in order to store the events.
+ * <p>
+ * It is also the extension point for alternative future event lists, such as
+ * {@link HeapFutureQueue} and {@link CalendarFutureQueue}, which can be handed to
+ * {@link CloudSim#init(int, java.util.Calendar, boolean, FutureQueue)}. Every implementation must
+ * deliver events ordered by time, then by serial (so that events added with
+ * {@link #addEventFirst(SimEvent)} come first), then by insertion order.
  * 
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
@@ -25,7 +33,7 @@ import java.util.TreeSet;
 public class FutureQueue {
 
 	/** The sorted set. */
-	private final SortedSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
+	private final TreeSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
 
 	/** The serial. */
 	private long serial = 0;
@@ -51,6 +59,52 @@ public class FutureQueue {
 		sortedSet.add(newEvent);
 	}
 
+	/**
+	 * Returns the next event of the queue without removing it.
+	 * 
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	public SimEvent peek() {
+		return sortedSet.isEmpty() ? null : sortedSet.first();
+	}
+
+	/**
+	 * Removes all the events scheduled at the given time from the head of the queue, in order, and
+	 * appends them to the given batch.
+	 * 
+	 * @param time the time of the events to be removed; usually the time of {@link #peek()}
+	 * @param batch the list the removed events are appended to
+	 * @return the number of events removed
+	 */
+	public int pollAll(double time, List<SimEvent> batch) {
+		int count = 0;
+		while (!sortedSet.isEmpty() && sortedSet.first().eventTime() == time) {
+			batch.add(sortedSet.pollFirst());
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Removes all the events sent by the given entity that match a predicate.
+	 * 
+	 * @param src the id of the entity that sent the events
+	 * @param p the predicate
+	 * @return the number of events removed
+	 */
+	public int removeAll(int src, Predicate p) {
+		int count = 0;
+		Iterator<SimEvent> iter = sortedSet.iterator();
+		while (iter.hasNext()) {
+			SimEvent ev = iter.next();
+			if (ev.getSource() == src && p.match(ev)) {
+				iter.remove();
+				count++;
+			}
+		}
+		return count;
+	}
+
 	/**
 	 * Returns an iterator to the queue.
 	 * 
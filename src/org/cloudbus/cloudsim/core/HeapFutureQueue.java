@@ -0,0 +1,280 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * A future event queue backed by an array-based d-ary heap. The ordering keys (time, serial and
+ * insertion order) are kept in primitive arrays parallel to the event array, so that sifting does
+ * not dereference the events. Events are delivered in the same order as {@link FutureQueue}.
+ *
+ * @see FutureQueue
+ */
+public class HeapFutureQueue extends FutureQueue {
+
+	/** The default arity of the heap. */
+	public static final int DEFAULT_ARITY = 4;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	/** The arity of the heap. */
+	private final int arity;
+
+	private SimEvent[] events;
+
+	private double[] times;
+
+	private long[] serials;
+
+	private long[] orders;
+
+	private int size = 0;
+
+	/** The serial given to events added with {@link #addEvent(SimEvent)}. */
+	private long serial = 0;
+
+	/** The insertion counter, used to break ties between events with the same serial. */
+	private long order = 0;
+
+	/**
+	 * Creates a 4-ary heap future queue.
+	 */
+	public HeapFutureQueue() {
+		this(DEFAULT_ARITY);
+	}
+
+	/**
+	 * Creates a heap future queue with the given arity.
+	 *
+	 * @param arity the number of children of each node; must be at least 2
+	 */
+	public HeapFutureQueue(int arity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("The arity of the heap must be at least 2, but is:" + arity);
+		}
+		this.arity = arity;
+		events = new SimEvent[INITIAL_CAPACITY];
+		times = new double[INITIAL_CAPACITY];
+		serials = new long[INITIAL_CAPACITY];
+		orders = new long[INITIAL_CAPACITY];
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		return size == 0 ? null : events[0];
+	}
+
+	@Override
+	public int pollAll(double time, List<SimEvent> batch) {
+		int count = 0;
+		while (size > 0 && times[0] == time) {
+			batch.add(removeAt(0));
+			count++;
+		}
+		return count;
+	}
+
+	@Override
+	public int removeAll(int src, Predicate p) {
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			SimEvent ev = events[i];
+			if (ev.getSource() == src && p.match(ev)) {
+				continue;
+			}
+			move(i, kept++);
+		}
+		int removed = size - kept;
+		if (removed > 0) {
+			Arrays.fill(events, kept, size, null);
+			size = kept;
+			heapify();
+		}
+		return removed;
+	}
+
+	/**
+	 * Returns an iterator over a sorted snapshot of the queue. Removing through the iterator
+	 * removes the event from the queue.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new SortedEventIterator(this, events, times, serials, orders, size);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		for (int i = 0; i < size; i++) {
+			if (events[i] == event) {
+				removeAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> toRemove) {
+		boolean changed = false;
+		for (SimEvent event : toRemove) {
+			changed |= remove(event);
+		}
+		return changed;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(events, 0, size, null);
+		size = 0;
+	}
+
+	private void insert(SimEvent event) {
+		if (size == events.length) {
+			int capacity = events.length << 1;
+			events = Arrays.copyOf(events, capacity);
+			times = Arrays.copyOf(times, capacity);
+			serials = Arrays.copyOf(serials, capacity);
+			orders = Arrays.copyOf(orders, capacity);
+		}
+		int i = size++;
+		events[i] = event;
+		times[i] = event.eventTime();
+		serials[i] = event.getSerial();
+		orders[i] = order++;
+		siftUp(i);
+	}
+
+	private SimEvent removeAt(int i) {
+		SimEvent removed = events[i];
+		int last = --size;
+		if (i != last) {
+			move(last, i);
+			events[last] = null;
+			if (i > 0 && less(i, (i - 1) / arity)) {
+				siftUp(i);
+			} else {
+				siftDown(i);
+			}
+		} else {
+			events[last] = null;
+		}
+		return removed;
+	}
+
+	private void heapify() {
+		for (int i = (size - 2) / arity; i >= 0; i--) {
+			siftDown(i);
+		}
+	}
+
+	private void siftUp(int i) {
+		SimEvent event = events[i];
+		double time = times[i];
+		long eventSerial = serials[i];
+		long eventOrder = orders[i];
+		while (i > 0) {
+			int parent = (i - 1) / arity;
+			if (!less(time, eventSerial, eventOrder, parent)) {
+				break;
+			}
+			move(parent, i);
+			i = parent;
+		}
+		events[i] = event;
+		times[i] = time;
+		serials[i] = eventSerial;
+		orders[i] = eventOrder;
+	}
+
+	private void siftDown(int i) {
+		SimEvent event = events[i];
+		double time = times[i];
+		long eventSerial = serials[i];
+		long eventOrder = orders[i];
+		while (true) {
+			int first = i * arity + 1;
+			if (first >= size) {
+				break;
+			}
+			int last = Math.min(first + arity, size);
+			int min = first;
+			for (int c = first + 1; c < last; c++) {
+				if (less(c, min)) {
+					min = c;
+				}
+			}
+			if (!less(min, time, eventSerial, eventOrder)) {
+				break;
+			}
+			move(min, i);
+			i = min;
+		}
+		events[i] = event;
+		times[i] = time;
+		serials[i] = eventSerial;
+		orders[i] = eventOrder;
+	}
+
+	private void move(int from, int to) {
+		events[to] = events[from];
+		times[to] = times[from];
+		serials[to] = serials[from];
+		orders[to] = orders[from];
+	}
+
+	private boolean less(int a, int b) {
+		return less(times[a], serials[a], orders[a], b);
+	}
+
+	private boolean less(double time, long eventSerial, long eventOrder, int b) {
+		if (time != times[b]) {
+			return time < times[b];
+		}
+		if (eventSerial != serials[b]) {
+			return eventSerial < serials[b];
+		}
+		return eventOrder < orders[b];
+	}
+
+	private boolean less(int a, double time, long eventSerial, long eventOrder) {
+		if (times[a] != time) {
+			return times[a] < time;
+		}
+		if (serials[a] != eventSerial) {
+			return serials[a] < eventSerial;
+		}
+		return orders[a] < eventOrder;
+	}
+
+}
@@ -86,6 +86,10 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		this.serial = serial;
 	}
 
+	long getSerial() {
+		return serial;
+	}
+
 	/**
 	 * Used to set the time at which this event finished waiting in the event
 	 * 
@@ -0,0 +1,196 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * Holds the state of one simulation: the entities, the event queues and the clock used by
+ * {@link CloudSim}, a random number generator, and attributes in which other layers keep their
+ * per-simulation state (e.g. the fog metrics of <tt>TimeKeeper</tt>).
+ * <p>
+ * The static methods of {@link CloudSim} act on the context bound to the calling thread, which is
+ * the default context unless {@link #bind(SimulationContext)} has been called. Binding a different
+ * context on each thread allows independent simulations to run in parallel in the same JVM.
+ */
+public class SimulationContext {
+
+	/** The context used by threads that did not bind one. */
+	private static final SimulationContext DEFAULT = new SimulationContext();
+
+	/** The context bound to each thread. */
+	private static final ThreadLocal<SimulationContext> CURRENT = new ThreadLocal<SimulationContext>();
+
+	/** Whether any context has ever been bound; until then the thread-local is not looked up. */
+	private static volatile boolean bound = false;
+
+	// The state of CloudSim
+
+	int cisId = -1;
+
+	int shutdownId = -1;
+
+	CloudInformationService cis = null;
+
+	boolean traceFlag = false;
+
+	Calendar calendar = null;
+
+	double terminateAt = -1;
+
+	double minTimeBetweenEvents = 0.1;
+
+	List<SimEntity> entities;
+
+	FutureQueue future;
+
+	DeferredQueue deferred;
+
+	FutureQueue nextFutureQueue;
+
+	List<SimEvent> batch;
+
+	double clock;
+
+	boolean running;
+
+	Map<String, SimEntity> entitiesByName;
+
+	Map<Integer, Predicate> waitPredicates;
+
+	boolean paused = false;
+
+	long pauseAt = -1;
+
+	boolean abruptTerminate = false;
+
+	/** The seed of the random number generator, or -1 if it was not seeded. */
+	private final long seed;
+
+	/** The random number generator of this simulation. */
+	private final Random random;
+
+	/** The per-simulation state of other layers. */
+	private final Map<Object, Object> attributes = new HashMap<Object, Object>();
+
+	/**
+	 * Creates a context with an unseeded random number generator.
+	 */
+	public SimulationContext() {
+		seed = -1;
+		random = new Random();
+	}
+
+	/**
+	 * Creates a context whose random number generator is seeded, so that the simulation can be
+	 * reproduced.
+	 *
+	 * @param seed the seed
+	 */
+	public SimulationContext(long seed) {
+		if (seed < 0) {
+			throw new IllegalArgumentException("The seed should not be negative, but is:" + seed);
+		}
+		this.seed = seed;
+		random = new Random(seed);
+	}
+
+	/**
+	 * Gets the context bound to the calling thread.
+	 *
+	 * @return the current context
+	 */
+	public static SimulationContext current() {
+		if (!bound) {
+			return DEFAULT;
+		}
+		SimulationContext context = CURRENT.get();
+		return context == null ? DEFAULT : context;
+	}
+
+	/**
+	 * Gets the context used by threads that did not bind one.
+	 *
+	 * @return the default context
+	 */
+	public static SimulationContext getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Binds a context to the calling thread.
+	 *
+	 * @param context the context, or <tt>null</tt> to go back to the default context
+	 * @return the context that was bound before
+	 */
+	public static SimulationContext bind(SimulationContext context) {
+		SimulationContext previous = current();
+		if (context == null || context == DEFAULT) {
+			CURRENT.remove();
+		} else {
+			bound = true;
+			CURRENT.set(context);
+		}
+		return previous;
+	}
+
+	/**
+	 * Checks whether this is the default context, i.e. the one of a stand-alone simulation.
+	 *
+	 * @return true, if this is the default context
+	 */
+	public boolean isDefault() {
+		return this == DEFAULT;
+	}
+
+	/**
+	 * Gets the seed of the random number generator.
+	 *
+	 * @return the seed, or -1 if the generator was not seeded
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Gets the random number generator of this simulation.
+	 *
+	 * @return the random number generator
+	 */
+	public Random getRandom() {
+		return random;
+	}
+
+	/**
+	 * Gets an attribute of this simulation.
+	 *
+	 * @param key the key of the attribute
+	 * @return the value, or <tt>null</tt> if it is not set
+	 */
+	public Object getAttribute(Object key) {
+		return attributes.get(key);
+	}
+
+	/**
+	 * Sets an attribute of this simulation.
+	 *
+	 * @param key the key of the attribute
+	 * @param value the value
+	 */
+	public void setAttribute(Object key, Object value) {
+		attributes.put(key, value);
+	}
+
+}
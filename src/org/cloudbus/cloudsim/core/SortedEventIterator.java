@@ -0,0 +1,79 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over a sorted snapshot of the events of an array-based {@link FutureQueue}. Removing
+ * through the iterator removes the event from the queue it was taken from.
+ */
+class SortedEventIterator implements Iterator<SimEvent> {
+
+	private final FutureQueue queue;
+
+	private final SimEvent[] snapshot;
+
+	private int next = 0;
+
+	/**
+	 * Sorts the first <tt>size</tt> events of the given parallel arrays by time, serial and
+	 * insertion order.
+	 */
+	SortedEventIterator(FutureQueue queue, SimEvent[] events, final double[] times,
+			final long[] serials, final long[] orders, int size) {
+		this.queue = queue;
+		Integer[] indexes = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			indexes[i] = i;
+		}
+		Arrays.sort(indexes, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer a, Integer b) {
+				if (times[a] != times[b]) {
+					return times[a] < times[b] ? -1 : 1;
+				}
+				if (serials[a] != serials[b]) {
+					return serials[a] < serials[b] ? -1 : 1;
+				}
+				return Long.compare(orders[a], orders[b]);
+			}
+		});
+		snapshot = new SimEvent[size];
+		for (int i = 0; i < size; i++) {
+			snapshot[i] = events[indexes[i]];
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return next < snapshot.length;
+	}
+
+	@Override
+	public SimEvent next() {
+		if (next >= snapshot.length) {
+			throw new NoSuchElementException();
+		}
+		return snapshot[next++];
+	}
+
+	@Override
+	public void remove() {
+		if (next == 0) {
+			throw new IllegalStateException();
+		}
+		queue.remove(snapshot[next - 1]);
+	}
+
+}
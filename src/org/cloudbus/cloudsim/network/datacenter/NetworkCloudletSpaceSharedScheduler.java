@@ -406,6 +406,7 @@ public class NetworkCloudletSpaceSharedScheduler extends CloudletScheduler {
 		rcl.setCloudletStatus(Cloudlet.SUCCESS);
 		rcl.finalizeCloudlet();
 		getCloudletFinishedList().add(rcl);
+		notifyCloudletFinished();
 		usedPes -= rcl.getNumberOfPes();
 	}
 
@@ -590,6 +591,16 @@ public class NetworkCloudletSpaceSharedScheduler extends CloudletScheduler {
 		return totalUtilization;
 	}
 
+	/**
+	 * The scheduler reports every cloudlet it finishes.
+	 * 
+	 * @return $true
+	 */
+	@Override
+	protected boolean reportsFinishedCloudlets() {
+		return true;
+	}
+
 	/**
 	 * Informs about completion of some cloudlet in the VM managed by this scheduler.
 	 * 
@@ -104,6 +104,34 @@ public class NetworkDatacenter extends Datacenter {
 
 	}
 
+	/**
+	 * Get the queue occupancy and throughput of the output ports of all switches at a level of the
+	 * Datacenter network until the current time.
+	 *
+	 * @param level the level of the switches, e.g. {@link NetworkConstants#EDGE_LEVEL}
+	 */
+	public SwitchStatistics getSwitchStatistics(int level) {
+		return getSwitchStatistics(level, CloudSim.clock());
+	}
+
+	/**
+	 * Get the queue occupancy and throughput of the output ports of all switches at a level of the
+	 * Datacenter network until a time, e.g. the time {@link CloudSim#startSimulation()} returns
+	 * once the simulation is over.
+	 *
+	 * @param level the level of the switches, e.g. {@link NetworkConstants#EDGE_LEVEL}
+	 * @param time the time, not before the last packet arrived at a switch
+	 */
+	public SwitchStatistics getSwitchStatistics(int level, double time) {
+		SwitchStatistics statistics = new SwitchStatistics(time);
+		for (Switch sw : Switchlist.values()) {
+			if (sw.level == level) {
+				statistics.add(sw.getStatistics(time));
+			}
+		}
+		return statistics;
+	}
+
 	/**
 	 * Create the VM within the NetworkDatacenter. It can be directly accessed by Datacenter Broker
 	 * which manage allocation of Cloudlets.
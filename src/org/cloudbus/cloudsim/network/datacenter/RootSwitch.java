@@ -10,12 +10,8 @@ package org.cloudbus.cloudsim.network.datacenter;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 
-import org.cloudbus.cloudsim.core.CloudSim;
-import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
-import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
  * This class allows to simulate Root switch which connects Datacenter to external network. It
@@ -42,7 +38,7 @@ public class RootSwitch extends Switch {
 	 */
 	public RootSwitch(String name, int level, NetworkDatacenter dc) {
 		super(name, level, dc);
-		downlinkswitchpktlist = new HashMap<Integer, List<NetworkPacket>>();
+		downlinkports = new HashMap<Integer, SwitchPort>();
 		downlinkswitches = new ArrayList<Switch>();
 
 		downlinkbandwidth = NetworkConstants.BandWidthAggRoot;
@@ -65,9 +61,6 @@ public class RootSwitch extends Switch {
 
 		NetworkPacket hspkt = (NetworkPacket) ev.getData();
 		int recvVMid = hspkt.pkt.reciever;
-		CloudSim.cancelAll(getId(), new PredicateType(CloudSimTags.Network_Event_send));
-		schedule(getId(), switching_delay, CloudSimTags.Network_Event_send);
-
 		if (level == NetworkConstants.ROOT_LEVEL) {
 			// get id of edge router
 			int edgeswitchid = dc.VmToSwitchid.get(recvVMid);
@@ -85,12 +78,7 @@ public class RootSwitch extends Switch {
 			if (aggSwtichid < 0) {
 				System.out.println(" No destination for this packet");
 			} else {
-				List<NetworkPacket> pktlist = downlinkswitchpktlist.get(aggSwtichid);
-				if (pktlist == null) {
-					pktlist = new ArrayList<NetworkPacket>();
-					downlinkswitchpktlist.put(aggSwtichid, pktlist);
-				}
-				pktlist.add(hspkt);
+				sendDown(aggSwtichid, hspkt, switching_delay);
 			}
 		}
 	}
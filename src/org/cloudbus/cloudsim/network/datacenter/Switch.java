@@ -9,7 +9,7 @@
 package org.cloudbus.cloudsim.network.datacenter;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -34,9 +34,11 @@ public class Switch extends SimEntity {
 
 	public int datacenterid;
 
-	public Map<Integer, List<NetworkPacket>> uplinkswitchpktlist;
+	// output ports towards the uplink switches, by switch id
+	public Map<Integer, SwitchPort> uplinkports;
 
-	public Map<Integer, List<NetworkPacket>> downlinkswitchpktlist;
+	// output ports towards the downlink switches, by switch id
+	public Map<Integer, SwitchPort> downlinkports;
 
 	public Map<Integer, NetworkHost> hostlist;
 
@@ -44,7 +46,8 @@ public class Switch extends SimEntity {
 
 	public List<Switch> downlinkswitches;
 
-	public Map<Integer, List<NetworkPacket>> packetTohost;
+	// output ports towards the hosts, by host id
+	public Map<Integer, SwitchPort> hostports;
 
 	int type;// edge switch or aggregation switch
 
@@ -131,30 +134,18 @@ public class Switch extends SimEntity {
 		// int src=ev.getSource();
 		NetworkPacket hspkt = (NetworkPacket) ev.getData();
 		int recvVMid = hspkt.pkt.reciever;
-		CloudSim.cancelAll(getId(), new PredicateType(CloudSimTags.Network_Event_send));
-		schedule(getId(), latency, CloudSimTags.Network_Event_send);
 		if (level == NetworkConstants.EDGE_LEVEL) {
 			// packet is to be recieved by host
 			int hostid = dc.VmtoHostlist.get(recvVMid);
 			hspkt.recieverhostid = hostid;
-			List<NetworkPacket> pktlist = packetTohost.get(hostid);
-			if (pktlist == null) {
-				pktlist = new ArrayList<NetworkPacket>();
-				packetTohost.put(hostid, pktlist);
-			}
-			pktlist.add(hspkt);
+			sendToHost(hostid, hspkt, latency);
 			return;
 		}
 		if (level == NetworkConstants.Agg_LEVEL) {
 			// packet is coming from root so need to be sent to edgelevel swich
 			// find the id for edgelevel switch
 			int switchid = dc.VmToSwitchid.get(recvVMid);
-			List<NetworkPacket> pktlist = downlinkswitchpktlist.get(switchid);
-			if (pktlist == null) {
-				pktlist = new ArrayList<NetworkPacket>();
-				downlinkswitchpktlist.put(switchid, pktlist);
-			}
-			pktlist.add(hspkt);
+			sendDown(switchid, hspkt, latency);
 			return;
 		}
 
@@ -169,8 +160,6 @@ public class Switch extends SimEntity {
 		// int src=ev.getSource();
 		NetworkPacket hspkt = (NetworkPacket) ev.getData();
 		int recvVMid = hspkt.pkt.reciever;
-		CloudSim.cancelAll(getId(), new PredicateType(CloudSimTags.Network_Event_send));
-		schedule(getId(), switching_delay, CloudSimTags.Network_Event_send);
 		if (level == NetworkConstants.EDGE_LEVEL) {
 			// packet is recieved from host
 			// packet is to be sent to aggregate level or to another host in the
@@ -181,12 +170,7 @@ public class Switch extends SimEntity {
 			hspkt.recieverhostid = hostid;
 			if (hs != null) {
 				// packet to be sent to host connected to the switch
-				List<NetworkPacket> pktlist = packetTohost.get(hostid);
-				if (pktlist == null) {
-					pktlist = new ArrayList<NetworkPacket>();
-					packetTohost.put(hostid, pktlist);
-				}
-				pktlist.add(hspkt);
+				sendToHost(hostid, hspkt, switching_delay);
 				return;
 
 			}
@@ -194,12 +178,7 @@ public class Switch extends SimEntity {
 			// ASSUMPTION EACH EDGE is Connected to one aggregate level switch
 
 			Switch sw = uplinkswitches.get(0);
-			List<NetworkPacket> pktlist = uplinkswitchpktlist.get(sw.getId());
-			if (pktlist == null) {
-				pktlist = new ArrayList<NetworkPacket>();
-				uplinkswitchpktlist.put(sw.getId(), pktlist);
-			}
-			pktlist.add(hspkt);
+			sendUp(sw.getId(), hspkt, switching_delay);
 			return;
 		}
 		if (level == NetworkConstants.Agg_LEVEL) {
@@ -214,21 +193,11 @@ public class Switch extends SimEntity {
 				}
 			}
 			if (flagtoswtich) {
-				List<NetworkPacket> pktlist = downlinkswitchpktlist.get(switchid);
-				if (pktlist == null) {
-					pktlist = new ArrayList<NetworkPacket>();
-					downlinkswitchpktlist.put(switchid, pktlist);
-				}
-				pktlist.add(hspkt);
+				sendDown(switchid, hspkt, switching_delay);
 			} else// send to up
 			{
 				Switch sw = uplinkswitches.get(0);
-				List<NetworkPacket> pktlist = uplinkswitchpktlist.get(sw.getId());
-				if (pktlist == null) {
-					pktlist = new ArrayList<NetworkPacket>();
-					uplinkswitchpktlist.put(sw.getId(), pktlist);
-				}
-				pktlist.add(hspkt);
+				sendUp(sw.getId(), hspkt, switching_delay);
 			}
 		}
 		if (level == NetworkConstants.ROOT_LEVEL) {
@@ -248,12 +217,7 @@ public class Switch extends SimEntity {
 			if (aggSwtichid < 0) {
 				System.out.println(" No destination for this packet");
 			} else {
-				List<NetworkPacket> pktlist = downlinkswitchpktlist.get(aggSwtichid);
-				if (pktlist == null) {
-					pktlist = new ArrayList<NetworkPacket>();
-					downlinkswitchpktlist.put(aggSwtichid, pktlist);
-				}
-				pktlist.add(hspkt);
+				sendDown(aggSwtichid, hspkt, switching_delay);
 			}
 		}
 	}
@@ -277,63 +241,89 @@ public class Switch extends SimEntity {
 
 	}
 
+	/**
+	 * Processes the end of the transmission of a packet by a port: the port transmits its next packet.
+	 * 
+	 * @param ev the event, whose data is the port
+	 */
 	protected void processpacketforward(SimEvent ev) {
-		// search for the host and packets..send to them
-
-		if (downlinkswitchpktlist != null) {
-			for (Entry<Integer, List<NetworkPacket>> es : downlinkswitchpktlist.entrySet()) {
-				int tosend = es.getKey();
-				List<NetworkPacket> hspktlist = es.getValue();
-				if (!hspktlist.isEmpty()) {
-					double avband = downlinkbandwidth / hspktlist.size();
-					Iterator<NetworkPacket> it = hspktlist.iterator();
-					while (it.hasNext()) {
-						NetworkPacket hspkt = it.next();
-						double delay = 1000 * hspkt.pkt.data / avband;
-
-						this.send(tosend, delay, CloudSimTags.Network_Event_DOWN, hspkt);
-					}
-					hspktlist.clear();
-				}
-			}
+		((SwitchPort) ev.getData()).processDeparture();
+	}
+
+	/**
+	 * Sends a packet to an uplink switch through the output port towards it.
+	 * 
+	 * @param switchid the id of the switch
+	 * @param hspkt the packet
+	 * @param delay the delay of the packet on this switch
+	 */
+	protected void sendUp(int switchid, NetworkPacket hspkt, double delay) {
+		SwitchPort port = uplinkports.get(switchid);
+		if (port == null) {
+			port = new SwitchPort(this, switchid, CloudSimTags.Network_Event_UP, uplinkbandwidth / 1000);
+			uplinkports.put(switchid, port);
 		}
-		if (uplinkswitchpktlist != null) {
-			for (Entry<Integer, List<NetworkPacket>> es : uplinkswitchpktlist.entrySet()) {
-				int tosend = es.getKey();
-				List<NetworkPacket> hspktlist = es.getValue();
-				if (!hspktlist.isEmpty()) {
-					double avband = uplinkbandwidth / hspktlist.size();
-					Iterator<NetworkPacket> it = hspktlist.iterator();
-					while (it.hasNext()) {
-						NetworkPacket hspkt = it.next();
-						double delay = 1000 * hspkt.pkt.data / avband;
-
-						this.send(tosend, delay, CloudSimTags.Network_Event_UP, hspkt);
-					}
-					hspktlist.clear();
-				}
-			}
+		port.enqueue(hspkt, delay);
+	}
+
+	/**
+	 * Sends a packet to a downlink switch through the output port towards it.
+	 * 
+	 * @param switchid the id of the switch
+	 * @param hspkt the packet
+	 * @param delay the delay of the packet on this switch
+	 */
+	protected void sendDown(int switchid, NetworkPacket hspkt, double delay) {
+		SwitchPort port = downlinkports.get(switchid);
+		if (port == null) {
+			port = new SwitchPort(this, switchid, CloudSimTags.Network_Event_DOWN, downlinkbandwidth / 1000);
+			downlinkports.put(switchid, port);
 		}
-		if (packetTohost != null) {
-			for (Entry<Integer, List<NetworkPacket>> es : packetTohost.entrySet()) {
-				List<NetworkPacket> hspktlist = es.getValue();
-				if (!hspktlist.isEmpty()) {
-					double avband = downlinkbandwidth / hspktlist.size();
-					Iterator<NetworkPacket> it = hspktlist.iterator();
-					while (it.hasNext()) {
-						NetworkPacket hspkt = it.next();
-						// hspkt.recieverhostid=tosend;
-						// hs.packetrecieved.add(hspkt);
-						this.send(getId(), hspkt.pkt.data / avband, CloudSimTags.Network_Event_Host, hspkt);
-					}
-					hspktlist.clear();
-				}
-			}
+		port.enqueue(hspkt, delay);
+	}
+
+	/**
+	 * Sends a packet to a host connected to this switch through the output port towards it.
+	 * 
+	 * @param hostid the id of the host
+	 * @param hspkt the packet
+	 * @param delay the delay of the packet on this switch
+	 */
+	protected void sendToHost(int hostid, NetworkPacket hspkt, double delay) {
+		SwitchPort port = hostports.get(hostid);
+		if (port == null) {
+			port = new SwitchPort(this, getId(), CloudSimTags.Network_Event_Host, downlinkbandwidth);
+			hostports.put(hostid, port);
 		}
+		port.enqueue(hspkt, delay);
+	}
 
-		// or to switch at next level.
-		// clear the list
+	/**
+	 * Gets the queue occupancy and throughput of the output ports of this switch until the current time.
+	 * 
+	 * @return the statistics of the switch
+	 */
+	public SwitchStatistics getStatistics() {
+		return getStatistics(CloudSim.clock());
+	}
 
+	/**
+	 * Gets the queue occupancy and throughput of the output ports of this switch until a time, e.g.
+	 * the time {@link CloudSim#startSimulation()} returns once the simulation is over.
+	 * 
+	 * @param time the time, not before the last packet arrived at the switch
+	 * @return the statistics of the switch
+	 */
+	public SwitchStatistics getStatistics(double time) {
+		SwitchStatistics statistics = new SwitchStatistics(time);
+		for (Map<Integer, SwitchPort> ports : Arrays.asList(uplinkports, downlinkports, hostports)) {
+			if (ports != null) {
+				for (SwitchPort port : ports.values()) {
+					statistics.add(port);
+				}
+			}
+		}
+		return statistics;
 	}
 
 	//
@@ -0,0 +1,280 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.network.datacenter;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+
+/**
+ * The output queue of a port of a switch, towards a switch or a host.
+ * <p>
+ * The port transmits one packet at a time at the bandwidth of its link. The packets of every flow, the
+ * packets sent by a VM, wait in a ring buffer of the flow, and the flows share the link by deficit round
+ * robin: every flow in its turn may transmit packets of up to a quantum of data, the largest packet the port
+ * has seen, plus what it did not use in its previous turns. A packet is delivered after its transmission
+ * time and its delay on the switch; the port has at most one event of its own pending, a
+ * {@link CloudSimTags#Network_Event_send} event at the end of the transmission, when packets are waiting.
+ * <p>
+ * The port also keeps the number of packets and the amount of data it transmitted and the time-weighted
+ * number of packets waiting in it.
+ *
+ * @see Switch
+ * @see SwitchStatistics
+ */
+public class SwitchPort {
+
+	/** The switch of the port. */
+	private final Switch sw;
+
+	/** The id of the entity the packets are delivered to. */
+	private final int destination;
+
+	/** The tag of the events that deliver the packets. */
+	private final int tag;
+
+	/** The amount of data transmitted per unit of time. */
+	private final double rate;
+
+	/** The flow of every sender VM. */
+	private final Map<Integer, Flow> flows;
+
+	/** The flows with waiting packets, in the order of their turns. */
+	private final ArrayDeque<Flow> activeFlows;
+
+	private double quantum;
+
+	/** The time the packet being transmitted is transmitted. */
+	private double busyUntil;
+
+	/** Whether an event is scheduled to transmit the next packet. */
+	private boolean departureScheduled;
+
+	private int waiting;
+
+	private int maxWaiting;
+
+	private double waitingArea;
+
+	private double lastChange;
+
+	private long transmittedPackets;
+
+	private double transmittedData;
+
+	/**
+	 * Creates a port.
+	 *
+	 * @param sw the switch of the port
+	 * @param destination the id of the entity the packets are delivered to
+	 * @param tag the tag of the events that deliver the packets
+	 * @param rate the amount of data transmitted per unit of time
+	 */
+	public SwitchPort(Switch sw, int destination, int tag, double rate) {
+		this.sw = sw;
+		this.destination = destination;
+		this.tag = tag;
+		this.rate = rate;
+		flows = new HashMap<Integer, Flow>();
+		activeFlows = new ArrayDeque<Flow>();
+	}
+
+	public int getDestination() {
+		return destination;
+	}
+
+	public int getTag() {
+		return tag;
+	}
+
+	public double getRate() {
+		return rate;
+	}
+
+	public double getBusyUntil() {
+		return busyUntil;
+	}
+
+	/**
+	 * @return the number of packets waiting to be transmitted
+	 */
+	public int getWaitingPackets() {
+		return waiting;
+	}
+
+	public int getMaxWaitingPackets() {
+		return maxWaiting;
+	}
+
+	/**
+	 * @param time the current time
+	 * @return the integral over time of the number of waiting packets until the current time
+	 */
+	public double getWaitingArea(double time) {
+		return waitingArea + waiting * (time - lastChange);
+	}
+
+	public long getTransmittedPackets() {
+		return transmittedPackets;
+	}
+
+	public double getTransmittedData() {
+		return transmittedData;
+	}
+
+	/**
+	 * Adds a packet to the queue of its flow, and transmits it at once if the port is idle.
+	 *
+	 * @param hspkt the packet
+	 * @param delay the delay of the packet on the switch, added to its transmission time
+	 */
+	public void enqueue(NetworkPacket hspkt, double delay) {
+		double time = CloudSim.clock();
+		Flow flow = flows.get(hspkt.sendervmid);
+		if (flow == null) {
+			flow = new Flow();
+			flows.put(hspkt.sendervmid, flow);
+		}
+		if (flow.isEmpty()) {
+			flow.deficit = 0;
+			flow.newTurn = true;
+			activeFlows.addLast(flow);
+		}
+		flow.add(hspkt, delay);
+		quantum = Math.max(quantum, hspkt.pkt.data);
+		setWaiting(waiting + 1, time);
+
+		// a packet waits for the end of the transmission, or for the departure due now
+		if (!departureScheduled) {
+			if (time >= busyUntil) {
+				transmitNext(time);
+			} else {
+				scheduleDeparture(time);
+			}
+		}
+	}
+
+	/**
+	 * Processes the end of a transmission: transmits the next waiting packet.
+	 */
+	public void processDeparture() {
+		departureScheduled = false;
+		double time = CloudSim.clock();
+		if (waiting > 0) {
+			transmitNext(time);
+		}
+	}
+
+	private void scheduleDeparture(double time) {
+		CloudSim.send(sw.getId(), sw.getId(), busyUntil - time, CloudSimTags.Network_Event_send, this);
+		departureScheduled = true;
+	}
+
+	/**
+	 * Transmits the next packet, in deficit round robin order. The port is busy until the packet is
+	 * transmitted.
+	 */
+	private void transmitNext(double time) {
+		while (true) {
+			Flow flow = activeFlows.peekFirst();
+			if (flow.newTurn) {
+				flow.deficit += quantum;
+				flow.newTurn = false;
+			}
+			double data = flow.peek().pkt.data;
+			if (data <= flow.deficit) {
+				flow.deficit -= data;
+				double delay = flow.peekDelay();
+				NetworkPacket hspkt = flow.poll();
+				if (flow.isEmpty()) {
+					activeFlows.pollFirst();
+				}
+				setWaiting(waiting - 1, time);
+				double transmissionTime = data / rate;
+				busyUntil = time + transmissionTime;
+				transmittedPackets++;
+				transmittedData += data;
+				CloudSim.send(sw.getId(), destination, transmissionTime + delay, tag, hspkt);
+				if (waiting > 0) {
+					scheduleDeparture(time);
+				}
+				return;
+			}
+			activeFlows.pollFirst();
+			activeFlows.addLast(flow);
+			flow.newTurn = true;
+		}
+	}
+
+	private void setWaiting(int waiting, double time) {
+		waitingArea += this.waiting * (time - lastChange);
+		lastChange = time;
+		this.waiting = waiting;
+		maxWaiting = Math.max(maxWaiting, waiting);
+	}
+
+	/**
+	 * The packets of a flow waiting in a port, in a ring buffer.
+	 */
+	private static class Flow {
+
+		private NetworkPacket[] packets = new NetworkPacket[4];
+
+		private double[] delays = new double[4];
+
+		private int head;
+
+		private int size;
+
+		private double deficit;
+
+		private boolean newTurn;
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		void add(NetworkPacket hspkt, double delay) {
+			if (size == packets.length) {
+				NetworkPacket[] newPackets = new NetworkPacket[size * 2];
+				double[] newDelays = new double[size * 2];
+				for (int i = 0; i < size; i++) {
+					newPackets[i] = packets[(head + i) % packets.length];
+					newDelays[i] = delays[(head + i) % packets.length];
+				}
+				packets = newPackets;
+				delays = newDelays;
+				head = 0;
+			}
+			int tail = (head + size) % packets.length;
+			packets[tail] = hspkt;
+			delays[tail] = delay;
+			size++;
+		}
+
+		NetworkPacket peek() {
+			return packets[head];
+		}
+
+		double peekDelay() {
+			return delays[head];
+		}
+
+		NetworkPacket poll() {
+			NetworkPacket hspkt = packets[head];
+			packets[head] = null;
+			head = (head + 1) % packets.length;
+			size--;
+			return hspkt;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.network.datacenter;
+
+/**
+ * The queue occupancy and throughput of the output ports of one or more switches, from the start of the
+ * simulation until a time.
+ *
+ * @see Switch#getStatistics()
+ * @see NetworkDatacenter#getSwitchStatistics(int)
+ */
+public class SwitchStatistics {
+
+	private final double time;
+
+	private int ports;
+
+	private long transmittedPackets;
+
+	private double transmittedData;
+
+	private double waitingArea;
+
+	private int maxWaitingPackets;
+
+	/**
+	 * Creates empty statistics.
+	 *
+	 * @param time the time until which the statistics are collected
+	 */
+	public SwitchStatistics(double time) {
+		this.time = time;
+	}
+
+	/**
+	 * Adds the statistics of a port.
+	 *
+	 * @param port the port
+	 */
+	public void add(SwitchPort port) {
+		ports++;
+		transmittedPackets += port.getTransmittedPackets();
+		transmittedData += port.getTransmittedData();
+		waitingArea += port.getWaitingArea(time);
+		maxWaitingPackets = Math.max(maxWaitingPackets, port.getMaxWaitingPackets());
+	}
+
+	/**
+	 * Adds statistics collected until the same time.
+	 *
+	 * @param statistics the statistics
+	 */
+	public void add(SwitchStatistics statistics) {
+		ports += statistics.ports;
+		transmittedPackets += statistics.transmittedPackets;
+		transmittedData += statistics.transmittedData;
+		waitingArea += statistics.waitingArea;
+		maxWaitingPackets = Math.max(maxWaitingPackets, statistics.maxWaitingPackets);
+	}
+
+	public double getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the number of ports that transmitted packets
+	 */
+	public int getPorts() {
+		return ports;
+	}
+
+	public long getTransmittedPackets() {
+		return transmittedPackets;
+	}
+
+	public double getTransmittedData() {
+		return transmittedData;
+	}
+
+	/**
+	 * @return the amount of data transmitted per unit of time
+	 */
+	public double getThroughput() {
+		return time > 0 ? transmittedData / time : 0;
+	}
+
+	/**
+	 * @return the time-weighted average number of packets waiting in a port
+	 */
+	public double getAverageWaitingPackets() {
+		return time > 0 && ports > 0 ? waitingArea / time / ports : 0;
+	}
+
+	/**
+	 * @return the largest number of packets that waited in a port
+	 */
+	public int getMaxWaitingPackets() {
+		return maxWaitingPackets;
+	}
+
+	@Override
+	public String toString() {
+		return "ports=" + ports + ", packets=" + transmittedPackets + ", data=" + transmittedData + ", throughput="
+				+ getThroughput() + ", average waiting packets=" + getAverageWaitingPackets()
+				+ ", max waiting packets=" + getMaxWaitingPackets();
+	}
+}
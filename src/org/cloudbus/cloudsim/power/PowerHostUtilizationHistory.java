@@ -8,6 +8,8 @@
 
 package org.cloudbus.cloudsim.power;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Pe;
@@ -15,7 +17,6 @@ import org.cloudbus.cloudsim.VmScheduler;
 import org.cloudbus.cloudsim.power.models.PowerModel;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
 import org.cloudbus.cloudsim.provisioners.RamProvisioner;
-import org.cloudbus.cloudsim.util.MathUtil;
 
 /**
  * The class of a host that stores its CPU utilization history. The history is used by VM allocation
@@ -34,6 +35,21 @@ import org.cloudbus.cloudsim.util.MathUtil;
  */
 public class PowerHostUtilizationHistory extends PowerHost {
 
+	/** The utilization history of the VMs of {@link #historyVms}. */
+	private final UtilizationHistory utilizationHistory = new UtilizationHistory(PowerVm.HISTORY_LENGTH);
+
+	/** The VMs whose histories the utilization history sums, in the order of the VM list. */
+	private final List<PowerVm> historyVms = new ArrayList<PowerVm>();
+
+	/** The number of values each VM had added when its history was last summed. */
+	private long[] historyVmCounts = new long[0];
+
+	/** The MIPS of each VM when its history was summed. */
+	private double[] historyVmMips = new double[0];
+
+	/** The MIPS of the host when the history was summed. */
+	private double historyHostMips = -1;
+
 	/**
 	 * Instantiates a new power host utilization history.
 	 * 
@@ -63,13 +79,112 @@ public class PowerHostUtilizationHistory extends PowerHost {
 	 */
 	protected double[] getUtilizationHistory() {
 		double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
+		return Arrays.copyOf(utilizationHistory, getUtilizationHistory(utilizationHistory));
+	}
+
+	/**
+	 * Copies the host utilization history, the most recent value first, without its zero tail.
+	 * <p>
+	 * The history is the sum of the histories of the VMs weighted by their MIPS. It is kept for the VMs the
+	 * host had when it was last read, and shifted by the values the VMs added since, as long as each of them
+	 * added the same number of values; the values of VMs added at the end of the VM list since, e.g. the
+	 * VM of an allocation being checked, are added to a copy. Otherwise, it is summed again from the
+	 * histories of the VMs. The values are summed in the order of the VM list in any case.
+	 * 
+	 * @param destination the array to copy the history to, of at least {@link PowerVm#HISTORY_LENGTH} values
+	 * @return the length of the history
+	 */
+	protected int getUtilizationHistory(double[] destination) {
+		List<PowerVm> vmList = this.<PowerVm> getVmList();
 		double hostMips = getTotalMips();
-		for (PowerVm vm : this.<PowerVm> getVmList()) {
-			for (int i = 0; i < vm.getUtilizationHistory().size(); i++) {
-				utilizationHistory[i] += vm.getUtilizationHistory().get(i) * vm.getMips() / hostMips;
+		int shift = getHistoryShift(vmList, hostMips);
+		if (shift < 0 || (shift > 0 && vmList.size() > historyVms.size())) {
+			sumHistory(vmList, hostMips);
+		} else {
+			shiftHistory(shift);
+		}
+
+		int length = utilizationHistory.copyTo(destination);
+		for (int i = historyVms.size(); i < vmList.size(); i++) {
+			PowerVm vm = vmList.get(i);
+			for (int j = 0; j < vm.getUtilizationHistory().size(); j++) {
+				destination[j] += vm.getUtilizationHistory().getValue(j) * vm.getMips() / hostMips;
+			}
+		}
+		Arrays.fill(destination, length, PowerVm.HISTORY_LENGTH, 0);
+		// as MathUtil.trimZeroTail does
+		length = PowerVm.HISTORY_LENGTH;
+		while (length > 1 && destination[length - 1] == 0) {
+			length--;
+		}
+		return length;
+	}
+
+	/**
+	 * Gets the number of values the VMs of the kept history added since it was summed.
+	 * 
+	 * @return the number of values, or -1 if the history must be summed again
+	 */
+	private int getHistoryShift(List<PowerVm> vmList, double hostMips) {
+		if (hostMips != historyHostMips || vmList.size() < historyVms.size()) {
+			return -1;
+		}
+		long shift = -1;
+		for (int i = 0; i < historyVms.size(); i++) {
+			PowerVm vm = vmList.get(i);
+			if (vm != historyVms.get(i) || vm.getMips() != historyVmMips[i]) {
+				return -1;
+			}
+			long added = vm.getUtilizationHistory().getCount() - historyVmCounts[i];
+			if (shift >= 0 && added != shift) {
+				return -1;
+			}
+			shift = added;
+		}
+		return shift < 0 ? 0 : (int) Math.min(shift, PowerVm.HISTORY_LENGTH);
+	}
+
+	/**
+	 * Adds the latest values of the VMs of the kept history to it.
+	 */
+	private void shiftHistory(int shift) {
+		for (int j = shift - 1; j >= 0; j--) {
+			utilizationHistory.addValue(sumVmHistories(historyVms, historyVms.size(), j, historyHostMips));
+		}
+		for (int i = 0; i < historyVms.size(); i++) {
+			historyVmCounts[i] = historyVms.get(i).getUtilizationHistory().getCount();
+		}
+	}
+
+	/**
+	 * Sums the history again from the histories of the VMs.
+	 */
+	private void sumHistory(List<PowerVm> vmList, double hostMips) {
+		historyVms.clear();
+		historyVms.addAll(vmList);
+		if (historyVmCounts.length < vmList.size()) {
+			historyVmCounts = new long[vmList.size()];
+			historyVmMips = new double[vmList.size()];
+		}
+		for (int i = 0; i < vmList.size(); i++) {
+			historyVmCounts[i] = vmList.get(i).getUtilizationHistory().getCount();
+			historyVmMips[i] = vmList.get(i).getMips();
+		}
+		historyHostMips = hostMips;
+		for (int j = PowerVm.HISTORY_LENGTH - 1; j >= 0; j--) {
+			utilizationHistory.addValue(sumVmHistories(vmList, vmList.size(), j, hostMips));
+		}
+	}
+
+	private static double sumVmHistories(List<PowerVm> vmList, int vms, int index, double hostMips) {
+		double sum = 0;
+		for (int i = 0; i < vms; i++) {
+			PowerVm vm = vmList.get(i);
+			if (index < vm.getUtilizationHistory().size()) {
+				sum += vm.getUtilizationHistory().getValue(index) * vm.getMips() / hostMips;
 			}
 		}
-		return MathUtil.trimZeroTail(utilizationHistory);
+		return sum;
 	}
 
 }
@@ -8,7 +8,6 @@
 
 package org.cloudbus.cloudsim.power;
 
-import java.util.LinkedList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.CloudletScheduler;
@@ -37,7 +36,7 @@ public class PowerVm extends Vm {
 	public static final int HISTORY_LENGTH = 30;
 
 	/** The utilization history. */
-	private final List<Double> utilizationHistory = new LinkedList<Double>();
+	private final UtilizationHistory utilizationHistory = new UtilizationHistory(HISTORY_LENGTH);
 
 	/** The previous time. */
 	private double previousTime;
@@ -101,6 +100,16 @@ public class PowerVm extends Vm {
 		return time;
 	}
 
+	/**
+	 * The VM is never idle, as it records its utilization history when its processing is updated.
+	 * 
+	 * @return false
+	 */
+	@Override
+	protected boolean isIdle() {
+		return false;
+	}
+
 	/**
 	 * Gets the utilization MAD in MIPS.
 	 * 
@@ -109,16 +118,8 @@ public class PowerVm extends Vm {
 	public double getUtilizationMad() {
 		double mad = 0;
 		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
-			double median = MathUtil.median(getUtilizationHistory());
-			double[] deviationSum = new double[n];
-			for (int i = 0; i < n; i++) {
-				deviationSum[i] = Math.abs(median - getUtilizationHistory().get(i));
-			}
-			mad = MathUtil.median(deviationSum);
+			double[] data = new double[HISTORY_LENGTH];
+			mad = MathUtil.mad(data, getUtilizationHistory().copyTo(data));
 		}
 		return mad;
 	}
@@ -136,7 +137,7 @@ public class PowerVm extends Vm {
 				n = getUtilizationHistory().size();
 			}
 			for (int i = 0; i < n; i++) {
-				mean += getUtilizationHistory().get(i);
+				mean += getUtilizationHistory().getValue(i);
 			}
 			mean /= n;
 		}
@@ -157,7 +158,7 @@ public class PowerVm extends Vm {
 				n = getUtilizationHistory().size();
 			}
 			for (int i = 0; i < n; i++) {
-				double tmp = getUtilizationHistory().get(i) * getMips() - mean;
+				double tmp = getUtilizationHistory().getValue(i) * getMips() - mean;
 				variance += tmp * tmp;
 			}
 			variance /= n;
@@ -171,18 +172,15 @@ public class PowerVm extends Vm {
 	 * @param utilization the utilization
 	 */
 	public void addUtilizationHistoryValue(final double utilization) {
-		getUtilizationHistory().add(0, utilization);
-		if (getUtilizationHistory().size() > HISTORY_LENGTH) {
-			getUtilizationHistory().remove(HISTORY_LENGTH);
-		}
+		getUtilizationHistory().addValue(utilization);
 	}
 
 	/**
-	 * Gets the utilization history.
+	 * Gets the utilization history, the most recent value first.
 	 * 
 	 * @return the utilization history
 	 */
-	protected List<Double> getUtilizationHistory() {
+	protected UtilizationHistory getUtilizationHistory() {
 		return utilizationHistory;
 	}
 
@@ -9,6 +9,7 @@
 package org.cloudbus.cloudsim.power;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -203,39 +204,82 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	}
 
 	/**
-	 * Find host for vm.
+	 * Find host for vm: the host whose power increases the least by allocating the vm, the first one in the
+	 * host list if several increase equally, among the suitable hosts that are not over-utilized after the
+	 * allocation.
+	 * <p>
+	 * The power increases are computed first, and the hosts are then checked for over-utilization in
+	 * increasing order of them, until one is not over-utilized. Checking a host allocates the vm to it and
+	 * runs the over-utilization detection, so that only the hosts that would be chosen instead of the found
+	 * one are checked, rather than every suitable host.
 	 * 
 	 * @param vm the vm
 	 * @param excludedHosts the excluded hosts
 	 * @return the power host
 	 */
 	public PowerHost findHostForVm(Vm vm, Set<? extends Host> excludedHosts) {
-		double minPower = Double.MAX_VALUE;
-		PowerHost allocatedHost = null;
-
+		List<HostCandidate> candidates = new ArrayList<HostCandidate>();
+		int index = 0;
 		for (PowerHost host : this.<PowerHost> getHostList()) {
+			int i = index++;
 			if (excludedHosts.contains(host)) {
 				continue;
 			}
 			if (host.isSuitableForVm(vm)) {
-				if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
-					continue;
-				}
-
 				try {
 					double powerAfterAllocation = getPowerAfterAllocation(host, vm);
 					if (powerAfterAllocation != -1) {
 						double powerDiff = powerAfterAllocation - host.getPower();
-						if (powerDiff < minPower) {
-							minPower = powerDiff;
-							allocatedHost = host;
+						if (powerDiff < Double.MAX_VALUE) {
+							candidates.add(new HostCandidate(host, i, powerDiff));
 						}
 					}
 				} catch (Exception e) {
 				}
 			}
 		}
-		return allocatedHost;
+		Collections.sort(candidates);
+
+		for (HostCandidate candidate : candidates) {
+			PowerHost host = candidate.host;
+			if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
+				continue;
+			}
+			return host;
+		}
+		return null;
+	}
+
+	/**
+	 * A host the vm being allocated fits on, ordered by the power increase of allocating it.
+	 */
+	private static class HostCandidate implements Comparable<HostCandidate> {
+
+		/** The host. */
+		private final PowerHost host;
+
+		/** The index of the host in the host list. */
+		private final int index;
+
+		/** The power increase. */
+		private final double powerDiff;
+
+		public HostCandidate(PowerHost host, int index, double powerDiff) {
+			this.host = host;
+			this.index = index;
+			this.powerDiff = powerDiff;
+		}
+
+		@Override
+		public int compareTo(HostCandidate other) {
+			if (powerDiff < other.powerDiff) {
+				return -1;
+			}
+			if (powerDiff > other.powerDiff) {
+				return 1;
+			}
+			return index < other.index ? -1 : (index > other.index ? 1 : 0);
+		}
 	}
 
 	/**
@@ -38,6 +38,9 @@ public class PowerVmAllocationPolicyMigrationInterQuartileRange extends
 	/** The fallback vm allocation policy. */
 	private PowerVmAllocationPolicyMigrationAbstract fallbackVmAllocationPolicy;
 
+	/** The utilization history of the host being checked. */
+	private final double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
+
 	/**
 	 * Instantiates a new power vm allocation policy migration mad.
 	 * 
@@ -105,9 +108,9 @@ public class PowerVmAllocationPolicyMigrationInterQuartileRange extends
 	 * @return the host utilization iqr
 	 */
 	protected double getHostUtilizationIqr(PowerHostUtilizationHistory host) throws IllegalArgumentException {
-		double[] data = host.getUtilizationHistory();
-		if (MathUtil.countNonZeroBeginning(data) >= 12) { // 12 has been suggested as a safe value
-			return MathUtil.iqr(data);
+		int length = host.getUtilizationHistory(utilizationHistory);
+		if (length >= 12) { // 12 has been suggested as a safe value
+			return MathUtil.iqr(utilizationHistory, length);
 		}
 		throw new IllegalArgumentException();
 	}
@@ -39,6 +39,12 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 	/** The fallback vm allocation policy. */
 	private PowerVmAllocationPolicyMigrationAbstract fallbackVmAllocationPolicy;
 
+	/** The utilization history of the host being checked. */
+	private final double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
+
+	/** The latest values of the utilization history of the host being checked, the oldest first. */
+	private final double[] utilizationHistoryReversed = new double[10];
+
 	/**
 	 * Instantiates a new power vm allocation policy migration local regression.
 	 * 
@@ -90,12 +96,10 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 	@Override
 	protected boolean isHostOverUtilized(PowerHost host) {
 		PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) host;
-		double[] utilizationHistory = _host.getUtilizationHistory();
 		int length = 10; // we use 10 to make the regression responsive enough to latest values
-		if (utilizationHistory.length < length) {
+		if (_host.getUtilizationHistory(utilizationHistory) < length) {
 			return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
 		}
-		double[] utilizationHistoryReversed = new double[length];
 		for (int i = 0; i < length; i++) {
 			utilizationHistoryReversed[i] = utilizationHistory[length - i - 1];
 		}
@@ -121,7 +125,7 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 	 * @return the parameter estimates
 	 */
 	protected double[] getParameterEstimates(double[] utilizationHistoryReversed) {
-		return MathUtil.getLoessParameterEstimates(utilizationHistoryReversed);
+		return MathUtil.getLoessParameterEstimates(utilizationHistoryReversed, utilizationHistoryReversed.length);
 	}
 
 	/**
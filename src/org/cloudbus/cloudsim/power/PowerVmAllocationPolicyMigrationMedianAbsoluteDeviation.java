@@ -38,6 +38,9 @@ public class PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation extends
 	/** The fallback vm allocation policy. */
 	private PowerVmAllocationPolicyMigrationAbstract fallbackVmAllocationPolicy;
 
+	/** The utilization history of the host being checked. */
+	private final double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
+
 	/**
 	 * Instantiates a new power vm allocation policy migration mad.
 	 * 
@@ -105,9 +108,9 @@ public class PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation extends
 	 * @return the host utilization mad
 	 */
 	protected double getHostUtilizationMad(PowerHostUtilizationHistory host) throws IllegalArgumentException {
-		double[] data = host.getUtilizationHistory();
-		if (MathUtil.countNonZeroBeginning(data) >= 12) { // 12 has been suggested as a safe value
-			return MathUtil.mad(data);
+		int length = host.getUtilizationHistory(utilizationHistory);
+		if (length >= 12) { // 12 has been suggested as a safe value
+			return MathUtil.mad(utilizationHistory, length);
 		}
 		throw new IllegalArgumentException();
 	}
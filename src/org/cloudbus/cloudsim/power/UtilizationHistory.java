@@ -0,0 +1,113 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.power;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * The latest values of a utilization history, the most recent first, kept in a ring buffer of primitive
+ * values. Adding a value overwrites the oldest one when the history is full, so that keeping the history
+ * up to date neither shifts nor allocates. The history is a read-only list of its values, in the same order.
+ */
+public class UtilizationHistory extends AbstractList<Double> implements RandomAccess {
+
+	/** The values, the most recent at the head. */
+	private final double[] values;
+
+	/** The index of the most recent value. */
+	private int head;
+
+	/** The number of values. */
+	private int size;
+
+	/** The number of values added since the history was created. */
+	private long count;
+
+	/**
+	 * Instantiates a new utilization history.
+	 *
+	 * @param capacity the number of values kept
+	 */
+	public UtilizationHistory(final int capacity) {
+		values = new double[capacity];
+		head = capacity - 1;
+	}
+
+	/**
+	 * Adds a value as the most recent one, removing the oldest value if the history is full.
+	 *
+	 * @param value the value
+	 */
+	public void addValue(final double value) {
+		head = head == 0 ? values.length - 1 : head - 1;
+		values[head] = value;
+		if (size < values.length) {
+			size++;
+		}
+		count++;
+	}
+
+	/**
+	 * Gets a value.
+	 *
+	 * @param index the index of the value, 0 being the most recent
+	 * @return the value
+	 */
+	public double getValue(final int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		int i = head + index;
+		return values[i < values.length ? i : i - values.length];
+	}
+
+	/**
+	 * Copies the values, the most recent first.
+	 *
+	 * @param destination the array to copy the values to, at least as long as the history
+	 * @return the number of values copied
+	 */
+	public int copyTo(final double[] destination) {
+		int first = Math.min(size, values.length - head);
+		System.arraycopy(values, head, destination, 0, first);
+		System.arraycopy(values, 0, destination, first, size - first);
+		return size;
+	}
+
+	/**
+	 * Gets the number of values added since the history was created, including those that have been removed
+	 * since. It tells whether the history changed between two readings and by how many values.
+	 *
+	 * @return the number of values added
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the maximum number of values kept.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return values.length;
+	}
+
+	@Override
+	public Double get(final int index) {
+		return getValue(index);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+}
@@ -172,6 +172,13 @@ public class Channel {
 		boolean isChanged = this.updatePackageProcessing();
 		this.allocatedBandwidth=newBandwidth;
 		
+		if(chId != -1) {
+			// the free bandwidth of the links for shared channels changes
+			for(Link link:links) {
+				link.invalidateAllocatedBandwidth();
+			}
+		}
+		
 		return isChanged;
 	}
 	
@@ -322,6 +329,10 @@ public class Channel {
 				+"): BW:"+allocatedBandwidth+", Transmissions:"+inTransmission.size();
 	}
 
+	List<Link> getLinks() {
+		return links;
+	}
+
 	public Node getLastNode() {
 		Node node = this.nodes.get(this.nodes.size()-1);
 		return node;
@@ -32,6 +32,13 @@ public class Link {
 	private List<Channel> upChannels;
 	private List<Channel> downChannels;
 	
+	// Sums over the dedicated channels of each direction (0: up, 1: down), computed again once the channels change
+	private int[] dedicatedChannelCount = new int[2];
+	private double[] requestedDedicatedBw = new double[2];
+	private double[] allocatedDedicatedBw = new double[2];
+	private boolean[] isRequestedValid = new boolean[2];
+	private boolean[] isAllocatedValid = new boolean[2];
+	
 	public Link(Node highOrder, Node lowOrder, double latency, double bw) {
 		this.highOrder = highOrder;
 		this.lowOrder = lowOrder;
@@ -94,7 +101,10 @@ public class Link {
 		return latency;
 	}
 	
-	private List<Channel> getChannels(Node from) {
+	/**
+	 * Gets the channels going through this link from a node. The list must not be modified.
+	 */
+	List<Channel> getChannels(Node from) {
 		List<Channel> channels;
 		if(isUplink(from)) {
 			channels = this.upChannels;
@@ -119,6 +129,7 @@ public class Link {
 	
 	public boolean addChannel(Node from, Channel ch) {
 		getChannels(from).add(ch);
+		invalidateChannels();
 		return true;
 	}
 	
@@ -128,31 +139,59 @@ public class Link {
 			// the channel is down link
 			ret = this.downChannels.remove(ch);
 		}
+		invalidateChannels();
 		return ret;
 	}
 	
+	private void invalidateChannels() {
+		isRequestedValid[0] = isRequestedValid[1] = false;
+		isAllocatedValid[0] = isAllocatedValid[1] = false;
+	}
+	
+	/**
+	 * Called when the bandwidth allocated to a dedicated channel going through this link changes.
+	 */
+	void invalidateAllocatedBandwidth() {
+		isAllocatedValid[0] = isAllocatedValid[1] = false;
+	}
+	
 	public double getAllocatedBandwidthForDedicatedChannels(Node from) {
-		
-		double bw=0;
-		for(Channel ch: getChannels(from)) {
-			if(ch.getChId() != -1) {
-				// chId == -1 : default channel
-				bw += ch.getAllocatedBandwidth();
+		int direction = isUplink(from) ? 0 : 1;
+		if(!isAllocatedValid[direction]) {
+			double bw=0;
+			for(Channel ch: getChannels(from)) {
+				if(ch.getChId() != -1) {
+					// chId == -1 : default channel
+					bw += ch.getAllocatedBandwidth();
+				}
 			}
+			allocatedDedicatedBw[direction] = bw;
+			isAllocatedValid[direction] = true;
 		}
-		return bw;
+		return allocatedDedicatedBw[direction];
 	}
 
 	public double getRequestedBandwidthForDedicatedChannels(Node from) {
-		
-		double bw=0;
-		for(Channel ch: getChannels(from)) {
-			if(ch.getChId() != -1) {
-				// chId == -1 : default channel
-				bw += ch.getRequestedBandwidth();
+		return requestedDedicatedBw[updateRequestedBandwidth(from)];
+	}
+	
+	private int updateRequestedBandwidth(Node from) {
+		int direction = isUplink(from) ? 0 : 1;
+		if(!isRequestedValid[direction]) {
+			double bw=0;
+			int num=0;
+			for(Channel ch: getChannels(from)) {
+				if(ch.getChId() != -1) {
+					// chId == -1 : default channel
+					bw += ch.getRequestedBandwidth();
+					num ++;
+				}
 			}
+			requestedDedicatedBw[direction] = bw;
+			dedicatedChannelCount[direction] = num;
+			isRequestedValid[direction] = true;
 		}
-		return bw;
+		return direction;
 	}
 
 	public int getChannelCount(Node from) {
@@ -161,14 +200,7 @@ public class Link {
 	}
 	
 	public int getDedicatedChannelCount(Node from) {
-		int num=0;
-		for(Channel ch: getChannels(from)) {
-			if(ch.getChId() != -1) {
-				// chId == -1 : default channel
-				num ++;
-			}
-		}
-		return num;
+		return dedicatedChannelCount[updateRequestedBandwidth(from)];
 	}
 	
 	public int getSharedChannelCount(Node from) {
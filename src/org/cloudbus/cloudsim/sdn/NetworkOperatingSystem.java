@@ -10,15 +10,18 @@ package org.cloudbus.cloudsim.sdn;
 
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
 import org.cloudbus.cloudsim.Host;
@@ -58,6 +61,8 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 	Hashtable<Package,Node> pkgTable;
 	
 	Hashtable<String, Channel> channelTable;
+	// Links whose channels changed since the bandwidth of the channels was last adjusted
+	private Set<Link> changedLinks = new LinkedHashSet<Link>();
 
 	List<Host> hosts;
 	protected List<SDNHost> sdnhosts;
@@ -160,6 +165,7 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 			}
 
 		}
+		adjustChangedChannels();
 		
 		sendInternalEvent();
 		
@@ -296,27 +302,67 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 		//System.err.println("NOS.addChannel:"+getKey(src, dst, chId));
 		this.channelTable.put(getKey(src, dst, chId), ch);
 		ch.initialize();
-		adjustAllChannels();
+		changedLinks.addAll(ch.getLinks());
+		adjustChangedChannels();
 	}
 	
+	/**
+	 * Removes a channel. The bandwidth of the other channels is adjusted by the next
+	 * {@link #adjustChangedChannels()}, so that the channels removed together are adjusted once.
+	 */
 	private Channel removeChannel(String key) {
 		//System.err.println("NOS.removeChannel:"+key);
 		Channel ch = this.channelTable.remove(key);
 		ch.terminate();
-		adjustAllChannels();
+		changedLinks.addAll(ch.getLinks());
 		return ch;
 	}
 	
-	private void adjustAllChannels() {
-		for(Channel ch:this.channelTable.values()) {
-			if(ch.adjustDedicatedBandwidthAlongLink()) {
-				// Channel BW is changed. send event.
+	/**
+	 * Adjusts the bandwidth of the channels affected by the channels added and removed since the last
+	 * adjustment. The bandwidth of a dedicated channel depends only on the channels of its links, and the
+	 * bandwidth of a shared channel on the channels of its links and the bandwidth of the dedicated ones.
+	 * The dedicated channels of the changed links are therefore adjusted first, then the shared channels
+	 * of the changed links and of the links of the dedicated channels whose bandwidth changed. The other
+	 * channels keep their bandwidth, as if all channels were adjusted.
+	 */
+	private void adjustChangedChannels() {
+		if(changedLinks.isEmpty())
+			return;
+		
+		Set<Channel> dedicatedChannels = new LinkedHashSet<Channel>();
+		Set<Channel> sharedChannels = new LinkedHashSet<Channel>();
+		for(Link link:changedLinks) {
+			addChannels(link, dedicatedChannels, sharedChannels);
+		}
+		changedLinks.clear();
+		
+		for(Channel ch:dedicatedChannels) {
+			double previousBw = ch.getAllocatedBandwidth();
+			ch.adjustDedicatedBandwidthAlongLink();
+			if(ch.getAllocatedBandwidth() != previousBw) {
+				// Channel BW is changed. Shared channels along its links get a different share.
+				for(Link link:ch.getLinks()) {
+					addChannels(link, null, sharedChannels);
+				}
 			}
 		}
 		
-		for(Channel ch:this.channelTable.values()) {
-			if(ch.adjustSharedBandwidthAlongLink()) {
-				// Channel BW is changed. send event.
+		for(Channel ch:sharedChannels) {
+			ch.adjustSharedBandwidthAlongLink();
+		}
+	}
+	
+	private static void addChannels(Link link, Set<Channel> dedicatedChannels, Set<Channel> sharedChannels) {
+		for(Node from:new Node[] {link.getLowOrder(), link.getHighOrder()}) {
+			for(Channel ch:link.getChannels(from)) {
+				if(ch.getChId() != -1) {
+					if(dedicatedChannels != null)
+						dedicatedChannels.add(ch);
+				}
+				else {
+					sharedChannels.add(ch);
+				}
 			}
 		}
 	}
@@ -382,6 +428,7 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 		for(String key:removeCh) {
 			removeChannel(key);
 		}
+		adjustChangedChannels();
 	}
 	
 	private String getKey(int origin, int destination) {
@@ -473,92 +520,80 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 		this.hosts = new ArrayList<Host>();
 		this.sdnhosts = new ArrayList<SDNHost>();
 		
-		int hostId=0;
-		Hashtable<String,Integer> nameIdTable = new Hashtable<String, Integer>();
+		final Map<String,Integer> nameIdTable = new HashMap<String, Integer>();
 		try {
-    		JSONObject doc = (JSONObject) JSONValue.parse(new FileReader(this.physicalTopologyFileName));
-    		
-    		JSONArray nodes = (JSONArray) doc.get("nodes");
-    		@SuppressWarnings("unchecked")
-			Iterator<JSONObject> iter =nodes.iterator(); 
-			while(iter.hasNext()){
-				JSONObject node = iter.next();
-				String nodeType = (String) node.get("type");
-				String nodeName = (String) node.get("name");
+			new TopologyReader().read(this.physicalTopologyFileName, new TopologyReader.Handler() {
+				int hostId=0;
 				
-				if(nodeType.equalsIgnoreCase("host")){
-					long pes = (Long) node.get("pes");
-					long mips = (Long) node.get("mips");
-					int ram = new BigDecimal((Long)node.get("ram")).intValueExact();
-					long storage = (Long) node.get("storage");
-					long bw = new BigDecimal((Long)node.get("bw")).intValueExact();
+				@Override
+				public void node(TopologyReader.Entry node) {
+					String nodeType = node.getString("type");
+					String nodeName = node.getString("name");
 					
-					int num = 1;
-					if (node.get("nums")!= null)
-						num = new BigDecimal((Long)node.get("nums")).intValueExact();
-
-					for(int n = 0; n< num; n++) {
-						String nodeName2 = nodeName;
-						if(num >1) nodeName2 = nodeName + n;
-						
-						Host host = createHost(hostId, ram, bw, storage, pes, mips);
-						SDNHost sdnHost = new SDNHost(host, this);
-						nameIdTable.put(nodeName2, sdnHost.getAddress());
-						hostId++;
+					if(nodeType.equalsIgnoreCase("host")){
+						long pes = node.getLong("pes");
+						long mips = node.getLong("mips");
+						int ram = node.getInt("ram");
+						long storage = node.getLong("storage");
+						long bw = node.getInt("bw");
 						
-						topology.addNode(sdnHost);
-						this.hosts.add(host);
-						this.sdnhosts.add(sdnHost);
-					}
-					
-				} else {
-					int MAX_PORTS = 256;
+						int num = node.getInt("nums", 1);
+	
+						for(int n = 0; n< num; n++) {
+							String nodeName2 = nodeName;
+							if(num >1) nodeName2 = nodeName + n;
 							
-					int bw = new BigDecimal((Long)node.get("bw")).intValueExact();
-					long iops = (Long) node.get("iops");
-					int upports = MAX_PORTS;
-					int downports = MAX_PORTS;
-					if (node.get("upports")!= null)
-						upports = new BigDecimal((Long)node.get("upports")).intValueExact();
-					if (node.get("downports")!= null)
-						downports = new BigDecimal((Long)node.get("downports")).intValueExact();
-					Switch sw = null;
-					
-					if(nodeType.equalsIgnoreCase("core")) {
-						sw = new CoreSwitch(nodeName, bw, iops, upports, downports, this);
-					} else if (nodeType.equalsIgnoreCase("aggregate")){
-						sw = new AggregationSwitch(nodeName, bw, iops, upports, downports, this);
-					} else if (nodeType.equalsIgnoreCase("edge")){
-						sw = new EdgeSwitch(nodeName, bw, iops, upports, downports, this);
+							Host host = createHost(hostId, ram, bw, storage, pes, mips);
+							SDNHost sdnHost = new SDNHost(host, NetworkOperatingSystem.this);
+							nameIdTable.put(nodeName2, sdnHost.getAddress());
+							hostId++;
+							
+							topology.addNode(sdnHost);
+							hosts.add(host);
+							sdnhosts.add(sdnHost);
+						}
+						
 					} else {
-						throw new IllegalArgumentException("No switch found!");
-					}
-					
-					if(sw != null) {
-						nameIdTable.put(nodeName, sw.getAddress());
-						topology.addNode(sw);
-						this.switches.add(sw);
+						int MAX_PORTS = 256;
+								
+						int bw = node.getInt("bw");
+						long iops = node.getLong("iops");
+						int upports = node.getInt("upports", MAX_PORTS);
+						int downports = node.getInt("downports", MAX_PORTS);
+						Switch sw = null;
+						
+						if(nodeType.equalsIgnoreCase("core")) {
+							sw = new CoreSwitch(nodeName, bw, iops, upports, downports, NetworkOperatingSystem.this);
+						} else if (nodeType.equalsIgnoreCase("aggregate")){
+							sw = new AggregationSwitch(nodeName, bw, iops, upports, downports, NetworkOperatingSystem.this);
+						} else if (nodeType.equalsIgnoreCase("edge")){
+							sw = new EdgeSwitch(nodeName, bw, iops, upports, downports, NetworkOperatingSystem.this);
+						} else {
+							throw new IllegalArgumentException("No switch found!");
+						}
+						
+						if(sw != null) {
+							nameIdTable.put(nodeName, sw.getAddress());
+							topology.addNode(sw);
+							switches.add(sw);
+						}
 					}
 				}
-			}
 				
-			JSONArray links = (JSONArray) doc.get("links");
-			@SuppressWarnings("unchecked")
-			Iterator<JSONObject> linksIter =links.iterator(); 
-			while(linksIter.hasNext()){
-				JSONObject link = linksIter.next();
-				String src = (String) link.get("source");  
-				String dst = (String) link.get("destination");
-				double lat = (Double) link.get("latency");
-				
-				int srcAddress = nameIdTable.get(src);
-				int dstAddress = nameIdTable.get(dst);
-				topology.addLink(srcAddress, dstAddress, lat);
-			}
-    		
-    		
+				@Override
+				public void link(String source, String destination, double latency) {
+					Integer srcAddress = nameIdTable.get(source);
+					Integer dstAddress = nameIdTable.get(destination);
+					if(srcAddress == null || dstAddress == null)
+						throw new IllegalArgumentException("Link between " + source + " and " + destination + " of "
+								+ physicalTopologyFileName + " connects an unknown node");
+					topology.addLink(srcAddress, dstAddress, latency);
+				}
+			});
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Cannot read " + this.physicalTopologyFileName, e);
 		}
 		
 		topology.buildDefaultRouting();
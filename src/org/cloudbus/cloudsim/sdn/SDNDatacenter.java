@@ -76,7 +76,7 @@ public class SDNDatacenter extends Datacenter {
 		List<? extends Host> list = getVmAllocationPolicy().getHostList();
 		for (int i = 0; i < list.size(); i++) {
 			Host host = list.get(i);
-			for (Vm vm : host.getVmList()) {
+			for (Vm vm : host.pollVmsWithFinishedCloudlets()) {
 				while (vm.getCloudletScheduler().isFinishedCloudlets()) {
 					Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
 					if (cl != null) {
@@ -0,0 +1,547 @@
+/*
+ * Title:        CloudSimSDN
+ * Description:  SDN extension for CloudSim
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2015, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.sdn;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Log;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Reads a physical topology file, <tt>{"nodes": [{...}, ...], "links": [{"source": ..., "destination": ...,
+ * "latency": ...}, ...]}</tt>, streaming its nodes and links to a {@link Handler} as they are parsed instead of
+ * building the whole document in memory. All the nodes are handed before the links, whatever their order in the
+ * file, and every node and link is checked as it is read, so that an invalid file is reported with the node or
+ * link at fault.
+ * <p>
+ * The same topology can be stored in a compact binary format with {@link #convert(String, String)}, which is
+ * faster to read when a topology is loaded for many runs. The format of a file is recognised when it is read.
+ * The time and the memory the last read took are available with {@link #getLoadTime()} and
+ * {@link #getLoadMemory()}.
+ *
+ * @since CloudSimSDN 1.0
+ */
+public class TopologyReader {
+
+	/**
+	 * Receives the nodes and links of a topology file.
+	 */
+	public interface Handler {
+		void node(Entry node);
+
+		void link(String source, String destination, double latency);
+	}
+
+	/**
+	 * The fields of a node, with accessors that check their presence and type.
+	 */
+	public static class Entry {
+		private final String file;
+		private final int index;
+		private final Map<String, Object> fields;
+
+		Entry(String file, int index, Map<String, Object> fields) {
+			this.file = file;
+			this.index = index;
+			this.fields = fields;
+		}
+
+		/**
+		 * @return the position of the node in the file, from 0
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		public boolean has(String field) {
+			return fields.get(field) != null;
+		}
+
+		public Object get(String field) {
+			return fields.get(field);
+		}
+
+		public String getString(String field) {
+			Object value = require(field);
+			if (!(value instanceof String))
+				throw invalid(field, "is not a string");
+			return (String) value;
+		}
+
+		public long getLong(String field) {
+			Object value = require(field);
+			if (!(value instanceof Long))
+				throw invalid(field, "is not an integer");
+			return (Long) value;
+		}
+
+		public int getInt(String field) {
+			try {
+				return new BigDecimal(getLong(field)).intValueExact();
+			} catch (ArithmeticException e) {
+				throw invalid(field, "is out of range");
+			}
+		}
+
+		public int getInt(String field, int defaultValue) {
+			return has(field) ? getInt(field) : defaultValue;
+		}
+
+		public double getDouble(String field) {
+			Object value = require(field);
+			if (!(value instanceof Number))
+				throw invalid(field, "is not a number");
+			return ((Number) value).doubleValue();
+		}
+
+		private Object require(String field) {
+			Object value = fields.get(field);
+			if (value == null)
+				throw invalid(field, "is missing");
+			return value;
+		}
+
+		private IllegalArgumentException invalid(String field, String problem) {
+			Object name = fields.get("name");
+			return new IllegalArgumentException("Node " + index + (name != null ? " (" + name + ")" : "") + " of "
+					+ file + ": field \"" + field + "\" " + problem);
+		}
+	}
+
+	private static final int MAGIC = 0x544F504F; // "TOPO"
+	private static final int VERSION = 1;
+
+	private static final int END = 0;
+	private static final int NODE = 1;
+	private static final int LINK = 2;
+
+	private static final byte NULL = 'N';
+	private static final byte BOOLEAN = 'B';
+	private static final byte LONG = 'L';
+	private static final byte DOUBLE = 'D';
+	private static final byte STRING = 'S';
+
+	private long loadTime;
+	private long loadMemory;
+	private int nodeCount;
+	private int linkCount;
+
+	/**
+	 * Reads a topology file, JSON or binary, and hands its nodes and then its links to a handler.
+	 *
+	 * @param file    path of the file
+	 * @param handler receives the nodes and links
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not a valid topology
+	 */
+	public void read(String file, Handler handler) throws IOException {
+		Runtime runtime = Runtime.getRuntime();
+		long memory = runtime.totalMemory() - runtime.freeMemory();
+		long start = System.nanoTime();
+		nodeCount = 0;
+		linkCount = 0;
+
+		InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+		try {
+			in.mark(4);
+			DataInputStream data = new DataInputStream(in);
+			int magic;
+			try {
+				magic = data.readInt();
+			} catch (EOFException e) {
+				magic = 0;
+			}
+			in.reset();
+			if (magic == MAGIC)
+				readBinary(file, data, handler);
+			else
+				readJson(file, in, handler);
+		} finally {
+			in.close();
+		}
+
+		loadTime = (System.nanoTime() - start) / 1000000;
+		loadMemory = Math.max(0, runtime.totalMemory() - runtime.freeMemory() - memory);
+		Log.printLine("Loaded topology " + file + ": " + nodeCount + " nodes and " + linkCount + " links in "
+				+ loadTime + " ms, " + loadMemory / (1024 * 1024) + " MB allocated");
+	}
+
+	/**
+	 * @return the time the last read took, in milliseconds
+	 */
+	public long getLoadTime() {
+		return loadTime;
+	}
+
+	/**
+	 * @return the heap the last read allocated and did not release, in bytes, as an estimate of the memory the
+	 * loaded topology takes
+	 */
+	public long getLoadMemory() {
+		return loadMemory;
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getLinkCount() {
+		return linkCount;
+	}
+
+	private void readJson(final String file, InputStream in, final Handler handler) throws IOException {
+		final List<String[]> pendingLinks = new ArrayList<String[]>();
+		final List<Double> pendingLatencies = new ArrayList<Double>();
+		ContentHandler contentHandler = new ContentHandler() {
+			// depth 1 is the document, 2 the arrays of nodes and links and 3 their elements
+			private int depth;
+			private String section;
+			private boolean nodesRead;
+			private final List<Object> stack = new ArrayList<Object>();
+			private final List<String> keys = new ArrayList<String>();
+
+			@Override
+			public void startJSON() {
+			}
+
+			@Override
+			public void endJSON() {
+			}
+
+			@Override
+			public boolean startObject() {
+				depth++;
+				if (depth == 1)
+					return true;
+				if (depth == 2)
+					checkNotSection();
+				stack.add(stack.isEmpty() && depth == 3 ? new LinkedHashMap<String, Object>() : new JSONObject());
+				return true;
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public boolean endObject() {
+				depth--;
+				if (depth == 0)
+					return true;
+				Object value = stack.remove(stack.size() - 1);
+				if (!stack.isEmpty())
+					add(value);
+				else if (depth == 2)
+					element((Map<String, Object>) value);
+				return true;
+			}
+
+			@Override
+			public boolean startObjectEntry(String key) {
+				if (depth == 1)
+					section = key;
+				else
+					keys.add(key);
+				return true;
+			}
+
+			@Override
+			public boolean endObjectEntry() {
+				if (depth == 1) {
+					if (isSection())
+						nodesRead |= section.equals("nodes");
+					if (nodesRead)
+						flushLinks();
+					section = null;
+				} else {
+					keys.remove(keys.size() - 1);
+				}
+				return true;
+			}
+
+			@Override
+			public boolean startArray() {
+				depth++;
+				if (depth == 1)
+					throw new IllegalArgumentException(file + ": a topology is an object of nodes and links");
+				if (depth > 2 || !isSection())
+					stack.add(new JSONArray());
+				return true;
+			}
+
+			@Override
+			public boolean endArray() {
+				depth--;
+				if (depth == 1 && isSection())
+					return true;
+				Object value = stack.remove(stack.size() - 1);
+				if (!stack.isEmpty())
+					add(value);
+				return true;
+			}
+
+			@Override
+			public boolean primitive(Object value) {
+				if (depth == 1)
+					checkNotSection();
+				else if (stack.isEmpty())
+					throw new IllegalArgumentException(file + ": \"" + section + "\" is not an array of objects");
+				else
+					add(value);
+				return true;
+			}
+
+			private boolean isSection() {
+				return section != null && (section.equals("nodes") || section.equals("links"));
+			}
+
+			private void checkNotSection() {
+				if (isSection())
+					throw new IllegalArgumentException(file + ": \"" + section + "\" is not an array of objects");
+			}
+
+			@SuppressWarnings("unchecked")
+			private void add(Object value) {
+				Object parent = stack.get(stack.size() - 1);
+				if (parent instanceof JSONArray)
+					((JSONArray) parent).add(value);
+				else
+					((Map<String, Object>) parent).put(keys.get(keys.size() - 1), value);
+			}
+
+			private void element(Map<String, Object> fields) {
+				if (section.equals("nodes")) {
+					handler.node(new Entry(file, nodeCount++, fields));
+				} else {
+					Entry link = new Entry(file, pendingLinks.size() + linkCount, fields);
+					String[] ends = new String[]{linkField(link, "source"), linkField(link, "destination")};
+					double latency = linkLatency(link);
+					if (nodesRead) {
+						linkCount++;
+						handler.link(ends[0], ends[1], latency);
+					} else {
+						pendingLinks.add(ends);
+						pendingLatencies.add(latency);
+					}
+				}
+			}
+
+			private void flushLinks() {
+				for (int i = 0; i < pendingLinks.size(); i++) {
+					linkCount++;
+					handler.link(pendingLinks.get(i)[0], pendingLinks.get(i)[1], pendingLatencies.get(i));
+				}
+				pendingLinks.clear();
+				pendingLatencies.clear();
+			}
+		};
+
+		try {
+			new JSONParser().parse(new InputStreamReader(in, StandardCharsets.UTF_8), contentHandler);
+		} catch (ParseException e) {
+			throw new IllegalArgumentException(file + ": invalid JSON at position " + e.getPosition() + ": " + e, e);
+		}
+		// links of a file without nodes
+		for (int i = 0; i < pendingLinks.size(); i++) {
+			linkCount++;
+			handler.link(pendingLinks.get(i)[0], pendingLinks.get(i)[1], pendingLatencies.get(i));
+		}
+	}
+
+	private static String linkField(Entry link, String field) {
+		try {
+			return link.getString(field);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException(e.getMessage().replaceFirst("^Node", "Link"));
+		}
+	}
+
+	private static double linkLatency(Entry link) {
+		try {
+			return link.getDouble("latency");
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException(e.getMessage().replaceFirst("^Node", "Link"));
+		}
+	}
+
+	private void readBinary(String file, DataInputStream in, Handler handler) throws IOException {
+		in.readInt();
+		int version = in.readInt();
+		if (version != VERSION)
+			throw new IllegalArgumentException(file + ": unsupported binary topology version " + version);
+		List<String> strings = new ArrayList<String>();
+		try {
+			for (int record = in.readUnsignedByte(); record != END; record = in.readUnsignedByte()) {
+				if (record == NODE) {
+					int fieldCount = in.readUnsignedShort();
+					Map<String, Object> fields = new LinkedHashMap<String, Object>(fieldCount * 2);
+					for (int i = 0; i < fieldCount; i++) {
+						String key = readString(in, strings);
+						byte type = in.readByte();
+						Object value;
+						switch (type) {
+						case NULL:
+							value = null;
+							break;
+						case BOOLEAN:
+							value = in.readBoolean();
+							break;
+						case LONG:
+							value = in.readLong();
+							break;
+						case DOUBLE:
+							value = in.readDouble();
+							break;
+						case STRING:
+							value = readString(in, strings);
+							break;
+						default:
+							throw new IllegalArgumentException(file + ": invalid binary topology, value type " + type);
+						}
+						fields.put(key, value);
+					}
+					handler.node(new Entry(file, nodeCount++, fields));
+				} else if (record == LINK) {
+					String source = readString(in, strings);
+					String destination = readString(in, strings);
+					linkCount++;
+					handler.link(source, destination, in.readDouble());
+				} else {
+					throw new IllegalArgumentException(file + ": invalid binary topology, record " + record);
+				}
+			}
+		} catch (EOFException e) {
+			throw new IllegalArgumentException(file + ": truncated binary topology", e);
+		}
+	}
+
+	/**
+	 * Strings are written once and then referred to by their number: a number equal to the count of strings
+	 * read so far is followed by a new string.
+	 */
+	private static String readString(DataInputStream in, List<String> strings) throws IOException {
+		int id = in.readInt();
+		if (id == strings.size()) {
+			strings.add(in.readUTF());
+			return strings.get(id);
+		}
+		if (id < 0 || id > strings.size())
+			throw new IllegalArgumentException("Invalid binary topology, string " + id);
+		return strings.get(id);
+	}
+
+	private static void writeString(DataOutputStream out, Map<String, Integer> strings, String value) throws IOException {
+		Integer id = strings.get(value);
+		if (id != null) {
+			out.writeInt(id);
+		} else {
+			out.writeInt(strings.size());
+			strings.put(value, strings.size());
+			out.writeUTF(value);
+		}
+	}
+
+	/**
+	 * Converts a topology file to the binary format, checking it on the way. The nodes may only have
+	 * string, number, boolean and null fields.
+	 *
+	 * @param jsonFile   path of the topology file
+	 * @param binaryFile path of the binary file to write
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void convert(String jsonFile, String binaryFile) throws IOException {
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binaryFile), 1 << 16));
+		final Map<String, Integer> strings = new HashMap<String, Integer>();
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			new TopologyReader().read(jsonFile, new Handler() {
+				@Override
+				public void node(Entry node) {
+					try {
+						out.writeByte(NODE);
+						out.writeShort(node.fields.size());
+						for (Map.Entry<String, Object> field : node.fields.entrySet()) {
+							writeString(out, strings, field.getKey());
+							Object value = field.getValue();
+							if (value == null) {
+								out.writeByte(NULL);
+							} else if (value instanceof Boolean) {
+								out.writeByte(BOOLEAN);
+								out.writeBoolean((Boolean) value);
+							} else if (value instanceof Long) {
+								out.writeByte(LONG);
+								out.writeLong((Long) value);
+							} else if (value instanceof Double) {
+								out.writeByte(DOUBLE);
+								out.writeDouble((Double) value);
+							} else if (value instanceof String) {
+								out.writeByte(STRING);
+								writeString(out, strings, (String) value);
+							} else {
+								throw node.invalid(field.getKey(), "cannot be stored in the binary format");
+							}
+						}
+					} catch (IOException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+
+				@Override
+				public void link(String source, String destination, double latency) {
+					try {
+						out.writeByte(LINK);
+						writeString(out, strings, source);
+						writeString(out, strings, destination);
+						out.writeDouble(latency);
+					} catch (IOException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			});
+			out.writeByte(END);
+		} catch (IllegalStateException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw e;
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Converts a topology file to the binary format.
+	 * <p>
+	 * Usage: TopologyReader topology.json topology.bin
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: TopologyReader <topology file> <binary file>");
+			System.exit(1);
+		}
+		convert(args[0], args[1]);
+	}
+}
@@ -11,9 +11,12 @@ package org.cloudbus.cloudsim.util;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.commons.math3.exception.NoDataException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
 import org.apache.commons.math3.stat.regression.SimpleRegression;
+import org.apache.commons.math3.util.Precision;
 
 /**
  * A class containing multiple convenient math functions.
@@ -186,6 +189,103 @@ public class MathUtil {
 		return data[q3] - data[q1];
 	}
 
+	/**
+	 * Gets the median of the first values of an array, as {@link #median(double[])} does, sorting these
+	 * values in place.
+	 * 
+	 * @param data the data
+	 * @param length the number of values
+	 * @return the median
+	 */
+	public static double median(final double[] data, final int length) {
+		if (length == 0) {
+			return Double.NaN;
+		}
+		Arrays.sort(data, 0, length);
+		double pos = 0.5 * (length + 1);
+		if (pos >= length) {
+			return data[length - 1];
+		}
+		int intPos = (int) pos;
+		return data[intPos - 1] + (pos - intPos) * (data[intPos] - data[intPos - 1]);
+	}
+
+	/**
+	 * Gets the mad of the first values of an array, as {@link #mad(double[])} does, sorting these values in
+	 * place.
+	 * 
+	 * @param data the data
+	 * @param length the number of values
+	 * @return the mad
+	 */
+	public static double mad(final double[] data, final int length) {
+		double mad = 0;
+		if (length > 0) {
+			double median = median(data, length);
+			// the deviations from the median grow on both sides of it, the order of all of them is
+			// the merge of both sides
+			int above = 0;
+			while (above < length && data[above] <= median) {
+				above++;
+			}
+			double pos = 0.5 * (length + 1);
+			if (pos >= length) {
+				mad = getMergedDeviation(data, length, above, median, length - 1);
+			} else {
+				int intPos = (int) pos;
+				double lower = getMergedDeviation(data, length, above, median, intPos - 1);
+				double upper = getMergedDeviation(data, length, above, median, intPos);
+				mad = lower + (pos - intPos) * (upper - lower);
+			}
+		}
+		return mad;
+	}
+
+	/**
+	 * Gets the deviation from the median of a given rank, the values being sorted.
+	 * 
+	 * @param sorted the sorted values
+	 * @param length the number of values
+	 * @param above the index of the first value greater than the median
+	 * @param median the median
+	 * @param rank the rank of the deviation, 0 being the smallest
+	 * @return the deviation
+	 */
+	private static double getMergedDeviation(
+			final double[] sorted,
+			final int length,
+			final int above,
+			final double median,
+			final int rank) {
+		int below = above - 1;
+		int next = above;
+		double deviation = 0;
+		for (int i = 0; i <= rank; i++) {
+			if (next >= length
+					|| (below >= 0 && Math.abs(median - sorted[below]) <= Math.abs(median - sorted[next]))) {
+				deviation = Math.abs(median - sorted[below--]);
+			} else {
+				deviation = Math.abs(median - sorted[next++]);
+			}
+		}
+		return deviation;
+	}
+
+	/**
+	 * Gets the IQR of the first values of an array, as {@link #iqr(double[])} does, sorting these values in
+	 * place.
+	 * 
+	 * @param data the data
+	 * @param length the number of values
+	 * @return the IQR
+	 */
+	public static double iqr(final double[] data, final int length) {
+		Arrays.sort(data, 0, length);
+		int q1 = (int) Math.round(0.25 * (length + 1)) - 1;
+		int q3 = (int) Math.round(0.75 * (length + 1)) - 1;
+		return data[q3] - data[q1];
+	}
+
 	/**
 	 * Count non zero beginning of the data.
 	 * 
@@ -235,13 +335,85 @@ public class MathUtil {
 	 * @return the loess parameter estimates
 	 */
 	public static double[] getLoessParameterEstimates(final double[] y) {
-		int n = y.length;
-		double[] x = new double[n];
-		for (int i = 0; i < n; i++) {
-			x[i] = i + 1;
+		return getWeigthedLinearParameterEstimates(y, y.length, getTricubeWeigts(y.length));
+	}
+
+	/**
+	 * Gets the loess parameter estimates of the first values of an array, as
+	 * {@link #getLoessParameterEstimates(double[])} does. The tricube weights are positive whatever the number
+	 * of values, so the regression is not weighted.
+	 * 
+	 * @param y the y
+	 * @param length the number of values
+	 * @return the loess parameter estimates
+	 */
+	public static double[] getLoessParameterEstimates(final double[] y, final int length) {
+		return getWeigthedLinearParameterEstimates(y, length, null);
+	}
+
+	/**
+	 * Gets the parameter estimates of the regression of the first values of an array on 1, 2, ...,
+	 * weighted as {@link #createWeigthedLinearRegression} does. The estimates are computed as
+	 * {@link SimpleRegression#regress()} does, without creating the regression.
+	 * 
+	 * @param y the y
+	 * @param length the number of values
+	 * @param weigths the weigths, or null if none is zero
+	 * @return the intercept and the slope
+	 */
+	private static double[] getWeigthedLinearParameterEstimates(
+			final double[] y,
+			final int length,
+			final double[] weigths) {
+		if (length < 3) {
+			throw new NoDataException(LocalizedFormats.NOT_ENOUGH_DATA_REGRESSION);
+		}
+		boolean weighted = false;
+		if (weigths != null) {
+			int numZeroWeigths = 0;
+			for (int i = 0; i < weigths.length; i++) {
+				if (weigths[i] <= 0) {
+					numZeroWeigths++;
+				}
+			}
+			weighted = numZeroWeigths >= 0.4 * weigths.length;
+		}
+
+		double sumX = 0;
+		double sumY = 0;
+		double sumXX = 0;
+		double sumXY = 0;
+		double xbar = 0;
+		double ybar = 0;
+		for (int i = 0; i < length; i++) {
+			double x = i + 1;
+			double yi = y[i];
+			if (weighted) {
+				x = Math.sqrt(weigths[i]) * x;
+				yi = Math.sqrt(weigths[i]) * yi;
+			}
+			if (i == 0) {
+				xbar = x;
+				ybar = yi;
+			} else {
+				double fact1 = 1.0 + i;
+				double fact2 = i / (1.0 + i);
+				double dx = x - xbar;
+				double dy = yi - ybar;
+				sumXX += dx * dx * fact2;
+				sumXY += dx * dy * fact2;
+				xbar += dx / fact1;
+				ybar += dy / fact1;
+			}
+			sumX += x;
+			sumY += yi;
+		}
+
+		if (Math.abs(sumXX) > Precision.SAFE_MIN) {
+			double slope = sumXY / sumXX;
+			return new double[] { (sumY - slope * sumX) / length, slope };
 		}
-		return createWeigthedLinearRegression(x, y, getTricubeWeigts(n))
-				.regress().getParameterEstimates();
+		return new double[] { sumY / length, Double.NaN };
 	}
 
 	public static SimpleRegression createLinearRegression(final double[] x,
@@ -296,23 +468,14 @@ public class MathUtil {
 	 */
 	public static double[] getRobustLoessParameterEstimates(final double[] y) {
 		int n = y.length;
-		double[] x = new double[n];
-		for (int i = 0; i < n; i++) {
-			x[i] = i + 1;
-		}
-		SimpleRegression tricubeRegression = createWeigthedLinearRegression(x,
-				y, getTricubeWeigts(n));
+		double[] tricubeEstimates = getLoessParameterEstimates(y, n);
 		double[] residuals = new double[n];
 		for (int i = 0; i < n; i++) {
-			residuals[i] = y[i] - tricubeRegression.predict(x[i]);
+			residuals[i] = y[i] - (tricubeEstimates[0] + tricubeEstimates[1] * (i + 1));
 		}
-		SimpleRegression tricubeBySquareRegression = createWeigthedLinearRegression(
-				x, y, getTricubeBisquareWeigts(residuals));
-
-		double[] estimates = tricubeBySquareRegression.regress()
-				.getParameterEstimates();
+		double[] estimates = getWeigthedLinearParameterEstimates(y, n, getTricubeBisquareWeigts(residuals));
 		if (estimates[0] == Double.NaN || estimates[1] == Double.NaN) {
-			return tricubeRegression.regress().getParameterEstimates();
+			return tricubeEstimates;
 		}
 		return estimates;
 	}
@@ -6,9 +6,9 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.math3.util.Pair;
-import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.fog.application.selectivity.SelectivityModel;
 import org.fog.entities.Tuple;
+import org.fog.entities.TuplePool;
 import org.fog.scheduler.TupleScheduler;
 import org.fog.utils.FogUtils;
 import org.fog.utils.GeoCoverage;
@@ -44,6 +44,16 @@ public class Application {
 	protected Map<String, List<String>> specialPlacementInfo = new HashMap<>(); // module name to placement device staring with
 
 	protected DAG dag;
+	
+	/**
+	 * Index of the outgoing edges of each module by the type of the input tuple that triggers them
+	 */
+	private Map<String, ModuleOutputs> moduleOutputs = new HashMap<String, ModuleOutputs>();
+
+	/**
+	 * The placement dependencies between the modules, derived from the edges
+	 */
+	private PlacementDependencies placementDependencies;
 
 	/**
 	 * Creates a plain vanilla application with no modules and edges.
@@ -70,7 +80,7 @@ public class Application {
 				mips, ram, bw, size, vmm, new TupleScheduler(mips, 1), new HashMap<Pair<String, String>, SelectivityModel>());
 		
 		getModules().add(module);
-		
+		moduleOutputs.clear();
 	}
 
 	/**
@@ -87,6 +97,7 @@ public class Application {
 				mips, ram, bw, size, vmm, new TupleScheduler(mips, 1), new HashMap<Pair<String, String>, SelectivityModel>());
 
 		getModules().add(module);
+		moduleOutputs.clear();
 	}
 	
 	/**
@@ -194,42 +205,23 @@ public class Application {
 	 */
 	public List<Tuple> getResultantTuples(String moduleName, Tuple inputTuple, int sourceDeviceId, int sourceModuleId){
 		List<Tuple> tuples = new ArrayList<Tuple>();
-		AppModule module = getModuleByName(moduleName);
-		for(AppEdge edge : getEdges()){
-			if(edge.getSource().equals(moduleName)){
-				Pair<String, String> pair = new Pair<String, String>(inputTuple.getTupleType(), edge.getTupleType());
-				
-				if(module.getSelectivityMap().get(pair)==null)
-					continue;
-				SelectivityModel selectivityModel = module.getSelectivityMap().get(pair);
-				if(selectivityModel.canSelect()){
-					//TODO check if the edge is ACTUATOR, then create multiple tuples
-					if(edge.getEdgeType() == AppEdge.ACTUATOR){
-						//for(Integer actuatorId : module.getActuatorSubscriptions().get(edge.getTupleType())){
-							Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
-									(long) (edge.getTupleCpuLength()),
-									inputTuple.getNumberOfPes(),
-									(long) (edge.getTupleNwLength()),
-									inputTuple.getCloudletOutputSize(),
-									inputTuple.getUtilizationModelCpu(),
-									inputTuple.getUtilizationModelRam(),
-									inputTuple.getUtilizationModelBw()
-									);
-							tuple.setActualTupleId(inputTuple.getActualTupleId());
-							tuple.setUserId(inputTuple.getUserId());
-							tuple.setAppId(inputTuple.getAppId());
-							tuple.setDestModuleName(edge.getDestination());
-							tuple.setSrcModuleName(edge.getSource());
-							tuple.setDirection(Tuple.ACTUATOR);
-							tuple.setTupleType(edge.getTupleType());
-							tuple.setSourceDeviceId(sourceDeviceId);
-							tuple.setSourceModuleId(sourceModuleId);
-							//tuple.setActuatorId(actuatorId);
-							
-							tuples.add(tuple);
-						//}
-					}else{
-						Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
+		ModuleOutputs outputs = getModuleOutputs(moduleName);
+		if(outputs == null)
+			return tuples;
+		OutputEdge[] outputEdges = outputs.edgesByInputType.get(inputTuple.getTupleType());
+		if(outputEdges == null)
+			return tuples;
+		TuplePool tuplePool = TuplePool.getInstance();
+		for(OutputEdge output : outputEdges){
+			AppEdge edge = output.edge;
+			SelectivityModel selectivityModel = outputs.module.getSelectivityMap().get(output.mapping);
+			if(selectivityModel == null)
+				continue;
+			if(selectivityModel.canSelect()){
+				//TODO check if the edge is ACTUATOR, then create multiple tuples
+				if(edge.getEdgeType() == AppEdge.ACTUATOR){
+					//for(Integer actuatorId : module.getActuatorSubscriptions().get(edge.getTupleType())){
+						Tuple tuple = tuplePool.acquire(appId, FogUtils.generateTupleId(), edge.getDirection(),  
 								(long) (edge.getTupleCpuLength()),
 								inputTuple.getNumberOfPes(),
 								(long) (edge.getTupleNwLength()),
@@ -243,19 +235,169 @@ public class Application {
 						tuple.setAppId(inputTuple.getAppId());
 						tuple.setDestModuleName(edge.getDestination());
 						tuple.setSrcModuleName(edge.getSource());
-						tuple.setDirection(edge.getDirection());
+						tuple.setDirection(Tuple.ACTUATOR);
 						tuple.setTupleType(edge.getTupleType());
+						tuple.setSourceDeviceId(sourceDeviceId);
 						tuple.setSourceModuleId(sourceModuleId);
-						tuple.setTraversedMicroservices(inputTuple.getTraversed());
-
+						//tuple.setActuatorId(actuatorId);
+						
 						tuples.add(tuple);
-					}
+					//}
+				}else{
+					Tuple tuple = tuplePool.acquire(appId, FogUtils.generateTupleId(), edge.getDirection(),  
+							(long) (edge.getTupleCpuLength()),
+							inputTuple.getNumberOfPes(),
+							(long) (edge.getTupleNwLength()),
+							inputTuple.getCloudletOutputSize(),
+							inputTuple.getUtilizationModelCpu(),
+							inputTuple.getUtilizationModelRam(),
+							inputTuple.getUtilizationModelBw()
+							);
+					tuple.setActualTupleId(inputTuple.getActualTupleId());
+					tuple.setUserId(inputTuple.getUserId());
+					tuple.setAppId(inputTuple.getAppId());
+					tuple.setDestModuleName(edge.getDestination());
+					tuple.setSrcModuleName(edge.getSource());
+					tuple.setDirection(edge.getDirection());
+					tuple.setTupleType(edge.getTupleType());
+					tuple.setSourceModuleId(sourceModuleId);
+					tuple.setTraversedMicroservices(inputTuple.getTraversed());
+
+					tuples.add(tuple);
 				}
 			}
 		}
 		return tuples;
 	}
 	
+	/**
+	 * Get the outgoing edges of a module indexed by input tuple type, rebuilding the index if edges or 
+	 * tuple mappings have been added or removed since it was built
+	 * @param moduleName
+	 * @return null if there is no such module
+	 */
+	private ModuleOutputs getModuleOutputs(String moduleName){
+		ModuleOutputs outputs = moduleOutputs.get(moduleName);
+		if(outputs != null && outputs.edgeCount == edges.size() 
+				&& outputs.mappingCount == outputs.module.getSelectivityMap().size())
+			return outputs;
+		AppModule module = getModuleByName(moduleName);
+		if(module == null)
+			return null;
+		outputs = new ModuleOutputs(module, edges.size());
+		Map<String, List<OutputEdge>> edgesByInputType = new HashMap<String, List<OutputEdge>>();
+		for(AppEdge edge : edges){
+			if(!edge.getSource().equals(moduleName))
+				continue;
+			for(Pair<String, String> mapping : module.getSelectivityMap().keySet()){
+				if(!mapping.getSecond().equals(edge.getTupleType()))
+					continue;
+				if(!edgesByInputType.containsKey(mapping.getFirst()))
+					edgesByInputType.put(mapping.getFirst(), new ArrayList<OutputEdge>());
+				edgesByInputType.get(mapping.getFirst()).add(new OutputEdge(edge, mapping));
+			}
+		}
+		for(Map.Entry<String, List<OutputEdge>> entry : edgesByInputType.entrySet())
+			outputs.edgesByInputType.put(entry.getKey(), entry.getValue().toArray(new OutputEdge[entry.getValue().size()]));
+		moduleOutputs.put(moduleName, outputs);
+		return outputs;
+	}
+	
+	/**
+	 * An outgoing edge of a module, with the tuple mapping that triggers it
+	 */
+	private static class OutputEdge {
+		private final AppEdge edge;
+		private final Pair<String, String> mapping;
+		
+		OutputEdge(AppEdge edge, Pair<String, String> mapping){
+			this.edge = edge;
+			this.mapping = mapping;
+		}
+	}
+	
+	/**
+	 * The outgoing edges of a module by input tuple type, in the order of the edges of the application
+	 */
+	private static class ModuleOutputs {
+		private final AppModule module;
+		private final int edgeCount;
+		private final int mappingCount;
+		private final Map<String, OutputEdge[]> edgesByInputType = new HashMap<String, OutputEdge[]>();
+		
+		ModuleOutputs(AppModule module, int edgeCount){
+			this.module = module;
+			this.edgeCount = edgeCount;
+			this.mappingCount = module.getSelectivityMap().size();
+		}
+	}
+	
+	/**
+	 * Returns the modules that have to be placed before a module: the destinations of its outgoing DOWN edges and
+	 * the sources of its incoming UP edges. The dependencies are derived from the edges once and derived again
+	 * when modules or edges have been added since.
+	 * @param moduleName
+	 * @return the modules, in the order of the edges
+	 */
+	public List<String> getPlacementPrerequisites(String moduleName){
+		List<String> prerequisites = getPlacementDependencies().prerequisites.get(moduleName);
+		return prerequisites != null ? prerequisites : new ArrayList<String>();
+	}
+	
+	/**
+	 * Returns the client modules of a module, i.e. the sources of its incoming UP edges.
+	 * @param moduleName
+	 * @return the modules, in the order of the edges
+	 */
+	public List<String> getClientModules(String moduleName){
+		List<String> clients = getPlacementDependencies().clients.get(moduleName);
+		return clients != null ? clients : new ArrayList<String>();
+	}
+	
+	private PlacementDependencies getPlacementDependencies(){
+		PlacementDependencies dependencies = placementDependencies;
+		if(dependencies != null && dependencies.edges == edges && dependencies.edgeCount == edges.size()
+				&& dependencies.moduleCount == modules.size())
+			return dependencies;
+		dependencies = new PlacementDependencies(edges, modules.size());
+		for(AppEdge edge : edges){
+			if(edge.getDirection() == Tuple.DOWN)
+				dependencies.add(dependencies.prerequisites, edge.getSource(), edge.getDestination());
+			if(edge.getDirection() == Tuple.UP){
+				dependencies.add(dependencies.prerequisites, edge.getDestination(), edge.getSource());
+				dependencies.add(dependencies.clients, edge.getDestination(), edge.getSource());
+			}
+		}
+		placementDependencies = dependencies;
+		return dependencies;
+	}
+	
+	/**
+	 * The placement dependencies of the modules, with the size of the application they were derived from
+	 */
+	private static class PlacementDependencies {
+		private final List<AppEdge> edges;
+		private final int edgeCount;
+		private final int moduleCount;
+		private final Map<String, List<String>> prerequisites = new HashMap<String, List<String>>();
+		private final Map<String, List<String>> clients = new HashMap<String, List<String>>();
+		
+		PlacementDependencies(List<AppEdge> edges, int moduleCount){
+			this.edges = edges;
+			this.edgeCount = edges.size();
+			this.moduleCount = moduleCount;
+		}
+		
+		void add(Map<String, List<String>> dependencies, String moduleName, String dependency){
+			List<String> moduleDependencies = dependencies.get(moduleName);
+			if(moduleDependencies == null){
+				moduleDependencies = new ArrayList<String>();
+				dependencies.put(moduleName, moduleDependencies);
+			}
+			moduleDependencies.add(dependency);
+		}
+	}
+	
 	/**
 	 * Create a tuple for a given application edge
 	 * @param edge
@@ -266,14 +408,14 @@ public class Application {
 		AppModule module = getModuleByName(edge.getSource());
 		if(edge.getEdgeType() == AppEdge.ACTUATOR){
 			for(Integer actuatorId : module.getActuatorSubscriptions().get(edge.getTupleType())){
-				Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
+				Tuple tuple = TuplePool.getInstance().acquire(appId, FogUtils.generateTupleId(), edge.getDirection(),  
 						(long) (edge.getTupleCpuLength()),
 						1,
 						(long) (edge.getTupleNwLength()),
 						100,
-						new UtilizationModelFull(), 
-						new UtilizationModelFull(), 
-						new UtilizationModelFull()
+						Tuple.FULL_UTILIZATION, 
+						Tuple.FULL_UTILIZATION, 
+						Tuple.FULL_UTILIZATION
 						);
 				tuple.setUserId(getUserId());
 				tuple.setAppId(getAppId());
@@ -288,14 +430,14 @@ public class Application {
 				return tuple;
 			}
 		}else{
-			Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
+			Tuple tuple = TuplePool.getInstance().acquire(appId, FogUtils.generateTupleId(), edge.getDirection(),  
 					(long) (edge.getTupleCpuLength()),
 					1,
 					(long) (edge.getTupleNwLength()),
 					100,
-					new UtilizationModelFull(), 
-					new UtilizationModelFull(), 
-					new UtilizationModelFull()
+					Tuple.FULL_UTILIZATION, 
+					Tuple.FULL_UTILIZATION, 
+					Tuple.FULL_UTILIZATION
 					);
 			//tuple.setActualTupleId(inputTuple.getActualTupleId());
 			tuple.setUserId(getUserId());
@@ -322,12 +464,14 @@ public class Application {
 	}
 	public void setModules(List<AppModule> modules) {
 		this.modules = modules;
+		moduleOutputs.clear();
 	}
 	public List<AppEdge> getEdges() {
 		return edges;
 	}
 	public void setEdges(List<AppEdge> edges) {
 		this.edges = edges;
+		moduleOutputs.clear();
 	}
 	public GeoCoverage getGeoCoverage() {
 		return geoCoverage;
@@ -136,46 +136,3 @@ public class ControllerComponent {
 
 
 }
-
-class ServiceDiscovery {
-    protected Map<String, List<Integer>> serviceDiscoveryInfo = new HashMap<>();
-    int deviceId ;
-
-    public ServiceDiscovery(Integer deviceId) {
-        this.deviceId =deviceId;
-    }
-
-    public void addServiceDIscoveryInfo(String microservice, Integer device) {
-        if (serviceDiscoveryInfo.containsKey(microservice)) {
-            List<Integer> deviceList = serviceDiscoveryInfo.get(microservice);
-            deviceList.add(device);
-            serviceDiscoveryInfo.put(microservice, deviceList);
-        } else {
-            List<Integer> deviceList = new ArrayList<>();
-            deviceList.add(device);
-            serviceDiscoveryInfo.put(microservice, deviceList);
-        }
-    }
-
-    public Map<String, List<Integer>> getServiceDiscoveryInfo() {
-        return serviceDiscoveryInfo;
-    }
-
-    public void removeServiceDIscoveryInfo(String microserviceName, Integer deviceID) {
-        if (serviceDiscoveryInfo.containsKey(microserviceName) && serviceDiscoveryInfo.get(microserviceName).contains(new Integer(deviceID))) {
-            System.out.println("Service Discovery Info REMOVED (device:" + this.deviceId + ") for microservice :" + microserviceName + " , destDevice : " + deviceID);
-            serviceDiscoveryInfo.get(microserviceName).remove(new Integer(deviceID));
-            if (serviceDiscoveryInfo.get(microserviceName).size() == 0)
-                serviceDiscoveryInfo.remove(microserviceName);
-        }
-    }
-}
-
-
-
-
-
-
-
-
-
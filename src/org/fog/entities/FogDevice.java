@@ -19,6 +19,7 @@ import org.fog.mobilitydata.Clustering;
 import org.fog.policy.AppModuleAllocationPolicy;
 import org.fog.scheduler.StreamOperatorScheduler;
 import org.fog.utils.*;
+import org.fog.utils.trace.Tracer;
 import org.json.simple.JSONObject;
 
 import java.util.*;
@@ -55,14 +56,14 @@ public class FogDevice extends PowerDatacenter {
     protected Map<Integer, List<String>> childToOperatorsMap;
 
     /**
-     * Flag denoting whether the link southwards from this FogDevice is busy
+     * The link southwards from this FogDevice, to its children
      */
-    protected boolean isSouthLinkBusy;
+    protected FogLink southLink;
 
     /**
-     * Flag denoting whether the link northwards from this FogDevice is busy
+     * The link northwards from this FogDevice, to its parent
      */
-    protected boolean isNorthLinkBusy;
+    protected FogLink northLink;
 
     protected double uplinkBandwidth;
     protected double downlinkBandwidth;
@@ -123,13 +124,13 @@ public class FogDevice extends PowerDatacenter {
 
         applicationMap = new HashMap<String, Application>();
         appToModulesMap = new HashMap<String, List<String>>();
-        northTupleQueue = new LinkedList<Tuple>();
-        southTupleQueue = new LinkedList<Pair<Tuple, Integer>>();
-        setNorthLinkBusy(false);
-        setSouthLinkBusy(false);
+        northTupleQueue = new ArrayDeque<Tuple>();
+        southTupleQueue = new ArrayDeque<Pair<Tuple, Integer>>();
+        northLink = new FogLink(getName() + " north");
+        southLink = new FogLink(getName() + " south");
 
 
-        setChildrenIds(new ArrayList<Integer>());
+        setChildrenIds(new IdList());
         setChildToOperatorsMap(new HashMap<Integer, List<String>>());
 
         this.cloudTrafficMap = new HashMap<Integer, Integer>();
@@ -211,13 +212,13 @@ public class FogDevice extends PowerDatacenter {
 
         applicationMap = new HashMap<String, Application>();
         appToModulesMap = new HashMap<String, List<String>>();
-        northTupleQueue = new LinkedList<Tuple>();
-        southTupleQueue = new LinkedList<Pair<Tuple, Integer>>();
-        setNorthLinkBusy(false);
-        setSouthLinkBusy(false);
+        northTupleQueue = new ArrayDeque<Tuple>();
+        southTupleQueue = new ArrayDeque<Pair<Tuple, Integer>>();
+        northLink = new FogLink(getName() + " north");
+        southLink = new FogLink(getName() + " south");
 
 
-        setChildrenIds(new ArrayList<Integer>());
+        setChildrenIds(new IdList());
         setChildToOperatorsMap(new HashMap<Integer, List<String>>());
 
         this.cloudTrafficMap = new HashMap<Integer, Integer>();
@@ -333,13 +334,13 @@ public class FogDevice extends PowerDatacenter {
     }
 
     /**
-     * Perform miscellaneous resource management tasks
+     * Perform miscellaneous resource management tasks. The energy accounting of the device starts here; from
+     * then on it is updated when the utilization of the device changes, see {@link #updateAllocatedMips(String)}.
      *
      * @param ev
      */
     protected void manageResources(SimEvent ev) {
         updateEnergyConsumption();
-        send(getId(), Config.RESOURCE_MGMT_INTERVAL, FogEvents.RESOURCE_MGMT);
     }
 
     /**
@@ -504,7 +505,7 @@ public class FogDevice extends PowerDatacenter {
         List<? extends Host> list = getVmAllocationPolicy().getHostList();
         for (int i = 0; i < list.size(); i++) {
             Host host = list.get(i);
-            for (Vm vm : host.getVmList()) {
+            for (Vm vm : host.pollVmsWithFinishedCloudlets()) {
                 while (vm.getCloudletScheduler().isFinishedCloudlets()) {
                     Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
                     if (cl != null) {
@@ -513,12 +514,13 @@ public class FogDevice extends PowerDatacenter {
                         Tuple tuple = (Tuple) cl;
                         TimeKeeper.getInstance().tupleEndedExecution(tuple);
                         Application application = getApplicationMap().get(tuple.getAppId());
-                        Logger.debug(getName(), "Completed execution of tuple " + tuple.getCloudletId() + "on " + tuple.getDestModuleName());
+                        Tracer.executionEnd(this, tuple);
                         List<Tuple> resultantTuples = application.getResultantTuples(tuple.getDestModuleName(), tuple, getId(), vm.getId());
                         for (Tuple resTuple : resultantTuples) {
-                            resTuple.setModuleCopyMap(new HashMap<String, Integer>(tuple.getModuleCopyMap()));
+                            resTuple.getModuleCopyMap().putAll(tuple.getModuleCopyMap());
                             resTuple.getModuleCopyMap().put(((AppModule) vm).getName(), vm.getId());
                             updateTimingsOnSending(resTuple);
+                            Tracer.tupleSend(this, resTuple, -1);
                             sendToSelf(resTuple);
                         }
                         sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
@@ -539,10 +541,7 @@ public class FogDevice extends PowerDatacenter {
             if (loop.hasEdge(srcModule, destModule) && loop.isStartModule(srcModule)) {
                 int tupleId = TimeKeeper.getInstance().getUniqueId();
                 resTuple.setActualTupleId(tupleId);
-                if (!TimeKeeper.getInstance().getLoopIdToTupleIds().containsKey(loop.getLoopId()))
-                    TimeKeeper.getInstance().getLoopIdToTupleIds().put(loop.getLoopId(), new ArrayList<Integer>());
-                TimeKeeper.getInstance().getLoopIdToTupleIds().get(loop.getLoopId()).add(tupleId);
-                TimeKeeper.getInstance().getEmitTimes().put(tupleId, CloudSim.clock());
+                TimeKeeper.getInstance().tupleEmitted(loop.getLoopId(), tupleId);
 
                 //Logger.debug(getName(), "\tSENDING\t"+tuple.getActualTupleId()+"\tSrc:"+srcModule+"\tDest:"+destModule);
 
@@ -594,33 +593,88 @@ public class FogDevice extends PowerDatacenter {
 
     }
 
+    /**
+     * Brings the processing of the modules up to date with the MIPS allocated to them, and accounts the
+     * energy and cost of the device at its new utilization.
+     */
     private void updateEnergyConsumption() {
-        double totalMipsAllocated = 0;
         for (final Vm vm : getHost().getVmList()) {
             AppModule operator = (AppModule) vm;
             operator.updateVmProcessing(CloudSim.clock(), getVmAllocationPolicy().getHost(operator).getVmScheduler()
                     .getAllocatedMipsForVm(operator));
-            totalMipsAllocated += getHost().getTotalAllocatedMipsForVm(vm);
+        }
+        updateUtilization();
+    }
+
+    /**
+     * Accounts the energy and cost of the device up to now and records its utilization from the MIPS allocated
+     * on its host. It is called whenever the allocation changes; the power of the host is constant in between,
+     * so integrating it at the changes is exact for any power model.
+     */
+    protected void updateUtilization() {
+        boolean monitored = PowerMonitor.isEnabled();
+        Map<String, Double> appMips = monitored ? new HashMap<String, Double>() : null;
+        double totalMipsAllocated = 0;
+        for (final Vm vm : getHost().getVmList()) {
+            double mips = getHost().getTotalAllocatedMipsForVm(vm);
+            totalMipsAllocated += mips;
+            if (monitored && mips > 0) {
+                String appId = ((AppModule) vm).getAppId();
+                Double current = appMips.get(appId);
+                appMips.put(appId, (current != null ? current : 0) + mips);
+            }
         }
 
         double timeNow = CloudSim.clock();
-        double currentEnergyConsumption = getEnergyConsumption();
-        double newEnergyConsumption = currentEnergyConsumption + (timeNow - lastUtilizationUpdateTime) * getHost().getPowerModel().getPower(lastUtilization);
-        setEnergyConsumption(newEnergyConsumption);
-	
-		/*if(getName().equals("d-0")){
-			System.out.println("------------------------");
-			System.out.println("Utilization = "+lastUtilization);
-			System.out.println("Power = "+getHost().getPowerModel().getPower(lastUtilization));
-			System.out.println(timeNow-lastUtilizationUpdateTime);
-		}*/
+        accrueEnergyConsumption(timeNow);
+        lastUtilization = Math.min(1, totalMipsAllocated / getHost().getTotalMips());
 
-        double currentCost = getTotalCost();
-        double newcost = currentCost + (timeNow - lastUtilizationUpdateTime) * getRatePerMips() * lastUtilization * getHost().getTotalMips();
-        setTotalCost(newcost);
+        if (monitored) {
+            PowerModel powerModel = getHost().getPowerModel();
+            double power = powerModel.getPower(lastUtilization);
+            double dynamicPower = power - powerModel.getPower(0);
+            Map<String, Double> appPower = new HashMap<String, Double>();
+            for (Map.Entry<String, Double> entry : appMips.entrySet())
+                appPower.put(entry.getKey(), dynamicPower * entry.getValue() / totalMipsAllocated);
+            PowerMonitor.powerChanged(this, timeNow, power, appPower);
+        }
+    }
 
-        lastUtilization = Math.min(1, totalMipsAllocated / getHost().getTotalMips());
-        lastUtilizationUpdateTime = timeNow;
+    /**
+     * Adds the energy and cost of the device at its last utilization from the last update up to a time.
+     *
+     * @param time the time up to which the energy is accounted
+     */
+    private void accrueEnergyConsumption(double time) {
+        if (time <= lastUtilizationUpdateTime)
+            return;
+        energyConsumption += (time - lastUtilizationUpdateTime) * getHost().getPowerModel().getPower(lastUtilization);
+        totalCost += (time - lastUtilizationUpdateTime) * getRatePerMips() * lastUtilization * getHost().getTotalMips();
+        lastUtilizationUpdateTime = time;
+    }
+
+    @Override
+    public void shutdownEntity() {
+        accrueEnergyConsumption(CloudSim.clock());
+        super.shutdownEntity();
+    }
+
+    @Override
+    protected void processVmCreate(SimEvent ev, boolean ack) {
+        super.processVmCreate(ev, ack);
+        updateEnergyConsumption();
+    }
+
+    @Override
+    protected void processVmDestroy(SimEvent ev, boolean ack) {
+        super.processVmDestroy(ev, ack);
+        updateEnergyConsumption();
+    }
+
+    @Override
+    protected void processVmMigrate(SimEvent ev, boolean ack) {
+        super.processVmMigrate(ev, ack);
+        updateEnergyConsumption();
     }
 
     protected void processAppSubmit(SimEvent ev) {
@@ -666,9 +720,7 @@ public class FogDevice extends PowerDatacenter {
                 return;
             }
         }
-        for (int childId : getChildrenIds()) {
-            sendDown(tuple, childId);
-        }
+        sendDownToChildren(tuple);
     }
 
     int numClients = 0;
@@ -683,8 +735,7 @@ public class FogDevice extends PowerDatacenter {
 		/*if(getName().equals("d-0") && tuple.getTupleType().equals("_SENSOR")){
 			System.out.println(++numClients);
 		}*/
-        Logger.debug(getName(), "Received tuple " + tuple.getCloudletId() + "with tupleType = " + tuple.getTupleType() + "\t| Source : " +
-                CloudSim.getEntityName(ev.getSource()) + "|Dest : " + CloudSim.getEntityName(ev.getDestination()));
+        Tracer.tupleArrival(this, tuple, ev.getSource());
 		
 		/*if(CloudSim.getEntityName(ev.getSource()).equals("drone_0")||CloudSim.getEntityName(ev.getDestination()).equals("drone_0"))
 			System.out.println(CloudSim.clock()+" "+getName()+" Received tuple "+tuple.getCloudletId()+" with tupleType = "+tuple.getTupleType()+"\t| Source : "+
@@ -711,6 +762,7 @@ public class FogDevice extends PowerDatacenter {
                         add((double) getHost().getTotalMips());
                     }
                 });
+                updateUtilization();
             }
         }
 
@@ -740,20 +792,16 @@ public class FogDevice extends PowerDatacenter {
             } else if (tuple.getDestModuleName() != null) {
                 if (tuple.getDirection() == Tuple.UP)
                     sendUp(tuple);
-                else if (tuple.getDirection() == Tuple.DOWN) {
-                    for (int childId : getChildrenIds())
-                        sendDown(tuple, childId);
-                }
+                else if (tuple.getDirection() == Tuple.DOWN)
+                    sendDownToChildren(tuple);
             } else {
                 sendUp(tuple);
             }
         } else {
             if (tuple.getDirection() == Tuple.UP)
                 sendUp(tuple);
-            else if (tuple.getDirection() == Tuple.DOWN) {
-                for (int childId : getChildrenIds())
-                    sendDown(tuple, childId);
-            }
+            else if (tuple.getDirection() == Tuple.DOWN)
+                sendDownToChildren(tuple);
         }
     }
 
@@ -764,20 +812,7 @@ public class FogDevice extends PowerDatacenter {
         List<AppLoop> loops = app.getLoops();
         for (AppLoop loop : loops) {
             if (loop.hasEdge(srcModule, destModule) && loop.isEndModule(destModule)) {
-                Double startTime = TimeKeeper.getInstance().getEmitTimes().get(tuple.getActualTupleId());
-                if (startTime == null)
-                    break;
-                if (!TimeKeeper.getInstance().getLoopIdToCurrentAverage().containsKey(loop.getLoopId())) {
-                    TimeKeeper.getInstance().getLoopIdToCurrentAverage().put(loop.getLoopId(), 0.0);
-                    TimeKeeper.getInstance().getLoopIdToCurrentNum().put(loop.getLoopId(), 0);
-                }
-                double currentAverage = TimeKeeper.getInstance().getLoopIdToCurrentAverage().get(loop.getLoopId());
-                int currentCount = TimeKeeper.getInstance().getLoopIdToCurrentNum().get(loop.getLoopId());
-                double delay = CloudSim.clock() - TimeKeeper.getInstance().getEmitTimes().get(tuple.getActualTupleId());
-                TimeKeeper.getInstance().getEmitTimes().remove(tuple.getActualTupleId());
-                double newAverage = (currentAverage * currentCount + delay) / (currentCount + 1);
-                TimeKeeper.getInstance().getLoopIdToCurrentAverage().put(loop.getLoopId(), newAverage);
-                TimeKeeper.getInstance().getLoopIdToCurrentNum().put(loop.getLoopId(), currentCount + 1);
+                TimeKeeper.getInstance().tupleCompletedLoop(loop.getLoopId(), tuple.getActualTupleId());
                 break;
             }
         }
@@ -788,8 +823,8 @@ public class FogDevice extends PowerDatacenter {
     }
 
     protected void executeTuple(SimEvent ev, String moduleName) {
-        Logger.debug(getName(), "Executing tuple on module " + moduleName);
         Tuple tuple = (Tuple) ev.getData();
+        Tracer.executionStart(this, tuple, moduleName);
 
         AppModule module = getModuleByName(moduleName);
 
@@ -824,6 +859,7 @@ public class FogDevice extends PowerDatacenter {
         }
         appToModulesMap.get(appId).add(module.getName());
         processVmCreate(ev, false);
+        Tracer.placement(module.getName(), this);
         if (module.isBeingInstantiated()) {
             module.setBeingInstantiated(false);
         }
@@ -855,19 +891,35 @@ public class FogDevice extends PowerDatacenter {
 
     protected void updateNorthTupleQueue() {
         if (!getNorthTupleQueue().isEmpty()) {
-            Tuple tuple = getNorthTupleQueue().poll();
-            sendUpFreeLink(tuple);
+            // the queued tuples go out back to back, with one event when the last of them is through
+            double burstTime = 0;
+            for (Tuple tuple : getNorthTupleQueue())
+                burstTime += getUplinkTransmissionTime(tuple);
+            send(getId(), burstTime, FogEvents.UPDATE_NORTH_TUPLE_QUEUE);
+            double startDelay = 0;
+            Tuple tuple;
+            while ((tuple = getNorthTupleQueue().poll()) != null)
+                startDelay += transmitUp(tuple, startDelay, true);
         } else {
             setNorthLinkBusy(false);
         }
     }
 
     protected void sendUpFreeLink(Tuple tuple) {
-        double networkDelay = tuple.getCloudletFileSize() / getUplinkBandwidth();
         setNorthLinkBusy(true);
-        send(getId(), networkDelay, FogEvents.UPDATE_NORTH_TUPLE_QUEUE);
-        send(parentId, networkDelay + getUplinkLatency(), FogEvents.TUPLE_ARRIVAL, tuple);
-        NetworkUsageMonitor.sendingTuple(getUplinkLatency(), tuple.getCloudletFileSize());
+        send(getId(), getUplinkTransmissionTime(tuple), FogEvents.UPDATE_NORTH_TUPLE_QUEUE);
+        transmitUp(tuple, 0, false);
+    }
+
+    protected double getUplinkTransmissionTime(Tuple tuple) {
+        return tuple.getCloudletFileSize() / getUplinkBandwidth();
+    }
+
+    private double transmitUp(Tuple tuple, double startDelay, boolean fromQueue) {
+        double networkDelay = getUplinkTransmissionTime(tuple);
+        northLink.tupleTransmitted(CloudSim.clock() + startDelay, fromQueue, tuple.getCloudletFileSize(), networkDelay);
+        deliverTuple(tuple, parentId, startDelay + networkDelay, getUplinkLatency());
+        return networkDelay;
     }
 
     protected void sendUp(Tuple tuple) {
@@ -876,29 +928,44 @@ public class FogDevice extends PowerDatacenter {
                 sendUpFreeLink(tuple);
             } else {
                 northTupleQueue.add(tuple);
+                northLink.tupleQueued(CloudSim.clock());
             }
+        } else {
+            northLink.tupleDropped();
         }
     }
 
 
     protected void updateSouthTupleQueue() {
         if (!getSouthTupleQueue().isEmpty()) {
-            Pair<Tuple, Integer> pair = getSouthTupleQueue().poll();
-            sendDownFreeLink(pair.getFirst(), pair.getSecond());
+            double burstTime = 0;
+            for (Pair<Tuple, Integer> pair : getSouthTupleQueue())
+                burstTime += getDownlinkTransmissionTime(pair.getFirst());
+            send(getId(), burstTime, FogEvents.UPDATE_SOUTH_TUPLE_QUEUE);
+            double startDelay = 0;
+            Pair<Tuple, Integer> pair;
+            while ((pair = getSouthTupleQueue().poll()) != null)
+                startDelay += transmitDown(pair.getFirst(), pair.getSecond(), startDelay, true);
         } else {
             setSouthLinkBusy(false);
         }
     }
 
     protected void sendDownFreeLink(Tuple tuple, int childId) {
-        double networkDelay = tuple.getCloudletFileSize() / getDownlinkBandwidth();
-        //Logger.debug(getName(), "Sending tuple with tupleType = "+tuple.getTupleType()+" DOWN");
         setSouthLinkBusy(true);
-        //System.out.println(getName()+" Sending tuple with tupleType = "+tuple.getTupleType()+" to "+childId);
-        double latency = getChildToLatencyMap().get(childId);
-        send(getId(), networkDelay, FogEvents.UPDATE_SOUTH_TUPLE_QUEUE);
-        send(childId, networkDelay + latency, FogEvents.TUPLE_ARRIVAL, tuple);
-        NetworkUsageMonitor.sendingTuple(latency, tuple.getCloudletFileSize());
+        send(getId(), getDownlinkTransmissionTime(tuple), FogEvents.UPDATE_SOUTH_TUPLE_QUEUE);
+        transmitDown(tuple, childId, 0, false);
+    }
+
+    protected double getDownlinkTransmissionTime(Tuple tuple) {
+        return tuple.getCloudletFileSize() / getDownlinkBandwidth();
+    }
+
+    private double transmitDown(Tuple tuple, int childId, double startDelay, boolean fromQueue) {
+        double networkDelay = getDownlinkTransmissionTime(tuple);
+        southLink.tupleTransmitted(CloudSim.clock() + startDelay, fromQueue, tuple.getCloudletFileSize(), networkDelay);
+        deliverTuple(tuple, childId, startDelay + networkDelay, getChildToLatencyMap().get(childId));
+        return networkDelay;
     }
 
     protected void sendDown(Tuple tuple, int childId) {
@@ -907,10 +974,48 @@ public class FogDevice extends PowerDatacenter {
                 sendDownFreeLink(tuple, childId);
             } else {
                 southTupleQueue.add(new Pair<Tuple, Integer>(tuple, childId));
+                southLink.tupleQueued(CloudSim.clock());
             }
+        } else {
+            southLink.tupleDropped();
         }
     }
 
+    /**
+     * Sends a tuple down to every child. If the south link is free, the copies go out back to back with one
+     * event when the last of them is through, instead of one event per child.
+     */
+    protected void sendDownToChildren(Tuple tuple) {
+        if (getChildrenIds().size() > 1)
+            tuple.markShared();
+        if (isSouthLinkBusy() || getChildrenIds().isEmpty()) {
+            for (int childId : getChildrenIds())
+                sendDown(tuple, childId);
+            return;
+        }
+        setSouthLinkBusy(true);
+        double burstTime = 0;
+        for (int i = 0; i < getChildrenIds().size(); i++)
+            burstTime += getDownlinkTransmissionTime(tuple);
+        send(getId(), burstTime, FogEvents.UPDATE_SOUTH_TUPLE_QUEUE);
+        double startDelay = 0;
+        for (int childId : getChildrenIds())
+            startDelay += transmitDown(tuple, childId, startDelay, false);
+    }
+
+    /**
+     * Delivers a tuple that has been put on a link to the device at the other end.
+     *
+     * @param tuple   the tuple
+     * @param destId  the device at the other end of the link
+     * @param delay   delay until the tuple is through the link
+     * @param latency latency of the link
+     */
+    protected void deliverTuple(Tuple tuple, int destId, double delay, double latency) {
+        send(destId, delay + latency, FogEvents.TUPLE_ARRIVAL, tuple);
+        NetworkUsageMonitor.sendingTuple(latency, tuple.getCloudletFileSize());
+    }
+
 
     protected void sendToSelf(Tuple tuple) {
         send(getId(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ARRIVAL, tuple);
@@ -920,6 +1025,16 @@ public class FogDevice extends PowerDatacenter {
         return (PowerHost) getHostList().get(0);
     }
 
+    /**
+     * @return the number of tuples the modules on this device are executing, which share its CPU
+     */
+    public int getRunningTupleCount() {
+        int running = 0;
+        for (Vm vm : getHost().getVmList())
+            running += vm.getCloudletScheduler().runningCloudlets();
+        return running;
+    }
+
     public int getParentId() {
         return parentId;
     }
@@ -933,7 +1048,7 @@ public class FogDevice extends PowerDatacenter {
     }
 
     public void setChildrenIds(List<Integer> childrenIds) {
-        this.childrenIds = childrenIds;
+        this.childrenIds = childrenIds instanceof IdList ? childrenIds : new IdList(childrenIds);
     }
 
     public double getUplinkBandwidth() {
@@ -953,19 +1068,27 @@ public class FogDevice extends PowerDatacenter {
     }
 
     public boolean isSouthLinkBusy() {
-        return isSouthLinkBusy;
+        return southLink.isBusy();
     }
 
     public boolean isNorthLinkBusy() {
-        return isNorthLinkBusy;
+        return northLink.isBusy();
     }
 
     public void setSouthLinkBusy(boolean isSouthLinkBusy) {
-        this.isSouthLinkBusy = isSouthLinkBusy;
+        southLink.setBusy(isSouthLinkBusy);
     }
 
     public void setNorthLinkBusy(boolean isNorthLinkBusy) {
-        this.isNorthLinkBusy = isNorthLinkBusy;
+        northLink.setBusy(isNorthLinkBusy);
+    }
+
+    public FogLink getSouthLink() {
+        return southLink;
+    }
+
+    public FogLink getNorthLink() {
+        return northLink;
     }
 
     public int getControllerId() {
@@ -1032,10 +1155,20 @@ public class FogDevice extends PowerDatacenter {
         this.associatedActuatorIds = associatedActuatorIds;
     }
 
+    /**
+     * @return the energy consumed by the device up to now, including the time since its last change of
+     * utilization
+     */
     public double getEnergyConsumption() {
-        return energyConsumption;
+        double openTime = CloudSim.clock() - lastUtilizationUpdateTime;
+        if (openTime <= 0)
+            return energyConsumption;
+        return energyConsumption + openTime * getHost().getPowerModel().getPower(lastUtilization);
     }
 
+    /**
+     * Sets the energy consumed by the device up to its last change of utilization.
+     */
     public void setEnergyConsumption(double energyConsumption) {
         this.energyConsumption = energyConsumption;
     }
@@ -1064,8 +1197,14 @@ public class FogDevice extends PowerDatacenter {
         this.ratePerMips = ratePerMips;
     }
 
+    /**
+     * @return the cost of the device up to now, including the time since its last change of utilization
+     */
     public double getTotalCost() {
-        return totalCost;
+        double openTime = CloudSim.clock() - lastUtilizationUpdateTime;
+        if (openTime <= 0)
+            return totalCost;
+        return totalCost + openTime * getRatePerMips() * lastUtilization * getHost().getTotalMips();
     }
 
     public void setTotalCost(double totalCost) {
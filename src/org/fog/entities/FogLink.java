@@ -0,0 +1,134 @@
+package org.fog.entities;
+
+/**
+ * The state and statistics of the link of a fog device in one direction, towards its parent or towards its
+ * children. The tuples waiting for the link are kept by the device; the link records when they were queued so
+ * that the queueing delay of each tuple is known when it is transmitted.
+ */
+public class FogLink {
+
+	private final String name;
+
+	private boolean busy = false;
+
+	/** Times at which the waiting tuples were queued, in a ring buffer in queue order. */
+	private double[] queuedTimes = new double[16];
+	private int head = 0;
+	private int queued = 0;
+
+	private long transmittedTuples = 0;
+	private double transmittedBytes = 0;
+	private double busyTime = 0;
+	private long droppedTuples = 0;
+	private long delayedTuples = 0;
+	private double totalQueueingDelay = 0;
+	private double maxQueueingDelay = 0;
+	private int maxQueueLength = 0;
+
+	/**
+	 * @param name name of the link in reports, e.g. <tt>d-0 north</tt>
+	 */
+	public FogLink(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isBusy() {
+		return busy;
+	}
+
+	public void setBusy(boolean busy) {
+		this.busy = busy;
+	}
+
+	/**
+	 * Records that a tuple was queued because the link was busy.
+	 * @param time the current time
+	 */
+	public void tupleQueued(double time) {
+		if (queued == queuedTimes.length) {
+			double[] grown = new double[queuedTimes.length * 2];
+			for (int i = 0; i < queued; i++)
+				grown[i] = queuedTimes[(head + i) % queuedTimes.length];
+			queuedTimes = grown;
+			head = 0;
+		}
+		queuedTimes[(head + queued) % queuedTimes.length] = time;
+		queued++;
+		maxQueueLength = Math.max(maxQueueLength, queued);
+	}
+
+	/**
+	 * Records the transmission of a tuple over the link.
+	 * @param startTime time at which the transmission starts
+	 * @param fromQueue whether the tuple was the head of the queue of the link
+	 * @param bytes size of the tuple
+	 * @param transmissionTime time taken to put the tuple on the link
+	 */
+	public void tupleTransmitted(double startTime, boolean fromQueue, double bytes, double transmissionTime) {
+		if (fromQueue && queued > 0) {
+			double queueingDelay = startTime - queuedTimes[head];
+			head = (head + 1) % queuedTimes.length;
+			queued--;
+			delayedTuples++;
+			totalQueueingDelay += queueingDelay;
+			maxQueueingDelay = Math.max(maxQueueingDelay, queueingDelay);
+		}
+		transmittedTuples++;
+		transmittedBytes += bytes;
+		busyTime += transmissionTime;
+	}
+
+	/**
+	 * Records that a tuple was dropped because the link does not lead to its destination.
+	 */
+	public void tupleDropped() {
+		droppedTuples++;
+	}
+
+	public long getTransmittedTuples() {
+		return transmittedTuples;
+	}
+
+	public double getTransmittedBytes() {
+		return transmittedBytes;
+	}
+
+	public double getBusyTime() {
+		return busyTime;
+	}
+
+	/**
+	 * @param elapsedTime the time over which the utilization is measured, e.g. the simulation time
+	 * @return the fraction of the time the link was transmitting
+	 */
+	public double getUtilization(double elapsedTime) {
+		return elapsedTime > 0 ? busyTime / elapsedTime : 0;
+	}
+
+	public long getDroppedTuples() {
+		return droppedTuples;
+	}
+
+	/**
+	 * @return average time the tuples that found the link busy waited for it, 0 if none did
+	 */
+	public double getAverageQueueingDelay() {
+		return delayedTuples > 0 ? totalQueueingDelay / delayedTuples : 0;
+	}
+
+	public double getMaxQueueingDelay() {
+		return maxQueueingDelay;
+	}
+
+	public int getMaxQueueLength() {
+		return maxQueueLength;
+	}
+
+	public int getQueueLength() {
+		return queued;
+	}
+}
@@ -0,0 +1,24 @@
+package org.fog.entities;
+
+/**
+ * Join-the-shortest-queue load balancer: sends each tuple to the device running the microservice that is
+ * executing the fewest tuples.
+ */
+public class JoinShortestQueueLoadBalancer extends QueueAwareLoadBalancer {
+
+    protected int select(String microservice, int[] candidates, int start, int sourceDeviceId) {
+        int chosen = start;
+        int shortest = Integer.MAX_VALUE;
+        for (int i = 0; i < candidates.length; i++) {
+            int position = (start + i) % candidates.length;
+            int depth = getQueueDepth(candidates[position]);
+            if (depth < shortest) {
+                shortest = depth;
+                chosen = position;
+                if (depth == 0)
+                    break;
+            }
+        }
+        return chosen;
+    }
+}
@@ -0,0 +1,107 @@
+package org.fog.entities;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Latency-aware load balancer: sends each tuple to the device running the microservice with the lowest estimated
+ * delay, the latency of the route to the device plus a fixed delay for each tuple the device is executing.
+ * <p>
+ * The route latencies are found by following the routing tables of the devices on the way, and are kept until
+ * the devices of the microservice or the parent of the sending device change.
+ */
+public class LatencyAwareLoadBalancer extends QueueAwareLoadBalancer {
+
+    /**
+     * Number of hops after which a route is taken to be a loop
+     */
+    private static final int MAX_HOPS = 64;
+
+    private final double queueingDelay;
+
+    /**
+     * microservice -> latencies of the routes to its devices
+     */
+    private Map<String, Routes> routes = new HashMap<>();
+
+    /**
+     * @param queueingDelay delay added to the route latency for each tuple a device is executing, in the unit of
+     *                      the link latencies
+     */
+    public LatencyAwareLoadBalancer(double queueingDelay) {
+        this.queueingDelay = queueingDelay;
+    }
+
+    public LatencyAwareLoadBalancer() {
+        this(10);
+    }
+
+    protected int select(String microservice, int[] candidates, int start, int sourceDeviceId) {
+        double[] latencies = getRouteLatencies(microservice, candidates, sourceDeviceId);
+        int chosen = start;
+        double lowest = Double.MAX_VALUE;
+        for (int i = 0; i < candidates.length; i++) {
+            int position = (start + i) % candidates.length;
+            double delay = latencies[position] + queueingDelay * getQueueDepth(candidates[position]);
+            if (delay < lowest) {
+                lowest = delay;
+                chosen = position;
+            }
+        }
+        return chosen;
+    }
+
+    private double[] getRouteLatencies(String microservice, int[] candidates, int sourceDeviceId) {
+        int parentId = ((FogDevice) CloudSim.getEntity(sourceDeviceId)).getParentId();
+        Routes known = routes.get(microservice);
+        if (known == null || known.candidates != candidates || known.parentId != parentId) {
+            double[] latencies = new double[candidates.length];
+            for (int i = 0; i < candidates.length; i++)
+                latencies[i] = getRouteLatency(sourceDeviceId, candidates[i]);
+            known = new Routes(candidates, parentId, latencies);
+            routes.put(microservice, known);
+        }
+        return known.latencies;
+    }
+
+    /**
+     * @return the sum of the latencies of the links on the route between two devices, Double.MAX_VALUE if there is
+     * no route
+     */
+    protected double getRouteLatency(int sourceId, int destinationId) {
+        double latency = 0;
+        int current = sourceId;
+        for (int hops = 0; current != destinationId; hops++) {
+            MicroserviceFogDevice device = (MicroserviceFogDevice) CloudSim.getEntity(current);
+            Integer next = device.getRoutingTable().get(destinationId);
+            if (next == null || hops == MAX_HOPS)
+                return Double.MAX_VALUE;
+            latency += getLinkLatency(device, next);
+            current = next;
+        }
+        return latency;
+    }
+
+    private double getLinkLatency(FogDevice device, int neighbourId) {
+        if (neighbourId == device.getParentId())
+            return device.getUplinkLatency();
+        Double latency = device.getChildToLatencyMap().get(neighbourId);
+        if (latency == null && device.getClusterMembersToLatencyMap() != null)
+            latency = device.getClusterMembersToLatencyMap().get(neighbourId);
+        return latency != null ? latency : 0;
+    }
+
+    private static class Routes {
+        private final int[] candidates;
+        private final int parentId;
+        private final double[] latencies;
+
+        Routes(int[] candidates, int parentId, double[] latencies) {
+            this.candidates = candidates;
+            this.parentId = parentId;
+            this.latencies = latencies;
+        }
+    }
+}
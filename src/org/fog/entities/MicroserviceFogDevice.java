@@ -12,6 +12,7 @@ import org.fog.application.Application;
 import org.fog.placement.MicroservicePlacementLogic;
 import org.fog.placement.PlacementLogicOutput;
 import org.fog.utils.*;
+import org.fog.utils.trace.Tracer;
 import org.json.simple.JSONObject;
 
 import java.util.*;
@@ -156,8 +157,7 @@ public class MicroserviceFogDevice extends FogDevice {
 
         Tuple tuple = (Tuple) ev.getData();
 
-        Logger.debug(getName(), "Received tuple " + tuple.getCloudletId() + "with tupleType = " + tuple.getTupleType() + "\t| Source : " +
-                CloudSim.getEntityName(ev.getSource()) + "|Dest : " + CloudSim.getEntityName(ev.getDestination()));
+        Tracer.tupleArrival(this, tuple, ev.getSource());
 
         if (deviceType.equals(MicroserviceFogDevice.CLOUD)) {
             updateCloudTraffic();
@@ -184,6 +184,7 @@ public class MicroserviceFogDevice extends FogDevice {
                         add((double) getHost().getTotalMips());
                     }
                 });
+                updateUtilization();
             }
         }
 
@@ -265,6 +266,8 @@ public class MicroserviceFogDevice extends FogDevice {
                     }
 
 
+                    if (getChildrenIds().size() > 1)
+                        tuple.markShared();
                     for (int childId : getChildrenIds())
                         sendDown(tuple, childId);
 
@@ -453,7 +456,7 @@ public class MicroserviceFogDevice extends FogDevice {
                         .getAllocatedMipsForVm(module));
 
                 System.out.println("Module " + module.getName() + "created on " + getName() + " under Launch module");
-                Logger.debug("Module deploy success", "Module " + module.getName() + " placement on " + getName() + " successful. vm id : " + module.getId());
+                Tracer.placement(module.getName(), this);
             } else {
                 Logger.error("Module deploy error", "Module " + module.getName() + " placement on " + getName() + " failed");
                 System.out.println("Module " + module.getName() + " placement on " + getName() + " failed");
@@ -627,33 +630,14 @@ public class MicroserviceFogDevice extends FogDevice {
         }
     }
 
-    protected void sendDownFreeLink(Tuple tuple, int childId) {
+    protected void deliverTuple(Tuple tuple, int destId, double delay, double latency) {
         if (tuple instanceof ManagementTuple) {
-            double networkDelay = tuple.getCloudletFileSize() / getDownlinkBandwidth();
-            setSouthLinkBusy(true);
-            double latency = getChildToLatencyMap().get(childId);
-            send(getId(), networkDelay, FogEvents.UPDATE_SOUTH_TUPLE_QUEUE);
-            send(childId, networkDelay + latency + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
+            send(destId, delay + latency + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
             //todo
 //            if (Config.ENABLE_NETWORK_USAGE_AT_PLACEMENT)
 //                NetworkUsageMonitor.sendingManagementTuple(latency, tuple.getCloudletFileSize());
         } else
-            super.sendDownFreeLink(tuple, childId);
-    }
-
-    protected void sendUpFreeLink(Tuple tuple) {
-        if (tuple instanceof ManagementTuple) {
-            double networkDelay = tuple.getCloudletFileSize() / getUplinkBandwidth();
-            setNorthLinkBusy(true);
-            send(getId(), networkDelay, FogEvents.UPDATE_NORTH_TUPLE_QUEUE);
-            send(parentId, networkDelay + getUplinkLatency() + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
-            //todo
-//            if (Config.ENABLE_NETWORK_USAGE_AT_PLACEMENT)
-//                NetworkUsageMonitor.sendingManagementTuple(getUplinkLatency(), tuple.getCloudletFileSize());
-        } else {
-            super.sendUpFreeLink(tuple);
-        }
-
+            super.deliverTuple(tuple, destId, delay, latency);
     }
 
     public void updateRoutingTable(int destId, int nextId) {
@@ -0,0 +1,24 @@
+package org.fog.entities;
+
+import org.cloudbus.cloudsim.core.SimulationContext;
+
+import java.util.Random;
+
+/**
+ * Power-of-two-choices load balancer: samples two of the devices running the microservice at random and sends
+ * each tuple to the one executing fewer tuples. It looks at two devices whatever the number of replicas, and
+ * does not send every tuple to the same device while the queue depths it sees are stale.
+ * <p>
+ * The random numbers come from the simulation context, so that seeded simulations are repeatable.
+ */
+public class PowerOfTwoChoicesLoadBalancer extends QueueAwareLoadBalancer {
+
+    protected int select(String microservice, int[] candidates, int start, int sourceDeviceId) {
+        Random random = SimulationContext.current().getRandom();
+        int first = random.nextInt(candidates.length);
+        int second = random.nextInt(candidates.length - 1);
+        if (second >= first)
+            second++;
+        return getQueueDepth(candidates[second]) < getQueueDepth(candidates[first]) ? second : first;
+    }
+}
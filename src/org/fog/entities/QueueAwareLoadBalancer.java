@@ -0,0 +1,60 @@
+package org.fog.entities;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base of the load balancers that choose among the devices running a microservice by the state of the devices,
+ * such as the number of tuples they are executing.
+ * <p>
+ * The candidates come from {@link ServiceDiscovery#getCandidates(String)}, so a decision allocates nothing.
+ * Between equally good devices, the search starts from the device after the one chosen last time, so that ties
+ * are shared out in round robin.
+ */
+public abstract class QueueAwareLoadBalancer implements LoadBalancer {
+
+    /**
+     * microservice -> position from which the next search starts
+     */
+    private Map<String, int[]> nextPosition = new HashMap<>();
+
+    public int getDeviceId(String microservice, ServiceDiscovery serviceDiscoveryInfo) {
+        int[] candidates = serviceDiscoveryInfo.getCandidates(microservice);
+        if (candidates == null) {
+            System.out.println("Service Discovery Information Missing");
+            return -1;
+        }
+        if (candidates.length == 1)
+            return candidates[0];
+        int[] position = nextPosition.get(microservice);
+        if (position == null) {
+            position = new int[1];
+            nextPosition.put(microservice, position);
+        }
+        int start = position[0] % candidates.length;
+        int chosen = select(microservice, candidates, start, serviceDiscoveryInfo.deviceId);
+        position[0] = chosen + 1;
+        return candidates[chosen];
+    }
+
+    /**
+     * Chooses a device.
+     *
+     * @param microservice   name of the microservice
+     * @param candidates     ids of the devices running the microservice, at least two
+     * @param start          position of the candidate to prefer among equally good ones
+     * @param sourceDeviceId id of the device sending the tuple
+     * @return position of the chosen device in the candidates
+     */
+    protected abstract int select(String microservice, int[] candidates, int start, int sourceDeviceId);
+
+    /**
+     * @param deviceId id of a fog device
+     * @return the number of tuples the device is executing
+     */
+    protected int getQueueDepth(int deviceId) {
+        return ((FogDevice) CloudSim.getEntity(deviceId)).getRunningTupleCount();
+    }
+}
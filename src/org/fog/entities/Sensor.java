@@ -1,8 +1,6 @@
 package org.fog.entities;
 
-import java.util.ArrayList;
 
-import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
@@ -11,6 +9,7 @@ import org.fog.application.AppLoop;
 import org.fog.application.Application;
 import org.fog.utils.*;
 import org.fog.utils.distribution.Distribution;
+import org.fog.utils.trace.Tracer;
 
 public class Sensor extends SimEntity{
 	
@@ -26,6 +25,14 @@ public class Sensor extends SimEntity{
 	private int controllerId;
 	private Application app;
 	private double latency;
+	private SensorGroup sensorGroup;
+
+	// the edge of the tuples and the loop they start, looked up on the first emission
+	private AppEdge edge;
+	private AppLoop loop;
+	private String loopSource;
+	private String loopDestination;
+	private boolean isLoopResolved;
 
 	private int transmissionStartDelay = Config.TRANSMISSION_START_DELAY;
 	
@@ -77,22 +84,18 @@ public class Sensor extends SimEntity{
 	}
 	
 	public void transmit(){
-		AppEdge _edge = null;
-		for(AppEdge edge : getApp().getEdges()){
-			if(edge.getSource().equals(getTupleType()))
-				_edge = edge;
-		}
+		AppEdge _edge = getEdge();
 		long cpuLength = (long) _edge.getTupleCpuLength();
 		long nwLength = (long) _edge.getTupleNwLength();
 		
-		Tuple tuple = new Tuple(getAppId(), FogUtils.generateTupleId(), Tuple.UP, cpuLength, 1, nwLength, outputSize, 
-				new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+		Tuple tuple = TuplePool.getInstance().acquire(getAppId(), FogUtils.generateTupleId(), Tuple.UP, cpuLength, 1, nwLength, outputSize, 
+				Tuple.FULL_UTILIZATION, Tuple.FULL_UTILIZATION, Tuple.FULL_UTILIZATION);
 		tuple.setUserId(getUserId());
 		tuple.setTupleType(getTupleType());
 		
 		tuple.setDestModuleName(_edge.getDestination());
 		tuple.setSrcModuleName(getSensorName());
-		Logger.debug(getName(), "Sending tuple with tupleId = "+tuple.getCloudletId());
+		Tracer.tupleSend(this, tuple, getGatewayDeviceId());
 
 		tuple.setDestinationDeviceId(getGatewayDeviceId());
 
@@ -102,26 +105,47 @@ public class Sensor extends SimEntity{
 		send(gatewayDeviceId, getLatency(), FogEvents.TUPLE_ARRIVAL,tuple);
 	}
 	
+	private AppEdge getEdge() {
+		if(edge == null){
+			for(AppEdge appEdge : getApp().getEdges()){
+				if(appEdge.getSource().equals(getTupleType()))
+					edge = appEdge;
+			}
+		}
+		return edge;
+	}
+	
 	protected int updateTimings(String src, String dest){
-		Application application = getApp();
-		for(AppLoop loop : application.getLoops()){
-			if(loop.hasEdge(src, dest)){
-				
-				int tupleId = TimeKeeper.getInstance().getUniqueId();
-				if(!TimeKeeper.getInstance().getLoopIdToTupleIds().containsKey(loop.getLoopId()))
-					TimeKeeper.getInstance().getLoopIdToTupleIds().put(loop.getLoopId(), new ArrayList<Integer>());
-				TimeKeeper.getInstance().getLoopIdToTupleIds().get(loop.getLoopId()).add(tupleId);
-				TimeKeeper.getInstance().getEmitTimes().put(tupleId, CloudSim.clock());
-				return tupleId;
+		if(!isLoopResolved || !equals(src, loopSource) || !equals(dest, loopDestination)){
+			loop = null;
+			for(AppLoop appLoop : getApp().getLoops()){
+				if(appLoop.hasEdge(src, dest)){
+					loop = appLoop;
+					break;
+				}
 			}
+			loopSource = src;
+			loopDestination = dest;
+			isLoopResolved = true;
+		}
+		if(loop != null){
+			int tupleId = TimeKeeper.getInstance().getUniqueId();
+			TimeKeeper.getInstance().tupleEmitted(loop.getLoopId(), tupleId);
+			return tupleId;
 		}
 		return -1;
 	}
 	
+	private static boolean equals(String a, String b){
+		return a == null ? b == null : a.equals(b);
+	}
+	
 	@Override
 	public void startEntity() {
 		send(gatewayDeviceId, CloudSim.getMinTimeBetweenEvents(), FogEvents.SENSOR_JOINED, geoLocation);
-		send(getId(), getTransmitDistribution().getNextValue() + transmissionStartDelay, FogEvents.EMIT_TUPLE);
+		// the sensors of a group are scheduled by the group
+		if(sensorGroup == null)
+			send(getId(), getTransmitDistribution().getNextValue() + transmissionStartDelay, FogEvents.EMIT_TUPLE);
 	}
 
 	@Override
@@ -173,6 +197,7 @@ public class Sensor extends SimEntity{
 
 	public void setTupleType(String tupleType) {
 		this.tupleType = tupleType;
+		this.edge = null;
 	}
 
 	public String getSensorName() {
@@ -221,6 +246,8 @@ public class Sensor extends SimEntity{
 
 	public void setApp(Application app) {
 		this.app = app;
+		this.edge = null;
+		this.isLoopResolved = false;
 	}
 
 	public Double getLatency() {
@@ -241,4 +268,12 @@ public class Sensor extends SimEntity{
 		return transmissionStartDelay;
 	}
 
+	public SensorGroup getSensorGroup() {
+		return sensorGroup;
+	}
+
+	void setSensorGroup(SensorGroup sensorGroup) {
+		this.sensorGroup = sensorGroup;
+	}
+
 }
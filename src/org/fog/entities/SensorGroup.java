@@ -0,0 +1,131 @@
+package org.fog.entities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.fog.utils.FogEvents;
+
+/**
+ * Emits the tuples of many sensors from a single scheduled event, instead of an event per sensor and
+ * emission.
+ * <p>
+ * The group keeps the next emission time of each of its sensors, drawn from the transmit distribution of
+ * the sensor as the sensor would draw it, and has one pending event at the earliest of them. The sensors due
+ * at the same time share a bucket and emit in the order they were scheduled, so that sensors with the same
+ * deterministic distribution move from bucket to bucket together, and sensors with stochastic distributions
+ * are kept sorted by their next emission time. Every tuple is still transmitted by its sensor, at the same
+ * time and with the same content as when the sensor schedules its own emissions; only the order of events
+ * of other entities at the same time can differ.
+ * <p>
+ * Sensors must be added before the simulation starts.
+ */
+public class SensorGroup extends SimEntity{
+
+	private List<Sensor> sensors;
+
+	// the sensors by their next emission time, in the order they were scheduled
+	private TreeMap<Double, List<Sensor>> schedule;
+
+	private List<Sensor> spareBucket;
+	private double lastBucketTime;
+	private List<Sensor> lastBucket;
+
+	public SensorGroup(String name) {
+		super(name);
+		this.sensors = new ArrayList<Sensor>();
+		this.schedule = new TreeMap<Double, List<Sensor>>();
+	}
+
+	public void addSensor(Sensor sensor) {
+		if(sensor.getSensorGroup() != null)
+			throw new IllegalArgumentException("Sensor " + sensor.getName() + " already belongs to group "
+					+ sensor.getSensorGroup().getName());
+		sensor.setSensorGroup(this);
+		sensors.add(sensor);
+	}
+
+	public List<Sensor> getSensors() {
+		return Collections.unmodifiableList(sensors);
+	}
+
+	@Override
+	public void startEntity() {
+		for(Sensor sensor : sensors){
+			scheduleEmission(sensor, sensor.getTransmitDistribution().getNextValue() + sensor.getTransmissionStartDelay());
+		}
+		scheduleNextEvent();
+	}
+
+	@Override
+	public void processEvent(SimEvent ev) {
+		switch(ev.getTag()){
+		case FogEvents.EMIT_TUPLE:
+			emitTuples();
+			scheduleNextEvent();
+			break;
+		}
+	}
+
+	private void emitTuples() {
+		if(schedule.isEmpty() || schedule.firstKey() > CloudSim.clock())
+			return;
+		List<Sensor> bucket = schedule.pollFirstEntry().getValue();
+		lastBucket = null;
+		for(Sensor sensor : bucket){
+			sensor.transmit();
+			scheduleEmission(sensor, sensor.getTransmitDistribution().getNextValue());
+		}
+		bucket.clear();
+		spareBucket = bucket;
+	}
+
+	/**
+	 * Schedules the next emission of a sensor at the time the sensor would schedule it, delays being
+	 * counted from the current time.
+	 */
+	private void scheduleEmission(Sensor sensor, double delay) {
+		if(delay < 0)
+			delay = 0;
+		double time = CloudSim.clock() + delay;
+		List<Sensor> bucket;
+		if(lastBucket != null && lastBucketTime == time){
+			bucket = lastBucket;
+		}
+		else{
+			bucket = schedule.get(time);
+			if(bucket == null){
+				bucket = spareBucket != null ? spareBucket : new ArrayList<Sensor>();
+				spareBucket = null;
+				schedule.put(time, bucket);
+			}
+			lastBucket = bucket;
+			lastBucketTime = time;
+		}
+		bucket.add(sensor);
+	}
+
+	/**
+	 * Schedules the event of the earliest emission. The delay is rounded down so that the event never comes
+	 * after the emission time; an event that comes before it is scheduled again, from a time close enough to
+	 * the emission time for the delay to be exact.
+	 */
+	private void scheduleNextEvent() {
+		if(schedule.isEmpty())
+			return;
+		double time = schedule.firstKey();
+		double delay = time - CloudSim.clock();
+		while(CloudSim.clock() + delay > time)
+			delay = Math.nextAfter(delay, Double.NEGATIVE_INFINITY);
+		send(getId(), delay, FogEvents.EMIT_TUPLE);
+	}
+
+	@Override
+	public void shutdownEntity() {
+
+	}
+}
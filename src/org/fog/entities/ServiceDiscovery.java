@@ -0,0 +1,67 @@
+package org.fog.entities;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ServiceDiscovery {
+    protected Map<String, List<Integer>> serviceDiscoveryInfo = new HashMap<>();
+    int deviceId ;
+
+    /**
+     * The devices of each microservice as an array, built when first asked for after a change, so that load
+     * balancers can choose among them without allocating
+     */
+    private Map<String, int[]> candidates = new HashMap<>();
+
+    public ServiceDiscovery(Integer deviceId) {
+        this.deviceId =deviceId;
+    }
+
+    public void addServiceDIscoveryInfo(String microservice, Integer device) {
+        candidates.remove(microservice);
+        if (serviceDiscoveryInfo.containsKey(microservice)) {
+            List<Integer> deviceList = serviceDiscoveryInfo.get(microservice);
+            deviceList.add(device);
+            serviceDiscoveryInfo.put(microservice, deviceList);
+        } else {
+            List<Integer> deviceList = new ArrayList<>();
+            deviceList.add(device);
+            serviceDiscoveryInfo.put(microservice, deviceList);
+        }
+    }
+
+    public Map<String, List<Integer>> getServiceDiscoveryInfo() {
+        return serviceDiscoveryInfo;
+    }
+
+    /**
+     * @param microservice name of the microservice
+     * @return ids of the devices running the microservice, in the order they were added; null if there are none.
+     * The array is replaced, not changed, when the devices change.
+     */
+    public int[] getCandidates(String microservice) {
+        int[] devices = candidates.get(microservice);
+        if (devices == null) {
+            List<Integer> deviceList = serviceDiscoveryInfo.get(microservice);
+            if (deviceList == null || deviceList.isEmpty())
+                return null;
+            devices = new int[deviceList.size()];
+            for (int i = 0; i < devices.length; i++)
+                devices[i] = deviceList.get(i);
+            candidates.put(microservice, devices);
+        }
+        return devices;
+    }
+
+    public void removeServiceDIscoveryInfo(String microserviceName, Integer deviceID) {
+        if (serviceDiscoveryInfo.containsKey(microserviceName) && serviceDiscoveryInfo.get(microserviceName).contains(new Integer(deviceID))) {
+            System.out.println("Service Discovery Info REMOVED (device:" + this.deviceId + ") for microservice :" + microserviceName + " , destDevice : " + deviceID);
+            candidates.remove(microserviceName);
+            serviceDiscoveryInfo.get(microserviceName).remove(new Integer(deviceID));
+            if (serviceDiscoveryInfo.get(microserviceName).size() == 0)
+                serviceDiscoveryInfo.remove(microserviceName);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Map;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
 
 public class Tuple extends Cloudlet{
 
@@ -12,6 +13,11 @@ public class Tuple extends Cloudlet{
 	public static final int DOWN = 2;
 	public static final int ACTUATOR = 3;
 	
+	/**
+	 * Full utilization model shared by tuples, as it keeps no state
+	 */
+	public static final UtilizationModel FULL_UTILIZATION = new UtilizationModelFull();
+	
 	private String appId;
 	
 	private String tupleType;
@@ -37,6 +43,11 @@ public class Tuple extends Cloudlet{
 	 DOWN -> tuple travelling from service to client microservice.*/
 	protected Map<String, Integer> traversedMicroservices = new HashMap<>();
 	
+	/**
+	 * Whether the same tuple object has been sent to more than one entity, in which case it must not be recycled
+	 */
+	private boolean shared;
+	
 	public Tuple(String appId, int cloudletId, int direction, long cloudletLength, int pesNumber,
 			long cloudletFileSize, long cloudletOutputSize,
 			UtilizationModel utilizationModelCpu,
@@ -51,6 +62,34 @@ public class Tuple extends Cloudlet{
 		setModuleCopyMap(new HashMap<String, Integer>());
 		setDestinationDeviceId(-1);
 	}
+	
+	/**
+	 * Resets a recycled tuple to the state of a newly created one.
+	 * @see TuplePool
+	 */
+	void reuse(String appId, int cloudletId, int direction, long cloudletLength, int pesNumber,
+			long cloudletFileSize, long cloudletOutputSize,
+			UtilizationModel utilizationModelCpu,
+			UtilizationModel utilizationModelRam,
+			UtilizationModel utilizationModelBw) {
+		reset(cloudletId, cloudletLength, pesNumber, cloudletFileSize,
+				cloudletOutputSize, utilizationModelCpu, utilizationModelRam,
+				utilizationModelBw);
+		setAppId(appId);
+		setDirection(direction);
+		setSourceDeviceId(-1);
+		getModuleCopyMap().clear();
+		setDestinationDeviceId(-1);
+		setTupleType(null);
+		setDestModuleName(null);
+		setSrcModuleName(null);
+		setActualTupleId(0);
+		setActuatorId(0);
+		setSourceModuleId(0);
+		// the map may have been handed on to the tuples generated from this one
+		traversedMicroservices = new HashMap<>();
+		shared = false;
+	}
 
 	public int getActualTupleId() {
 		return actualTupleId;
@@ -160,4 +199,15 @@ public class Tuple extends Cloudlet{
 		traversedMicroservices = traversed;
 	}
 
+	public boolean isShared() {
+		return shared;
+	}
+
+	/**
+	 * Marks the tuple as sent to more than one entity.
+	 */
+	public void markShared() {
+		shared = true;
+	}
+
 }
@@ -0,0 +1,77 @@
+package org.fog.entities;
+
+import java.util.ArrayDeque;
+
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.core.SimulationContext;
+
+/**
+ * Recycles the tuples consumed by actuators, so that a long-running simulation creates new tuple 
+ * objects only as fast as the number of tuples in flight grows.
+ * 
+ * A tuple can be released only when nothing refers to it any longer. Tuples sent to several 
+ * entities are marked shared and are not recycled, and neither are subclasses such as management 
+ * tuples. There is one pool per simulation context.
+ */
+public class TuplePool {
+	
+	/** The maximum number of idle tuples kept */
+	public static final int MAX_IDLE_TUPLES = 4096;
+	
+	private final ArrayDeque<Tuple> idleTuples = new ArrayDeque<Tuple>();
+	
+	private long created;
+	private long reused;
+	
+	/**
+	 * Gets the tuple pool of the simulation context bound to the calling thread.
+	 */
+	public static TuplePool getInstance(){
+		SimulationContext context = SimulationContext.current();
+		TuplePool instance = (TuplePool) context.getAttribute(TuplePool.class);
+		if(instance == null){
+			instance = new TuplePool();
+			context.setAttribute(TuplePool.class, instance);
+		}
+		return instance;
+	}
+	
+	/**
+	 * Gets a tuple, recycled if possible. The arguments are those of the tuple constructor.
+	 */
+	public Tuple acquire(String appId, int cloudletId, int direction, long cloudletLength, int pesNumber,
+			long cloudletFileSize, long cloudletOutputSize,
+			UtilizationModel utilizationModelCpu,
+			UtilizationModel utilizationModelRam,
+			UtilizationModel utilizationModelBw){
+		Tuple tuple = idleTuples.pollLast();
+		if(tuple == null){
+			created++;
+			return new Tuple(appId, cloudletId, direction, cloudletLength, pesNumber, cloudletFileSize, 
+					cloudletOutputSize, utilizationModelCpu, utilizationModelRam, utilizationModelBw);
+		}
+		reused++;
+		tuple.reuse(appId, cloudletId, direction, cloudletLength, pesNumber, cloudletFileSize, 
+				cloudletOutputSize, utilizationModelCpu, utilizationModelRam, utilizationModelBw);
+		return tuple;
+	}
+	
+	/**
+	 * Returns a tuple that the simulation no longer refers to. Shared tuples and subclasses of tuple 
+	 * are ignored.
+	 * @param tuple the tuple
+	 */
+	public void release(Tuple tuple){
+		if(tuple.isShared() || tuple.getClass() != Tuple.class || idleTuples.size() >= MAX_IDLE_TUPLES)
+			return;
+		idleTuples.addLast(tuple);
+	}
+	
+	public long getCreatedCount() {
+		return created;
+	}
+	
+	public long getReusedCount() {
+		return reused;
+	}
+}
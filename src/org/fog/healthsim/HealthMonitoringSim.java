@@ -253,7 +253,7 @@ public class HealthMonitoringSim {
         TimeKeeper tk = TimeKeeper.getInstance();
         int i = 1;
         for (AppLoop loop : app.getLoops()) {
-            Integer loopId = tk.getLoopIdToTupleIds().get(loop);
+            Integer loopId = loop.getLoopId();
 
             Double avg = tk.getLoopIdToCurrentAverage().get(loopId);
             String name = (i == 1) ? "Normal (edge)" : "Abnormal (edge→fog)";
@@ -1,30 +1,111 @@
 package org.fog.mobilitydata;
 
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.fog.entities.FogDevice;
 import org.fog.placement.LocationHandler;
 import org.fog.utils.Config;
 import org.json.simple.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 
 /**
+ * Dynamic clustering of fog nodes with the siblings under their parent.
+ * <p>
+ * The clusters of all the children of a parent are formed together by a {@link ClusteringPolicy}, the first
+ * time one of them asks for its cluster, and the others get theirs from that result. When the nodes ask again,
+ * only the change since then is applied: nodes that moved are updated with
+ * {@link ClusteringPolicy#updateClusters}, and the clusters are formed again if children were added or removed.
+ * The policy is chosen with {@link Config#CLUSTERING_POLICY} or set per simulation with
+ * {@link #setPolicy(ClusteringPolicy)}; the state is kept in the {@link SimulationContext} of the simulation.
+ *
  * @author Mohammad Goudarzi
  */
 public class Clustering {
+
+    public static final String RANGE = "RANGE";
+    public static final String KMEANS = "KMEANS";
+    public static final String DBSCAN = "DBSCAN";
+
+    /**
+     * The clustering of one simulation, kept in its {@link SimulationContext}.
+     */
+    private static class State {
+        private ClusteringPolicy policy;
+        private final Map<Integer, Group> parentToGroup = new HashMap<>();
+    }
+
+    /**
+     * The children of a parent with their locations and clusters, by index.
+     */
+    private static class Group {
+        private final List<Integer> nodeIds;
+        private final Map<Integer, Integer> nodeIndex = new HashMap<>();
+        private final List<Location> locations;
+        private List<List<Integer>> clusters;
+        private double time;
+
+        Group(List<Integer> nodeIds, List<Location> locations) {
+            this.nodeIds = nodeIds;
+            this.locations = locations;
+            for (int i = 0; i < nodeIds.size(); i++)
+                nodeIndex.put(nodeIds.get(i), i);
+        }
+    }
+
+    private static State state() {
+        SimulationContext context = SimulationContext.current();
+        State state = (State) context.getAttribute(State.class);
+        if (state == null) {
+            state = new State();
+            context.setAttribute(State.class, state);
+        }
+        return state;
+    }
+
+    /**
+     * Sets the clustering policy of the current simulation, instead of the one of {@link Config#CLUSTERING_POLICY}.
+     */
+    public static void setPolicy(ClusteringPolicy policy) {
+        State state = state();
+        state.policy = policy;
+        state.parentToGroup.clear();
+    }
+
+    public static ClusteringPolicy getPolicy() {
+        State state = state();
+        if (state.policy == null)
+            state.policy = createPolicy(Config.CLUSTERING_POLICY);
+        return state.policy;
+    }
+
+    /**
+     * @param name {@link #RANGE}, {@link #KMEANS} or {@link #DBSCAN}
+     * @return the policy, configured from {@link Config}
+     */
+    public static ClusteringPolicy createPolicy(String name) {
+        switch (name) {
+            case RANGE:
+                return new RangeClusteringPolicy(Config.Node_Communication_RANGE);
+            case KMEANS:
+                return new KMeansClusteringPolicy(Config.KMEANS_CLUSTER_SIZE);
+            case DBSCAN:
+                return new DbscanClusteringPolicy(Config.Node_Communication_RANGE, Config.DBSCAN_MIN_POINTS);
+            default:
+                throw new IllegalArgumentException("Unknown clustering policy: " + name);
+        }
+    }
+
     public void createClusterMembers(int parentId, int nodeId, JSONObject locatorObject) {
-        List<Integer> SiblingListIDs = new ArrayList<>();
-        List<FogDevice> SiblingsList = new ArrayList<FogDevice>();
-        List<Integer> clusterMemberList = new ArrayList<>();
         int fogId = nodeId;
-        LocationHandler locatorTemp = new LocationHandler();
-        locatorTemp = (LocationHandler) locatorObject.get("locationsInfo");
+        LocationHandler locatorTemp = (LocationHandler) locatorObject.get("locationsInfo");
         FogDevice parentDevice = (FogDevice) CloudSim.getEntity(parentId);
-        SiblingListIDs = parentDevice.getChildrenIds();
+        List<Integer> SiblingListIDs = parentDevice.getChildrenIds();
 
         if (SiblingListIDs.size() < 1 || SiblingListIDs.isEmpty()) {
             //System.out.println("The node: " + nodeId + " with parent Id: " + parentId + " does not have any cluster members " + parentDevice.getChildrenIds());
@@ -33,80 +114,82 @@ public class Clustering {
             return;
         }
 
-        for (int i = 0; i < SiblingListIDs.size(); i++) {
-            int tempId = SiblingListIDs.get(i);
-            FogDevice tempNode = (FogDevice) CloudSim.getEntity(tempId);
-            SiblingsList.add(tempNode);
-        }
-
-        double fogNodePositionX = locatorTemp.dataObject.resourceLocationData.get(locatorTemp.instanceToDataId.get(fogId)).latitude;
-        double fogNodePositionY = locatorTemp.dataObject.resourceLocationData.get(locatorTemp.instanceToDataId.get(fogId)).longitude;
-        Location L1 = new Location(fogNodePositionX, fogNodePositionY, 0);
-        for (FogDevice fogdevice : SiblingsList) {
-
-            if (fogId == fogdevice.getId()) {
-                continue;
-            }
-            // To check all siblings except itself
-            double tempX = locatorTemp.dataObject.resourceLocationData.get(locatorTemp.instanceToDataId.get(fogdevice.getId())).latitude;
-            double tempY = locatorTemp.dataObject.resourceLocationData.get(locatorTemp.instanceToDataId.get(fogdevice.getId())).longitude;
-
-            Location L2 = new Location(tempX, tempY, 0);
-
-            boolean clusterCheck = calculateInRange(L1, L2, Config.Node_Communication_RANGE);
-
-            //Clustering Policy
-            //double x = Math.pow((fogNodePositionX - tempX), 2) + Math.pow((fogNodePositionY - tempY), 2);
-
-            /*if (Math.sqrt(x) <= Config.Node_Communication_RANGE / 1000) {
-                clusterMemberList.add(fogdevice.getId());
-            */
-            if (clusterCheck == true) {
-                clusterMemberList.add(fogdevice.getId());
-            }
+        Group group = updateGroup(parentId, SiblingListIDs, locatorTemp);
+        Integer index = group.nodeIndex.get(fogId);
+        if (index == null) {
+            System.out.println("ERROR in clustering --> Node " + fogId + " is not a child of its parent " + parentId);
+            return;
         }
-        // Clustering Policy
-
-
-        if (clusterMemberList.isEmpty() || clusterMemberList.size() < 1) {
-            ((FogDevice) CloudSim.getEntity(fogId)).setSelfCluster(true);
-            ((FogDevice) CloudSim.getEntity(fogId)).setIsInCluster(true);
+        List<Integer> clusterMemberList = new ArrayList<>();
+        for (int member : group.clusters.get(index))
+            clusterMemberList.add(group.nodeIds.get(member));
+
+        FogDevice fogDevice = (FogDevice) CloudSim.getEntity(fogId);
+        if (clusterMemberList.isEmpty()) {
+            fogDevice.setSelfCluster(true);
+            fogDevice.setIsInCluster(true);
+            fogDevice.setClusterMembers(clusterMemberList);
+            fogDevice.setClusterMembersToLatencyMap(new HashMap<Integer, Double>());
         } else {
-            ((FogDevice) CloudSim.getEntity(fogId)).setIsInCluster(true);
-            ((FogDevice) CloudSim.getEntity(fogId)).setSelfCluster(false);
-            ((FogDevice) CloudSim.getEntity(fogId)).setClusterMembers(clusterMemberList);
+            fogDevice.setIsInCluster(true);
+            fogDevice.setSelfCluster(false);
+            fogDevice.setClusterMembers(clusterMemberList);
             Map<Integer, Double> latencyMapL2 = new HashMap<>();
             for (int id : clusterMemberList) {
                 latencyMapL2.put(id, Config.clusteringLatency);
             }
-            ((FogDevice) CloudSim.getEntity(fogId)).setClusterMembersToLatencyMap(latencyMapL2);
+            fogDevice.setClusterMembersToLatencyMap(latencyMapL2);
 
         }
         System.out.println("The Fog Device: " + locatorTemp.instanceToDataId.get(fogId) + " with id: " + fogId + " and parent id: " + parentId +
-                " has these cluster members: " + ((FogDevice) CloudSim.getEntity(fogId)).getClusterMembers());
-        return;
+                " has these cluster members: " + fogDevice.getClusterMembers());
     }
 
-    private static boolean calculateInRange(Location loc1, Location loc2, double fogRange) {
-
-        final int R = 6371; // Radius of the earth in Kilometers
-
-        double latDistance = Math.toRadians(loc1.latitude - loc2.latitude);
-        double lonDistance = Math.toRadians(loc1.longitude - loc2.longitude);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(loc1.latitude)) * Math.cos(Math.toRadians(loc2.latitude))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double distance = R * c; // kms
-
-
-        distance = Math.pow(distance, 2);
-
-        if (Math.sqrt(distance) <= fogRange / 1000) {
-            return true;
+    /**
+     * Brings the clusters of the children of a parent up to date: forms them if the children changed, or
+     * updates those around the children that moved. The locations of the children are checked once per
+     * simulation time while the children stay the same, so all of them asking for their cluster at once cost a
+     * single pass.
+     */
+    private static Group updateGroup(int parentId, List<Integer> childrenIds, LocationHandler locator) {
+        State state = state();
+        Group group = state.parentToGroup.get(parentId);
+        double now = CloudSim.clock();
+        // a child may have left and another joined at the same time, so the children are compared, not counted
+        if (group != null && group.time == now && group.nodeIds.equals(childrenIds))
+            return group;
+
+        if (group == null || !group.nodeIds.equals(childrenIds)) {
+            List<Integer> nodeIds = new ArrayList<>(childrenIds);
+            List<Location> locations = new ArrayList<>(nodeIds.size());
+            for (int id : nodeIds)
+                locations.add(copy(location(locator, id)));
+            group = new Group(nodeIds, locations);
+            group.clusters = getPolicy().createClusters(locations);
+            state.parentToGroup.put(parentId, group);
         } else {
-            return false;
+            List<Location> previous = new ArrayList<>(group.locations);
+            Collection<Integer> moved = new ArrayList<>();
+            for (int i = 0; i < group.nodeIds.size(); i++) {
+                Location location = location(locator, group.nodeIds.get(i));
+                Location known = group.locations.get(i);
+                if (location.latitude != known.latitude || location.longitude != known.longitude) {
+                    group.locations.set(i, copy(location));
+                    moved.add(i);
+                }
+            }
+            if (!moved.isEmpty())
+                getPolicy().updateClusters(group.locations, previous, group.clusters, moved);
         }
+        group.time = now;
+        return group;
+    }
+
+    private static Location location(LocationHandler locator, int nodeId) {
+        return locator.dataObject.resourceLocationData.get(locator.instanceToDataId.get(nodeId));
+    }
 
+    private static Location copy(Location location) {
+        return new Location(location.latitude, location.longitude, location.block);
     }
 }
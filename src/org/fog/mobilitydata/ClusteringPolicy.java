@@ -0,0 +1,78 @@
+package org.fog.mobilitydata;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Forms the clusters of a group of fog nodes, the children of one parent, from their locations. Nodes are
+ * known by their index in the list of locations, and the cluster of a node is the list of the other nodes it
+ * can offload to. A node whose cluster is empty forms a cluster of its own.
+ *
+ * @see Clustering
+ */
+public abstract class ClusteringPolicy {
+
+    /**
+     * Forms the clusters of all the nodes of a group.
+     *
+     * @param locations the locations of the nodes
+     * @return for each node, the indices of the other nodes of its cluster, in increasing order
+     */
+    public abstract List<List<Integer>> createClusters(List<Location> locations);
+
+    /**
+     * Updates the clusters of a group after some of its nodes moved. By default the clusters are formed again;
+     * policies whose clusters depend only on the neighbourhood of the nodes update just the nodes around those
+     * that moved.
+     *
+     * @param locations the locations of the nodes, with the new locations of the nodes that moved
+     * @param previous  the locations of the nodes before they moved
+     * @param clusters  the clusters of the nodes, updated in place
+     * @param moved     indices of the nodes that moved
+     * @return indices of the nodes whose cluster may have changed
+     */
+    public Collection<Integer> updateClusters(List<Location> locations, List<Location> previous,
+                                              List<List<Integer>> clusters, Collection<Integer> moved) {
+        List<List<Integer>> updated = createClusters(locations);
+        List<Integer> changed = new ArrayList<>();
+        for (int i = 0; i < clusters.size(); i++) {
+            if (!clusters.get(i).equals(updated.get(i))) {
+                clusters.set(i, updated.get(i));
+                changed.add(i);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Converts cluster labels into the clusters of the nodes.
+     *
+     * @param labels the cluster of each node; nodes with a negative label form clusters of their own
+     * @return for each node, the other nodes with the same label
+     */
+    protected static List<List<Integer>> membersByLabel(int[] labels) {
+        int clusterCount = 0;
+        for (int label : labels)
+            clusterCount = Math.max(clusterCount, label + 1);
+        List<List<Integer>> labelMembers = new ArrayList<>(clusterCount);
+        for (int label = 0; label < clusterCount; label++)
+            labelMembers.add(new ArrayList<Integer>());
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i] >= 0)
+                labelMembers.get(labels[i]).add(i);
+        }
+        List<List<Integer>> clusters = new ArrayList<>(labels.length);
+        for (int i = 0; i < labels.length; i++) {
+            List<Integer> members = new ArrayList<>();
+            if (labels[i] >= 0) {
+                for (int member : labelMembers.get(labels[i])) {
+                    if (member != i)
+                        members.add(member);
+                }
+            }
+            clusters.add(members);
+        }
+        return clusters;
+    }
+}
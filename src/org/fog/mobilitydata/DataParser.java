@@ -6,10 +6,10 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
-import java.util.Random;
 
 
 public class DataParser {
@@ -17,7 +17,7 @@ public class DataParser {
     public Map<String, Integer> levelID = new HashMap<String, Integer>();
     public Map<Integer, ArrayList<String>> levelwiseResources = new HashMap<Integer, ArrayList<String>>();
     public Map<String, Integer> resourceAndUserToLevel = new HashMap<String, Integer>();
-    public Map<String, Map<Double, Location>> usersLocation = new HashMap<String, Map<Double, Location>>();
+    public Map<String, MobilityTrace> usersLocation = new HashMap<String, MobilityTrace>();
 
 
     public DataParser() {
@@ -39,59 +39,38 @@ public class DataParser {
         }
     }
 
-    private double nextMobilisationEvent(double eventTime, int mobilityPattern) {
-        // TODO Auto-generated method stub
-        Random ran = new Random();
-        int seed;
-        double newEventTime = -1;
-        switch (mobilityPattern) {
-            case References.DIRECTIONAL_MOBILITY:
-                seed = 20;
-                newEventTime = 1.00 + (double) ran.nextInt(seed) + eventTime;
-                break;
-            case References.RANDOM_MOBILITY:
-                seed = 2000;
-                newEventTime = 1.00 + (double) ran.nextInt(seed);
-                break;
-        }
-        return newEventTime;
-
-    }
-
     public void parseUserData(Map<Integer, Integer> userMobilityPattern, String datasetReference) throws IOException {
         // TODO Auto-generated method stub
 
         for (int userID : userMobilityPattern.keySet()) {
 
-            Map<Double, Location> tempUserLocationInfo = new HashMap<Double, Location>();
-            BufferedReader csvReader = new BufferedReader(new FileReader(datasetReference + userID + ".csv"));
             System.out.println("The Mobility dataset used in this simulation for user: " + userID + " is: " + datasetReference + userID + ".csv");
-            String row;
-            double eventTime = References.INIT_TIME;
-            while ((row = csvReader.readLine()) != null) {
-                String[] data = row.split(",");
-                try {
-                    Location rl = new Location(Double.parseDouble(data[0]), Double.parseDouble(data[1]), References.NOT_SET);
-                    if (!tempUserLocationInfo.containsKey(eventTime))
-                        tempUserLocationInfo.put(eventTime, rl);
-                    else {
-                        eventTime = nextMobilisationEvent(eventTime, userMobilityPattern.get(userID));
-                        tempUserLocationInfo.put(eventTime, rl);
-                    }
-
-                } catch (NumberFormatException ex) {
-                    //System.out.println("Given String is not parsable to double");
-                }
-            }
-
-            csvReader.close();
-            usersLocation.put("usr_" + userID, tempUserLocationInfo);
+            MobilityTrace userTrace = MobilityTraceFile.readCsv(datasetReference + userID + ".csv", userMobilityPattern.get(userID));
+            usersLocation.put("usr_" + userID, userTrace);
             resourceAndUserToLevel.put("usr_" + userID, levelID.get("User"));
 
         }
 
     }
 
+    /**
+     * Loads the traces of the users from a binary trace file written by {@link MobilityTraceFile#write}.
+     *
+     * @param userIDs   the users to load; all users of the file if null
+     * @param traceFile the trace file
+     */
+    public void parseUserTraces(Collection<Integer> userIDs, String traceFile) throws IOException {
+        System.out.println("The Mobility trace file used in this simulation is: " + traceFile);
+        Map<Integer, MobilityTrace> traces = MobilityTraceFile.map(traceFile);
+        for (int userID : userIDs == null ? traces.keySet() : userIDs) {
+            MobilityTrace userTrace = traces.get(userID);
+            if (userTrace == null)
+                throw new IOException("The trace file " + traceFile + " has no trace for user: " + userID);
+            usersLocation.put("usr_" + userID, userTrace);
+            resourceAndUserToLevel.put("usr_" + userID, levelID.get("User"));
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public void parseResourceData() throws NumberFormatException, IOException {
 
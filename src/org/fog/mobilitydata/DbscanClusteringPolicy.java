@@ -0,0 +1,78 @@
+package org.fog.mobilitydata;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Forms clusters of the dense areas of a group with DBSCAN: a node with at least a minimum number of nodes
+ * within its communication range, itself included, is a core node, and the nodes reachable from a core node
+ * through core nodes within range of each other form a cluster. Nodes in no dense area form clusters of their
+ * own. Unlike {@link RangeClusteringPolicy}, the clusters are disjoint and every node of a cluster can offload
+ * to all the others.
+ * <p>
+ * The nodes within range are found with a {@link SpatialGrid}, so that forming the clusters takes time linear
+ * in the size of the group for nodes spread over an area.
+ */
+public class DbscanClusteringPolicy extends ClusteringPolicy {
+
+    private static final int UNVISITED = -2;
+    private static final int NOISE = -1;
+
+    /**
+     * The communication range, in metres
+     */
+    private final double range;
+    private final int minPoints;
+
+    /**
+     * @param range     the communication range of the nodes, in metres
+     * @param minPoints the number of nodes within range of a node, itself included, that makes it a core node
+     */
+    public DbscanClusteringPolicy(double range, int minPoints) {
+        this.range = range;
+        this.minPoints = minPoints;
+    }
+
+    public double getRange() {
+        return range;
+    }
+
+    public int getMinPoints() {
+        return minPoints;
+    }
+
+    @Override
+    public List<List<Integer>> createClusters(List<Location> locations) {
+        SpatialGrid grid = new SpatialGrid(range / 1000, locations);
+        int[] labels = new int[locations.size()];
+        Arrays.fill(labels, UNVISITED);
+        int cluster = 0;
+        Deque<Integer> frontier = new ArrayDeque<>();
+        for (int i = 0; i < locations.size(); i++) {
+            if (labels[i] != UNVISITED)
+                continue;
+            List<Integer> neighbours = grid.withinRange(locations.get(i), locations, -1);
+            if (neighbours.size() < minPoints) {
+                labels[i] = NOISE;
+                continue;
+            }
+            labels[i] = cluster;
+            frontier.addAll(neighbours);
+            while (!frontier.isEmpty()) {
+                int node = frontier.poll();
+                if (labels[node] == NOISE)
+                    labels[node] = cluster;
+                if (labels[node] != UNVISITED)
+                    continue;
+                labels[node] = cluster;
+                List<Integer> nodeNeighbours = grid.withinRange(locations.get(node), locations, -1);
+                if (nodeNeighbours.size() >= minPoints)
+                    frontier.addAll(nodeNeighbours);
+            }
+            cluster++;
+        }
+        return membersByLabel(labels);
+    }
+}
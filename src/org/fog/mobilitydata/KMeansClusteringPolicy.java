@@ -0,0 +1,145 @@
+package org.fog.mobilitydata;
+
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.SimulationContext;
+
+/**
+ * Partitions the nodes of a group into clusters of about a given size with k-means over their locations.
+ * Every node of a cluster can offload to all the others, however far apart they are, so the clusters cover
+ * the whole group instead of the neighbourhood of each node.
+ * <p>
+ * The locations are projected onto a plane at the mean latitude of the group, which is accurate over the
+ * extent of a fog deployment. The initial centres are chosen with k-means++ using the random number generator
+ * of the simulation, so clusters are the same in every run with the same seed.
+ */
+public class KMeansClusteringPolicy extends ClusteringPolicy {
+
+    private static final int MAX_ITERATIONS = 100;
+
+    private final int clusterSize;
+
+    /**
+     * @param clusterSize the number of nodes per cluster the number of clusters is chosen for
+     */
+    public KMeansClusteringPolicy(int clusterSize) {
+        if (clusterSize < 1)
+            throw new IllegalArgumentException("The cluster size must be positive");
+        this.clusterSize = clusterSize;
+    }
+
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    @Override
+    public List<List<Integer>> createClusters(List<Location> locations) {
+        int n = locations.size();
+        int k = Math.max(1, (n + clusterSize - 1) / clusterSize);
+        double meanLatitude = 0;
+        for (Location location : locations)
+            meanLatitude += location.latitude;
+        meanLatitude = n > 0 ? meanLatitude / n : 0;
+        double scale = Math.cos(Math.toRadians(meanLatitude));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = locations.get(i).longitude * scale;
+            y[i] = locations.get(i).latitude;
+        }
+
+        double[] centreX = new double[k];
+        double[] centreY = new double[k];
+        int[] labels = new int[n];
+        if (n > 0) {
+            initialCentres(x, y, centreX, centreY, SimulationContext.current().getRandom());
+            for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+                boolean changed = assign(x, y, centreX, centreY, labels) || iteration == 0;
+                if (!changed)
+                    break;
+                updateCentres(x, y, centreX, centreY, labels);
+            }
+        }
+        return membersByLabel(labels);
+    }
+
+    /**
+     * k-means++: each further centre is a node drawn with probability proportional to its squared distance to
+     * the nearest centre chosen so far.
+     */
+    private static void initialCentres(double[] x, double[] y, double[] centreX, double[] centreY, Random random) {
+        int n = x.length;
+        double[] distance = new double[n];
+        int first = random.nextInt(n);
+        centreX[0] = x[first];
+        centreY[0] = y[first];
+        for (int i = 0; i < n; i++)
+            distance[i] = squaredDistance(x[i], y[i], centreX[0], centreY[0]);
+        for (int c = 1; c < centreX.length; c++) {
+            double total = 0;
+            for (double d : distance)
+                total += d;
+            int chosen = n - 1;
+            if (total > 0) {
+                double target = random.nextDouble() * total;
+                for (int i = 0; i < n; i++) {
+                    target -= distance[i];
+                    if (target < 0) {
+                        chosen = i;
+                        break;
+                    }
+                }
+            } else {
+                chosen = random.nextInt(n);
+            }
+            centreX[c] = x[chosen];
+            centreY[c] = y[chosen];
+            for (int i = 0; i < n; i++)
+                distance[i] = Math.min(distance[i], squaredDistance(x[i], y[i], centreX[c], centreY[c]));
+        }
+    }
+
+    private static boolean assign(double[] x, double[] y, double[] centreX, double[] centreY, int[] labels) {
+        boolean changed = false;
+        for (int i = 0; i < x.length; i++) {
+            int nearest = 0;
+            double nearestDistance = Double.POSITIVE_INFINITY;
+            for (int c = 0; c < centreX.length; c++) {
+                double d = squaredDistance(x[i], y[i], centreX[c], centreY[c]);
+                if (d < nearestDistance) {
+                    nearest = c;
+                    nearestDistance = d;
+                }
+            }
+            if (labels[i] != nearest) {
+                labels[i] = nearest;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static void updateCentres(double[] x, double[] y, double[] centreX, double[] centreY, int[] labels) {
+        int k = centreX.length;
+        double[] sumX = new double[k];
+        double[] sumY = new double[k];
+        int[] count = new int[k];
+        for (int i = 0; i < x.length; i++) {
+            sumX[labels[i]] += x[i];
+            sumY[labels[i]] += y[i];
+            count[labels[i]]++;
+        }
+        // a centre left without nodes stays where it is
+        for (int c = 0; c < k; c++) {
+            if (count[c] > 0) {
+                centreX[c] = sumX[c] / count[c];
+                centreY[c] = sumY[c] / count[c];
+            }
+        }
+    }
+
+    private static double squaredDistance(double x1, double y1, double x2, double y2) {
+        return (x1 - x2) * (x1 - x2) + (y1 - y2) * (y1 - y2);
+    }
+}
@@ -0,0 +1,165 @@
+package org.fog.mobilitydata;
+
+import org.fog.placement.LocationHandler;
+import org.fog.utils.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index over the locations of the resources of one level, to find the resource nearest to a location and the
+ * resources of a block.
+ * <p>
+ * The resources are kept in a k-d tree over their positions on the unit sphere. The straight line distance
+ * between two such positions grows with the great-circle distance between the locations, so the tree can be
+ * searched with the distance of {@link LocationHandler#calculateDistance(Location, Location)}.
+ */
+public class LocationIndex {
+
+    private static final double EARTH_RADIUS = 6371;
+
+    private final List<String> dataIds;
+    private final Location[] locations;
+    /**
+     * Positions on the unit sphere, by axis and resource index
+     */
+    private final double[][] positions;
+    /**
+     * Resource indices in k-d tree order; the node of a range is at its middle
+     */
+    private final int[] tree;
+    private final Map<Integer, List<Integer>> blockToResources = new HashMap<>();
+
+    /**
+     * Creates the index of the resources of a level.
+     *
+     * @param dataIds           data ids of the resources of the level
+     * @param resourceLocations data id of a resource -> its location
+     */
+    public LocationIndex(List<String> dataIds, Map<String, Location> resourceLocations) {
+        this.dataIds = new ArrayList<>(dataIds);
+        int size = dataIds.size();
+        locations = new Location[size];
+        positions = new double[3][size];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            Location location = resourceLocations.get(dataIds.get(i));
+            locations[i] = location;
+            double[] position = toPosition(location);
+            for (int axis = 0; axis < 3; axis++)
+                positions[axis][i] = position[axis];
+            order[i] = i;
+            List<Integer> blockResources = blockToResources.get(location.block);
+            if (blockResources == null) {
+                blockResources = new ArrayList<>();
+                blockToResources.put(location.block, blockResources);
+            }
+            blockResources.add(i);
+        }
+        build(order, 0, size, 0);
+        tree = new int[size];
+        for (int i = 0; i < size; i++)
+            tree[i] = order[i];
+    }
+
+    public int size() {
+        return dataIds.size();
+    }
+
+    public String getDataId(int index) {
+        return dataIds.get(index);
+    }
+
+    /**
+     * Finds the resource nearest to a location. Of resources at the same distance, the one listed first is
+     * returned.
+     *
+     * @param location the location
+     * @return index of the nearest resource, or -1 if there is no resource closer than {@link Config#MAX_VALUE}
+     */
+    public int nearest(Location location) {
+        Search search = new Search(location, toPosition(location));
+        search.visit(0, tree.length, 0);
+        return search.bestIndex;
+    }
+
+    /**
+     * Returns the resources in a block, in the order they are listed.
+     *
+     * @param block the block
+     * @return indices of the resources in the block; empty if there are none
+     */
+    public List<Integer> getBlockResources(int block) {
+        List<Integer> blockResources = blockToResources.get(block);
+        return blockResources == null ? new ArrayList<Integer>() : blockResources;
+    }
+
+    private static double[] toPosition(Location location) {
+        double latitude = Math.toRadians(location.latitude);
+        double longitude = Math.toRadians(location.longitude);
+        return new double[]{Math.cos(latitude) * Math.cos(longitude), Math.cos(latitude) * Math.sin(longitude),
+                Math.sin(latitude)};
+    }
+
+    private void build(Integer[] order, int from, int to, int depth) {
+        if (to - from < 2)
+            return;
+        final double[] coordinates = positions[depth % 3];
+        Arrays.sort(order, from, to, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(coordinates[a], coordinates[b]);
+            }
+        });
+        int middle = (from + to) >>> 1;
+        build(order, from, middle, depth + 1);
+        build(order, middle + 1, to, depth + 1);
+    }
+
+    /**
+     * A nearest resource search. The distances are those of {@link LocationHandler#calculateDistance}, and a
+     * subtree is skipped only when it is further away than the best resource so far by a margin, so the
+     * result is the same as comparing the distances to all resources.
+     */
+    private class Search {
+        private final Location location;
+        private final double[] query;
+        private int bestIndex = -1;
+        private double bestDistance = Config.MAX_VALUE;
+        private double bound = Double.POSITIVE_INFINITY;
+
+        Search(Location location, double[] query) {
+            this.location = location;
+            this.query = query;
+        }
+
+        void visit(int from, int to, int depth) {
+            if (from >= to)
+                return;
+            int middle = (from + to) >>> 1;
+            int index = tree[middle];
+            double distance = LocationHandler.calculateDistance(location, locations[index]);
+            if (distance < bestDistance || (distance == bestDistance && index < bestIndex)) {
+                bestIndex = index;
+                bestDistance = distance;
+                double angle = Math.min(distance / (2 * EARTH_RADIUS), Math.PI / 2);
+                bound = 2 * Math.sin(angle) * (1 + 1e-9) + 1e-12;
+            }
+
+            double difference = query[depth % 3] - positions[depth % 3][index];
+            if (difference < 0) {
+                visit(from, middle, depth + 1);
+                if (-difference <= bound)
+                    visit(middle + 1, to, depth + 1);
+            } else {
+                visit(middle + 1, to, depth + 1);
+                if (difference <= bound)
+                    visit(from, middle, depth + 1);
+            }
+        }
+    }
+}
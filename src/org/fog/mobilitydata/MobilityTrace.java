@@ -0,0 +1,216 @@
+package org.fog.mobilitydata;
+
+import org.cloudbus.cloudsim.core.SimulationContext;
+
+import java.nio.DoubleBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The positions of a mobile user over time.
+ * <p>
+ * The trace is kept in columns of event times, latitudes and longitudes, sorted by time. The columns are either
+ * arrays on the heap or regions of a memory-mapped trace file (see {@link MobilityTraceFile}).
+ */
+public class MobilityTrace {
+
+    private final DoubleBuffer times;
+    private final DoubleBuffer latitudes;
+    private final DoubleBuffer longitudes;
+    private final int size;
+
+    /**
+     * Creates a trace from its columns. The times have to be sorted in ascending order.
+     *
+     * @param times      event times
+     * @param latitudes  latitude at each event time
+     * @param longitudes longitude at each event time
+     */
+    public MobilityTrace(DoubleBuffer times, DoubleBuffer latitudes, DoubleBuffer longitudes) {
+        if (times.remaining() != latitudes.remaining() || times.remaining() != longitudes.remaining())
+            throw new IllegalArgumentException("The columns of a mobility trace must have the same length");
+        this.times = times.slice();
+        this.latitudes = latitudes.slice();
+        this.longitudes = longitudes.slice();
+        this.size = times.remaining();
+    }
+
+    public MobilityTrace(double[] times, double[] latitudes, double[] longitudes) {
+        this(DoubleBuffer.wrap(times), DoubleBuffer.wrap(latitudes), DoubleBuffer.wrap(longitudes));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getTime(int index) {
+        return times.get(index);
+    }
+
+    public double getLatitude(int index) {
+        return latitudes.get(index);
+    }
+
+    public double getLongitude(int index) {
+        return longitudes.get(index);
+    }
+
+    /**
+     * Returns the event times of the trace in ascending order. The list is a view of the trace, not a copy.
+     */
+    public List<Double> getTimes() {
+        return new AbstractList<Double>() {
+            @Override
+            public Double get(int index) {
+                if (index < 0 || index >= size)
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                return times.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Finds the event at a time.
+     *
+     * @param time the time
+     * @return index of the event at exactly the time; otherwise <tt>-(insertion point) - 1</tt>, as for
+     * {@link Arrays#binarySearch(double[], double)}
+     */
+    public int indexOf(double time) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            double middleTime = times.get(middle);
+            if (middleTime < time)
+                low = middle + 1;
+            else if (middleTime > time)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Returns the position of the user at a time. Between two events the position is interpolated linearly;
+     * before the first and after the last event it is that of the first and last event.
+     *
+     * @param time the time
+     * @return the position, or null if the trace is empty
+     */
+    public Location getLocation(double time) {
+        if (size == 0)
+            return null;
+        int index = indexOf(time);
+        if (index >= 0)
+            return getLocationAt(index);
+        int next = -index - 1;
+        if (next == 0)
+            return getLocationAt(0);
+        if (next == size)
+            return getLocationAt(size - 1);
+        int previous = next - 1;
+        double fraction = (time - times.get(previous)) / (times.get(next) - times.get(previous));
+        double latitude = latitudes.get(previous) + fraction * (latitudes.get(next) - latitudes.get(previous));
+        double longitude = longitudes.get(previous) + fraction * (longitudes.get(next) - longitudes.get(previous));
+        return new Location(latitude, longitude, References.NOT_SET);
+    }
+
+    private Location getLocationAt(int index) {
+        return new Location(latitudes.get(index), longitudes.get(index), References.NOT_SET);
+    }
+
+    /**
+     * Builds a trace from a sequence of positions, giving each position an event time according to a mobility
+     * pattern. The first position is at {@link References#INIT_TIME}; the times of the following positions are
+     * drawn from the random number generator of the current simulation. A position drawn at the time of an
+     * earlier one replaces it.
+     */
+    public static class Builder {
+        private final int mobilityPattern;
+        private final Random random;
+        private final Map<Double, Integer> timeToIndex = new HashMap<>();
+        private double[] times = new double[64];
+        private double[] latitudes = new double[64];
+        private double[] longitudes = new double[64];
+        private int size = 0;
+        private double eventTime = References.INIT_TIME;
+
+        /**
+         * @param mobilityPattern {@link References#DIRECTIONAL_MOBILITY} or {@link References#RANDOM_MOBILITY}
+         */
+        public Builder(int mobilityPattern) {
+            this.mobilityPattern = mobilityPattern;
+            this.random = SimulationContext.current().getRandom();
+        }
+
+        public Builder addPosition(double latitude, double longitude) {
+            if (timeToIndex.containsKey(eventTime))
+                eventTime = nextMobilisationEvent(eventTime);
+            Integer index = timeToIndex.get(eventTime);
+            if (index == null) {
+                if (size == times.length) {
+                    times = Arrays.copyOf(times, size * 2);
+                    latitudes = Arrays.copyOf(latitudes, size * 2);
+                    longitudes = Arrays.copyOf(longitudes, size * 2);
+                }
+                index = size++;
+                timeToIndex.put(eventTime, index);
+                times[index] = eventTime;
+            }
+            latitudes[index] = latitude;
+            longitudes[index] = longitude;
+            return this;
+        }
+
+        private double nextMobilisationEvent(double eventTime) {
+            int seed;
+            double newEventTime = -1;
+            switch (mobilityPattern) {
+                case References.DIRECTIONAL_MOBILITY:
+                    seed = 20;
+                    newEventTime = 1.00 + (double) random.nextInt(seed) + eventTime;
+                    break;
+                case References.RANDOM_MOBILITY:
+                    seed = 2000;
+                    newEventTime = 1.00 + (double) random.nextInt(seed);
+                    break;
+            }
+            return newEventTime;
+        }
+
+        public MobilityTrace build() {
+            // the random pattern draws the times out of order
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++)
+                order[i] = i;
+            final double[] unsortedTimes = times;
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(unsortedTimes[a], unsortedTimes[b]);
+                }
+            });
+            double[] sortedTimes = new double[size];
+            double[] sortedLatitudes = new double[size];
+            double[] sortedLongitudes = new double[size];
+            for (int i = 0; i < size; i++) {
+                sortedTimes[i] = times[order[i]];
+                sortedLatitudes[i] = latitudes[order[i]];
+                sortedLongitudes[i] = longitudes[order[i]];
+            }
+            return new MobilityTrace(sortedTimes, sortedLatitudes, sortedLongitudes);
+        }
+    }
+}
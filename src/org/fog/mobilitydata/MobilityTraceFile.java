@@ -0,0 +1,162 @@
+package org.fog.mobilitydata;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes mobility traces.
+ * <p>
+ * A trace is read from a CSV file of latitude,longitude rows, one per position, or from a binary trace file
+ * holding the traces of many users. A binary trace file starts with {@link #MAGIC}, {@link #VERSION} and the
+ * number of users; then for each user come its id, the number of events, and the columns of times, latitudes
+ * and longitudes. The columns of a binary trace file are memory-mapped rather than read onto the heap.
+ */
+public class MobilityTraceFile {
+
+    public static final int MAGIC = 0x4D545243; // "MTRC"
+    public static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 12;
+    private static final int USER_HEADER_BYTES = 8;
+    /**
+     * The largest part of a trace file mapped at once; the traces of a user are never split between parts
+     */
+    private static final int MAX_CHUNK_BYTES = Integer.MAX_VALUE;
+
+    /**
+     * Reads a trace from a CSV file. Rows that are not a pair of numbers, like the header, are skipped.
+     *
+     * @param fileName        the CSV file
+     * @param mobilityPattern the mobility pattern that gives the event times of the positions
+     * @return the trace
+     */
+    public static MobilityTrace readCsv(String fileName, int mobilityPattern) throws IOException {
+        MobilityTrace.Builder builder = new MobilityTrace.Builder(mobilityPattern);
+        try (BufferedReader csvReader = new BufferedReader(new FileReader(fileName), 1 << 16)) {
+            String row;
+            while ((row = csvReader.readLine()) != null) {
+                int comma = row.indexOf(',');
+                if (comma < 0)
+                    continue;
+                int end = row.indexOf(',', comma + 1);
+                if (end < 0)
+                    end = row.length();
+                try {
+                    double latitude = Double.parseDouble(row.substring(0, comma));
+                    double longitude = Double.parseDouble(row.substring(comma + 1, end));
+                    builder.addPosition(latitude, longitude);
+                } catch (NumberFormatException ex) {
+                    // not a position
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes traces to a binary trace file.
+     *
+     * @param traces   user id -> its trace
+     * @param fileName the trace file
+     */
+    public static void write(Map<Integer, MobilityTrace> traces, String fileName) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(traces.size());
+            for (Map.Entry<Integer, MobilityTrace> entry : traces.entrySet()) {
+                MobilityTrace trace = entry.getValue();
+                out.writeInt(entry.getKey());
+                out.writeInt(trace.size());
+                for (int i = 0; i < trace.size(); i++)
+                    out.writeDouble(trace.getTime(i));
+                for (int i = 0; i < trace.size(); i++)
+                    out.writeDouble(trace.getLatitude(i));
+                for (int i = 0; i < trace.size(); i++)
+                    out.writeDouble(trace.getLongitude(i));
+            }
+        }
+    }
+
+    /**
+     * Maps the traces of a binary trace file. The traces stay valid after this method returns.
+     * <p>
+     * The file is mapped once, or in chunks of at most {@link #MAX_CHUNK_BYTES} when it is larger, and the columns
+     * of every user are views of the mapping that holds them.
+     *
+     * @param fileName the trace file
+     * @return user id -> its trace, in the order of the file
+     */
+    public static Map<Integer, MobilityTrace> map(String fileName) throws IOException {
+        Map<Integer, MobilityTrace> traces = new LinkedHashMap<>();
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r"); FileChannel channel = file.getChannel()) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES)
+                throw new IOException("Mobility trace file " + fileName + " is truncated");
+            long chunkStart = 0;
+            ByteBuffer chunk = mapChunk(channel, chunkStart);
+            if (chunk.getInt(0) != MAGIC)
+                throw new IOException(fileName + " is not a mobility trace file");
+            int version = chunk.getInt(4);
+            if (version != VERSION)
+                throw new IOException("Unsupported version " + version + " of mobility trace file " + fileName);
+            int users = chunk.getInt(8);
+
+            long position = HEADER_BYTES;
+            for (int user = 0; user < users; user++) {
+                if (position + USER_HEADER_BYTES > fileSize)
+                    throw new IOException("Mobility trace file " + fileName + " is truncated");
+                if (position + USER_HEADER_BYTES > chunkStart + chunk.capacity()) {
+                    chunkStart = position;
+                    chunk = mapChunk(channel, chunkStart);
+                }
+                int offset = (int) (position - chunkStart);
+                int userId = chunk.getInt(offset);
+                int size = chunk.getInt(offset + 4);
+                long userBytes = USER_HEADER_BYTES + 3L * size * Double.BYTES;
+                if (size < 0 || position + userBytes > fileSize)
+                    throw new IOException("Mobility trace file " + fileName + " is truncated");
+                if (userBytes > MAX_CHUNK_BYTES)
+                    throw new IOException("The trace of user " + userId + " in " + fileName + " is too large to map");
+                if (position + userBytes > chunkStart + chunk.capacity()) {
+                    chunkStart = position;
+                    chunk = mapChunk(channel, chunkStart);
+                    offset = 0;
+                }
+                ByteBuffer userColumns = chunk.duplicate();
+                userColumns.position(offset + USER_HEADER_BYTES);
+                userColumns.limit((int) (offset + userBytes));
+                DoubleBuffer columns = userColumns.slice().asDoubleBuffer();
+                traces.put(userId, new MobilityTrace(column(columns, 0, size), column(columns, 1, size),
+                        column(columns, 2, size)));
+                position += userBytes;
+            }
+        }
+        return traces;
+    }
+
+    /**
+     * Maps the part of a file from a position, up to {@link #MAX_CHUNK_BYTES} long.
+     */
+    private static ByteBuffer mapChunk(FileChannel channel, long position) throws IOException {
+        long bytes = Math.min(MAX_CHUNK_BYTES, channel.size() - position);
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, bytes);
+    }
+
+    private static DoubleBuffer column(DoubleBuffer columns, int column, int size) {
+        DoubleBuffer view = columns.duplicate();
+        view.position(column * size);
+        view.limit((column + 1) * size);
+        return view;
+    }
+}
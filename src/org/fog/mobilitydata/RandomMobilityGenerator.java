@@ -7,6 +7,7 @@ import org.json.simple.parser.ParseException;
 
 //import  java.awt.geom.
 import org.fog.mobilitydata.Polygon2D;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 import java.io.*;
 import java.util.*;
@@ -40,7 +41,7 @@ public class RandomMobilityGenerator {
             throw new IllegalArgumentException("max must be greater than min");
         }
 
-        Random r = new Random();
+        Random r = SimulationContext.current().getRandom();
         return r.nextInt((max - min) + 1) + min;
     }
 
@@ -107,7 +108,7 @@ public class RandomMobilityGenerator {
         this.mobilityPositionsAngle.clear();
         this.mobilityPositionsSpeed.clear();
         this.mobilitySpecJSON.clear();
-        Random r = new Random();
+        Random r = SimulationContext.current().getRandom();
 
         boolean file = false;
 
@@ -231,4 +232,17 @@ public class RandomMobilityGenerator {
 
     }
 
+    /**
+     * Returns the positions generated last as a trace, with event times given by a mobility pattern as when the
+     * generated CSV file is parsed. The trace can be written with {@link MobilityTraceFile#write}.
+     *
+     * @param mobilityPattern {@link References#DIRECTIONAL_MOBILITY} or {@link References#RANDOM_MOBILITY}
+     */
+    public MobilityTrace getMobilityTrace(int mobilityPattern) {
+        MobilityTrace.Builder builder = new MobilityTrace.Builder(mobilityPattern);
+        for (int i = 0; i < this.mobilityPositions.size(); i++)
+            builder.addPosition(this.mobilityPositions.get(i).get(0), this.mobilityPositions.get(i).get(1));
+        return builder.build();
+    }
+
 }
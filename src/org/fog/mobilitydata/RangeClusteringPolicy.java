@@ -0,0 +1,61 @@
+package org.fog.mobilitydata;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The cluster of a node is the nodes within its communication range. This is the clustering of iFogSim's
+ * dynamic clustering; the nodes in range are found with a {@link SpatialGrid} sized to the range, so forming
+ * the clusters of a group takes time linear in its size for nodes spread over an area, and a node that moves
+ * only changes the clusters of the nodes around its old and new location.
+ */
+public class RangeClusteringPolicy extends ClusteringPolicy {
+
+    /**
+     * The communication range, in metres
+     */
+    private final double range;
+
+    /**
+     * @param range the communication range of the nodes, in metres
+     */
+    public RangeClusteringPolicy(double range) {
+        this.range = range;
+    }
+
+    public double getRange() {
+        return range;
+    }
+
+    @Override
+    public List<List<Integer>> createClusters(List<Location> locations) {
+        SpatialGrid grid = new SpatialGrid(range / 1000, locations);
+        List<List<Integer>> clusters = new ArrayList<>(locations.size());
+        for (int i = 0; i < locations.size(); i++)
+            clusters.add(grid.withinRange(locations.get(i), locations, i));
+        return clusters;
+    }
+
+    @Override
+    public Collection<Integer> updateClusters(List<Location> locations, List<Location> previous,
+                                              List<List<Integer>> clusters, Collection<Integer> moved) {
+        SpatialGrid grid = new SpatialGrid(range / 1000, locations);
+        // the nodes that moved, those that had them in range and those that have them in range now
+        TreeSet<Integer> affected = new TreeSet<>(moved);
+        for (int node : moved) {
+            affected.addAll(clusters.get(node));
+            affected.addAll(grid.withinRange(locations.get(node), locations, node));
+        }
+        List<Integer> changed = new ArrayList<>();
+        for (int node : affected) {
+            List<Integer> members = grid.withinRange(locations.get(node), locations, node);
+            if (!members.equals(clusters.get(node))) {
+                clusters.set(node, members);
+                changed.add(node);
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,155 @@
+package org.fog.mobilitydata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A uniform grid over latitude and longitude, with cells sized so that any two locations within a range of
+ * each other are in the same or in adjacent cells. The nodes within range of a location are then found by
+ * checking the nodes of nine cells instead of all the nodes.
+ * <p>
+ * The distance is the great-circle distance of {@link org.fog.placement.LocationHandler#calculateDistance}.
+ * Two locations at that distance differ in latitude by at most the distance over the earth radius, and in
+ * longitude by at most <tt>2 asin(sin(d / 2R) / cos(latitude))</tt> at the highest latitude of the two, so the
+ * width of the cells in longitude is taken at the highest latitude of the nodes of the grid. Columns wrap
+ * around the antimeridian.
+ */
+public class SpatialGrid {
+
+    private static final double EARTH_RADIUS = 6371;
+
+    private final double rangeKm;
+    private final double cellHeight;
+    private final double cellWidth;
+    private final int columns;
+    private final double maxLatitude;
+    private final Map<Long, List<Integer>> cells = new HashMap<>();
+
+    /**
+     * Creates an empty grid.
+     *
+     * @param rangeKm     the range, in kilometres
+     * @param maxLatitude the highest absolute latitude of the locations that will be added
+     */
+    public SpatialGrid(double rangeKm, double maxLatitude) {
+        this.rangeKm = rangeKm;
+        this.maxLatitude = Math.min(Math.abs(maxLatitude), 90);
+        double angle = rangeKm / EARTH_RADIUS;
+        // cells are a little larger than needed so that rounding cannot put locations in range two cells apart
+        cellHeight = Math.max(Math.toDegrees(angle) * (1 + 1e-9), 1e-9);
+        double cos = Math.cos(Math.toRadians(this.maxLatitude));
+        double sine = Math.sin(Math.min(angle, Math.PI) / 2) / cos;
+        if (cos <= 0 || sine >= 1 || angle >= Math.PI) {
+            columns = 1;
+        } else {
+            double width = Math.max(Math.toDegrees(2 * Math.asin(sine)) * (1 + 1e-9), 1e-9);
+            columns = (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.floor(360 / width)));
+        }
+        cellWidth = 360.0 / columns;
+    }
+
+    /**
+     * Creates a grid of locations.
+     *
+     * @param rangeKm   the range, in kilometres
+     * @param locations the locations of the nodes; a node is known by its index in the list
+     */
+    public SpatialGrid(double rangeKm, List<Location> locations) {
+        this(rangeKm, maxLatitude(locations));
+        for (int i = 0; i < locations.size(); i++)
+            add(i, locations.get(i));
+    }
+
+    public static double maxLatitude(List<Location> locations) {
+        double maxLatitude = 0;
+        for (Location location : locations)
+            maxLatitude = Math.max(maxLatitude, Math.abs(location.latitude));
+        return maxLatitude;
+    }
+
+    /**
+     * @param location a location
+     * @return whether the grid can hold the location, i.e. it is not nearer to a pole than the grid was sized for
+     */
+    public boolean covers(Location location) {
+        return Math.abs(location.latitude) <= maxLatitude;
+    }
+
+    public void add(int node, Location location) {
+        long cell = cell(row(location), column(location));
+        List<Integer> nodes = cells.get(cell);
+        if (nodes == null) {
+            nodes = new ArrayList<>();
+            cells.put(cell, nodes);
+        }
+        nodes.add(node);
+    }
+
+    public void remove(int node, Location location) {
+        long cell = cell(row(location), column(location));
+        List<Integer> nodes = cells.get(cell);
+        if (nodes != null) {
+            nodes.remove(Integer.valueOf(node));
+            if (nodes.isEmpty())
+                cells.remove(cell);
+        }
+    }
+
+    /**
+     * Finds the nodes within range of a location.
+     *
+     * @param location  the location
+     * @param locations the locations of the nodes, by index
+     * @param exclude   a node left out of the result, or -1
+     * @return indices of the nodes within range, in increasing order
+     */
+    public List<Integer> withinRange(Location location, List<Location> locations, int exclude) {
+        List<Integer> result = new ArrayList<>();
+        int row = row(location);
+        int column = column(location);
+        int columnSpan = Math.min(columns, 3);
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = 0; c < columnSpan; c++) {
+                int wrapped = Math.floorMod(column - 1 + c, columns);
+                List<Integer> nodes = cells.get(cell(r, wrapped));
+                if (nodes == null)
+                    continue;
+                for (int node : nodes) {
+                    if (node != exclude && inRange(location, locations.get(node), rangeKm))
+                        result.add(node);
+                }
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * @return whether two locations are within a range of each other, as
+     * {@link org.fog.placement.LocationHandler#calculateDistance} measures it
+     */
+    public static boolean inRange(Location loc1, Location loc2, double rangeKm) {
+        double latDistance = Math.toRadians(loc1.latitude - loc2.latitude);
+        double lonDistance = Math.toRadians(loc1.longitude - loc2.longitude);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(loc1.latitude)) * Math.cos(Math.toRadians(loc2.latitude))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS * c <= rangeKm;
+    }
+
+    private int row(Location location) {
+        return (int) Math.floor((location.latitude + 90) / cellHeight);
+    }
+
+    private int column(Location location) {
+        return Math.floorMod((int) Math.floor((location.longitude + 180) / cellWidth), columns);
+    }
+
+    private static long cell(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+}
@@ -0,0 +1,157 @@
+package org.fog.placement;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The devices of the clusters in the order the clustered microservice placement tries them: devices that
+ * already run modules first, then idle ones, each by decreasing available CPU, and in the order of the cluster
+ * members when equal.
+ * <p>
+ * The order of each cluster is kept in a sorted set, which is updated when the load of one of its devices
+ * changes instead of sorting all the members at every placement step.
+ */
+class ClusterDeviceIndex {
+
+    /**
+     * The state of a device that orders it
+     */
+    static class DeviceKey {
+        final double remainingCpu;
+        final boolean active;
+
+        DeviceKey(double remainingCpu, boolean active) {
+            this.remainingCpu = remainingCpu;
+            this.active = active;
+        }
+    }
+
+    /**
+     * The members of the cluster of a device, ordered
+     */
+    private class Cluster implements Comparator<Integer> {
+        private final Map<Integer, Integer> position = new HashMap<>();
+        private final TreeSet<Integer> order = new TreeSet<>(this);
+
+        Cluster(List<Integer> members) {
+            for (int i = 0; i < members.size(); i++) {
+                if (!position.containsKey(members.get(i)))
+                    position.put(members.get(i), i);
+            }
+            for (int member : position.keySet()) {
+                order.add(member);
+                List<Cluster> clusters = deviceClusters.get(member);
+                if (clusters == null) {
+                    clusters = new ArrayList<>();
+                    deviceClusters.put(member, clusters);
+                }
+                clusters.add(this);
+            }
+        }
+
+        @Override
+        public int compare(Integer a, Integer b) {
+            return compare(a, keys.get(a), b, keys.get(b));
+        }
+
+        int compare(int a, DeviceKey keyA, int b, DeviceKey keyB) {
+            if (keyA.active != keyB.active)
+                return keyA.active ? -1 : 1;
+            int byCpu = Double.compare(keyB.remainingCpu, keyA.remainingCpu);
+            if (byCpu != 0)
+                return byCpu;
+            return Integer.compare(position.get(a), position.get(b));
+        }
+    }
+
+    private final Map<Integer, DeviceKey> keys = new HashMap<>();
+    private final Map<Integer, Cluster> clusters = new HashMap<>();
+    private final Map<Integer, List<Cluster>> deviceClusters = new HashMap<>();
+
+    /**
+     * Sets the state of a device, moving it in the order of the clusters it belongs to.
+     *
+     * @param deviceId     id of the device
+     * @param remainingCpu the CPU available on the device minus its load
+     * @param active       whether modules are placed on the device
+     */
+    void update(int deviceId, double remainingCpu, boolean active) {
+        List<Cluster> memberOf = deviceClusters.get(deviceId);
+        if (memberOf != null) {
+            for (Cluster cluster : memberOf)
+                cluster.order.remove(deviceId);
+        }
+        keys.put(deviceId, new DeviceKey(remainingCpu, active));
+        if (memberOf != null) {
+            for (Cluster cluster : memberOf)
+                cluster.order.add(deviceId);
+        }
+    }
+
+    DeviceKey getKey(int deviceId) {
+        return keys.get(deviceId);
+    }
+
+    /**
+     * Returns the members of the cluster of a device in order. All the members must have been
+     * {@link #update updated} before.
+     *
+     * @param clusterDeviceId id of the device whose cluster it is
+     * @param members         the members of the cluster
+     * @return the members, in the order they are tried
+     */
+    List<Integer> getOrder(int clusterDeviceId, List<Integer> members) {
+        return new ArrayList<>(getCluster(clusterDeviceId, members).order);
+    }
+
+    /**
+     * Returns the members of the cluster of a device in order, with the state of some devices replaced, e.g. by
+     * the placements of a request that are not committed yet.
+     *
+     * @param clusterDeviceId id of the device whose cluster it is
+     * @param members         the members of the cluster
+     * @param overrides       device id -> its state to order it by
+     * @return the members, in the order they are tried
+     */
+    List<Integer> getOrder(int clusterDeviceId, List<Integer> members, Map<Integer, DeviceKey> overrides) {
+        Cluster cluster = getCluster(clusterDeviceId, members);
+        if (overrides.isEmpty())
+            return new ArrayList<>(cluster.order);
+        List<Integer> order = new ArrayList<>(cluster.order.size());
+        for (int member : cluster.order) {
+            if (!overrides.containsKey(member))
+                order.add(member);
+        }
+        for (Map.Entry<Integer, DeviceKey> override : overrides.entrySet()) {
+            int device = override.getKey();
+            if (!cluster.position.containsKey(device))
+                continue;
+            int low = 0;
+            int high = order.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int other = order.get(middle);
+                DeviceKey otherKey = overrides.containsKey(other) ? overrides.get(other) : keys.get(other);
+                if (cluster.compare(other, otherKey, device, override.getValue()) < 0)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            order.add(low, device);
+        }
+        return order;
+    }
+
+    private Cluster getCluster(int clusterDeviceId, List<Integer> members) {
+        Cluster cluster = clusters.get(clusterDeviceId);
+        if (cluster == null) {
+            cluster = new Cluster(members);
+            clusters.put(clusterDeviceId, cluster);
+        }
+        return cluster;
+    }
+}
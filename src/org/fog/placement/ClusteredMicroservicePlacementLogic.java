@@ -1,11 +1,9 @@
 package org.fog.placement;
 
 import org.apache.commons.math3.util.Pair;
-import org.fog.application.AppEdge;
 import org.fog.application.AppModule;
 import org.fog.application.Application;
 import org.fog.entities.FogDevice;
-import org.fog.entities.Tuple;
 import org.fog.entities.ControllerComponent;
 import org.fog.entities.MicroserviceFogDevice;
 import org.fog.entities.PlacementRequest;
@@ -24,8 +22,10 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
     List<FogDevice> fogDevices; //fog devices considered by FON for placements of requests
     List<PlacementRequest> placementRequests; // requests to be processed
     protected Map<Integer, Map<String, Double>> resourceAvailability;
-    private Map<String, Application> applicationInfo = new HashMap<>();
+    protected Map<String, Application> applicationInfo = new HashMap<>();
     private Map<String, String> moduleToApp = new HashMap<>();
+    private Map<Integer, FogDevice> deviceById = new HashMap<>();
+    private Map<String, FogDevice> deviceByName = new HashMap<>();
 
     int fonID;
 
@@ -37,6 +37,11 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
     Map<Integer, Map<String, Integer>> mappedMicroservices = new HashMap<>();
     ; //mappedMicroservice
 
+    /**
+     * Order of the devices of the clusters, updated as modules are placed
+     */
+    ClusterDeviceIndex clusterDeviceIndex;
+
     public ClusteredMicroservicePlacementLogic(int fonID) {
         setFONId(fonID);
     }
@@ -58,7 +63,13 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
 
         setCurrentCpuLoad(new HashMap<Integer, Double>());
         setCurrentModuleMap(new HashMap<>());
+        deviceById = new HashMap<>();
+        deviceByName = new HashMap<>();
+        clusterDeviceIndex = new ClusterDeviceIndex();
         for (FogDevice dev : fogDevices) {
+            deviceById.put(dev.getId(), dev);
+            if (!deviceByName.containsKey(dev.getName()))
+                deviceByName.put(dev.getName(), dev);
             getCurrentCpuLoad().put(dev.getId(), 0.0);
             getCurrentModuleMap().put(dev.getId(), new ArrayList<>());
             currentModuleLoadMap.put(dev.getId(), new HashMap<String, Double>());
@@ -87,7 +98,9 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
 
     private PlacementLogicOutput generatePlacementMap() {
         Map<Integer, Map<String, Integer>> placement = new HashMap<>();
+        Map<Integer, PlacementRequest> placementRequestById = new HashMap<>();
         for (PlacementRequest placementRequest : placementRequests) {
+            placementRequestById.put(placementRequest.getPlacementRequestId(), placementRequest);
             List<String> toRemove = new ArrayList<>();
             //placement should include newly placed ones
             for (String microservice : mappedMicroservices.get(placementRequest.getPlacementRequestId()).keySet()) {
@@ -111,11 +124,7 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
         if (placement != null) {
             for (int prID : placement.keySet()) {
                 //retrieve application
-                PlacementRequest placementRequest = null;
-                for (PlacementRequest pr : placementRequests) {
-                    if (pr.getPlacementRequestId() == prID)
-                        placementRequest = pr;
-                }
+                PlacementRequest placementRequest = placementRequestById.get(prID);
                 Application application = applicationInfo.get(placementRequest.getApplicationId());
                 for (String microserviceName : placement.get(prID).keySet()) {
                     int deviceID = placement.get(prID).get(microserviceName);
@@ -180,15 +189,7 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
     }
 
     public List<String> getClientServices(Application application, String microservice) {
-        List<String> clientServices = new LinkedList<>();
-
-        for (AppEdge edge : application.getEdges()) {
-            if (edge.getDestination().equals(microservice) && edge.getDirection() == Tuple.UP)
-                clientServices.add(edge.getSource());
-        }
-
-
-        return clientServices;
+        return new LinkedList<>(application.getClientModules(microservice));
     }
 
     @Override
@@ -218,41 +219,7 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
             mappedMicroservices.put(placementRequest.getPlacementRequestId(), new HashMap<>(placementRequest.getPlacedMicroservices()));
 
             //special modules  - predefined cloud placements
-            Application app =  applicationInfo.get(placementRequest.getApplicationId());
-            for (String microservice : app.getSpecialPlacementInfo().keySet()) {
-                for (String deviceName : app.getSpecialPlacementInfo().get(microservice)) {
-                    FogDevice device = getDeviceByName(deviceName);
-                    int deviceId = device.getId();
-
-                    if (getModule(microservice, app).getMips() + getCurrentCpuLoad().get(deviceId) <= resourceAvailability.get(deviceId).get(ControllerComponent.CPU)) {
-                        Logger.debug("ModulePlacementEdgeward", "Placement of operator " + microservice + " on device " + device.getName() + " successful.");
-                        getCurrentCpuLoad().put(deviceId, getModule(microservice, app).getMips() + getCurrentCpuLoad().get(deviceId));
-                        System.out.println("Placement of operator " + microservice + " on device " + device.getName() + " successful.");
-
-                        moduleToApp.put(microservice, app.getAppId());
-
-                        if (!currentModuleMap.get(deviceId).contains(microservice))
-                            currentModuleMap.get(deviceId).add(microservice);
-
-                        mappedMicroservices.get(placementRequest.getPlacementRequestId()).put(microservice, deviceId);
-
-                        //currentModuleLoad
-                        if (!currentModuleLoadMap.get(deviceId).containsKey(microservice))
-                            currentModuleLoadMap.get(deviceId).put(microservice, getModule(microservice, app).getMips());
-                        else
-                            currentModuleLoadMap.get(deviceId).put(microservice, getModule(microservice, app).getMips() + currentModuleLoadMap.get(deviceId).get(microservice));
-
-
-                        //currentModuleInstance
-                        if (!currentModuleInstanceNum.get(deviceId).containsKey(microservice))
-                            currentModuleInstanceNum.get(deviceId).put(microservice, 1);
-                        else
-                            currentModuleInstanceNum.get(deviceId).put(microservice, currentModuleInstanceNum.get(deviceId).get(microservice) + 1);
-
-                        break;
-                    }
-                }
-            }
+            placeSpecialModules(placementRequest);
         }
 
         Map<PlacementRequest, Integer> clusterNode = new HashMap<>();
@@ -282,30 +249,7 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
                         for (String microservice : toPlace.get(placementRequest)) {
                             // try to place
                             if (getModule(microservice, app).getMips() + getCurrentCpuLoad().get(deviceId) <= resourceAvailability.get(deviceId).get(ControllerComponent.CPU)) {
-                                Logger.debug("ModulePlacementEdgeward", "Placement of operator " + microservice + " on device " + device.getName() + " successful.");
-                                getCurrentCpuLoad().put(deviceId, getModule(microservice, app).getMips() + getCurrentCpuLoad().get(deviceId));
-                                System.out.println("Placement of operator " + microservice + " on device " + device.getName() + " successful.");
-
-                                moduleToApp.put(microservice, app.getAppId());
-
-                                if (!currentModuleMap.get(deviceId).contains(microservice))
-                                    currentModuleMap.get(deviceId).add(microservice);
-
-                                mappedMicroservices.get(placementRequest.getPlacementRequestId()).put(microservice, deviceId);
-
-                                //currentModuleLoad
-                                if (!currentModuleLoadMap.get(deviceId).containsKey(microservice))
-                                    currentModuleLoadMap.get(deviceId).put(microservice, getModule(microservice, app).getMips());
-                                else
-                                    currentModuleLoadMap.get(deviceId).put(microservice, getModule(microservice, app).getMips() + currentModuleLoadMap.get(deviceId).get(microservice));
-
-
-                                //currentModuleInstance
-                                if (!currentModuleInstanceNum.get(deviceId).containsKey(microservice))
-                                    currentModuleInstanceNum.get(deviceId).put(microservice, 1);
-                                else
-                                    currentModuleInstanceNum.get(deviceId).put(microservice, currentModuleInstanceNum.get(deviceId).get(microservice) + 1);
-
+                                placeModule(placementRequest, app, microservice, deviceId);
                                 placed.add(microservice);
                             }
                         }
@@ -330,82 +274,13 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
                         int clusterDeviceId = clusterNode.get(placementRequest);
                         FogDevice device = getDevice(clusterDeviceId);
                         List<Integer> clusterDeviceIds = ((MicroserviceFogDevice) device).getClusterMembers();
-                        List<Integer> sortedClusterDevicesActive = new ArrayList<>();
-                        List<Integer> sortedClusterDevicesInactive = new ArrayList<>();
-                        for (Integer id : clusterDeviceIds) {
-                            //sort list from min to max
-                            if (currentModuleMap.get(id).size()>0 && sortedClusterDevicesActive.isEmpty())
-                                sortedClusterDevicesActive.add(id);
-                            else if(currentModuleMap.get(id).size()==0 && sortedClusterDevicesInactive.isEmpty())
-                                sortedClusterDevicesInactive.add(id);
-                            else if(currentModuleMap.get(id).size()>0){
-                                boolean isPlaced = false;
-                                for (int i = 0; i < sortedClusterDevicesActive.size(); i++) {
-                                    double sorted = resourceAvailability.get(sortedClusterDevicesActive.get(i)).get("cpu") -
-                                            getCurrentCpuLoad().get(sortedClusterDevicesActive.get(i));
-                                    double current = resourceAvailability.get(id).get("cpu") -
-                                            getCurrentCpuLoad().get(id);
-                                    if (sorted < current) {sortedClusterDevicesActive.add(i, id);
-                                        isPlaced = true;
-                                        break;
-                                    } else {
-                                        continue;
-                                    }
-                                }
-                                if (!isPlaced)
-                                    sortedClusterDevicesActive.add(id);
-                            }
-                            else{
-                                boolean isPlaced = false;
-                                for (int i = 0; i < sortedClusterDevicesInactive.size(); i++) {
-                                    double sorted = resourceAvailability.get(sortedClusterDevicesInactive.get(i)).get("cpu") -
-                                            getCurrentCpuLoad().get(sortedClusterDevicesInactive.get(i));
-                                    double current = resourceAvailability.get(id).get("cpu") -
-                                            getCurrentCpuLoad().get(id);
-                                    if (sorted < current) {sortedClusterDevicesInactive.add(i, id);
-                                        isPlaced = true;
-                                        break;
-                                    } else {
-                                        continue;
-                                    }
-                                }
-                                if (!isPlaced)
-                                    sortedClusterDevicesInactive.add(id);
-                            }
-                        }
-
-                        List<Integer> sortedClusterDevices = new ArrayList<>(sortedClusterDevicesActive);
-                        sortedClusterDevices.addAll(sortedClusterDevicesInactive);
+                        List<Integer> sortedClusterDevices = getSortedClusterDevices(clusterDeviceId, clusterDeviceIds);
                         List<String> placed = new ArrayList<>();
                         for (String microservice : toPlace.get(placementRequest)) {
                             for (int id : sortedClusterDevices) {
                                 // try to place
                                 if (getModule(microservice, app).getMips() + getCurrentCpuLoad().get(id) <= resourceAvailability.get(id).get(ControllerComponent.CPU)) {
-                                    FogDevice placedDevice = getDevice(id);
-                                    Logger.debug("ModulePlacementEdgeward", "Placement of operator " + microservice + " on device " + placedDevice.getName() + " successful.");
-                                    getCurrentCpuLoad().put(id, getModule(microservice, app).getMips() + getCurrentCpuLoad().get(id));
-                                    System.out.println("Placement of operator " + microservice + " on device " + placedDevice.getName() + " successful.");
-
-                                    if (!currentModuleMap.get(id).contains(microservice))
-                                        currentModuleMap.get(id).add(microservice);
-
-                                    mappedMicroservices.get(placementRequest.getPlacementRequestId()).put(microservice, id);
-
-                                    moduleToApp.put(microservice, app.getAppId());
-
-                                    //currentModuleLoad
-                                    if (!currentModuleLoadMap.get(id).containsKey(microservice))
-                                        currentModuleLoadMap.get(id).put(microservice, getModule(microservice, app).getMips());
-                                    else
-                                        currentModuleLoadMap.get(id).put(microservice, getModule(microservice, app).getMips() + currentModuleLoadMap.get(id).get(microservice));
-
-
-                                    //currentModuleInstance
-                                    if (!currentModuleInstanceNum.get(id).containsKey(microservice))
-                                        currentModuleInstanceNum.get(id).put(microservice, 1);
-                                    else
-                                        currentModuleInstanceNum.get(id).put(microservice, currentModuleInstanceNum.get(id).get(microservice) + 1);
-
+                                    placeModule(placementRequest, app, microservice, id);
                                     placed.add(microservice);
                                     break;
                                 }
@@ -428,57 +303,104 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
 
     }
 
-    private FogDevice getDeviceByName(String deviceName) {
-        for (FogDevice f : fogDevices) {
-            if (f.getName().equals(deviceName))
-                return f;
+    /**
+     * Places the predefined placements of the modules of a request, e.g. on the cloud, where they fit.
+     */
+    protected void placeSpecialModules(PlacementRequest placementRequest) {
+        Application app = applicationInfo.get(placementRequest.getApplicationId());
+        for (String microservice : app.getSpecialPlacementInfo().keySet()) {
+            for (String deviceName : app.getSpecialPlacementInfo().get(microservice)) {
+                FogDevice device = getDeviceByName(deviceName);
+                int deviceId = device.getId();
+
+                if (getModule(microservice, app).getMips() + getCurrentCpuLoad().get(deviceId) <= resourceAvailability.get(deviceId).get(ControllerComponent.CPU)) {
+                    placeModule(placementRequest, app, microservice, deviceId);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Places a module of a request on a device and accounts its load.
+     */
+    protected void placeModule(PlacementRequest placementRequest, Application app, String microservice, int deviceId) {
+        FogDevice device = getDevice(deviceId);
+        if (Logger.ENABLED)
+            Logger.debug("ModulePlacementEdgeward", "Placement of operator " + microservice + " on device " + device.getName() + " successful.");
+        getCurrentCpuLoad().put(deviceId, getModule(microservice, app).getMips() + getCurrentCpuLoad().get(deviceId));
+        System.out.println("Placement of operator " + microservice + " on device " + device.getName() + " successful.");
+
+        moduleToApp.put(microservice, app.getAppId());
+
+        if (!currentModuleMap.get(deviceId).contains(microservice))
+            currentModuleMap.get(deviceId).add(microservice);
+
+        mappedMicroservices.get(placementRequest.getPlacementRequestId()).put(microservice, deviceId);
+
+        //currentModuleLoad
+        if (!currentModuleLoadMap.get(deviceId).containsKey(microservice))
+            currentModuleLoadMap.get(deviceId).put(microservice, getModule(microservice, app).getMips());
+        else
+            currentModuleLoadMap.get(deviceId).put(microservice, getModule(microservice, app).getMips() + currentModuleLoadMap.get(deviceId).get(microservice));
+
+
+        //currentModuleInstance
+        if (!currentModuleInstanceNum.get(deviceId).containsKey(microservice))
+            currentModuleInstanceNum.get(deviceId).put(microservice, 1);
+        else
+            currentModuleInstanceNum.get(deviceId).put(microservice, currentModuleInstanceNum.get(deviceId).get(microservice) + 1);
+
+        if (clusterDeviceIndex.getKey(deviceId) != null)
+            clusterDeviceIndex.update(deviceId, getRemainingCpu(deviceId), true);
+    }
+
+    /**
+     * Returns the devices of a cluster in the order modules are tried on them: devices already running modules
+     * first, then the others, each from the most to the least available CPU.
+     */
+    protected List<Integer> getSortedClusterDevices(int clusterDeviceId, List<Integer> clusterDeviceIds) {
+        indexClusterDevices(clusterDeviceIds);
+        return clusterDeviceIndex.getOrder(clusterDeviceId, clusterDeviceIds);
+    }
+
+    protected void indexClusterDevices(List<Integer> clusterDeviceIds) {
+        for (int id : clusterDeviceIds) {
+            if (clusterDeviceIndex.getKey(id) == null)
+                clusterDeviceIndex.update(id, getRemainingCpu(id), currentModuleMap.get(id).size() > 0);
         }
-        return null;
+    }
+
+    protected double getRemainingCpu(int deviceId) {
+        return resourceAvailability.get(deviceId).get(ControllerComponent.CPU) - getCurrentCpuLoad().get(deviceId);
+    }
+
+    protected FogDevice getDeviceByName(String deviceName) {
+        return deviceByName.get(deviceName);
     }
 
     public Map<Integer, Double> getCurrentCpuLoad() {
         return currentCpuLoad;
     }
 
-    private AppModule getModule(String moduleName, Application app) {
-        for (AppModule appModule : app.getModules()) {
-            if (appModule.getName().equals(moduleName))
-                return appModule;
-        }
-        return null;
+    protected AppModule getModule(String moduleName, Application app) {
+        return app.getModuleByName(moduleName);
     }
 
-    private FogDevice getDevice(int deviceId) {
-        for (FogDevice fogDevice : fogDevices) {
-            if (fogDevice.getId() == deviceId)
-                return fogDevice;
-        }
-        return null;
+    protected FogDevice getDevice(int deviceId) {
+        return deviceById.get(deviceId);
     }
 
-    private List<String> getModulesToPlace(Set<String> placedModules, Application app) {
-        List<String> modulesToPlace_1 = new ArrayList<String>();
+    protected List<String> getModulesToPlace(Set<String> placedModules, Application app) {
         List<String> modulesToPlace = new ArrayList<String>();
         for (AppModule module : app.getModules()) {
-            if (!placedModules.contains(module.getName()))
-                modulesToPlace_1.add(module.getName());
-        }
-        /*
-         * Filtering based on whether modules (to be placed) lower in physical topology are already placed
-         */
-        for (String moduleName : modulesToPlace_1) {
-            boolean toBePlaced = true;
-
-            for (AppEdge edge : app.getEdges()) {
-                //CHECK IF OUTGOING DOWN EDGES ARE PLACED
-                if (edge.getSource().equals(moduleName) && edge.getDirection() == Tuple.DOWN && !placedModules.contains(edge.getDestination()))
-                    toBePlaced = false;
-                //CHECK IF INCOMING UP EDGES ARE PLACED
-                if (edge.getDestination().equals(moduleName) && edge.getDirection() == Tuple.UP && !placedModules.contains(edge.getSource()))
-                    toBePlaced = false;
-            }
-            if (toBePlaced)
-                modulesToPlace.add(moduleName);
+            if (placedModules.contains(module.getName()))
+                continue;
+            /*
+             * Filtering based on whether modules (to be placed) lower in physical topology are already placed
+             */
+            if (placedModules.containsAll(app.getPlacementPrerequisites(module.getName())))
+                modulesToPlace.add(module.getName());
         }
 
         return modulesToPlace;
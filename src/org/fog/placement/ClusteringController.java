@@ -11,6 +11,7 @@ import org.fog.entities.FogDevice;
 import org.fog.entities.Sensor;
 import org.fog.mobilitydata.References;
 import org.fog.utils.*;
+import org.fog.utils.trace.Tracer;
 import org.json.simple.JSONObject;
 
 import java.util.*;
@@ -85,19 +86,21 @@ public class ClusteringController extends SimEntity {
     }
 
     private void connectWithLatencies() {
-
-        for (String dataId : locator.getDataIdsLevelReferences().keySet()) {
-            for (int instenceId : locator.getInstenceDataIdReferences().keySet()) {
-                if (locator.getInstenceDataIdReferences().get(instenceId).equals(dataId)) {
-                    FogDevice fogDevice = getFogDeviceById(instenceId);
-                    if (locator.getDataIdsLevelReferences().get(dataId) == locator.getLevelID("User") && fogDevice.getParentId() == References.NOT_SET) {
-                        int parentID = locator.determineParent(fogDevice.getId(), References.INIT_TIME);
-                        parentReference.put(fogDevice.getId(), parentID);
-                        fogDevice.setParentId(parentID);
-                    } else
-                        parentReference.put(fogDevice.getId(), fogDevice.getParentId());
-                }
-            }
+        // the users are linked to their nearest resources together
+        List<Integer> users = new ArrayList<Integer>();
+        for (Map.Entry<Integer, String> instance : locator.getInstenceDataIdReferences().entrySet()) {
+            Integer level = locator.getDataIdsLevelReferences().get(instance.getValue());
+            if (level == null)
+                continue;
+            FogDevice fogDevice = getFogDeviceById(instance.getKey());
+            if (level == locator.getLevelID("User") && fogDevice.getParentId() == References.NOT_SET)
+                users.add(fogDevice.getId());
+            else
+                parentReference.put(fogDevice.getId(), fogDevice.getParentId());
+        }
+        for (Map.Entry<Integer, Integer> parent : locator.determineParents(users, References.INIT_TIME).entrySet()) {
+            parentReference.put(parent.getKey(), parent.getValue());
+            getFogDeviceById(parent.getKey()).setParentId(parent.getValue());
         }
 
 
@@ -164,7 +167,7 @@ public class ClusteringController extends SimEntity {
                 printCostDetails();
                 printNetworkUsageDetails();
                 printMigrationDelayDetails();
-                System.exit(0);
+                FogUtils.endSimulation();
                 break;
 
         }
@@ -202,10 +205,20 @@ public class ClusteringController extends SimEntity {
 
     @SuppressWarnings("unchecked")
     private void processMobility(SimEvent ev) {
+        List<FogDevice> movingDevices = (List<FogDevice>) ev.getData();
+        List<Integer> deviceIds = new ArrayList<Integer>();
+        for (FogDevice fogDevice : movingDevices)
+            deviceIds.add(fogDevice.getId());
+        Map<Integer, Integer> newParents = locator.determineParents(deviceIds, CloudSim.clock());
+        for (FogDevice fogDevice : movingDevices)
+            processMobility(fogDevice, newParents.get(fogDevice.getId()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void processMobility(FogDevice fogDevice, int newParentId) {
         // TODO Auto-generated method stub
-        FogDevice fogDevice = (FogDevice) ev.getData();
         FogDevice prevParent = getFogDeviceById(parentReference.get(fogDevice.getId()));
-        FogDevice newParent = getFogDeviceById(locator.determineParent(fogDevice.getId(), CloudSim.clock()));
+        FogDevice newParent = getFogDeviceById(newParentId);
         System.out.println(CloudSim.clock() + " Starting Mobility Management for " + fogDevice.getName());
         parentReference.put(fogDevice.getId(), newParent.getId());
         List<String> migratingModules = new ArrayList<String>();
@@ -254,6 +267,7 @@ public class ClusteringController extends SimEntity {
 
                     send(prevParent.getId(), upDelay, FogEvents.MODULE_SEND, jsonSend);
                     send(newParent.getId(), downDelay, FogEvents.MODULE_RECEIVE, jsonReceive);
+                    Tracer.migration(moduleName, prevParent, newParent);
                     System.out.println("Migrating " + moduleName + " from " + prevParent.getName() + " to " + newParent.getName());
                 }
             }
@@ -305,15 +319,22 @@ public class ClusteringController extends SimEntity {
     }
 
     private void processMobilityData() {
-        // TODO Auto-generated method stub
-        List<Double> timeSheet = new ArrayList<Double>();
+        // the users moving at the same time are handled by one event
+        TreeMap<Double, List<FogDevice>> movingDevices = new TreeMap<Double, List<FogDevice>>();
         for (FogDevice fogDevice : getFogDevices()) {
             if (locator.isAMobileDevice(fogDevice.getId())) {
-                timeSheet = locator.getTimeSheet(fogDevice.getId());
-                for (double timeEntry : timeSheet)
-                    send(getId(), timeEntry, FogEvents.MOBILITY_MANAGEMENT, fogDevice);
+                for (double timeEntry : locator.getTimeSheet(fogDevice.getId())) {
+                    List<FogDevice> devices = movingDevices.get(timeEntry);
+                    if (devices == null) {
+                        devices = new ArrayList<FogDevice>();
+                        movingDevices.put(timeEntry, devices);
+                    }
+                    devices.add(fogDevice);
+                }
             }
         }
+        for (Map.Entry<Double, List<FogDevice>> timeEntry : movingDevices.entrySet())
+            send(getId(), timeEntry.getKey(), FogEvents.MOBILITY_MANAGEMENT, timeEntry.getValue());
     }
 
     private void printNetworkUsageDetails() {
@@ -357,7 +378,7 @@ public class ClusteringController extends SimEntity {
         System.out.println("=========================================");
         //System.out.println("APPLICATION LOOP DELAYS");
         //System.out.println("=========================================");
-        //for(Integer loopId : TimeKeeper.getInstance().getLoopIdToTupleIds().keySet()){
+        //for(Integer loopId : TimeKeeper.getInstance().getLoopIds()){
 			/*double average = 0, count = 0;
 			for(int tupleId : TimeKeeper.getInstance().getLoopIdToTupleIds().get(loopId)){
 				Double startTime = 	TimeKeeper.getInstance().getEmitTimes().get(tupleId);
@@ -368,7 +389,7 @@ public class ClusteringController extends SimEntity {
 				count += 1;
 			}
 			System.out.println(getStringForLoopId(loopId) + " ---> "+(average/count));*/
-        //System.out.println(getStringForLoopId(loopId) + " ---> "+TimeKeeper.getInstance().getLoopIdToCurrentAverage().get(loopId));
+        //System.out.println(getStringForLoopId(loopId) + " ---> "+TimeKeeper.getInstance().getLoopAverageDelay(loopId));
         //}
         System.out.println("=========================================");
         System.out.println("TUPLE CPU EXECUTION DELAY");
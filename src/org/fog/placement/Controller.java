@@ -14,6 +14,7 @@ import org.fog.application.AppModule;
 import org.fog.application.Application;
 import org.fog.entities.Actuator;
 import org.fog.entities.FogDevice;
+import org.fog.entities.FogLink;
 import org.fog.entities.Sensor;
 import org.fog.utils.Config;
 import org.fog.utils.FogEvents;
@@ -103,7 +104,9 @@ public class Controller extends SimEntity{
 			printPowerDetails();
 			printCostDetails();
 			printNetworkUsageDetails();
-			System.exit(0);
+			if(Config.PRINT_LINK_DETAILS)
+				printLinkDetails();
+			FogUtils.endSimulation();
 			break;
 			
 		}
@@ -113,6 +116,27 @@ public class Controller extends SimEntity{
 		System.out.println("Total network usage = "+NetworkUsageMonitor.getNetworkUsage()/Config.MAX_SIMULATION_TIME);		
 	}
 
+	private void printLinkDetails() {
+		System.out.println("=========================================");
+		System.out.println("LINK UTILIZATION, QUEUEING DELAY AND DROPS");
+		System.out.println("=========================================");
+		for(FogDevice fogDevice : getFogDevices()){
+			printLinkDetails(fogDevice.getNorthLink());
+			printLinkDetails(fogDevice.getSouthLink());
+		}
+		System.out.println("=========================================");
+	}
+
+	private void printLinkDetails(FogLink link) {
+		if(link.getTransmittedTuples()==0 && link.getDroppedTuples()==0)
+			return;
+		System.out.println(link.getName() + " : Utilization = "+link.getUtilization(CloudSim.clock())
+				+ "\tAverage queueing delay = "+link.getAverageQueueingDelay()
+				+ "\tMax queueing delay = "+link.getMaxQueueingDelay()
+				+ "\tMax queue length = "+link.getMaxQueueLength()
+				+ "\tDropped tuples = "+link.getDroppedTuples());
+	}
+
 	private FogDevice getCloud(){
 		for(FogDevice dev : getFogDevices())
 			if(dev.getName().equals("cloud"))
@@ -148,7 +172,7 @@ public class Controller extends SimEntity{
 		System.out.println("=========================================");
 		System.out.println("APPLICATION LOOP DELAYS");
 		System.out.println("=========================================");
-		for(Integer loopId : TimeKeeper.getInstance().getLoopIdToTupleIds().keySet()){
+		for(Integer loopId : TimeKeeper.getInstance().getLoopIds()){
 			/*double average = 0, count = 0;
 			for(int tupleId : TimeKeeper.getInstance().getLoopIdToTupleIds().get(loopId)){
 				Double startTime = 	TimeKeeper.getInstance().getEmitTimes().get(tupleId);
@@ -159,7 +183,7 @@ public class Controller extends SimEntity{
 				count += 1;
 			}
 			System.out.println(getStringForLoopId(loopId) + " ---> "+(average/count));*/
-			System.out.println(getStringForLoopId(loopId) + " ---> "+TimeKeeper.getInstance().getLoopIdToCurrentAverage().get(loopId));
+			System.out.println(getStringForLoopId(loopId) + " ---> "+TimeKeeper.getInstance().getLoopAverageDelay(loopId));
 		}
 		System.out.println("=========================================");
 		System.out.println("TUPLE CPU EXECUTION DELAY");
@@ -1,19 +1,23 @@
 package org.fog.placement;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.fog.mobilitydata.Location;
+import org.fog.mobilitydata.LocationIndex;
 import org.fog.mobilitydata.DataParser;
 import org.fog.mobilitydata.References;
-import org.fog.utils.Config;
 
 public class LocationHandler {
 	
 	public DataParser dataObject;
 	public Map<Integer, String> instanceToDataId;
+	private Map<String, Integer> dataIdToInstance = new HashMap<String, Integer>();
+	private Map<Integer, LocationIndex> levelIndexes = new HashMap<Integer, LocationIndex>();
 	
 
 	public LocationHandler(DataParser dataObject) {
@@ -55,61 +59,77 @@ public class LocationHandler {
 		// TODO Auto-generated method stub
 		String dataId = getDataIdByInstanceID(resourceId);
 		int resourceLevel=getDataObject().resourceAndUserToLevel.get(dataId);
-		int parentLevel = resourceLevel-1;
+		return determineParent(dataId, resourceLevel, getLevelIndex(resourceLevel-1), time);
+	}
+	
+	/**
+	 * Determines the parents of several devices at the same time, e.g. of all users moving at a mobility event.
+	 * The index of the resources of a level is looked up once for all the devices whose parents are of that level.
+	 * @param resourceIds ids of the devices
+	 * @param time the time of the locations of the users
+	 * @return device id -> id of its parent, in the order of the given devices
+	 */
+	public Map<Integer, Integer> determineParents(List<Integer> resourceIds, double time) {
+		Map<Integer, Integer> parents = new LinkedHashMap<Integer, Integer>();
+		Map<Integer, LocationIndex> parentLevelIndexes = new HashMap<Integer, LocationIndex>();
+		for(int resourceId : resourceIds) {
+			String dataId = getDataIdByInstanceID(resourceId);
+			int resourceLevel=getDataObject().resourceAndUserToLevel.get(dataId);
+			LocationIndex parentLevelIndex = parentLevelIndexes.get(resourceLevel-1);
+			if(parentLevelIndex==null) {
+				parentLevelIndex = getLevelIndex(resourceLevel-1);
+				parentLevelIndexes.put(resourceLevel-1, parentLevelIndex);
+			}
+			parents.put(resourceId, determineParent(dataId, resourceLevel, parentLevelIndex, time));
+		}
+		return parents;
+	}
+	
+	private int determineParent(String dataId, int resourceLevel, LocationIndex parentLevelIndex, double time) {
 		Location resourceLoc;
 		if(resourceLevel!=getDataObject().levelID.get("User"))
 			resourceLoc = getResourceLocationInfo(dataId);
 		else
 			resourceLoc = getUserLocationInfo(dataId,time);
 		
-		int parentInstanceId = References.NOT_SET;	
-		String parentDataId = "";
-				
-	
+		int parentInstanceId = References.NOT_SET;
+		
 		if(time<References.INIT_TIME){
-			for(int i=0; i<getLevelWiseResources(parentLevel).size();i++){
-				Location potentialParentLoc = getResourceLocationInfo(getLevelWiseResources(parentLevel).get(i));
-				if(potentialParentLoc.block==resourceLoc.block) {
-					parentDataId = getLevelWiseResources(parentLevel).get(i);
-					for(int parentIdIterator: instanceToDataId.keySet())
-					{
-						if(instanceToDataId.get(parentIdIterator).equals(parentDataId))
-						{
-							parentInstanceId = parentIdIterator;
-						}
-					}
-				}	
+			// the last resource of the block with a device wins
+			for(int parentIndex : parentLevelIndex.getBlockResources(resourceLoc.block)){
+				Integer instanceId = dataIdToInstance.get(parentLevelIndex.getDataId(parentIndex));
+				if(instanceId!=null)
+					parentInstanceId = instanceId;
 			}
 		}
 		else
 		{
-			double minmumDistance = Config.MAX_VALUE;
-			for(int i=0; i<getLevelWiseResources(parentLevel).size();i++){
-				Location potentialParentLoc = getResourceLocationInfo(getLevelWiseResources(parentLevel).get(i));
-				
-				double distance = calculateDistance(resourceLoc, potentialParentLoc);
-					if(distance<minmumDistance){
-						parentDataId = getLevelWiseResources(parentLevel).get(i);
-						minmumDistance = distance;
-					}
+			int parentIndex = parentLevelIndex.nearest(resourceLoc);
+			if(parentIndex>=0){
+				Integer instanceId = dataIdToInstance.get(parentLevelIndex.getDataId(parentIndex));
+				if(instanceId!=null)
+					parentInstanceId = instanceId;
 			}
-			
-			for(int parentIdIterator: instanceToDataId.keySet())
-			{
-				if(instanceToDataId.get(parentIdIterator).equals(parentDataId))
-				{
-					parentInstanceId = parentIdIterator;
-				}
-			}
-			
 		}
 		
 		return parentInstanceId;	
-	}	
+	}
+	
+	private LocationIndex getLevelIndex(int levelNo) {
+		List<String> levelResources = getLevelWiseResources(levelNo);
+		if(levelResources==null)
+			levelResources = new ArrayList<String>();
+		LocationIndex levelIndex = levelIndexes.get(levelNo);
+		if(levelIndex==null || levelIndex.size()!=levelResources.size()) {
+			levelIndex = new LocationIndex(levelResources, getDataObject().resourceLocationData);
+			levelIndexes.put(levelNo, levelIndex);
+		}
+		return levelIndex;
+	}
 
 	private Location getUserLocationInfo(String dataId, double time) {
 		// TODO Auto-generated method stub
-		return getDataObject().usersLocation.get(dataId).get(time);
+		return getDataObject().usersLocation.get(dataId).getLocation(time);
 	}
 
 	private Location getResourceLocationInfo(String dataId) {
@@ -121,13 +141,15 @@ public class LocationHandler {
 	public List<Double> getTimeSheet(int instanceId) {
 		
 		String dataId = getDataIdByInstanceID(instanceId);
-		List<Double>timeSheet = new ArrayList<Double>(getDataObject().usersLocation.get(dataId).keySet());
-		return timeSheet;
+		return getDataObject().usersLocation.get(dataId).getTimes();
 	}
 
 	public void linkDataWithInstance(int instanceId, String dataID) {
 		// TODO Auto-generated method stub
-		instanceToDataId.put(instanceId, dataID);
+		String previousDataId = instanceToDataId.put(instanceId, dataID);
+		if(previousDataId!=null && Integer.valueOf(instanceId).equals(dataIdToInstance.get(previousDataId)))
+			dataIdToInstance.remove(previousDataId);
+		dataIdToInstance.put(dataID, instanceId);
 	}
 
 	public int getLevelID(String resourceType) {
@@ -145,6 +167,10 @@ public class LocationHandler {
 		getDataObject().parseUserData(userMobilityPattern, datasetReference);
 	}
 
+	public void parseUserTraceInfo(Collection<Integer> userIDs, String traceFile) throws IOException {
+		getDataObject().parseUserTraces(userIDs, traceFile);
+	}
+
 	public void parseResourceInfo() throws NumberFormatException, IOException {
 		// TODO Auto-generated method stub
 		getDataObject().parseResourceData();
@@ -18,6 +18,7 @@ import java.util.*;
 public class MicroservicesController extends SimEntity {
 
     protected List<FogDevice> fogDevices;
+    protected NextHopTable routingTable;
     protected List<Sensor> sensors;
     protected Map<String, Application> applications = new HashMap<>();
     protected PlacementLogicFactory placementLogicFactory = new PlacementLogicFactory();
@@ -84,9 +85,25 @@ public class MicroservicesController extends SimEntity {
         generateRoutingTable();
     }
 
+    /**
+     * Creates the load balancer of a device, as selected by {@link MicroservicePlacementConfig#LOAD_BALANCER}.
+     */
+    protected LoadBalancer createLoadBalancer() {
+        String loadBalancer = MicroservicePlacementConfig.LOAD_BALANCER;
+        if (loadBalancer.equals(MicroservicePlacementConfig.JOIN_SHORTEST_QUEUE))
+            return new JoinShortestQueueLoadBalancer();
+        else if (loadBalancer.equals(MicroservicePlacementConfig.POWER_OF_TWO_CHOICES))
+            return new PowerOfTwoChoicesLoadBalancer();
+        else if (loadBalancer.equals(MicroservicePlacementConfig.LATENCY_AWARE))
+            return new LatencyAwareLoadBalancer();
+        else if (!loadBalancer.equals(MicroservicePlacementConfig.ROUND_ROBIN))
+            Logger.error("Load Balancer Error", "Unknown load balancer " + loadBalancer + ", using round robin");
+        return new RRLoadBalancer();
+    }
+
     protected void initializeControllers(int placementLogic) {
         for (FogDevice device : fogDevices) {
-            LoadBalancer loadBalancer = new RRLoadBalancer();
+            LoadBalancer loadBalancer = createLoadBalancer();
             MicroserviceFogDevice cdevice = (MicroserviceFogDevice) device;
 
             //responsible for placement decision making
@@ -102,7 +119,7 @@ public class MicroservicesController extends SimEntity {
 
     protected void initializeControllers(int placementLogic, Map<Integer, List<FogDevice>> monitored) {
         for (FogDevice device : fogDevices) {
-            LoadBalancer loadBalancer = new RRLoadBalancer();
+            LoadBalancer loadBalancer = createLoadBalancer();
             MicroserviceFogDevice cdevice = (MicroserviceFogDevice) device;
 
             //responsible for placement decision making
@@ -125,10 +142,10 @@ public class MicroservicesController extends SimEntity {
     }
 
     protected void generateRoutingTable() {
-        Map<Integer, Map<Integer, Integer>> routing = ShortestPathRoutingGenerator.generateRoutingTable(fogDevices);
+        routingTable = ShortestPathRoutingGenerator.generateNextHopTable(fogDevices);
 
         for (FogDevice f : fogDevices) {
-            ((MicroserviceFogDevice) f).addRoutingTable(routing.get(f.getId()));
+            ((MicroserviceFogDevice) f).addRoutingTable(routingTable.getRoutes(f.getId()));
         }
 
     }
@@ -219,7 +236,7 @@ public class MicroservicesController extends SimEntity {
                 printCostDetails();
                 printNetworkUsageDetails();
                 printQoSDetails();
-                System.exit(0);
+                FogUtils.endSimulation();
                 break;
         }
 
@@ -240,7 +257,7 @@ public class MicroservicesController extends SimEntity {
         double total = 0;
         for (Integer loopId : TimeKeeper.getInstance().getLoopIdToLatencyQoSSuccessCount().keySet()) {
             success += TimeKeeper.getInstance().getLoopIdToLatencyQoSSuccessCount().get(loopId);
-            total += TimeKeeper.getInstance().getLoopIdToCurrentNum().get(loopId);
+            total += TimeKeeper.getInstance().getLoopLatency(loopId).getCount();
         }
 
         double successPercentage = success / total * 100;
@@ -298,7 +315,7 @@ public class MicroservicesController extends SimEntity {
         System.out.println("=========================================");
         System.out.println("APPLICATION LOOP DELAYS");
         System.out.println("=========================================");
-        for (Integer loopId : TimeKeeper.getInstance().getLoopIdToTupleIds().keySet()) {
+        for (Integer loopId : TimeKeeper.getInstance().getLoopIds()) {
 			/*double average = 0, count = 0;
 			for(int tupleId : TimeKeeper.getInstance().getLoopIdToTupleIds().get(loopId)){
 				Double startTime = 	TimeKeeper.getInstance().getEmitTimes().get(tupleId);
@@ -309,7 +326,7 @@ public class MicroservicesController extends SimEntity {
 				count += 1;
 			}
 			System.out.println(getStringForLoopId(loopId) + " ---> "+(average/count));*/
-            System.out.println(getStringForLoopId(loopId) + " ---> " + TimeKeeper.getInstance().getLoopIdToCurrentAverage().get(loopId));
+            System.out.println(getStringForLoopId(loopId) + " ---> " + TimeKeeper.getInstance().getLoopAverageDelay(loopId));
         }
         System.out.println("=========================================");
         System.out.println("TUPLE CPU EXECUTION DELAY");
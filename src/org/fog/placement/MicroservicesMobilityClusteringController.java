@@ -14,13 +14,17 @@ import org.fog.entities.PlacementRequest;
 import org.fog.mobilitydata.References;
 import org.fog.utils.Config;
 import org.fog.utils.FogEvents;
+import org.fog.utils.FogUtils;
 import org.fog.utils.MigrationDelayMonitor;
+import org.fog.utils.ShortestPathRoutingGenerator;
+import org.fog.utils.trace.Tracer;
 import org.json.simple.JSONObject;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -101,7 +105,7 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
                 printCostDetails();
                 printNetworkUsageDetails();
                 printMigrationDelayDetails();
-                System.exit(0);
+                FogUtils.endSimulation();
                 break;
             default:
                 super.processEvent(ev);
@@ -133,18 +137,21 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
 
     @Override
     protected void connectWithLatencies() {
-        for (String dataId : locator.getDataIdsLevelReferences().keySet()) {
-            for (int instenceId : locator.getInstenceDataIdReferences().keySet()) {
-                if (locator.getInstenceDataIdReferences().get(instenceId).equals(dataId)) {
-                    FogDevice fogDevice = getFogDeviceById(instenceId);
-                    if (locator.getDataIdsLevelReferences().get(dataId) == locator.getLevelID("User") && fogDevice.getParentId() == References.NOT_SET) {
-                        int parentID = locator.determineParent(fogDevice.getId(), References.INIT_TIME);
-                        parentReference.put(fogDevice.getId(), parentID);
-                        fogDevice.setParentId(parentID);
-                    } else
-                        parentReference.put(fogDevice.getId(), fogDevice.getParentId());
-                }
-            }
+        // the users are linked to their nearest resources together
+        List<Integer> users = new ArrayList<Integer>();
+        for (Map.Entry<Integer, String> instance : locator.getInstenceDataIdReferences().entrySet()) {
+            Integer level = locator.getDataIdsLevelReferences().get(instance.getValue());
+            if (level == null)
+                continue;
+            FogDevice fogDevice = getFogDeviceById(instance.getKey());
+            if (level == locator.getLevelID("User") && fogDevice.getParentId() == References.NOT_SET)
+                users.add(fogDevice.getId());
+            else
+                parentReference.put(fogDevice.getId(), fogDevice.getParentId());
+        }
+        for (Map.Entry<Integer, Integer> parent : locator.determineParents(users, References.INIT_TIME).entrySet()) {
+            parentReference.put(parent.getKey(), parent.getValue());
+            getFogDeviceById(parent.getKey()).setParentId(parent.getValue());
         }
 
 
@@ -162,12 +169,21 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
         }
     }
 
+    @SuppressWarnings("unchecked")
     private void processMobility(SimEvent ev) {
+        List<FogDevice> movingDevices = (List<FogDevice>) ev.getData();
+        List<Integer> deviceIds = new ArrayList<Integer>();
+        for (FogDevice fogDevice : movingDevices)
+            deviceIds.add(fogDevice.getId());
+        Map<Integer, Integer> newParents = locator.determineParents(deviceIds, CloudSim.clock());
+        for (FogDevice fogDevice : movingDevices)
+            processMobility(fogDevice, newParents.get(fogDevice.getId()));
+    }
 
+    private void processMobility(FogDevice fogDevice, int newParentId) {
         // TODO Auto-generated method stub
-        FogDevice fogDevice = (FogDevice) ev.getData();
         FogDevice prevParent = getFogDeviceById(parentReference.get(fogDevice.getId()));
-        FogDevice newParent = getFogDeviceById(locator.determineParent(fogDevice.getId(), CloudSim.clock()));
+        FogDevice newParent = getFogDeviceById(newParentId);
         System.out.println(CloudSim.clock() + " Starting Mobility Management for " + fogDevice.getName());
         parentReference.put(fogDevice.getId(), newParent.getId());
         Map<String, Integer> migratingModules = new HashMap<>(); // migrating module _> it's device (can be preParent or  device the same cluster
@@ -212,6 +228,7 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
 
                     send(migratingModules.get(moduleName), upDelay, FogEvents.MODULE_SEND, jsonSend);
                     send(newParent.getId(), downDelay, FogEvents.MODULE_RECEIVE, jsonReceive);
+                    Tracer.migration(moduleName, prevParent, newParent);
                     System.out.println("Migrating " + moduleName + " from " + prevParent.getName() + " to " + newParent.getName());
                 }
 
@@ -253,20 +270,8 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
     }
 
     private void updateRoutingTable(FogDevice fogDevice) {
-
-        for (FogDevice f : fogDevices) {
-            if (f.getId() != fogDevice.getId()) {
-                // for mobile device update all to parent
-                ((MicroserviceFogDevice) fogDevice).updateRoutingTable(f.getId(), fogDevice.getParentId());
-
-                ////for other update route to mobile based on route to parent
-                int nextId = ((MicroserviceFogDevice) f).getRoutingTable().get(fogDevice.getParentId());
-                if (f.getId() != nextId)
-                    ((MicroserviceFogDevice) f).updateRoutingTable(fogDevice.getId(), nextId);
-                else
-                    ((MicroserviceFogDevice) f).updateRoutingTable(fogDevice.getId(), fogDevice.getId());
-            }
-        }
+        // a mobile device linked only to its parent just routes through it; otherwise the routes are recomputed
+        ShortestPathRoutingGenerator.updateNextHopTable(routingTable, fogDevices, fogDevice);
     }
 
     private void serviceDiscoveryUpdate(FogDevice fogDevice, Map<String, Integer> migratingModules, String applicationName, int newParent, HashMap<String, Double> upDelays, HashMap<String, Double> downDelays) {
@@ -403,15 +408,22 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
     }
 
     private void processMobilityData() {
-        // TODO Auto-generated method stub
-        List<Double> timeSheet = new ArrayList<Double>();
+        // the users moving at the same time are handled by one event
+        TreeMap<Double, List<FogDevice>> movingDevices = new TreeMap<Double, List<FogDevice>>();
         for (FogDevice fogDevice : fogDevices) {
             if (locator.isAMobileDevice(fogDevice.getId())) {
-                timeSheet = locator.getTimeSheet(fogDevice.getId());
-                for (double timeEntry : timeSheet)
-                    send(getId(), timeEntry, FogEvents.MOBILITY_MANAGEMENT, fogDevice);
+                for (double timeEntry : locator.getTimeSheet(fogDevice.getId())) {
+                    List<FogDevice> devices = movingDevices.get(timeEntry);
+                    if (devices == null) {
+                        devices = new ArrayList<FogDevice>();
+                        movingDevices.put(timeEntry, devices);
+                    }
+                    devices.add(fogDevice);
+                }
             }
         }
+        for (Map.Entry<Double, List<FogDevice>> timeEntry : movingDevices.entrySet())
+            send(getId(), timeEntry.getKey(), FogEvents.MOBILITY_MANAGEMENT, timeEntry.getValue());
     }
 
 
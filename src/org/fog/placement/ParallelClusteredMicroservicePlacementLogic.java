@@ -0,0 +1,209 @@
+package org.fog.placement;
+
+import org.apache.commons.math3.util.Pair;
+import org.fog.application.Application;
+import org.fog.entities.ControllerComponent;
+import org.fog.entities.FogDevice;
+import org.fog.entities.MicroserviceFogDevice;
+import org.fog.entities.PlacementRequest;
+import org.fog.utils.Logger;
+import org.fog.utils.MicroservicePlacementConfig;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Clustered microservice placement that places the requests of a batch one after another, in the order they
+ * are given, and evaluates them concurrently.
+ * <p>
+ * Each request is placed as {@link ClusteredMicroservicePlacementLogic} places a single request: its modules
+ * are placed from the parent of its gateway upwards, on the cluster of a device when they do not fit on the
+ * device. The requests are first evaluated in parallel against the load of the devices before the batch.
+ * The evaluations are then committed in the order of the requests: an evaluation that read only devices
+ * whose load did not change since the batch started is committed as it is, and a request that read a device
+ * an earlier request placed modules on is evaluated again against the committed load. The placement is
+ * therefore the same as placing the requests sequentially, whatever the number of threads, while requests of
+ * different parts of the network are evaluated at the same time.
+ * <p>
+ * Unlike {@link ClusteredMicroservicePlacementLogic}, which places a step of every request in turn, a
+ * request is placed completely before the next one, so a batch can result in a different placement.
+ */
+public class ParallelClusteredMicroservicePlacementLogic extends ClusteredMicroservicePlacementLogic {
+
+    public ParallelClusteredMicroservicePlacementLogic(int fonID) {
+        super(fonID);
+    }
+
+    @Override
+    public void mapModules() {
+        for (PlacementRequest placementRequest : placementRequests) {
+            // already placed modules
+            mappedMicroservices.put(placementRequest.getPlacementRequestId(), new HashMap<>(placementRequest.getPlacedMicroservices()));
+
+            //special modules  - predefined cloud placements
+            placeSpecialModules(placementRequest);
+        }
+
+        // derive the placement dependencies and order the clusters before the evaluations read them concurrently
+        for (Application application : applicationInfo.values()) {
+            for (String moduleName : application.getModuleNames())
+                application.getPlacementPrerequisites(moduleName);
+        }
+        for (FogDevice device : fogDevices) {
+            if (device instanceof MicroserviceFogDevice && ((MicroserviceFogDevice) device).getIsInCluster()) {
+                List<Integer> clusterDeviceIds = device.getClusterMembers();
+                indexClusterDevices(clusterDeviceIds);
+                clusterDeviceIndex.getOrder(device.getId(), clusterDeviceIds);
+            }
+        }
+
+        List<Evaluation> evaluations = evaluateAll();
+
+        Set<Integer> changedDevices = new HashSet<>();
+        for (int i = 0; i < placementRequests.size(); i++) {
+            PlacementRequest placementRequest = placementRequests.get(i);
+            Evaluation evaluation = evaluations.get(i);
+            if (!Collections.disjoint(evaluation.readDevices, changedDevices))
+                evaluation = evaluate(placementRequest);
+            Application app = applicationInfo.get(placementRequest.getApplicationId());
+            for (Pair<String, Integer> placement : evaluation.placements) {
+                placeModule(placementRequest, app, placement.getFirst(), placement.getSecond());
+                changedDevices.add(placement.getSecond());
+            }
+            if (!evaluation.unplaced.isEmpty())
+                Logger.error("Placement Logic Error", "Modules " + evaluation.unplaced + " of placement request "
+                        + placementRequest.getPlacementRequestId() + " do not fit on any device");
+        }
+    }
+
+    private List<Evaluation> evaluateAll() {
+        List<Evaluation> evaluations = new ArrayList<>(placementRequests.size());
+        if (placementRequests.size() < 2 || MicroservicePlacementConfig.PLACEMENT_THREADS < 2) {
+            for (PlacementRequest placementRequest : placementRequests)
+                evaluations.add(evaluate(placementRequest));
+            return evaluations;
+        }
+        List<Callable<Evaluation>> tasks = new ArrayList<>(placementRequests.size());
+        for (final PlacementRequest placementRequest : placementRequests) {
+            tasks.add(new Callable<Evaluation>() {
+                @Override
+                public Evaluation call() {
+                    return evaluate(placementRequest);
+                }
+            });
+        }
+        // the threads of a placement are sized from the current configuration and live only as long as it
+        ForkJoinPool pool = new ForkJoinPool(Math.min(MicroservicePlacementConfig.PLACEMENT_THREADS, tasks.size()));
+        try {
+            for (Future<Evaluation> future : pool.invokeAll(tasks))
+                evaluations.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Placement was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Placement failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return evaluations;
+    }
+
+    /**
+     * Places the modules of a request as {@link ClusteredMicroservicePlacementLogic#mapModules()} places a
+     * single request, against the committed load of the devices and without changing it.
+     *
+     * @return the placements, in order, and the devices whose load they depend on
+     */
+    private Evaluation evaluate(PlacementRequest placementRequest) {
+        Evaluation evaluation = new Evaluation();
+        Application app = applicationInfo.get(placementRequest.getApplicationId());
+        Set<String> placedModules = new HashSet<>(mappedMicroservices.get(placementRequest.getPlacementRequestId()).keySet());
+        int deviceId = getDevice(placementRequest.getGatewayDeviceId()).getParentId();
+        int clusterDeviceId = -1;
+
+        List<String> toPlace = getModulesToPlace(placedModules, app);
+        while (!toPlace.isEmpty()) {
+            List<String> placed = new ArrayList<>();
+            // if not cluster
+            if (deviceId != -1) {
+                FogDevice device = getDevice(deviceId);
+                if (device == null) {
+                    evaluation.unplaced = toPlace;
+                    break;
+                }
+                for (String microservice : toPlace) {
+                    // try to place
+                    if (getModule(microservice, app).getMips() + evaluation.getLoad(deviceId) <= resourceAvailability.get(deviceId).get(ControllerComponent.CPU)) {
+                        evaluation.place(microservice, deviceId, getModule(microservice, app).getMips());
+                        placed.add(microservice);
+                    }
+                }
+                toPlace.removeAll(placed);
+                if (!toPlace.isEmpty()) {
+                    if (((MicroserviceFogDevice) device).getIsInCluster()) {
+                        // -1 indicates it's a cluster placement
+                        clusterDeviceId = deviceId;
+                        deviceId = -1;
+                    } else {
+                        deviceId = device.getParentId();
+                    }
+                }
+            } else {
+                FogDevice device = getDevice(clusterDeviceId);
+                List<Integer> sortedClusterDevices = evaluation.getSortedClusterDevices(clusterDeviceId, device.getClusterMembers());
+                for (String microservice : toPlace) {
+                    for (int id : sortedClusterDevices) {
+                        // try to place
+                        if (getModule(microservice, app).getMips() + evaluation.getLoad(id) <= resourceAvailability.get(id).get(ControllerComponent.CPU)) {
+                            evaluation.place(microservice, id, getModule(microservice, app).getMips());
+                            placed.add(microservice);
+                            break;
+                        }
+                    }
+                }
+                toPlace.removeAll(placed);
+                if (!toPlace.isEmpty())
+                    deviceId = device.getParentId();
+            }
+            placedModules.addAll(placed);
+            if (toPlace.isEmpty())
+                toPlace = getModulesToPlace(placedModules, app);
+        }
+        return evaluation;
+    }
+
+    /**
+     * The placements of a request that are not committed yet, over the committed load of the devices
+     */
+    private class Evaluation {
+        private final List<Pair<String, Integer>> placements = new ArrayList<>();
+        private final Set<Integer> readDevices = new HashSet<>();
+        private final Map<Integer, Double> addedLoad = new HashMap<>();
+        private List<String> unplaced = Collections.emptyList();
+
+        double getLoad(int deviceId) {
+            readDevices.add(deviceId);
+            Double added = addedLoad.get(deviceId);
+            return added != null ? getCurrentCpuLoad().get(deviceId) + added : getCurrentCpuLoad().get(deviceId);
+        }
+
+        void place(String microservice, int deviceId, double mips) {
+            placements.add(new Pair<>(microservice, deviceId));
+            Double added = addedLoad.get(deviceId);
+            addedLoad.put(deviceId, added != null ? added + mips : mips);
+        }
+
+        List<Integer> getSortedClusterDevices(int clusterDeviceId, List<Integer> clusterDeviceIds) {
+            readDevices.addAll(clusterDeviceIds);
+            Map<Integer, ClusterDeviceIndex.DeviceKey> overrides = new HashMap<>();
+            for (int id : addedLoad.keySet()) {
+                double remainingCpu = resourceAvailability.get(id).get(ControllerComponent.CPU) - getLoad(id);
+                overrides.put(id, new ClusterDeviceIndex.DeviceKey(remainingCpu, true));
+            }
+            return clusterDeviceIndex.getOrder(clusterDeviceId, clusterDeviceIds, overrides);
+        }
+    }
+}
@@ -1,18 +1,251 @@
 package org.fog.scheduler;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Consts;
 import org.cloudbus.cloudsim.ResCloudlet;
+import org.cloudbus.cloudsim.core.CloudSim;
 
+/**
+ * Time shared scheduler of the tuples of a module, on a virtual clock of processor sharing.
+ * <p>
+ * All the tuples running on the same number of PEs advance by the same length when the processing is
+ * updated, so the scheduler keeps, for each number of PEs, the total length a tuple has advanced since the
+ * clock was created, and for each tuple the virtual time at which it finishes, in a min-heap. Updating the
+ * processing advances the clocks and takes the finished tuples off the heaps, and the earliest completion
+ * comes from the tops of the heaps, so that neither touches the tuples that keep running. The length a tuple
+ * has run is written to it only when the tuple leaves the execution.
+ * <p>
+ * The lengths, their truncation, the finish order and the estimated completion times are those of
+ * {@link CloudletSchedulerTimeShared}, and the execution list still reads the running tuples in the order
+ * they started.
+ */
 public class TupleScheduler extends CloudletSchedulerTimeShared{
 
+	private static final Comparator<TupleEntry> START_ORDER = new Comparator<TupleEntry>() {
+		@Override
+		public int compare(TupleEntry e1, TupleEntry e2) {
+			return Long.compare(e1.sequence, e2.sequence);
+		}
+	};
+
+	/** The clocks of the tuples, one for each number of PEs the tuples run on. */
+	private List<PesGroup> groups;
+
+	/** The first and last running tuples, in the order they started. */
+	private TupleEntry first;
+	private TupleEntry last;
+
+	private int running;
+	private int pesInUse;
+	private long sequence;
+
+	/** The tuples found finished by an update, before they are finished in the order they started. */
+	private TupleEntry[] finished;
+
 	public TupleScheduler(double mips, int numberOfPes) {
 		//super(mips, numberOfPes);
 		super();
+		groups = new ArrayList<PesGroup>();
+		finished = new TupleEntry[16];
+		setCloudletExecList(new ExecList());
+	}
+
+	@Override
+	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+		setCurrentMipsShare(mipsShare);
+		double timeSpam = currentTime - getPreviousTime();
+
+		if (running == 0) {
+			setPreviousTime(currentTime);
+			return 0.0;
+		}
+
+		double capacity = getCapacity(mipsShare);
+		int finishedCount = 0;
+		for (int i = 0; i < groups.size(); i++) {
+			PesGroup group = groups.get(i);
+			if (group.size == 0)
+				continue;
+			group.virtualTime += (long) (capacity * timeSpam * group.pes * Consts.MILLION);
+			while (group.size > 0 && group.heap[0].finishTag < group.virtualTime) {
+				if (finishedCount == finished.length)
+					finished = Arrays.copyOf(finished, finishedCount * 2);
+				finished[finishedCount++] = group.poll();
+			}
+		}
+
+		// finish the tuples in the order they started, as the execution list does
+		if (finishedCount > 1)
+			Arrays.sort(finished, 0, finishedCount, START_ORDER);
+		for (int i = 0; i < finishedCount; i++) {
+			TupleEntry entry = finished[i];
+			finished[i] = null;
+			unlink(entry);
+			cloudletFinish(entry);
+		}
+
+		// estimate finish time of the earliest tuple of each group
+		double nextEvent = Double.MAX_VALUE;
+		if (running > 0) {
+			capacity = getCapacity(mipsShare);
+			for (int i = 0; i < groups.size(); i++) {
+				PesGroup group = groups.get(i);
+				if (group.size == 0)
+					continue;
+				double estimatedFinishTime = currentTime
+						+ (group.heap[0].getRemainingLength(group.virtualTime) / (capacity * group.pes));
+				if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
+					estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
+				}
+
+				if (estimatedFinishTime < nextEvent) {
+					nextEvent = estimatedFinishTime;
+				}
+			}
+		}
+
+		setPreviousTime(currentTime);
+		return nextEvent;
+	}
+
+	@Override
+	protected double getCapacity(List<Double> mipsShare) {
+		double capacity = 0.0;
+		int cpus = 0;
+		for (Double mips : mipsShare) {
+			capacity += mips;
+			if (mips > 0.0) {
+				cpus++;
+			}
+		}
+		currentCPUs = cpus;
+
+		if (pesInUse > currentCPUs) {
+			capacity /= pesInUse;
+		} else {
+			capacity /= currentCPUs;
+		}
+		return capacity;
+	}
+
+	@Override
+	public double cloudletSubmit(Cloudlet cloudlet, double fileTransferTime) {
+		TupleEntry entry = new TupleEntry(cloudlet);
+		entry.setCloudletStatus(Cloudlet.INEXEC);
+		for (int i = 0; i < cloudlet.getNumberOfPes(); i++) {
+			entry.setMachineAndPeId(0, i);
+		}
+		entry.finishedSoFar = cloudlet.getCloudletFinishedSoFar() * Consts.MILLION;
+
+		link(entry);
+
+		// use the current capacity to estimate the extra amount of
+		// time to file transferring. It must be added to the cloudlet length
+		double extraSize = getCapacity(getCurrentMipsShare()) * fileTransferTime;
+		long length = (long) (cloudlet.getCloudletLength() + extraSize);
+		cloudlet.setCloudletLength(length);
+		start(entry);
+		return cloudlet.getCloudletLength() / getCapacity(getCurrentMipsShare());
+	}
+
+	@Override
+	public Cloudlet cloudletCancel(int cloudletId) {
+		List<ResCloudlet> finishedList = getCloudletFinishedList();
+		for (int i = 0; i < finishedList.size(); i++) {
+			if (finishedList.get(i).getCloudletId() == cloudletId) {
+				return finishedList.remove(i).getCloudlet();
+			}
+		}
+
+		TupleEntry entry = find(cloudletId);
+		if (entry != null) {
+			stop(entry);
+			if (entry.getRemainingCloudletLength() == 0) {
+				cloudletFinish(entry);
+			} else {
+				entry.setCloudletStatus(Cloudlet.CANCELED);
+			}
+			return entry.getCloudlet();
+		}
+
+		List<ResCloudlet> pausedList = getCloudletPausedList();
+		for (int i = 0; i < pausedList.size(); i++) {
+			if (pausedList.get(i).getCloudletId() == cloudletId) {
+				ResCloudlet rcl = pausedList.remove(i);
+				rcl.setCloudletStatus(Cloudlet.CANCELED);
+				return rcl.getCloudlet();
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public boolean cloudletPause(int cloudletId) {
+		TupleEntry entry = find(cloudletId);
+		if (entry == null)
+			return false;
+		stop(entry);
+		if (entry.getRemainingCloudletLength() == 0) {
+			cloudletFinish(entry);
+		} else {
+			entry.setCloudletStatus(Cloudlet.PAUSED);
+			getCloudletPausedList().add(entry);
+		}
+		return true;
+	}
+
+	@Override
+	public double cloudletResume(int cloudletId) {
+		List<ResCloudlet> pausedList = getCloudletPausedList();
+		for (int i = 0; i < pausedList.size(); i++) {
+			if (pausedList.get(i).getCloudletId() == cloudletId) {
+				TupleEntry entry = (TupleEntry) pausedList.remove(i);
+				entry.setCloudletStatus(Cloudlet.INEXEC);
+				link(entry);
+				start(entry);
+
+				double remainingLength = entry.getRemainingCloudletLength();
+				return CloudSim.clock()
+						+ (remainingLength / (getCapacity(getCurrentMipsShare()) * entry.getNumberOfPes()));
+			}
+		}
+		return 0.0;
+	}
+
+	@Override
+	public void cloudletFinish(ResCloudlet rcl) {
+		if (rcl instanceof TupleEntry)
+			((TupleEntry) rcl).synchronize();
+		super.cloudletFinish(rcl);
+	}
+
+	@Override
+	public int runningCloudlets() {
+		return running;
+	}
+
+	@Override
+	public Cloudlet migrateCloudlet() {
+		if (first == null)
+			throw new IndexOutOfBoundsException("Index: 0, Size: 0");
+		TupleEntry entry = first;
+		stop(entry);
+		entry.finalizeCloudlet();
+		return entry.getCloudlet();
 	}
 
 	/**
 	 * Get estimated cloudlet completion time.
-	 * 
+	 *
 	 * @param rcl the rcl
 	 * @param time the time
 	 * @return the estimated finish time
@@ -20,25 +253,277 @@ public class TupleScheduler extends CloudletSchedulerTimeShared{
 	public double getEstimatedFinishTime(ResCloudlet rcl, double time) {
 		//System.out.println("REMAINING CLOUDLET LENGTH : "+rcl.getRemainingCloudletLength()+"\tCLOUDLET LENGTH"+rcl.getCloudletLength());
 		//System.out.println("CURRENT ALLOC MIPS FOR CLOUDLET : "+getTotalCurrentAllocatedMipsForCloudlet(rcl, time));
-		
+
 		/*>>>>>>>>>>>>>>>>>>>>*/
 		/* edit made by HARSHIT GUPTA */
-		
+
+		if (rcl instanceof TupleEntry)
+			((TupleEntry) rcl).synchronize();
 		System.out.println("ALLOCATED MIPS FOR CLOUDLET = "+getTotalCurrentAllocatedMipsForCloudlet(rcl, time));
 		return time
 				+ ((rcl.getRemainingCloudletLength()) / getTotalCurrentAllocatedMipsForCloudlet(rcl, time));
-		
-		
-				
+
+
+
 		//return ((rcl.getRemainingCloudletLength()) / getTotalCurrentAllocatedMipsForCloudlet(rcl, time));
 		/*end of edit*/
 		/*<<<<<<<<<<<<<<<<<<<<<*/
 	}
-	
+
 //	public void cloudletFinish(ResCloudlet rcl) {
 //		rcl.setCloudletStatus(Cloudlet.SUCCESS);
 //		rcl.finalizeCloudlet();
 //		getCloudletFinishedList().add(rcl);
 //	}
-	
+
+	private TupleEntry find(int cloudletId) {
+		for (TupleEntry entry = first; entry != null; entry = entry.next) {
+			if (entry.getCloudletId() == cloudletId)
+				return entry;
+		}
+		return null;
+	}
+
+	/**
+	 * Appends a tuple to the running tuples, as the last one started.
+	 */
+	private void link(TupleEntry entry) {
+		entry.sequence = sequence++;
+		entry.previous = last;
+		entry.next = null;
+		if (last == null)
+			first = entry;
+		else
+			last.next = entry;
+		last = entry;
+		running++;
+		pesInUse += entry.getNumberOfPes();
+	}
+
+	private void unlink(TupleEntry entry) {
+		if (entry.previous == null)
+			first = entry.next;
+		else
+			entry.previous.next = entry.next;
+		if (entry.next == null)
+			last = entry.previous;
+		else
+			entry.next.previous = entry.previous;
+		entry.previous = null;
+		entry.next = null;
+		running--;
+		pesInUse -= entry.getNumberOfPes();
+	}
+
+	/**
+	 * Puts a running tuple on the clock of its number of PEs, once its length is final.
+	 */
+	private void start(TupleEntry entry) {
+		int pes = entry.getNumberOfPes();
+		PesGroup group = null;
+		for (int i = 0; i < groups.size(); i++) {
+			if (groups.get(i).pes == pes) {
+				group = groups.get(i);
+				break;
+			}
+		}
+		if (group == null) {
+			group = new PesGroup(pes);
+			groups.add(group);
+		}
+		entry.group = group;
+		entry.synchronizedTime = group.virtualTime;
+		// the tuple is finished once less than a million instructions of it remain
+		entry.finishTag = group.virtualTime
+				+ (entry.getCloudletTotalLength() * Consts.MILLION - Consts.MILLION - entry.finishedSoFar);
+		group.add(entry);
+	}
+
+	/**
+	 * Takes a tuple off its clock and the running tuples, with the length it has run written to it.
+	 */
+	private void stop(TupleEntry entry) {
+		entry.synchronize();
+		entry.group.remove(entry);
+		unlink(entry);
+	}
+
+	/**
+	 * A tuple submitted to the scheduler, with its place among the running tuples and on its clock.
+	 */
+	private static class TupleEntry extends ResCloudlet {
+
+		private long sequence;
+		private TupleEntry previous;
+		private TupleEntry next;
+
+		private PesGroup group;
+		private int heapIndex = -1;
+
+		/** The virtual time of its clock after which the tuple is finished. */
+		private long finishTag;
+
+		/** The length the tuple has run, up to the virtual time it was last written to the tuple. */
+		private long finishedSoFar;
+		private long synchronizedTime;
+
+		TupleEntry(Cloudlet cloudlet) {
+			super(cloudlet);
+		}
+
+		/**
+		 * Gets the remaining length, as {@link #getRemainingCloudletLength()} does, at a virtual time.
+		 */
+		long getRemainingLength(long virtualTime) {
+			long length = getCloudletTotalLength() * Consts.MILLION - (finishedSoFar + virtualTime - synchronizedTime);
+			if (length < 0) {
+				return 0;
+			}
+			return length / Consts.MILLION;
+		}
+
+		/**
+		 * Writes the length the tuple has run since it was last written, while it is on its clock.
+		 */
+		void synchronize() {
+			if (heapIndex < 0)
+				return;
+			long length = group.virtualTime - synchronizedTime;
+			updateCloudletFinishedSoFar(length);
+			finishedSoFar += length;
+			synchronizedTime = group.virtualTime;
+		}
+	}
+
+	/**
+	 * The virtual clock of the tuples running on a number of PEs, and their finish tags in a binary min-heap.
+	 */
+	private static class PesGroup {
+
+		private final int pes;
+
+		/** The length a tuple on this clock has advanced since the clock was created. */
+		private long virtualTime;
+
+		private TupleEntry[] heap;
+		private int size;
+
+		PesGroup(int pes) {
+			this.pes = pes;
+			this.heap = new TupleEntry[16];
+		}
+
+		void add(TupleEntry entry) {
+			if (size == heap.length)
+				heap = Arrays.copyOf(heap, size * 2);
+			siftUp(size++, entry);
+		}
+
+		/**
+		 * Removes the tuple that finishes first, after writing to it the length it has run.
+		 */
+		TupleEntry poll() {
+			TupleEntry entry = heap[0];
+			entry.synchronize();
+			removeAt(0);
+			return entry;
+		}
+
+		void remove(TupleEntry entry) {
+			removeAt(entry.heapIndex);
+		}
+
+		private void removeAt(int index) {
+			TupleEntry removed = heap[index];
+			TupleEntry moved = heap[--size];
+			heap[size] = null;
+			removed.heapIndex = -1;
+			if (index == size)
+				return;
+			siftDown(index, moved);
+			if (heap[index] == moved)
+				siftUp(index, moved);
+		}
+
+		private void siftUp(int index, TupleEntry entry) {
+			while (index > 0) {
+				int parent = (index - 1) >>> 1;
+				if (!before(entry, heap[parent]))
+					break;
+				place(index, heap[parent]);
+				index = parent;
+			}
+			place(index, entry);
+		}
+
+		private void siftDown(int index, TupleEntry entry) {
+			int half = size >>> 1;
+			while (index < half) {
+				int child = 2 * index + 1;
+				if (child + 1 < size && before(heap[child + 1], heap[child]))
+					child++;
+				if (!before(heap[child], entry))
+					break;
+				place(index, heap[child]);
+				index = child;
+			}
+			place(index, entry);
+		}
+
+		private void place(int index, TupleEntry entry) {
+			heap[index] = entry;
+			entry.heapIndex = index;
+		}
+
+		private static boolean before(TupleEntry e1, TupleEntry e2) {
+			return e1.finishTag < e2.finishTag || (e1.finishTag == e2.finishTag && e1.sequence < e2.sequence);
+		}
+	}
+
+	/**
+	 * The running tuples in the order they started, read by the time shared scheduler as its execution list.
+	 */
+	private class ExecList extends AbstractList<ResCloudlet> {
+
+		@Override
+		public ResCloudlet get(int index) {
+			if (index < 0 || index >= running)
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + running);
+			TupleEntry entry = first;
+			for (int i = 0; i < index; i++)
+				entry = entry.next;
+			return entry;
+		}
+
+		@Override
+		public int size() {
+			return running;
+		}
+
+		@Override
+		public Iterator<ResCloudlet> iterator() {
+			return new Iterator<ResCloudlet>() {
+				private TupleEntry next = first;
+
+				@Override
+				public boolean hasNext() {
+					return next != null;
+				}
+
+				@Override
+				public ResCloudlet next() {
+					if (next == null)
+						throw new NoSuchElementException();
+					TupleEntry entry = next;
+					next = entry.next;
+					return entry;
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
 }
@@ -41,9 +41,6 @@ import org.fog.utils.distribution.DeterministicDistribution;
  *
  */
 public class DCNSFog {
-	static List<FogDevice> fogDevices = new ArrayList<FogDevice>();
-	static List<Sensor> sensors = new ArrayList<Sensor>();
-	static List<Actuator> actuators = new ArrayList<Actuator>();
 	static int numOfAreas = 1;
 	static int numOfCamerasPerArea = 4;
 	
@@ -55,49 +52,7 @@ public class DCNSFog {
 
 		try {
 			Log.disable();
-			int num_user = 1; // number of cloud users
-			Calendar calendar = Calendar.getInstance();
-			boolean trace_flag = false; // mean trace events
-
-			CloudSim.init(num_user, calendar, trace_flag);
-
-			String appId = "dcns"; // identifier of the application
-			
-			FogBroker broker = new FogBroker("broker");
-			
-			Application application = createApplication(appId, broker.getId());
-			application.setUserId(broker.getId());
-			
-			createFogDevices(broker.getId(), appId);
-			
-			Controller controller = null;
-			
-			ModuleMapping moduleMapping = ModuleMapping.createModuleMapping(); // initializing a module mapping
-			for(FogDevice device : fogDevices){
-				if(device.getName().startsWith("m")){ // names of all Smart Cameras start with 'm' 
-					moduleMapping.addModuleToDevice("motion_detector", device.getName());  // fixing 1 instance of the Motion Detector module to each Smart Camera
-				}
-			}
-			moduleMapping.addModuleToDevice("user_interface", "cloud"); // fixing instances of User Interface module in the Cloud
-			if(CLOUD){
-				// if the mode of deployment is cloud-based
-				moduleMapping.addModuleToDevice("object_detector", "cloud"); // placing all instances of Object Detector module in the Cloud
-				moduleMapping.addModuleToDevice("object_tracker", "cloud"); // placing all instances of Object Tracker module in the Cloud
-			}
-			
-			controller = new Controller("master-controller", fogDevices, sensors, 
-					actuators);
-			
-			controller.submitApplication(application, 
-					(CLOUD)?(new ModulePlacementMapping(fogDevices, application, moduleMapping))
-							:(new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping)));
-			
-			TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
-			
-			CloudSim.startSimulation();
-
-			CloudSim.stopSimulation();
-
+			simulate();
 			Log.printLine("VRGame finished!");
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -105,12 +60,72 @@ public class DCNSFog {
 		}
 	}
 	
+	/**
+	 * Runs the simulation in the simulation context bound to the calling thread. The entities are 
+	 * created anew in every call, so that replications can run in parallel.
+	 * @return the fog devices of the simulation
+	 * @throws Exception
+	 */
+	static List<FogDevice> simulate() throws Exception {
+		int num_user = 1; // number of cloud users
+		Calendar calendar = Calendar.getInstance();
+		boolean trace_flag = false; // mean trace events
+
+		CloudSim.init(num_user, calendar, trace_flag);
+
+		String appId = "dcns"; // identifier of the application
+		
+		List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+		List<Sensor> sensors = new ArrayList<Sensor>();
+		List<Actuator> actuators = new ArrayList<Actuator>();
+		
+		FogBroker broker = new FogBroker("broker");
+		
+		Application application = createApplication(appId, broker.getId());
+		application.setUserId(broker.getId());
+		
+		createFogDevices(broker.getId(), appId, fogDevices, sensors, actuators);
+		
+		Controller controller = null;
+		
+		ModuleMapping moduleMapping = ModuleMapping.createModuleMapping(); // initializing a module mapping
+		for(FogDevice device : fogDevices){
+			if(device.getName().startsWith("m")){ // names of all Smart Cameras start with 'm' 
+				moduleMapping.addModuleToDevice("motion_detector", device.getName());  // fixing 1 instance of the Motion Detector module to each Smart Camera
+			}
+		}
+		moduleMapping.addModuleToDevice("user_interface", "cloud"); // fixing instances of User Interface module in the Cloud
+		if(CLOUD){
+			// if the mode of deployment is cloud-based
+			moduleMapping.addModuleToDevice("object_detector", "cloud"); // placing all instances of Object Detector module in the Cloud
+			moduleMapping.addModuleToDevice("object_tracker", "cloud"); // placing all instances of Object Tracker module in the Cloud
+		}
+		
+		controller = new Controller("master-controller", fogDevices, sensors, 
+				actuators);
+		
+		controller.submitApplication(application, 
+				(CLOUD)?(new ModulePlacementMapping(fogDevices, application, moduleMapping))
+						:(new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping)));
+		
+		TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
+		
+		CloudSim.startSimulation();
+
+		CloudSim.stopSimulation();
+		
+		return fogDevices;
+	}
+	
 	/**
 	 * Creates the fog devices in the physical topology of the simulation.
 	 * @param userId
 	 * @param appId
+	 * @param fogDevices
+	 * @param sensors
+	 * @param actuators
 	 */
-	private static void createFogDevices(int userId, String appId) {
+	private static void createFogDevices(int userId, String appId, List<FogDevice> fogDevices, List<Sensor> sensors, List<Actuator> actuators) {
 		FogDevice cloud = createFogDevice("cloud", 44800, 40000, 100, 10000, 0, 0.01, 16*103, 16*83.25);
 		cloud.setParentId(-1);
 		fogDevices.add(cloud);
@@ -119,17 +134,17 @@ public class DCNSFog {
 		proxy.setUplinkLatency(100); // latency of connection between proxy server and cloud is 100 ms
 		fogDevices.add(proxy);
 		for(int i=0;i<numOfAreas;i++){
-			addArea(i+"", userId, appId, proxy.getId());
+			addArea(i+"", userId, appId, proxy.getId(), fogDevices, sensors, actuators);
 		}
 	}
 
-	private static FogDevice addArea(String id, int userId, String appId, int parentId){
+	private static FogDevice addArea(String id, int userId, String appId, int parentId, List<FogDevice> fogDevices, List<Sensor> sensors, List<Actuator> actuators){
 		FogDevice router = createFogDevice("d-"+id, 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333);
 		fogDevices.add(router);
 		router.setUplinkLatency(2); // latency of connection between router and proxy server is 2 ms
 		for(int i=0;i<numOfCamerasPerArea;i++){
 			String mobileId = id+"-"+i;
-			FogDevice camera = addCamera(mobileId, userId, appId, router.getId()); // adding a smart camera to the physical topology. Smart cameras have been modeled as fog devices as well.
+			FogDevice camera = addCamera(mobileId, userId, appId, router.getId(), sensors, actuators); // adding a smart camera to the physical topology. Smart cameras have been modeled as fog devices as well.
 			camera.setUplinkLatency(2); // latency of connection between camera and router is 2 ms
 			fogDevices.add(camera);
 		}
@@ -137,7 +152,7 @@ public class DCNSFog {
 		return router;
 	}
 	
-	private static FogDevice addCamera(String id, int userId, String appId, int parentId){
+	private static FogDevice addCamera(String id, int userId, String appId, int parentId, List<Sensor> sensors, List<Actuator> actuators){
 		FogDevice camera = createFogDevice("m-"+id, 500, 1000, 10000, 10000, 3, 0, 87.53, 82.44);
 		camera.setParentId(parentId);
 		Sensor sensor = new Sensor("s-"+id, "CAMERA", userId, appId, new DeterministicDistribution(5)); // inter-transmission time of camera (sensor) follows a deterministic distribution
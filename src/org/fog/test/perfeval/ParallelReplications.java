@@ -0,0 +1,40 @@
+package org.fog.test.perfeval;
+
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.fog.entities.FogDevice;
+import org.fog.utils.ExperimentRunner;
+import org.fog.utils.ExperimentSummary;
+import org.fog.utils.ReplicationResult;
+
+/**
+ * Runs independent replications of the VRGame or DCNS simulation in parallel in one JVM and prints 
+ * the mean and confidence interval of every metric.
+ * Usage: ParallelReplications [vrgame|dcns] [replications] [base seed] [parallelism]
+ */
+public class ParallelReplications {
+	
+	public static void main(String[] args) throws Exception {
+		final String example = args.length > 0 ? args[0] : "vrgame";
+		int replications = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		long baseSeed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+		int parallelism = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		if(!example.equals("vrgame") && !example.equals("dcns"))
+			throw new IllegalArgumentException("Unknown example:"+example);
+		
+		Log.disable();
+		ExperimentSummary summary = new ExperimentRunner(parallelism).run(new ExperimentRunner.Replication() {
+			@Override
+			public ReplicationResult run(int index, long seed) throws Exception {
+				List<FogDevice> fogDevices = example.equals("vrgame") ? VRGameFog.simulate() : DCNSFog.simulate();
+				return ReplicationResult.collect(index, seed, fogDevices);
+			}
+		}, replications, baseSeed);
+		
+		System.out.println("=========================================");
+		System.out.println(example+": "+replications+" replications");
+		System.out.println("=========================================");
+		System.out.print(summary);
+	}
+}
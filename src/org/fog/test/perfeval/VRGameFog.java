@@ -41,10 +41,6 @@ import org.fog.utils.distribution.DeterministicDistribution;
  *
  */
 public class VRGameFog {
-	static List<FogDevice> fogDevices = new ArrayList<FogDevice>();
-	static List<Sensor> sensors = new ArrayList<Sensor>();
-	static List<Actuator> actuators = new ArrayList<Actuator>();
-	
 	static boolean CLOUD = false;
 	
 	static int numOfDepts = 2;
@@ -57,69 +53,87 @@ public class VRGameFog {
 
 		try {
 			Log.disable();
-			int num_user = 1; // number of cloud users
-			Calendar calendar = Calendar.getInstance();
-			boolean trace_flag = false; // mean trace events
+			simulate();
+			Log.printLine("VRGame finished!");
+		} catch (Exception e) {
+			e.printStackTrace();
+			Log.printLine("Unwanted errors happen");
+		}
+	}
 
-			CloudSim.init(num_user, calendar, trace_flag);
+	/**
+	 * Runs the simulation in the simulation context bound to the calling thread. The entities are 
+	 * created anew in every call, so that replications can run in parallel.
+	 * @return the fog devices of the simulation
+	 * @throws Exception
+	 */
+	static List<FogDevice> simulate() throws Exception {
+		int num_user = 1; // number of cloud users
+		Calendar calendar = Calendar.getInstance();
+		boolean trace_flag = false; // mean trace events
 
-			String appId = "vr_game"; // identifier of the application
-			
-			FogBroker broker = new FogBroker("broker");
-			
-			Application application = createApplication(appId, broker.getId());
-			application.setUserId(broker.getId());
-			
-			createFogDevices(broker.getId(), appId);
-			
-			ModuleMapping moduleMapping = ModuleMapping.createModuleMapping(); // initializing a module mapping
-			
-			if(CLOUD){
-				// if the mode of deployment is cloud-based
-				/*moduleMapping.addModuleToDevice("connector", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Connector module to the Cloud
-				moduleMapping.addModuleToDevice("concentration_calculator", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Concentration Calculator module to the Cloud
-*/				moduleMapping.addModuleToDevice("connector", "cloud"); // fixing all instances of the Connector module to the Cloud
-				moduleMapping.addModuleToDevice("concentration_calculator", "cloud"); // fixing all instances of the Concentration Calculator module to the Cloud
-				for(FogDevice device : fogDevices){
-					if(device.getName().startsWith("m")){
-						//moduleMapping.addModuleToDevice("client", device.getName(), 1);  // fixing all instances of the Client module to the Smartphones
-						moduleMapping.addModuleToDevice("client", device.getName());  // fixing all instances of the Client module to the Smartphones
-					}
+		CloudSim.init(num_user, calendar, trace_flag);
+
+		String appId = "vr_game"; // identifier of the application
+		
+		List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+		List<Sensor> sensors = new ArrayList<Sensor>();
+		List<Actuator> actuators = new ArrayList<Actuator>();
+		
+		FogBroker broker = new FogBroker("broker");
+		
+		Application application = createApplication(appId, broker.getId());
+		application.setUserId(broker.getId());
+		
+		createFogDevices(broker.getId(), appId, fogDevices, sensors, actuators);
+		
+		ModuleMapping moduleMapping = ModuleMapping.createModuleMapping(); // initializing a module mapping
+		
+		if(CLOUD){
+			// if the mode of deployment is cloud-based
+			/*moduleMapping.addModuleToDevice("connector", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Connector module to the Cloud
+			moduleMapping.addModuleToDevice("concentration_calculator", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Concentration Calculator module to the Cloud
+*/			moduleMapping.addModuleToDevice("connector", "cloud"); // fixing all instances of the Connector module to the Cloud
+			moduleMapping.addModuleToDevice("concentration_calculator", "cloud"); // fixing all instances of the Concentration Calculator module to the Cloud
+			for(FogDevice device : fogDevices){
+				if(device.getName().startsWith("m")){
+					//moduleMapping.addModuleToDevice("client", device.getName(), 1);  // fixing all instances of the Client module to the Smartphones
+					moduleMapping.addModuleToDevice("client", device.getName());  // fixing all instances of the Client module to the Smartphones
 				}
-			}else{
-				// if the mode of deployment is cloud-based
-				//moduleMapping.addModuleToDevice("connector", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Connector module to the Cloud
-				moduleMapping.addModuleToDevice("connector", "cloud"); // fixing all instances of the Connector module to the Cloud
-				// rest of the modules will be placed by the Edge-ward placement policy
 			}
-			
-			
-			Controller controller = new Controller("master-controller", fogDevices, sensors, 
-					actuators);
-			
-			controller.submitApplication(application, 0, 
-					(CLOUD)?(new ModulePlacementMapping(fogDevices, application, moduleMapping))
-							:(new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping)));
-
-			TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
+		}else{
+			// if the mode of deployment is cloud-based
+			//moduleMapping.addModuleToDevice("connector", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Connector module to the Cloud
+			moduleMapping.addModuleToDevice("connector", "cloud"); // fixing all instances of the Connector module to the Cloud
+			// rest of the modules will be placed by the Edge-ward placement policy
+		}
+		
+		
+		Controller controller = new Controller("master-controller", fogDevices, sensors, 
+				actuators);
+		
+		controller.submitApplication(application, 0, 
+				(CLOUD)?(new ModulePlacementMapping(fogDevices, application, moduleMapping))
+						:(new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping)));
 
-			CloudSim.startSimulation();
+		TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
 
-			CloudSim.stopSimulation();
+		CloudSim.startSimulation();
 
-			Log.printLine("VRGame finished!");
-		} catch (Exception e) {
-			e.printStackTrace();
-			Log.printLine("Unwanted errors happen");
-		}
+		CloudSim.stopSimulation();
+		
+		return fogDevices;
 	}
 
 	/**
 	 * Creates the fog devices in the physical topology of the simulation.
 	 * @param userId
 	 * @param appId
+	 * @param fogDevices
+	 * @param sensors
+	 * @param actuators
 	 */
-	private static void createFogDevices(int userId, String appId) {
+	private static void createFogDevices(int userId, String appId, List<FogDevice> fogDevices, List<Sensor> sensors, List<Actuator> actuators) {
 		FogDevice cloud = createFogDevice("cloud", 44800, 40000, 100, 10000, 0, 0.01, 16*103, 16*83.25); // creates the fog device Cloud at the apex of the hierarchy with level=0
 		cloud.setParentId(-1);
 		FogDevice proxy = createFogDevice("proxy-server", 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333); // creates the fog device Proxy Server (level=1)
@@ -130,26 +144,26 @@ public class VRGameFog {
 		fogDevices.add(proxy);
 		
 		for(int i=0;i<numOfDepts;i++){
-			addGw(i+"", userId, appId, proxy.getId()); // adding a fog device for every Gateway in physical topology. The parent of each gateway is the Proxy Server
+			addGw(i+"", userId, appId, proxy.getId(), fogDevices, sensors, actuators); // adding a fog device for every Gateway in physical topology. The parent of each gateway is the Proxy Server
 		}
 		
 	}
 
-	private static FogDevice addGw(String id, int userId, String appId, int parentId){
+	private static FogDevice addGw(String id, int userId, String appId, int parentId, List<FogDevice> fogDevices, List<Sensor> sensors, List<Actuator> actuators){
 		FogDevice dept = createFogDevice("d-"+id, 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333);
 		fogDevices.add(dept);
 		dept.setParentId(parentId);
 		dept.setUplinkLatency(4); // latency of connection between gateways and proxy server is 4 ms
 		for(int i=0;i<numOfMobilesPerDept;i++){
 			String mobileId = id+"-"+i;
-			FogDevice mobile = addMobile(mobileId, userId, appId, dept.getId()); // adding mobiles to the physical topology. Smartphones have been modeled as fog devices as well.
+			FogDevice mobile = addMobile(mobileId, userId, appId, dept.getId(), sensors, actuators); // adding mobiles to the physical topology. Smartphones have been modeled as fog devices as well.
 			mobile.setUplinkLatency(2); // latency of connection between the smartphone and proxy server is 4 ms
 			fogDevices.add(mobile);
 		}
 		return dept;
 	}
 	
-	private static FogDevice addMobile(String id, int userId, String appId, int parentId){
+	private static FogDevice addMobile(String id, int userId, String appId, int parentId, List<Sensor> sensors, List<Actuator> actuators){
 		FogDevice mobile = createFogDevice("m-"+id, 1000, 1000, 10000, 270, 3, 0, 87.53, 82.44);
 		mobile.setParentId(parentId);
 		Sensor eegSensor = new Sensor("s-"+id, "EEG", userId, appId, new DeterministicDistribution(EEG_TRANSMISSION_TIME)); // inter-transmission time of EEG sensor follows a deterministic distribution
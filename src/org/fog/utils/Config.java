@@ -2,6 +2,11 @@ package org.fog.utils;
 
 public class Config {
 
+	/**
+	 * @deprecated has no effect: fog devices accrue their energy and cost whenever their utilization changes,
+	 * instead of on a periodic RESOURCE_MGMT event.
+	 */
+	@Deprecated
 	public static final double RESOURCE_MGMT_INTERVAL = 100;
 	public static int MAX_SIMULATION_TIME = 2000;
 	public static int RESOURCE_MANAGE_INTERVAL = 100;
@@ -14,6 +19,10 @@ public class Config {
 	public static double FOG_DEVICE_COST_PER_STORAGE = 0.001;
 	public static double FOG_DEVICE_COST_PER_BW = 0.0;
 	public static double MAX_VALUE = 1000000.0;
+	// Tuples still in flight after this long are no longer timed (e.g. those dropped by a selectivity)
+	public static double TUPLE_TIMING_EXPIRY = 100000.0;
+	// Print the utilization, queueing delay and drops of the link of each fog device at the end of the simulation
+	public static boolean PRINT_LINK_DETAILS = false;
 
 	// Create cluster among devices of same level with common parent irrespective of location. Only one of the two clustering modes should be used for clustering
 	public static boolean ENABLE_STATIC_CLUSTERING = false;
@@ -21,6 +30,10 @@ public class Config {
 	public static boolean ENABLE_DYNAMIC_CLUSTERING = true;
 	public static double Node_Communication_RANGE = 300.0; // In terms of meter
 	public static double clusteringLatency = 2.0; //milisecond
+	// Clustering policy of dynamic clustering: Clustering.RANGE (nodes in communication range), Clustering.KMEANS or Clustering.DBSCAN
+	public static String CLUSTERING_POLICY = "RANGE";
+	public static int KMEANS_CLUSTER_SIZE = 4; // nodes per cluster the number of k-means clusters is chosen for
+	public static int DBSCAN_MIN_POINTS = 3; // nodes in range, itself included, that make a node a DBSCAN core node
 
 	public static final int TRANSMISSION_START_DELAY = 50;
 }
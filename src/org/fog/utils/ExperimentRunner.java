@@ -0,0 +1,98 @@
+package org.fog.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.cloudbus.cloudsim.core.SimulationContext;
+
+/**
+ * Runs independent replications of a simulation in parallel in the same JVM and aggregates their 
+ * results. 
+ * 
+ * Every replication runs on a pool thread bound to its own {@link SimulationContext}, seeded with 
+ * <tt>baseSeed + index</tt>, so it has its own CloudSim entities, event queues and clock, its own 
+ * TimeKeeper, id counters and monitors, and its own random numbers. A replication must therefore 
+ * create everything it uses itself (after calling <tt>CloudSim.init</tt>) and must not share mutable 
+ * static state with the other replications, such as the static lists of the example classes; 
+ * configuration such as {@link Config} is shared by all of them.
+ * 
+ * @see ReplicationResult
+ * @see ExperimentSummary
+ */
+public class ExperimentRunner {
+	
+	/**
+	 * One replication of an experiment.
+	 */
+	public interface Replication {
+		/**
+		 * Runs the simulation in the simulation context bound to the calling thread.
+		 * @param index the index of the replication, from 0
+		 * @param seed the seed of the simulation context
+		 * @return the metrics of the replication
+		 * @throws Exception if the replication fails
+		 */
+		ReplicationResult run(int index, long seed) throws Exception;
+	}
+	
+	private final int parallelism;
+	
+	/**
+	 * Creates a runner that uses all the available processors.
+	 */
+	public ExperimentRunner(){
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates a runner.
+	 * @param parallelism the maximum number of replications run at the same time
+	 */
+	public ExperimentRunner(int parallelism){
+		if(parallelism < 1)
+			throw new IllegalArgumentException("The parallelism should be positive, but is:"+parallelism);
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Runs the replications of an experiment and waits for all of them to finish.
+	 * @param replication the replication to run
+	 * @param replications the number of replications
+	 * @param baseSeed the seed of the first replication
+	 * @return the summary of the results, in the order of the replications
+	 * @throws ExecutionException if a replication fails
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public ExperimentSummary run(final Replication replication, int replications, long baseSeed) 
+			throws ExecutionException, InterruptedException{
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try{
+			List<Future<ReplicationResult>> futures = new ArrayList<Future<ReplicationResult>>();
+			for(int i=0;i<replications;i++){
+				final int index = i;
+				final long seed = baseSeed + i;
+				futures.add(pool.submit(new Callable<ReplicationResult>() {
+					@Override
+					public ReplicationResult call() throws Exception {
+						SimulationContext previous = SimulationContext.bind(new SimulationContext(seed));
+						try{
+							return replication.run(index, seed);
+						} finally{
+							SimulationContext.bind(previous);
+						}
+					}
+				}));
+			}
+			List<ReplicationResult> results = new ArrayList<ReplicationResult>();
+			for(Future<ReplicationResult> future : futures)
+				results.add(future.get());
+			return new ExperimentSummary(results);
+		} finally{
+			pool.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package org.fog.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+
+/**
+ * Aggregates the metrics of the replications of an experiment: for every metric, the number of 
+ * replications that measured it, the mean, standard deviation, minimum, maximum and the half-width 
+ * of the 95% confidence interval of the mean.
+ * 
+ * @see ExperimentRunner
+ */
+public class ExperimentSummary {
+	
+	private final List<ReplicationResult> results;
+	private final Map<String, SummaryStatistics> statistics = new LinkedHashMap<String, SummaryStatistics>();
+	
+	public ExperimentSummary(List<ReplicationResult> results){
+		this.results = new ArrayList<ReplicationResult>(results);
+		for(ReplicationResult result : results){
+			for(Map.Entry<String, Double> metric : result.getMetrics().entrySet()){
+				if(metric.getValue() == null)
+					continue;
+				SummaryStatistics stats = statistics.get(metric.getKey());
+				if(stats == null){
+					stats = new SummaryStatistics();
+					statistics.put(metric.getKey(), stats);
+				}
+				stats.addValue(metric.getValue());
+			}
+		}
+	}
+	
+	public List<ReplicationResult> getResults() {
+		return Collections.unmodifiableList(results);
+	}
+	
+	public List<String> getMetrics() {
+		return new ArrayList<String>(statistics.keySet());
+	}
+	
+	public double getMean(String metric){
+		return statistics.get(metric).getMean();
+	}
+	
+	public double getStandardDeviation(String metric){
+		return statistics.get(metric).getStandardDeviation();
+	}
+	
+	public double getMin(String metric){
+		return statistics.get(metric).getMin();
+	}
+	
+	public double getMax(String metric){
+		return statistics.get(metric).getMax();
+	}
+	
+	public long getCount(String metric){
+		return statistics.get(metric).getN();
+	}
+	
+	/**
+	 * Gets the half-width of the 95% confidence interval of the mean of a metric, using Student's 
+	 * t-distribution.
+	 * @param metric the metric
+	 * @return the half-width, or NaN if fewer than two replications measured the metric
+	 */
+	public double getConfidenceInterval(String metric){
+		SummaryStatistics stats = statistics.get(metric);
+		if(stats.getN() < 2)
+			return Double.NaN;
+		double t = new TDistribution(stats.getN()-1).inverseCumulativeProbability(0.975);
+		return t*stats.getStandardDeviation()/Math.sqrt(stats.getN());
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%-40s %4s %14s %14s %14s %14s %14s%n", "METRIC", "N", "MEAN", "STD DEV", "95% CI", "MIN", "MAX"));
+		for(String metric : statistics.keySet()){
+			sb.append(String.format("%-40s %4d %14.4f %14.4f %14.4f %14.4f %14.4f%n", metric, getCount(metric), getMean(metric), 
+					getStandardDeviation(metric), getConfidenceInterval(metric), getMin(metric), getMax(metric)));
+		}
+		return sb.toString();
+	}
+}
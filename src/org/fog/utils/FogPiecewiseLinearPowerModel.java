@@ -0,0 +1,101 @@
+package org.fog.utils;
+
+import java.util.Arrays;
+
+import org.cloudbus.cloudsim.power.models.PowerModel;
+
+/**
+ * A power model that interpolates linearly between measured points of the power of a device, such as the
+ * power at idle, at half load and at full load. Unlike the SPECpower models, the points can be at any
+ * utilization, so that the model can follow a device whose power grows faster at high load.
+ * <p>
+ * A {@link org.fog.entities.FogDevice} integrates the power of its host between changes of its utilization,
+ * so the energy of a device with this model is as exact as with {@link FogLinearPowerModel}.
+ */
+public class FogPiecewiseLinearPowerModel implements PowerModel {
+
+	/** The utilizations of the points, in increasing order, from 0 to 1. */
+	private final double[] utilization;
+
+	/** The power at each point. */
+	private final double[] power;
+
+	/**
+	 * Instantiates a new piecewise-linear power model.
+	 *
+	 * @param utilization the utilizations of the points, in increasing order, the first 0 and the last 1
+	 * @param power the power at each point
+	 */
+	public FogPiecewiseLinearPowerModel(double[] utilization, double[] power) {
+		if (utilization.length != power.length || utilization.length < 2) {
+			throw new IllegalArgumentException("A piecewise-linear power model needs at least two points");
+		}
+		if (utilization[0] != 0 || utilization[utilization.length - 1] != 1) {
+			throw new IllegalArgumentException("The points must start at utilization 0 and end at utilization 1");
+		}
+		for (int i = 1; i < utilization.length; i++) {
+			if (utilization[i] <= utilization[i - 1]) {
+				throw new IllegalArgumentException("The utilizations of the points must be increasing");
+			}
+		}
+		this.utilization = Arrays.copyOf(utilization, utilization.length);
+		this.power = Arrays.copyOf(power, power.length);
+	}
+
+	/**
+	 * Instantiates a new piecewise-linear power model with points at equal steps of utilization, e.g. the
+	 * power at 0, 50% and 100% utilization.
+	 *
+	 * @param power the power at each step
+	 */
+	public FogPiecewiseLinearPowerModel(double[] power) {
+		this(steps(power.length), power);
+	}
+
+	private static double[] steps(int points) {
+		double[] utilization = new double[points];
+		for (int i = 0; i < points; i++) {
+			utilization[i] = (double) i / (points - 1);
+		}
+		utilization[points - 1] = 1;
+		return utilization;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see cloudsim.power.PowerModel#getPower(double)
+	 */
+	@Override
+	public double getPower(double utilization) throws IllegalArgumentException {
+		if (utilization < 0 || utilization > 1) {
+			throw new IllegalArgumentException("Utilization value must be between 0 and 1");
+		}
+		int index = Arrays.binarySearch(this.utilization, utilization);
+		if (index >= 0) {
+			return power[index];
+		}
+		int upper = -index - 1;
+		int lower = upper - 1;
+		double fraction = (utilization - this.utilization[lower]) / (this.utilization[upper] - this.utilization[lower]);
+		return power[lower] + fraction * (power[upper] - power[lower]);
+	}
+
+	/**
+	 * Gets the utilizations of the points.
+	 *
+	 * @return the utilizations, in increasing order
+	 */
+	public double[] getUtilization() {
+		return Arrays.copyOf(utilization, utilization.length);
+	}
+
+	/**
+	 * Gets the power at the points.
+	 *
+	 * @return the power at each point
+	 */
+	public double[] getPower() {
+		return Arrays.copyOf(power, power.length);
+	}
+
+}
@@ -3,13 +3,32 @@ package org.fog.utils;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 public class FogUtils {
-	private static int TUPLE_ID = 1;
-	private static int ENTITY_ID = 1;
-	private static int ACTUAL_TUPLE_ID = 1;
+	
+	/**
+	 * The id counters of one simulation, kept in its {@link SimulationContext}.
+	 */
+	private static class Ids {
+		private int tupleId = 1;
+		private int entityId = 1;
+		private int actualTupleId = 1;
+	}
+	
+	private static Ids ids(){
+		SimulationContext context = SimulationContext.current();
+		Ids ids = (Ids) context.getAttribute(Ids.class);
+		if(ids == null){
+			ids = new Ids();
+			context.setAttribute(Ids.class, ids);
+		}
+		return ids;
+	}
 	
 	public static int generateTupleId(){
-		return TUPLE_ID++;
+		return ids().tupleId++;
 	}
 	
 	public static String getSensorTypeFromSensorName(String sensorName){
@@ -17,11 +36,21 @@ public class FogUtils {
 	}
 	
 	public static int generateEntityId(){
-		return ENTITY_ID++;
+		return ids().entityId++;
 	}
 	
 	public static int generateActualTupleId(){
-		return ACTUAL_TUPLE_ID++;
+		return ids().actualTupleId++;
+	}
+	
+	/**
+	 * Ends the simulation once its results have been printed. A stand-alone simulation exits the JVM; 
+	 * a replication run by an {@link ExperimentRunner} only terminates its own simulation.
+	 */
+	public static void endSimulation(){
+		if(SimulationContext.current().isDefault())
+			System.exit(0);
+		CloudSim.abruptallyTerminate();
 	}
 	
 	public static int USER_ID = 1;
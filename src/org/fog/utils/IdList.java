@@ -0,0 +1,87 @@
+package org.fog.utils;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * A list of entity ids that also counts its ids in a hash map, so that {@link #contains(Object)} takes constant
+ * time instead of scanning the list. It is used for the children of fog devices, which gateways have hundreds of
+ * and which are looked up for every tuple sent down.
+ */
+public class IdList extends AbstractList<Integer> implements RandomAccess {
+
+	private final List<Integer> ids;
+	private final Map<Integer, Integer> counts = new HashMap<Integer, Integer>();
+
+	public IdList() {
+		ids = new ArrayList<Integer>();
+	}
+
+	public IdList(Collection<Integer> ids) {
+		this.ids = new ArrayList<Integer>(ids.size());
+		addAll(ids);
+	}
+
+	@Override
+	public Integer get(int index) {
+		return ids.get(index);
+	}
+
+	@Override
+	public int size() {
+		return ids.size();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return counts.containsKey(o);
+	}
+
+	@Override
+	public Integer set(int index, Integer id) {
+		Integer previous = ids.set(index, id);
+		uncount(previous);
+		count(id);
+		return previous;
+	}
+
+	@Override
+	public void add(int index, Integer id) {
+		ids.add(index, id);
+		count(id);
+		modCount++;
+	}
+
+	@Override
+	public Integer remove(int index) {
+		Integer previous = ids.remove(index);
+		uncount(previous);
+		modCount++;
+		return previous;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!counts.containsKey(o))
+			return false;
+		return super.remove(o);
+	}
+
+	private void count(Integer id) {
+		Integer count = counts.get(id);
+		counts.put(id, count == null ? 1 : count + 1);
+	}
+
+	private void uncount(Integer id) {
+		Integer count = counts.get(id);
+		if (count == 1)
+			counts.remove(id);
+		else
+			counts.put(id, count - 1);
+	}
+}
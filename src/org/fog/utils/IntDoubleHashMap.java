@@ -0,0 +1,211 @@
+package org.fog.utils;
+
+import java.util.Arrays;
+
+/**
+ * A map from int keys to double values with open addressing and linear probing, which neither boxes 
+ * the keys and values nor allocates an entry per mapping. Removal shifts the following entries back 
+ * instead of leaving tombstones, so the table does not degrade when mappings are added and removed 
+ * continuously, as the timings of tuples are.
+ */
+public class IntDoubleHashMap {
+	
+	/** The key marking a free slot; a mapping for this key is kept apart from the table. */
+	private static final int FREE_KEY = Integer.MIN_VALUE;
+	
+	private static final int MIN_CAPACITY = 16;
+	
+	private int[] keys;
+	private double[] values;
+	private int mask;
+	private int size;
+	
+	private boolean hasFreeKey;
+	private double freeKeyValue;
+	
+	public IntDoubleHashMap(){
+		this(MIN_CAPACITY);
+	}
+	
+	/**
+	 * @param expectedSize the number of mappings the map should hold without resizing
+	 */
+	public IntDoubleHashMap(int expectedSize){
+		allocate(tableSize(expectedSize));
+	}
+	
+	/**
+	 * Gets the value mapped to a key.
+	 * @param key the key
+	 * @return the value, or NaN if the key is not mapped
+	 */
+	public double get(int key){
+		if(key == FREE_KEY)
+			return hasFreeKey ? freeKeyValue : Double.NaN;
+		for(int i = slot(key);; i = (i+1) & mask){
+			if(keys[i] == key)
+				return values[i];
+			if(keys[i] == FREE_KEY)
+				return Double.NaN;
+		}
+	}
+	
+	public boolean containsKey(int key){
+		if(key == FREE_KEY)
+			return hasFreeKey;
+		for(int i = slot(key);; i = (i+1) & mask){
+			if(keys[i] == key)
+				return true;
+			if(keys[i] == FREE_KEY)
+				return false;
+		}
+	}
+	
+	public void put(int key, double value){
+		if(key == FREE_KEY){
+			if(!hasFreeKey)
+				size++;
+			hasFreeKey = true;
+			freeKeyValue = value;
+			return;
+		}
+		int i = slot(key);
+		while(keys[i] != FREE_KEY){
+			if(keys[i] == key){
+				values[i] = value;
+				return;
+			}
+			i = (i+1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		if(++size > (mask+1)/2)
+			rehash(keys.length*2);
+	}
+	
+	/**
+	 * Removes the mapping of a key.
+	 * @param key the key
+	 * @return the value that was mapped to the key, or NaN if the key was not mapped
+	 */
+	public double remove(int key){
+		if(key == FREE_KEY){
+			if(!hasFreeKey)
+				return Double.NaN;
+			hasFreeKey = false;
+			size--;
+			return freeKeyValue;
+		}
+		for(int i = slot(key);; i = (i+1) & mask){
+			if(keys[i] == key){
+				double value = values[i];
+				shiftBack(i);
+				size--;
+				return value;
+			}
+			if(keys[i] == FREE_KEY)
+				return Double.NaN;
+		}
+	}
+	
+	/**
+	 * Removes the mappings whose value is less than a threshold, and shrinks the table if few mappings 
+	 * are left.
+	 * @param threshold the threshold
+	 * @return the number of mappings removed
+	 */
+	public int removeValuesBelow(double threshold){
+		int removed = 0;
+		if(hasFreeKey && freeKeyValue < threshold){
+			hasFreeKey = false;
+			size--;
+			removed++;
+		}
+		int[] oldKeys = keys;
+		double[] oldValues = values;
+		int kept = 0;
+		for(int i=0;i<oldKeys.length;i++){
+			if(oldKeys[i] != FREE_KEY && !(oldValues[i] < threshold))
+				kept++;
+		}
+		removed += size - (hasFreeKey ? 1 : 0) - kept;
+		if(removed == 0)
+			return 0;
+		allocate(tableSize(kept));
+		for(int i=0;i<oldKeys.length;i++){
+			if(oldKeys[i] != FREE_KEY && !(oldValues[i] < threshold))
+				insertNew(oldKeys[i], oldValues[i]);
+		}
+		size = kept + (hasFreeKey ? 1 : 0);
+		return removed;
+	}
+	
+	public int size(){
+		return size;
+	}
+	
+	public boolean isEmpty(){
+		return size == 0;
+	}
+	
+	public void clear(){
+		Arrays.fill(keys, FREE_KEY);
+		hasFreeKey = false;
+		size = 0;
+	}
+	
+	private void shiftBack(int hole){
+		int i = hole;
+		while(true){
+			i = (i+1) & mask;
+			int key = keys[i];
+			if(key == FREE_KEY)
+				break;
+			int home = slot(key);
+			// move the entry into the hole unless its home lies cyclically in (hole, i]
+			if(hole <= i ? (home <= hole || home > i) : (home <= hole && home > i)){
+				keys[hole] = key;
+				values[hole] = values[i];
+				hole = i;
+			}
+		}
+		keys[hole] = FREE_KEY;
+	}
+	
+	private void rehash(int capacity){
+		int[] oldKeys = keys;
+		double[] oldValues = values;
+		allocate(capacity);
+		for(int i=0;i<oldKeys.length;i++){
+			if(oldKeys[i] != FREE_KEY)
+				insertNew(oldKeys[i], oldValues[i]);
+		}
+	}
+	
+	private void insertNew(int key, double value){
+		int i = slot(key);
+		while(keys[i] != FREE_KEY)
+			i = (i+1) & mask;
+		keys[i] = key;
+		values[i] = value;
+	}
+	
+	private void allocate(int capacity){
+		keys = new int[capacity];
+		values = new double[capacity];
+		Arrays.fill(keys, FREE_KEY);
+		mask = capacity - 1;
+	}
+	
+	private int slot(int key){
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+	
+	private static int tableSize(int expectedSize){
+		int capacity = MIN_CAPACITY;
+		while(capacity/2 < expectedSize)
+			capacity <<= 1;
+		return capacity;
+	}
+}
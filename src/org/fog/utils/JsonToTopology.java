@@ -1,12 +1,12 @@
 package org.fog.utils;
 
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Pe;
@@ -14,6 +14,7 @@ import org.cloudbus.cloudsim.Storage;
 import org.cloudbus.cloudsim.power.PowerHost;
 import org.cloudbus.cloudsim.power.models.PowerModelLinear;
 import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.sdn.TopologyReader;
 import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
 import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
 import org.fog.entities.Actuator;
@@ -27,127 +28,72 @@ import org.fog.utils.distribution.DeterministicDistribution;
 import org.fog.utils.distribution.Distribution;
 import org.fog.utils.distribution.NormalDistribution;
 import org.fog.utils.distribution.UniformDistribution;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
 
+/**
+ * Creates the fog devices, sensors and actuators of a physical topology file, streaming the file with a
+ * {@link TopologyReader}. The file may be JSON or converted to the binary format of the reader.
+ */
 public class JsonToTopology {
 
-	private static List<FogDevice> fogDevices = new ArrayList<FogDevice>();
-	private static List<Sensor> sensors = new ArrayList<Sensor>();
-	private static List<Actuator> actuators = new ArrayList<Actuator>();
- 
-	private static boolean isFogDevice(String name){
-		for(FogDevice fogDevice : fogDevices){
-			if(fogDevice.getName().equalsIgnoreCase(name))
-				return true;
-		}
-		return false;
-		
-	}
-	
-	private static FogDevice getFogDevice(String name){
-		for(FogDevice fogDevice : fogDevices){
-			if(fogDevice.getName().equalsIgnoreCase(name))
-				return fogDevice;
-		}
-		return null;
-	}
-	
-	private static boolean isActuator(String name){
-		for(Actuator actuator : actuators){
-			if(actuator.getName().equalsIgnoreCase(name))
-				return true;
-		}
-		return false;
-	}
-	
-	private static Actuator getActuator(String name){
-		for(Actuator actuator : actuators){
-			if(actuator.getName().equalsIgnoreCase(name))
-				return actuator;
-		}
-		return null;
-	}
-	
-	private static boolean isSensor(String name){
-		for(Sensor sensor : sensors){
-			if(sensor.getName().equalsIgnoreCase(name))
-				return true;
-		}
-		return false;
-	}
-	
-	private static Sensor getSensor(String name){
-		for(Sensor sensor : sensors){
-			if(sensor.getName().equalsIgnoreCase(name))
-				return sensor;
-		}
-		return null;
-	}
-	
-	public static PhysicalTopology getPhysicalTopology(int userId, String appId, String physicalTopologyFile) throws Exception{
+	public static PhysicalTopology getPhysicalTopology(final int userId, final String appId, String physicalTopologyFile) throws Exception{
 				
-		fogDevices = new ArrayList<FogDevice>();
-		sensors = new ArrayList<Sensor>();
-		actuators = new ArrayList<Actuator>();
-		
+		final List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+		final List<Sensor> sensors = new ArrayList<Sensor>();
+		final List<Actuator> actuators = new ArrayList<Actuator>();
+		// names are matched regardless of case, the first entity of a name being the one connected
+		final Map<String, FogDevice> fogDeviceByName = new HashMap<String, FogDevice>();
+		final Map<String, Sensor> sensorByName = new HashMap<String, Sensor>();
+		final Map<String, Actuator> actuatorByName = new HashMap<String, Actuator>();
 		
 		try {
-			JSONObject doc = (JSONObject) JSONValue.parse(new FileReader(physicalTopologyFile));
-    		JSONArray nodes = (JSONArray) doc.get("nodes");
-    		@SuppressWarnings("unchecked")
-			Iterator<JSONObject> iter =nodes.iterator(); 
-			while(iter.hasNext()){
-				JSONObject node = iter.next();
-				String nodeType = (String) node.get("type");
-				String nodeName = (String) node.get("name");
-				
-				if(nodeType.equalsIgnoreCase("FOG_DEVICE")){
-					long mips = (Long) node.get("mips");
-					int ram = new BigDecimal((Long)node.get("ram")).intValueExact();
-					long upBw = new BigDecimal((Long)node.get("upBw")).intValueExact();
-					long downBw = new BigDecimal((Long)node.get("downBw")).intValueExact();
-					int level = new BigDecimal((Long)node.get("level")).intValue();
-					double ratePerMips = new BigDecimal((Double)node.get("ratePerMips")).doubleValue();
+			new TopologyReader().read(physicalTopologyFile, new TopologyReader.Handler() {
+				@Override
+				public void node(TopologyReader.Entry node) {
+					String nodeType = node.getString("type");
+					String nodeName = node.getString("name");
 					
-					FogDevice fogDevice = createFogDevice(nodeName, mips, ram, upBw, downBw, level, ratePerMips);
-					fogDevice.setParentId(-1);
-					
-					fogDevices.add(fogDevice);
+					if(nodeType.equalsIgnoreCase("FOG_DEVICE")){
+						long mips = node.getLong("mips");
+						int ram = node.getInt("ram");
+						long upBw = node.getInt("upBw");
+						long downBw = node.getInt("downBw");
+						int level = node.getInt("level");
+						double ratePerMips = node.getDouble("ratePerMips");
+						
+						FogDevice fogDevice = createFogDevice(nodeName, mips, ram, upBw, downBw, level, ratePerMips);
+						fogDevice.setParentId(-1);
+						
+						fogDevices.add(fogDevice);
+						putIfAbsent(fogDeviceByName, nodeName, fogDevice);
 
-				} else if(nodeType.equals("SENSOR")){
-					String sensorType = node.get("sensorType").toString();
-					int distType = new BigDecimal((Long)node.get("distribution")).intValue();
-					Distribution distribution = null;
-					if(distType == Distribution.DETERMINISTIC)
-						distribution = new DeterministicDistribution(new BigDecimal((Double)node.get("value")).doubleValue());
-					else if(distType == Distribution.NORMAL){
-						distribution = new NormalDistribution(new BigDecimal((Double)node.get("mean")).doubleValue(), 
-								new BigDecimal((Double)node.get("stdDev")).doubleValue());
-					} else if(distType == Distribution.UNIFORM){
-						distribution = new UniformDistribution(new BigDecimal((Double)node.get("min")).doubleValue(), 
-								new BigDecimal((Double)node.get("max")).doubleValue());
+					} else if(nodeType.equals("SENSOR")){
+						String sensorType = node.getString("sensorType");
+						int distType = node.getInt("distribution");
+						Distribution distribution = null;
+						if(distType == Distribution.DETERMINISTIC)
+							distribution = new DeterministicDistribution(node.getDouble("value"));
+						else if(distType == Distribution.NORMAL){
+							distribution = new NormalDistribution(node.getDouble("mean"), node.getDouble("stdDev"));
+						} else if(distType == Distribution.UNIFORM){
+							distribution = new UniformDistribution(node.getDouble("min"), node.getDouble("max"));
+						}
+						System.out.println("Sensor type : "+sensorType);
+						Sensor sensor = new Sensor(nodeName, sensorType, userId, appId, distribution);
+						sensors.add(sensor);
+						putIfAbsent(sensorByName, nodeName, sensor);
+					} else if(nodeType.equals("ACTUATOR")){
+						String actuatorType = node.getString("actuatorType");
+						Actuator actuator = new Actuator(nodeName, userId, appId, actuatorType);
+						actuators.add(actuator);
+						putIfAbsent(actuatorByName, nodeName, actuator);
 					}
-					System.out.println("Sensor type : "+sensorType);
-					sensors.add(new Sensor(nodeName, sensorType, userId, appId, distribution));
-				} else if(nodeType.equals("ACTUATOR")){
-					String actuatorType = node.get("actuatorType").toString();
-					actuators.add(new Actuator(nodeName, userId, appId, actuatorType));
 				}
-			}
-				
-			JSONArray links = (JSONArray) doc.get("links");
-			@SuppressWarnings("unchecked")
-			Iterator<JSONObject> linksIter =links.iterator(); 
-			while(linksIter.hasNext()){
-				JSONObject link = linksIter.next();
-				String src = (String) link.get("source");  
-				String dst = (String) link.get("destination");
-				double lat = (Double) link.get("latency");
 				
-				connectEntities(src, dst, lat);
-			}
+				@Override
+				public void link(String source, String destination, double latency) {
+					connectEntities(source, destination, latency, fogDeviceByName, sensorByName, actuatorByName);
+				}
+			});
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
 		}
@@ -157,6 +103,13 @@ public class JsonToTopology {
 		physicalTopology.setSensors(sensors);
 		return physicalTopology;
 	}
+	
+	private static <T> void putIfAbsent(Map<String, T> byName, String name, T entity){
+		String key = name.toLowerCase(Locale.ROOT);
+		if(!byName.containsKey(key))
+			byName.put(key, entity);
+	}
+	
 	private static FogDevice createFogDevice(String nodeName, long mips,
 			int ram, long upBw, long downBw, int level, double ratePerMips) {
 		
@@ -210,34 +163,35 @@ public class JsonToTopology {
 		return fogdevice;
 	}
 
-	private static void connectEntities(String src, String dst, double lat) {
-		if(isFogDevice(src) && isFogDevice(dst)){
-			FogDevice srcDev = getFogDevice(src);
-			FogDevice destDev = getFogDevice(dst);
+	private static void connectEntities(String src, String dst, double lat, Map<String, FogDevice> fogDeviceByName,
+			Map<String, Sensor> sensorByName, Map<String, Actuator> actuatorByName) {
+		String srcKey = src.toLowerCase(Locale.ROOT);
+		String dstKey = dst.toLowerCase(Locale.ROOT);
+		FogDevice srcDev = fogDeviceByName.get(srcKey);
+		FogDevice destDev = fogDeviceByName.get(dstKey);
+		if(srcDev != null && destDev != null){
 			FogDevice southernDev = (srcDev.getLevel() > destDev.getLevel())?srcDev:destDev;
 			FogDevice northernDev = (srcDev.getLevel() > destDev.getLevel())?destDev:srcDev;
 			southernDev.setUplinkLatency(lat);
 			southernDev.setParentId(northernDev.getId());
-		} else if(isFogDevice(src) && isSensor(dst)){
-			FogDevice srcDev = getFogDevice(src);
-			Sensor sensor = getSensor(dst);
+		} else if(srcDev != null && sensorByName.containsKey(dstKey)){
+			Sensor sensor = sensorByName.get(dstKey);
 			sensor.setLatency(lat);
 			sensor.setGatewayDeviceId(srcDev.getId());
-		} else if(isSensor(src) && isFogDevice(dst)){
-			FogDevice fogDevice = getFogDevice(dst);
-			Sensor sensor = getSensor(src);
+		} else if(sensorByName.containsKey(srcKey) && destDev != null){
+			Sensor sensor = sensorByName.get(srcKey);
 			sensor.setLatency(lat);
-			sensor.setGatewayDeviceId(fogDevice.getId());
-		} else if(isFogDevice(src) && isActuator(dst)){
-			FogDevice fogDevice = getFogDevice(src);
-			Actuator actuator = getActuator(dst);
+			sensor.setGatewayDeviceId(destDev.getId());
+		} else if(srcDev != null && actuatorByName.containsKey(dstKey)){
+			Actuator actuator = actuatorByName.get(dstKey);
 			actuator.setLatency(lat);
-			actuator.setGatewayDeviceId(fogDevice.getId());
-		} else if(isActuator(src) && isFogDevice(dst)){
-			FogDevice fogDevice = getFogDevice(dst);
-			Actuator actuator = getActuator(src);
+			actuator.setGatewayDeviceId(srcDev.getId());
+		} else if(actuatorByName.containsKey(srcKey) && destDev != null){
+			Actuator actuator = actuatorByName.get(srcKey);
 			actuator.setLatency(lat);
-			actuator.setGatewayDeviceId(fogDevice.getId());
+			actuator.setGatewayDeviceId(destDev.getId());
+		} else {
+			throw new IllegalArgumentException("Link between " + src + " and " + dst + " does not connect a fog device to a fog device, sensor or actuator");
 		}
 		
 	}	
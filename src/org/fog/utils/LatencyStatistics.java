@@ -0,0 +1,96 @@
+package org.fog.utils;
+
+/**
+ * Streaming statistics of the delays of an application loop: the count, mean, minimum and maximum, 
+ * and percentiles from a log-linear histogram in the style of HdrHistogram. Each delay is counted in 
+ * a bucket given by its binary exponent and the leading bits of its mantissa, so the memory used is 
+ * fixed however many delays are recorded, and a percentile is within about 1% of the exact value.
+ */
+public class LatencyStatistics {
+	
+	/** The number of leading mantissa bits that select the bucket within an exponent. */
+	private static final int SUB_BUCKET_BITS = 6;
+	
+	/** The smallest binary exponent with its own buckets; smaller delays share the first bucket. */
+	private static final int MIN_EXPONENT = -20;
+	
+	/** The largest binary exponent with its own buckets; larger delays share the last bucket. */
+	private static final int MAX_EXPONENT = 42;
+	
+	private static final int BUCKET_COUNT = (MAX_EXPONENT - MIN_EXPONENT + 1) << SUB_BUCKET_BITS;
+	
+	private int count;
+	private double mean;
+	private double min = Double.MAX_VALUE;
+	private double max = -Double.MAX_VALUE;
+	private long[] buckets;
+	
+	public void add(double delay){
+		mean = (mean*count + delay)/(count+1);
+		count++;
+		min = Math.min(min, delay);
+		max = Math.max(max, delay);
+		if(buckets == null)
+			buckets = new long[BUCKET_COUNT];
+		buckets[bucket(delay)]++;
+	}
+	
+	public int getCount() {
+		return count;
+	}
+	
+	/**
+	 * @return the mean delay, or NaN if no delay was recorded
+	 */
+	public double getMean() {
+		return count == 0 ? Double.NaN : mean;
+	}
+	
+	public double getMin() {
+		return count == 0 ? Double.NaN : min;
+	}
+	
+	public double getMax() {
+		return count == 0 ? Double.NaN : max;
+	}
+	
+	/**
+	 * Gets a percentile of the delays.
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the percentile, or NaN if no delay was recorded
+	 */
+	public double getPercentile(double percentile){
+		if(count == 0)
+			return Double.NaN;
+		if(percentile <= 0)
+			return min;
+		if(percentile >= 100)
+			return max;
+		long rank = (long)Math.ceil(percentile/100*count);
+		long seen = 0;
+		for(int i=0;i<BUCKET_COUNT;i++){
+			seen += buckets[i];
+			if(seen >= rank)
+				return Math.max(min, Math.min(max, midpoint(i)));
+		}
+		return max;
+	}
+	
+	private static int bucket(double delay){
+		if(!(delay > 0))
+			return 0;
+		int exponent = Math.getExponent(delay);
+		if(exponent < MIN_EXPONENT)
+			return 0;
+		if(exponent > MAX_EXPONENT)
+			return BUCKET_COUNT-1;
+		int subBucket = (int)((Double.doubleToRawLongBits(delay) >>> (52-SUB_BUCKET_BITS)) & ((1<<SUB_BUCKET_BITS)-1));
+		return ((exponent-MIN_EXPONENT) << SUB_BUCKET_BITS) | subBucket;
+	}
+	
+	private static double midpoint(int bucket){
+		int exponent = (bucket >>> SUB_BUCKET_BITS) + MIN_EXPONENT;
+		int subBucket = bucket & ((1<<SUB_BUCKET_BITS)-1);
+		return Math.scalb(1 + (subBucket + 0.5)/(1<<SUB_BUCKET_BITS), exponent);
+	}
+}
@@ -14,9 +14,19 @@ public class MicroservicePlacementConfig {
     // For periodic placement
     public static final double PLACEMENT_INTERVAL = 1;
 
+    // Threads evaluating the requests of a batch in parallel (ParallelClusteredMicroservicePlacementLogic)
+    public static int PLACEMENT_THREADS = Runtime.getRuntime().availableProcessors();
+
     //Resource info sharing among cluster nodes
     public static Boolean ENABLE_RESOURCE_DATA_SHARING = false;
     public static double MODULE_DEPLOYMENT_TIME = 0.0;
 
+    // Load balancing among the devices running a microservice
+    public static final String ROUND_ROBIN = "RoundRobin";
+    public static final String JOIN_SHORTEST_QUEUE = "JoinShortestQueue";
+    public static final String POWER_OF_TWO_CHOICES = "PowerOfTwoChoices";
+    public static final String LATENCY_AWARE = "LatencyAware";
+    public static String LOAD_BALANCER = ROUND_ROBIN;
+
 
 }
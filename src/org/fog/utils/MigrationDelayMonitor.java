@@ -1,14 +1,31 @@
 package org.fog.utils;
 
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 public class MigrationDelayMonitor {
 	
-	private static double migrationDelay = 0.0;
+	/**
+	 * The migration delay of one simulation, kept in its {@link SimulationContext}.
+	 */
+	private static class Delay {
+		private double migrationDelay = 0.0;
+	}
+	
+	private static Delay delay(){
+		SimulationContext context = SimulationContext.current();
+		Delay delay = (Delay) context.getAttribute(Delay.class);
+		if(delay == null){
+			delay = new Delay();
+			context.setAttribute(Delay.class, delay);
+		}
+		return delay;
+	}
 	
 	public static double getMigrationDelay() {
-		return migrationDelay;
+		return delay().migrationDelay;
 	}
 
 	public static void setMigrationDelay(double migrationDelayReceived) {
-		migrationDelay += migrationDelayReceived;
+		delay().migrationDelay += migrationDelayReceived;
 	}
 }
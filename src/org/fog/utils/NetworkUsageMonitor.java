@@ -1,18 +1,35 @@
 package org.fog.utils;
 
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 public class NetworkUsageMonitor {
 
-	private static double networkUsage = 0.0;
+	/**
+	 * The network usage of one simulation, kept in its {@link SimulationContext}.
+	 */
+	private static class Usage {
+		private double networkUsage = 0.0;
+	}
+	
+	private static Usage usage(){
+		SimulationContext context = SimulationContext.current();
+		Usage usage = (Usage) context.getAttribute(Usage.class);
+		if(usage == null){
+			usage = new Usage();
+			context.setAttribute(Usage.class, usage);
+		}
+		return usage;
+	}
 	
 	public static void sendingTuple(double latency, double tupleNwSize){
-		networkUsage += latency*tupleNwSize;
+		usage().networkUsage += latency*tupleNwSize;
 	}
 	
 	public static void sendingModule(double latency, long moduleSize){
-		networkUsage += latency*moduleSize;
+		usage().networkUsage += latency*moduleSize;
 	}
 	
 	public static double getNetworkUsage(){
-		return networkUsage;
+		return usage().networkUsage;
 	}
 }
@@ -0,0 +1,192 @@
+package org.fog.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Next-hop routing table of a set of fog devices, kept in a flat int array: for every source and 
+ * destination device, the id of the neighbour of the source to which tuples for the destination are 
+ * sent, or -1 if the destination is unreachable.
+ * 
+ * @see ShortestPathRoutingGenerator
+ */
+public class NextHopTable {
+	
+	/** Device ids, by index */
+	private final int[] deviceIds;
+	
+	/** Device indices, by device id; -1 for ids not in the table */
+	private final int[] indexById;
+	
+	/** Next hop device ids, by source index * size + destination index */
+	private final int[] nextHops;
+	
+	public NextHopTable(int[] deviceIds){
+		this.deviceIds = deviceIds.clone();
+		int maxId = -1;
+		for(int id : deviceIds)
+			maxId = Math.max(maxId, id);
+		indexById = new int[maxId+1];
+		Arrays.fill(indexById, -1);
+		for(int i=0;i<deviceIds.length;i++)
+			indexById[deviceIds[i]] = i;
+		nextHops = new int[deviceIds.length*deviceIds.length];
+		Arrays.fill(nextHops, -1);
+	}
+	
+	public int size(){
+		return deviceIds.length;
+	}
+	
+	public int getDeviceId(int index){
+		return deviceIds[index];
+	}
+	
+	/**
+	 * @return the index of a device in the table, or -1 if it is not in the table
+	 */
+	public int indexOf(int deviceId){
+		return deviceId >= 0 && deviceId < indexById.length ? indexById[deviceId] : -1;
+	}
+	
+	/**
+	 * @return the id of the next device on the route, or -1 if there is no route
+	 */
+	public int getNextHop(int sourceId, int destinationId){
+		int source = indexOf(sourceId);
+		int destination = indexOf(destinationId);
+		if(source < 0 || destination < 0)
+			return -1;
+		return nextHops[source*deviceIds.length + destination];
+	}
+	
+	public void setNextHop(int sourceId, int destinationId, int nextHopId){
+		int source = indexOf(sourceId);
+		int destination = indexOf(destinationId);
+		if(source < 0 || destination < 0)
+			throw new IllegalArgumentException("Device "+(source < 0 ? sourceId : destinationId)+" is not in the routing table");
+		nextHops[source*deviceIds.length + destination] = nextHopId;
+	}
+	
+	/**
+	 * Sets the next hops of a source from the index of the next device on each route.
+	 * @param source the index of the source
+	 * @param nextHopIndices the index of the next device for each destination index, -1 if unreachable
+	 */
+	void setRow(int source, int[] nextHopIndices){
+		int offset = source*deviceIds.length;
+		for(int destination=0;destination<deviceIds.length;destination++){
+			int next = nextHopIndices[destination];
+			nextHops[offset+destination] = next < 0 ? -1 : deviceIds[next];
+		}
+	}
+	
+	/**
+	 * Gets the routes of a device as a map from destination id to next hop id. The map is a view of 
+	 * this table, so routes put in it update the table; routes to devices that are not in the table 
+	 * are kept in the map only.
+	 * @param sourceId the id of the device
+	 */
+	public Map<Integer, Integer> getRoutes(int sourceId){
+		int source = indexOf(sourceId);
+		if(source < 0)
+			throw new IllegalArgumentException("Device "+sourceId+" is not in the routing table");
+		return new Routes(source);
+	}
+	
+	/**
+	 * The routes of one source: a row of the table, and routes to devices outside the table.
+	 */
+	private class Routes extends AbstractMap<Integer, Integer> {
+		
+		private final int offset;
+		private final Map<Integer, Integer> otherRoutes = new HashMap<Integer, Integer>();
+		
+		Routes(int source){
+			offset = source*deviceIds.length;
+		}
+		
+		@Override
+		public Integer get(Object key) {
+			if(!(key instanceof Integer))
+				return null;
+			int destination = indexOf((Integer) key);
+			if(destination < 0)
+				return otherRoutes.get(key);
+			int next = nextHops[offset+destination];
+			return next < 0 ? null : next;
+		}
+		
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+		
+		@Override
+		public Integer put(Integer key, Integer value) {
+			int destination = indexOf(key);
+			if(destination < 0)
+				return otherRoutes.put(key, value);
+			int previous = nextHops[offset+destination];
+			nextHops[offset+destination] = value == null ? -1 : value;
+			return previous < 0 ? null : previous;
+		}
+		
+		@Override
+		public Set<Entry<Integer, Integer>> entrySet() {
+			return new AbstractSet<Entry<Integer, Integer>>() {
+				@Override
+				public Iterator<Entry<Integer, Integer>> iterator() {
+					final Iterator<Entry<Integer, Integer>> others = otherRoutes.entrySet().iterator();
+					return new Iterator<Entry<Integer, Integer>>() {
+						private int destination = advance(0);
+						
+						private int advance(int from){
+							while(from < deviceIds.length && nextHops[offset+from] < 0)
+								from++;
+							return from;
+						}
+						
+						@Override
+						public boolean hasNext() {
+							return destination < deviceIds.length || others.hasNext();
+						}
+						
+						@Override
+						public Entry<Integer, Integer> next() {
+							if(destination < deviceIds.length){
+								Entry<Integer, Integer> entry = new SimpleImmutableEntry<Integer, Integer>(deviceIds[destination], nextHops[offset+destination]);
+								destination = advance(destination+1);
+								return entry;
+							}
+							if(others.hasNext())
+								return others.next();
+							throw new NoSuchElementException();
+						}
+						
+						@Override
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					};
+				}
+				
+				@Override
+				public int size() {
+					int size = otherRoutes.size();
+					for(int destination=0;destination<deviceIds.length;destination++){
+						if(nextHops[offset+destination] >= 0)
+							size++;
+					}
+					return size;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package org.fog.utils;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.entities.FogDevice;
+
+/**
+ * Streams the power of the fog devices over time, per device, per level of the topology and per
+ * application, as CSV rows <tt>time,scope,name,power</tt> where scope is <tt>device</tt>, <tt>level</tt> or
+ * <tt>application</tt>. A row is written whenever a power changes, so the power of each series is the value of
+ * its last row until its next row.
+ * <p>
+ * The power of an application is the dynamic power of the devices, above their idle power, shared among the
+ * applications in proportion to the MIPS allocated to their modules. The power of a level is the sum of the
+ * power of its devices; it is kept up to date with the change of each device instead of being summed again.
+ * <p>
+ * The monitor is off unless an output is set with {@link #setOutput(Writer)} before the simulation is started.
+ * Its state is kept in the {@link SimulationContext} of the simulation, so simulations run in parallel stream
+ * to their own outputs.
+ */
+public class PowerMonitor {
+
+	public static final String DEVICE = "device";
+	public static final String LEVEL = "level";
+	public static final String APPLICATION = "application";
+
+	private static final String HEADER = "time,scope,name,power";
+
+	/**
+	 * The power of the devices of one simulation, kept in its {@link SimulationContext}.
+	 */
+	private static class Power {
+		private final PrintWriter out;
+		/** device id -> power */
+		private final Map<Integer, Double> devicePower = new HashMap<Integer, Double>();
+		/** device id -> application id -> power of the application on the device */
+		private final Map<Integer, Map<String, Double>> deviceAppPower = new HashMap<Integer, Map<String, Double>>();
+		/** level -> power */
+		private final Map<Integer, Double> levelPower = new HashMap<Integer, Double>();
+		/** application id -> power */
+		private final Map<String, Double> appPower = new HashMap<String, Double>();
+
+		Power(PrintWriter out) {
+			this.out = out;
+		}
+	}
+
+	private static Power power() {
+		return (Power) SimulationContext.current().getAttribute(Power.class);
+	}
+
+	/**
+	 * Starts streaming the power of the devices of the current simulation.
+	 * @param out where the CSV rows are written; the caller closes it after {@link #flush()}
+	 */
+	public static void setOutput(Writer out) {
+		PrintWriter writer = out instanceof PrintWriter ? (PrintWriter) out : new PrintWriter(out);
+		writer.println(HEADER);
+		SimulationContext.current().setAttribute(Power.class, new Power(writer));
+	}
+
+	/**
+	 * @return whether the power of the current simulation is streamed
+	 */
+	public static boolean isEnabled() {
+		return power() != null;
+	}
+
+	/**
+	 * Records a change of the power of a device.
+	 * @param device the device
+	 * @param time the time of the change
+	 * @param devicePower the power of the device from now on
+	 * @param appPower application id -> the part of the dynamic power of the device due to the application
+	 */
+	public static void powerChanged(FogDevice device, double time, double devicePower, Map<String, Double> appPower) {
+		Power power = power();
+		if (power == null)
+			return;
+		Double previous = power.devicePower.put(device.getId(), devicePower);
+		if (previous == null || previous != devicePower) {
+			double delta = devicePower - (previous != null ? previous : 0);
+			write(power, time, DEVICE, device.getName(), devicePower);
+			write(power, time, LEVEL, Integer.toString(device.getLevel()), add(power.levelPower, device.getLevel(), delta));
+		}
+
+		Map<String, Double> previousAppPower = power.deviceAppPower.get(device.getId());
+		if (previousAppPower == null) {
+			previousAppPower = new HashMap<String, Double>();
+			power.deviceAppPower.put(device.getId(), previousAppPower);
+		}
+		for (Map.Entry<String, Double> entry : appPower.entrySet()) {
+			Double previousPower = previousAppPower.put(entry.getKey(), entry.getValue());
+			double delta = entry.getValue() - (previousPower != null ? previousPower : 0);
+			if (delta != 0)
+				write(power, time, APPLICATION, entry.getKey(), add(power.appPower, entry.getKey(), delta));
+		}
+		// applications that no longer run on the device
+		if (previousAppPower.size() > appPower.size()) {
+			for (Map.Entry<String, Double> entry : previousAppPower.entrySet()) {
+				if (!appPower.containsKey(entry.getKey()) && entry.getValue() != 0) {
+					write(power, time, APPLICATION, entry.getKey(), add(power.appPower, entry.getKey(), -entry.getValue()));
+					entry.setValue(0.0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param level a level of the topology
+	 * @return the current power of the devices of the level
+	 */
+	public static double getLevelPower(int level) {
+		Power power = power();
+		Double levelPower = power != null ? power.levelPower.get(level) : null;
+		return levelPower != null ? levelPower : 0;
+	}
+
+	/**
+	 * @param appId id of an application
+	 * @return the current dynamic power due to the application
+	 */
+	public static double getApplicationPower(String appId) {
+		Power power = power();
+		Double applicationPower = power != null ? power.appPower.get(appId) : null;
+		return applicationPower != null ? applicationPower : 0;
+	}
+
+	/**
+	 * Flushes the rows written so far to the output.
+	 */
+	public static void flush() {
+		Power power = power();
+		if (power != null)
+			power.out.flush();
+	}
+
+	private static <K> double add(Map<K, Double> totals, K key, double delta) {
+		Double total = totals.get(key);
+		double newTotal = (total != null ? total : 0) + delta;
+		totals.put(key, newTotal);
+		return newTotal;
+	}
+
+	private static void write(Power power, double time, String scope, String name, double value) {
+		PrintWriter out = power.out;
+		out.print(time);
+		out.print(',');
+		out.print(scope);
+		out.print(',');
+		if (name.indexOf(',') < 0 && name.indexOf('"') < 0) {
+			out.print(name);
+		} else {
+			out.print('"');
+			out.print(name.replace("\"", "\"\""));
+			out.print('"');
+		}
+		out.print(',');
+		out.println(value);
+	}
+}
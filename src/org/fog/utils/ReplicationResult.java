@@ -0,0 +1,86 @@
+package org.fog.utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fog.entities.FogDevice;
+
+/**
+ * The named metrics measured by one replication of an experiment.
+ * 
+ * @see ExperimentRunner
+ */
+public class ReplicationResult {
+	
+	private final int index;
+	private final long seed;
+	private final Map<String, Double> metrics = new LinkedHashMap<String, Double>();
+	
+	public ReplicationResult(int index, long seed){
+		this.index = index;
+		this.seed = seed;
+	}
+	
+	/**
+	 * Collects the standard fog metrics of the simulation that has just run in the current 
+	 * simulation context: the average, median and 99th percentile delay of every application loop, 
+	 * the average CPU time of every tuple type, the network usage and migration delay, and the 
+	 * energy and cost of every device.
+	 * @param index the index of the replication
+	 * @param seed the seed of the replication
+	 * @param fogDevices the fog devices of the simulation
+	 * @return the result
+	 */
+	public static ReplicationResult collect(int index, long seed, List<FogDevice> fogDevices){
+		ReplicationResult result = new ReplicationResult(index, seed);
+		TimeKeeper timeKeeper = TimeKeeper.getInstance();
+		for(Integer loopId : timeKeeper.getLoopIds()){
+			LatencyStatistics latency = timeKeeper.getLoopLatency(loopId);
+			if(latency.getCount() == 0)
+				continue;
+			result.put("loop-delay:"+loopId, latency.getMean());
+			result.put("loop-delay-p50:"+loopId, latency.getPercentile(50));
+			result.put("loop-delay-p99:"+loopId, latency.getPercentile(99));
+		}
+		for(String tupleType : timeKeeper.getTupleTypeToAverageCpuTime().keySet())
+			result.put("tuple-cpu-time:"+tupleType, timeKeeper.getTupleTypeToAverageCpuTime().get(tupleType));
+		result.put("network-usage", NetworkUsageMonitor.getNetworkUsage()/Config.MAX_SIMULATION_TIME);
+		result.put("migration-delay", MigrationDelayMonitor.getMigrationDelay());
+		double energy = 0, cost = 0;
+		for(FogDevice fogDevice : fogDevices){
+			result.put("energy:"+fogDevice.getName(), fogDevice.getEnergyConsumption());
+			energy += fogDevice.getEnergyConsumption();
+			cost += fogDevice.getTotalCost();
+		}
+		result.put("energy", energy);
+		result.put("cost", cost);
+		return result;
+	}
+	
+	public void put(String metric, double value){
+		metrics.put(metric, value);
+	}
+	
+	public Double get(String metric){
+		return metrics.get(metric);
+	}
+	
+	public int getIndex() {
+		return index;
+	}
+	
+	public long getSeed() {
+		return seed;
+	}
+	
+	public Map<String, Double> getMetrics() {
+		return Collections.unmodifiableMap(metrics);
+	}
+	
+	@Override
+	public String toString() {
+		return "Replication "+index+" (seed "+seed+") "+metrics;
+	}
+}
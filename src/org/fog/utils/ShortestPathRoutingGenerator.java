@@ -1,150 +1,352 @@
 package org.fog.utils;
 
-import org.apache.commons.math3.util.Pair;
 import org.fog.entities.FogDevice;
-import org.fog.entities.MicroserviceFogDevice;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Created by Samodha Pallewatta on 6/18/2021.
  * Creates a routing table considering shortest path between devices.
+ * <p>
+ * Devices are connected to their parent, children and cluster members, with the latency of the link
+ * as distance. Routes are found with Dijkstra's algorithm from every device, in parallel for large
+ * topologies, and kept in a {@link NextHopTable}.
  */
 public class ShortestPathRoutingGenerator {
 
+    /**
+     * Number of devices from which the routes are computed in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    /**
+     * Number of sources each parallel task computes the routes of
+     */
+    private static final int SOURCES_PER_TASK = 32;
+
+    /**
+     * Generates the routing table and returns it as maps.
+     *
+     * @param fogDevices devices in the topology
+     * @return source device id -> (destination device id -> next device to route to); the maps are views of a {@link NextHopTable}
+     */
     public static Map<Integer, Map<Integer, Integer>> generateRoutingTable(List<FogDevice> fogDevices) {
+        NextHopTable table = generateNextHopTable(fogDevices);
         // <source device id>  ->  <dest device id,next device to route to>
         Map<Integer, Map<Integer, Integer>> routing = new HashMap<>();
-        Map<String, Map<String, String>> routingString = new HashMap<>();
-        int size = fogDevices.size();
-
-        int[][] routingMatrix = new int[size][size];
-        double[][] distanceMatrix = new double[size][size];
-        for (int row = 0; row < size; row++) {
-            for (int column = 0; column < size; column++) {
-                routingMatrix[row][column] = -1;
-                distanceMatrix[row][column] = -1;
-            }
+        for (FogDevice fogDevice : fogDevices) {
+            routing.put(fogDevice.getId(), table.getRoutes(fogDevice.getId()));
         }
+        return routing;
+    }
 
-        boolean change = true;
-        boolean firstIteration = true;
-        while (change || firstIteration) {
-            change = false;
-            for (int row = 0; row < size; row++) {
-                for (int column = 0; column < size; column++) {
-                    double dist = distanceMatrix[row][column];
-                    FogDevice rFog = fogDevices.get(row);
-                    FogDevice cFog = fogDevices.get(column);
-                    if (firstIteration && dist < 0) {
-                        if (row == column) {
-                            dist = 0;
-                        } else {
-                            dist = directlyConnectedDist(rFog, cFog);
-                        }
-                        if (dist >= 0) {
-                            change = true;
-                            distanceMatrix[row][column] = dist;
-                            distanceMatrix[column][row] = dist;
-
-                            // directly connected
-                            routingMatrix[row][column] = cFog.getId();
-                            routingMatrix[column][row] = rFog.getId();
-                        }
-                    }
-                    if (dist < 0) {
-                        Pair<Double, Integer> result = indirectDist(row, column, size, distanceMatrix);
-                        dist = result.getFirst();
-                        int mid = result.getSecond();
-                        if (dist >= 0) {
-                            change = true;
-                            distanceMatrix[row][column] = dist;
-                            routingMatrix[row][column] = routingMatrix[row][mid];
-                        }
-                    }
-                    if (dist > 0) {
-                        Pair<Double, Integer> result = indirectDist(row, column, size, distanceMatrix);
-                        double distNew = result.getFirst();
-                        int mid = result.getSecond();
-                        if (distNew < dist) {
-                            change = true;
-                            distanceMatrix[row][column] = distNew;
-                            routingMatrix[row][column] = routingMatrix[row][mid];
-                        }
-                    }
-                }
-            }
-            firstIteration = false;
-        }
-
-        for (int row = 0; row < size; row++) {
-            for (int column = 0; column < size; column++) {
-                int sourceId = fogDevices.get(row).getId();
-                int destId = fogDevices.get(column).getId();
-                if (routing.containsKey(sourceId)) {
-                    routing.get(sourceId).put(destId, routingMatrix[row][column]);
-                    routingString.get(fogDevices.get(row).getName()).put(fogDevices.get(column).getName(), getFogDeviceById(routingMatrix[row][column], fogDevices).getName());
-                } else {
-                    Map<Integer, Integer> route = new HashMap<>();
-                    route.put(destId, routingMatrix[row][column]);
-                    routing.put(sourceId, route);
-
-                    Map<String, String> routeS = new HashMap<>();
-                    routeS.put(fogDevices.get(column).getName(), getFogDeviceById(routingMatrix[row][column], fogDevices).getName());
-                    routingString.put(fogDevices.get(row).getName(), routeS);
-                }
-            }
+    /**
+     * Generates the routing table of the shortest paths between all devices.
+     *
+     * @param fogDevices devices in the topology
+     * @return the routing table
+     */
+    public static NextHopTable generateNextHopTable(List<FogDevice> fogDevices) {
+        int[] deviceIds = new int[fogDevices.size()];
+        for (int i = 0; i < deviceIds.length; i++) {
+            deviceIds[i] = fogDevices.get(i).getId();
         }
+        NextHopTable table = new NextHopTable(deviceIds);
+        computeAllRoutes(table, new Graph(fogDevices, table));
+        printRoutingTable(table, fogDevices);
+        return table;
+    }
 
-        System.out.println("Routing Table : ");
-        for (String deviceName : routingString.keySet()) {
-            System.out.println(deviceName + " : " + routingString.get(deviceName).toString());
+    /**
+     * Updates the routing table after a device has changed its links, e.g. moved to a new parent. If the device
+     * is now linked to a single device only, no other route goes through it, so only the routes from and to it
+     * are updated; otherwise all routes are computed again.
+     *
+     * @param table       the routing table, updated in place
+     * @param fogDevices  devices in the topology, the same as when the table was generated
+     * @param movedDevice the device whose links have changed
+     */
+    public static void updateNextHopTable(NextHopTable table, List<FogDevice> fogDevices, FogDevice movedDevice) {
+        int moved = table.indexOf(movedDevice.getId());
+        if (moved < 0 || table.size() != fogDevices.size())
+            throw new IllegalArgumentException("The devices have changed since the routing table was generated");
+        Graph graph = new Graph(fogDevices, table);
+        if (graph.offsets[moved + 1] - graph.offsets[moved] != 1) {
+            computeAllRoutes(table, graph);
+            return;
         }
-        System.out.println("\n");
 
-        return routing;
+        int movedId = movedDevice.getId();
+        int neighbourId = table.getDeviceId(graph.targets[graph.offsets[moved]]);
+        for (int i = 0; i < table.size(); i++) {
+            int deviceId = table.getDeviceId(i);
+            if (i == moved) {
+                table.setNextHop(movedId, movedId, movedId);
+            } else {
+                table.setNextHop(movedId, deviceId, neighbourId);
+                table.setNextHop(deviceId, movedId, deviceId == neighbourId ? movedId : table.getNextHop(deviceId, neighbourId));
+            }
+        }
     }
 
+    private static void computeAllRoutes(NextHopTable table, Graph graph) {
+        if (graph.size < PARALLEL_THRESHOLD) {
+            new RoutesTask(table, graph, 0, graph.size).compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(new RoutesTask(table, graph, 0, graph.size));
+        }
+    }
 
-    private static Pair<Double, Integer> indirectDist(int row, int dest, int size, double[][] distanceMatrix) {
-        double minDistFromDirectConn = distanceMatrix[row][dest];
-        int midPoint = -1;
-        for (int column = 0; column < size; column++) {
-            if (distanceMatrix[row][column] >= 0 && distanceMatrix[column][dest] >= 0) {
-                double totalDist = distanceMatrix[row][column] + distanceMatrix[column][dest];
-                if (minDistFromDirectConn >= 0 && totalDist < minDistFromDirectConn) {
-                    minDistFromDirectConn = totalDist;
-                    midPoint = column;
-                } else if (minDistFromDirectConn < 0) {
-                    minDistFromDirectConn = totalDist;
-                    midPoint = column;
-                }
+    private static void printRoutingTable(NextHopTable table, List<FogDevice> fogDevices) {
+        if (!Logger.ENABLED)
+            return;
+        Map<Integer, String> names = new HashMap<>();
+        for (FogDevice fogDevice : fogDevices) {
+            names.put(fogDevice.getId(), fogDevice.getName());
+        }
+        for (FogDevice fogDevice : fogDevices) {
+            StringBuilder routes = new StringBuilder();
+            for (Map.Entry<Integer, Integer> route : table.getRoutes(fogDevice.getId()).entrySet()) {
+                routes.append(names.get(route.getKey())).append('=').append(names.get(route.getValue())).append(", ");
             }
+            Logger.debug("Routing Table", fogDevice.getName() + " : {" + routes + "}");
         }
-        return new Pair<>(minDistFromDirectConn, midPoint);
     }
 
     private static double directlyConnectedDist(FogDevice rFog, FogDevice cFog) {
         int parent = rFog.getParentId();
         List<Integer> children = rFog.getChildrenIds();
-        List<Integer> cluster = (rFog).getClusterMembers();
+        List<Integer> cluster = rFog.getClusterMembers();
+        Double latency = null;
         if (cFog.getId() == parent) {
             return rFog.getUplinkLatency();
         } else if (children != null && children.contains(cFog.getId())) {
-            return rFog.getChildToLatencyMap().get(cFog.getId());
+            latency = rFog.getChildToLatencyMap().get(cFog.getId());
         } else if (cluster != null && cluster.contains(cFog.getId())) {
-            return ((MicroserviceFogDevice) rFog).getClusterMembersToLatencyMap().get(cFog.getId());
+            latency = rFog.getClusterMembersToLatencyMap().get(cFog.getId());
         }
-        return -1;
+        return latency == null ? -1 : latency;
     }
 
-    private static FogDevice getFogDeviceById(int id, List<FogDevice> fogDevices) {
-        for (FogDevice f : fogDevices) {
-            if (f.getId() == id)
-                return f;
+    /**
+     * The links between the devices in compressed sparse row form, by device index.
+     */
+    private static class Graph {
+        private final int size;
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+
+        Graph(List<FogDevice> fogDevices, NextHopTable table) {
+            size = fogDevices.size();
+            // a link is found from both of its ends; it is kept once, with the distance seen from the device
+            // listed first
+            Map<Long, Double> links = new HashMap<>();
+            int[] degrees = new int[size];
+            for (int i = 0; i < size; i++) {
+                FogDevice fogDevice = fogDevices.get(i);
+                addLinks(fogDevices, table, links, degrees, i, fogDevice.getParentId());
+                if (fogDevice.getChildrenIds() != null) {
+                    for (int childId : fogDevice.getChildrenIds())
+                        addLinks(fogDevices, table, links, degrees, i, childId);
+                }
+                if (fogDevice.getClusterMembers() != null) {
+                    for (int memberId : fogDevice.getClusterMembers())
+                        addLinks(fogDevices, table, links, degrees, i, memberId);
+                }
+            }
+
+            offsets = new int[size + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[i + 1] = offsets[i] + degrees[i];
+            }
+            targets = new int[offsets[size]];
+            weights = new double[offsets[size]];
+            int[] next = Arrays.copyOf(offsets, size);
+            for (Map.Entry<Long, Double> link : links.entrySet()) {
+                int a = (int) (link.getKey() / size);
+                int b = (int) (link.getKey() % size);
+                targets[next[a]] = b;
+                weights[next[a]++] = link.getValue();
+                targets[next[b]] = a;
+                weights[next[b]++] = link.getValue();
+            }
+            // the order of the links decides between routes of equal distance
+            for (int i = 0; i < size; i++) {
+                sortLinks(offsets[i], offsets[i + 1]);
+            }
+        }
+
+        private void addLinks(List<FogDevice> fogDevices, NextHopTable table, Map<Long, Double> links, int[] degrees,
+                              int index, int neighbourId) {
+            int neighbour = table.indexOf(neighbourId);
+            if (neighbour < 0 || neighbour == index)
+                return;
+            int a = Math.min(index, neighbour);
+            int b = Math.max(index, neighbour);
+            long key = (long) a * size + b;
+            if (links.containsKey(key))
+                return;
+            double dist = directlyConnectedDist(fogDevices.get(a), fogDevices.get(b));
+            if (dist < 0)
+                dist = directlyConnectedDist(fogDevices.get(b), fogDevices.get(a));
+            if (dist < 0)
+                return;
+            links.put(key, dist);
+            degrees[a]++;
+            degrees[b]++;
+        }
+
+        private void sortLinks(int from, int to) {
+            for (int i = from + 1; i < to; i++) {
+                int target = targets[i];
+                double weight = weights[i];
+                int j = i - 1;
+                while (j >= from && targets[j] > target) {
+                    targets[j + 1] = targets[j];
+                    weights[j + 1] = weights[j];
+                    j--;
+                }
+                targets[j + 1] = target;
+                weights[j + 1] = weight;
+            }
+        }
+    }
+
+    /**
+     * Computes the routes from a range of sources, splitting the range between parallel tasks.
+     */
+    private static class RoutesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final NextHopTable table;
+        private final Graph graph;
+        private final int from;
+        private final int to;
+
+        RoutesTask(NextHopTable table, Graph graph, int from, int to) {
+            this.table = table;
+            this.graph = graph;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SOURCES_PER_TASK && graph.size >= PARALLEL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RoutesTask(table, graph, from, middle), new RoutesTask(table, graph, middle, to));
+                return;
+            }
+            Dijkstra dijkstra = new Dijkstra(graph);
+            for (int source = from; source < to; source++) {
+                dijkstra.run(source);
+                table.setRow(source, dijkstra.firstHops);
+            }
+        }
+    }
+
+    /**
+     * Dijkstra's algorithm with an indexed binary heap, keeping for every device the first hop on the shortest
+     * path to it. Devices at the same distance are settled in index order.
+     */
+    private static class Dijkstra {
+        private final Graph graph;
+        private final double[] dists;
+        private final int[] firstHops;
+        private final int[] heap;
+        private final int[] positions;
+        private int heapSize;
+
+        Dijkstra(Graph graph) {
+            this.graph = graph;
+            dists = new double[graph.size];
+            firstHops = new int[graph.size];
+            heap = new int[graph.size];
+            positions = new int[graph.size];
+        }
+
+        void run(int source) {
+            Arrays.fill(dists, Double.POSITIVE_INFINITY);
+            Arrays.fill(firstHops, -1);
+            Arrays.fill(positions, -1);
+            heapSize = 0;
+
+            dists[source] = 0;
+            firstHops[source] = source;
+            push(source);
+            while (heapSize > 0) {
+                int u = pop();
+                for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                    int v = graph.targets[e];
+                    double dist = dists[u] + graph.weights[e];
+                    if (dist < dists[v]) {
+                        boolean queued = dists[v] != Double.POSITIVE_INFINITY;
+                        dists[v] = dist;
+                        firstHops[v] = u == source ? v : firstHops[u];
+                        if (queued)
+                            siftUp(positions[v]);
+                        else
+                            push(v);
+                    }
+                }
+            }
+        }
+
+        private boolean less(int a, int b) {
+            return dists[a] < dists[b] || (dists[a] == dists[b] && a < b);
+        }
+
+        private void push(int v) {
+            heap[heapSize] = v;
+            positions[v] = heapSize;
+            siftUp(heapSize++);
+        }
+
+        private int pop() {
+            int top = heap[0];
+            heap[0] = heap[--heapSize];
+            positions[heap[0]] = 0;
+            if (heapSize > 0)
+                siftDown(0);
+            return top;
+        }
+
+        private void siftUp(int i) {
+            int v = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(v, heap[parent]))
+                    break;
+                heap[i] = heap[parent];
+                positions[heap[i]] = i;
+                i = parent;
+            }
+            heap[i] = v;
+            positions[v] = i;
+        }
+
+        private void siftDown(int i) {
+            int v = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize)
+                    break;
+                if (child + 1 < heapSize && less(heap[child + 1], heap[child]))
+                    child++;
+                if (!less(heap[child], v))
+                    break;
+                heap[i] = heap[child];
+                positions[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = v;
+            positions[v] = i;
         }
-        return null;
     }
 }
@@ -3,26 +3,38 @@ package org.fog.utils;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.math3.util.Pair;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.fog.entities.Tuple;
 
+/**
+ * Keeps the timing metrics of the fog simulation: the delays of the application loops and the CPU 
+ * execution times of the tuple types. 
+ * 
+ * The start times of the tuples in flight are kept in primitive maps, and a tuple is evicted once its 
+ * loop or its execution completes. Tuples that never complete, e.g. those dropped by a fractional 
+ * selectivity, are evicted once they are older than {@link Config#TUPLE_TIMING_EXPIRY}. The loop 
+ * delays are kept as streaming statistics, so the memory used does not grow with the length of the run.
+ */
 public class TimeKeeper {
 
-	private static TimeKeeper instance;
+	/** The number of tuples in flight above which expired tuples are looked for. */
+	private static final int MIN_EXPIRY_SWEEP_SIZE = 4096;
 	
 	private long simulationStartTime;
 	private int count; 
-	private Map<Integer, Double> emitTimes;
-	private Map<Integer, Double> endTimes;
-	private Map<Integer, List<Integer>> loopIdToTupleIds;
-	private Map<Integer, Double> tupleIdToCpuStartTime;
+	private IntDoubleHashMap emitTimes;
+	private IntDoubleHashMap endTimes;
+	private IntDoubleHashMap tupleIdToCpuStartTime;
+	private Map<Integer, LatencyStatistics> loopIdToLatency;
 	private Map<String, Double> tupleTypeToAverageCpuTime;
 	private Map<String, Integer> tupleTypeToExecutedTupleCount;
 	
-	private Map<Integer, Double> loopIdToCurrentAverage;
-	private Map<Integer, Integer> loopIdToCurrentNum;
+	private int emitTimesSweepSize = MIN_EXPIRY_SWEEP_SIZE;
+	private int cpuStartTimesSweepSize = MIN_EXPIRY_SWEEP_SIZE;
 
 	private Map<Integer, Integer> loopIdToLatencyQoSSuccessCount = new HashMap<>();
 
@@ -31,9 +43,16 @@ public class TimeKeeper {
 	// last execution time
 	private Map<Integer, Double> tupleIdToExecutionTime = new HashMap<>();
 	
+	/**
+	 * Gets the time keeper of the simulation context bound to the calling thread.
+	 */
 	public static TimeKeeper getInstance(){
-		if(instance == null)
+		SimulationContext context = SimulationContext.current();
+		TimeKeeper instance = (TimeKeeper) context.getAttribute(TimeKeeper.class);
+		if(instance == null){
 			instance = new TimeKeeper();
+			context.setAttribute(TimeKeeper.class, instance);
+		}
 		return instance;
 	}
 	
@@ -43,12 +62,15 @@ public class TimeKeeper {
 	
 	public void tupleStartedExecution(Tuple tuple){
 		tupleIdToCpuStartTime.put(tuple.getCloudletId(), CloudSim.clock());
+		if(tupleIdToCpuStartTime.size() > cpuStartTimesSweepSize)
+			cpuStartTimesSweepSize = evictExpired(tupleIdToCpuStartTime);
 	}
 	
 	public void tupleEndedExecution(Tuple tuple){
-		if(!tupleIdToCpuStartTime.containsKey(tuple.getCloudletId()))
+		double startTime = tupleIdToCpuStartTime.remove(tuple.getCloudletId());
+		if(Double.isNaN(startTime))
 			return;
-		double executionTime = CloudSim.clock() - tupleIdToCpuStartTime.get(tuple.getCloudletId());
+		double executionTime = CloudSim.clock() - startTime;
 		if(!tupleTypeToAverageCpuTime.containsKey(tuple.getTupleType())){
 			tupleTypeToAverageCpuTime.put(tuple.getTupleType(), executionTime);
 			tupleTypeToExecutedTupleCount.put(tuple.getTupleType(), 1);
@@ -59,20 +81,56 @@ public class TimeKeeper {
 		}
 	}
 	
-	public Map<Integer, List<Integer>> loopIdToTupleIds(){
-		return getInstance().getLoopIdToTupleIds();
+	/**
+	 * Records that a tuple starting an application loop has been emitted.
+	 * @param loopId the id of the loop
+	 * @param tupleId the id identifying the tuple in the loop
+	 */
+	public void tupleEmitted(int loopId, int tupleId){
+		if(!loopIdToLatency.containsKey(loopId))
+			loopIdToLatency.put(loopId, new LatencyStatistics());
+		emitTimes.put(tupleId, CloudSim.clock());
+		if(emitTimes.size() > emitTimesSweepSize)
+			emitTimesSweepSize = evictExpired(emitTimes);
+	}
+	
+	/**
+	 * Records that a tuple has reached the end of an application loop, adding its delay to the 
+	 * statistics of the loop.
+	 * @param loopId the id of the loop
+	 * @param tupleId the id identifying the tuple in the loop
+	 * @return false if the emission of the tuple was not recorded or has expired
+	 */
+	public boolean tupleCompletedLoop(int loopId, int tupleId){
+		double emitTime = emitTimes.remove(tupleId);
+		if(Double.isNaN(emitTime))
+			return false;
+		LatencyStatistics latency = loopIdToLatency.get(loopId);
+		if(latency == null){
+			latency = new LatencyStatistics();
+			loopIdToLatency.put(loopId, latency);
+		}
+		latency.add(CloudSim.clock() - emitTime);
+		return true;
+	}
+	
+	/**
+	 * Evicts the start times older than the expiry.
+	 * @return the size above which to sweep next
+	 */
+	private int evictExpired(IntDoubleHashMap startTimes){
+		startTimes.removeValuesBelow(CloudSim.clock() - Config.TUPLE_TIMING_EXPIRY);
+		return Math.max(MIN_EXPIRY_SWEEP_SIZE, 2*startTimes.size());
 	}
 	
 	private TimeKeeper(){
 		count = 1;
-		setEmitTimes(new HashMap<Integer, Double>());
-		setEndTimes(new HashMap<Integer, Double>());
-		setLoopIdToTupleIds(new HashMap<Integer, List<Integer>>());
+		emitTimes = new IntDoubleHashMap();
+		endTimes = new IntDoubleHashMap();
+		tupleIdToCpuStartTime = new IntDoubleHashMap();
+		loopIdToLatency = new HashMap<Integer, LatencyStatistics>();
 		setTupleTypeToAverageCpuTime(new HashMap<String, Double>());
 		setTupleTypeToExecutedTupleCount(new HashMap<String, Integer>());
-		setTupleIdToCpuStartTime(new HashMap<Integer, Double>());
-		setLoopIdToCurrentAverage(new HashMap<Integer, Double>());
-		setLoopIdToCurrentNum(new HashMap<Integer, Integer>());
 	}
 	
 	public int getCount() {
@@ -83,28 +141,38 @@ public class TimeKeeper {
 		this.count = count;
 	}
 
-	public Map<Integer, Double> getEmitTimes() {
+	public IntDoubleHashMap getEmitTimes() {
 		return emitTimes;
 	}
 
-	public void setEmitTimes(Map<Integer, Double> emitTimes) {
-		this.emitTimes = emitTimes;
-	}
-
-	public Map<Integer, Double> getEndTimes() {
+	public IntDoubleHashMap getEndTimes() {
 		return endTimes;
 	}
 
-	public void setEndTimes(Map<Integer, Double> endTimes) {
-		this.endTimes = endTimes;
+	/**
+	 * Gets the ids of the application loops from which tuples have been emitted.
+	 */
+	public Set<Integer> getLoopIds() {
+		return loopIdToLatency.keySet();
 	}
-
-	public Map<Integer, List<Integer>> getLoopIdToTupleIds() {
-		return loopIdToTupleIds;
+	
+	/**
+	 * Gets the delay statistics of an application loop.
+	 * @param loopId the id of the loop
+	 * @return the statistics, or null if no tuple of the loop has been emitted
+	 */
+	public LatencyStatistics getLoopLatency(int loopId) {
+		return loopIdToLatency.get(loopId);
 	}
-
-	public void setLoopIdToTupleIds(Map<Integer, List<Integer>> loopIdToTupleIds) {
-		this.loopIdToTupleIds = loopIdToTupleIds;
+	
+	/**
+	 * Gets the average delay of an application loop.
+	 * @param loopId the id of the loop
+	 * @return the average, or null if no tuple has completed the loop
+	 */
+	public Double getLoopAverageDelay(int loopId) {
+		LatencyStatistics latency = loopIdToLatency.get(loopId);
+		return latency == null || latency.getCount() == 0 ? null : latency.getMean();
 	}
 
 	public Map<String, Double> getTupleTypeToAverageCpuTime() {
@@ -125,14 +193,10 @@ public class TimeKeeper {
 		this.tupleTypeToExecutedTupleCount = tupleTypeToExecutedTupleCount;
 	}
 
-	public Map<Integer, Double> getTupleIdToCpuStartTime() {
+	public IntDoubleHashMap getTupleIdToCpuStartTime() {
 		return tupleIdToCpuStartTime;
 	}
 
-	public void setTupleIdToCpuStartTime(Map<Integer, Double> tupleIdToCpuStartTime) {
-		this.tupleIdToCpuStartTime = tupleIdToCpuStartTime;
-	}
-
 	public long getSimulationStartTime() {
 		return simulationStartTime;
 	}
@@ -141,22 +205,30 @@ public class TimeKeeper {
 		this.simulationStartTime = simulationStartTime;
 	}
 
+	/**
+	 * Gets a snapshot of the average delay of every application loop that some tuple has completed.
+	 */
 	public Map<Integer, Double> getLoopIdToCurrentAverage() {
+		Map<Integer, Double> loopIdToCurrentAverage = new HashMap<Integer, Double>();
+		for(Map.Entry<Integer, LatencyStatistics> entry : loopIdToLatency.entrySet()){
+			if(entry.getValue().getCount() > 0)
+				loopIdToCurrentAverage.put(entry.getKey(), entry.getValue().getMean());
+		}
 		return loopIdToCurrentAverage;
 	}
 
-	public void setLoopIdToCurrentAverage(Map<Integer, Double> loopIdToCurrentAverage) {
-		this.loopIdToCurrentAverage = loopIdToCurrentAverage;
-	}
-
+	/**
+	 * Gets a snapshot of the number of tuples that have completed every application loop.
+	 */
 	public Map<Integer, Integer> getLoopIdToCurrentNum() {
+		Map<Integer, Integer> loopIdToCurrentNum = new HashMap<Integer, Integer>();
+		for(Map.Entry<Integer, LatencyStatistics> entry : loopIdToLatency.entrySet()){
+			if(entry.getValue().getCount() > 0)
+				loopIdToCurrentNum.put(entry.getKey(), entry.getValue().getCount());
+		}
 		return loopIdToCurrentNum;
 	}
 
-	public void setLoopIdToCurrentNum(Map<Integer, Integer> loopIdToCurrentNum) {
-		this.loopIdToCurrentNum = loopIdToCurrentNum;
-	}
-
 	public Map<Integer, Integer> getLoopIdToLatencyQoSSuccessCount() {
 		return loopIdToLatencyQoSSuccessCount;
 	}
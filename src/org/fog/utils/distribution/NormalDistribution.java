@@ -2,6 +2,8 @@ package org.fog.utils.distribution;
 
 import java.util.Random;
 
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 public class NormalDistribution extends Distribution{
 
 	private double mean;
@@ -10,7 +12,7 @@ public class NormalDistribution extends Distribution{
 	public NormalDistribution(double mean, double stdDev) {
 		setMean(mean);
 		setStdDev(stdDev);
-		setRandom(new Random());
+		setRandom(new Random(SimulationContext.current().getRandom().nextLong()));
 	}
 	
 	@Override
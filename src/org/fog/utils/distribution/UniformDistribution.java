@@ -1,5 +1,9 @@
 package org.fog.utils.distribution;
 
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 public class UniformDistribution extends Distribution{
 
 	private double min;
@@ -9,6 +13,7 @@ public class UniformDistribution extends Distribution{
 		super();
 		setMin(min);
 		setMax(max);
+		setRandom(new Random(SimulationContext.current().getRandom().nextLong()));
 	}
 	
 	@Override
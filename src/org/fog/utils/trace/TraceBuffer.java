@@ -0,0 +1,101 @@
+package org.fog.utils.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded ring buffer of trace records, written by any number of simulation threads and read by one writer
+ * thread, without locks.
+ * <p>
+ * A producer claims the next sequence number with an atomic increment, fills the slot of that sequence number
+ * and publishes it by writing the sequence number into the slot. The consumer reads the slots in sequence
+ * order, and a slot is reused only once the consumer has moved past it. When the buffer is full the producers
+ * wait for the consumer, so no record is lost.
+ */
+class TraceBuffer {
+
+	/**
+	 * A record of the buffer. The fields are written by the producer that claimed the slot before it is
+	 * published, and read by the consumer after.
+	 */
+	static class Slot {
+		private volatile long sequence = -1;
+
+		double time;
+		TraceEventType type;
+		int entityId;
+		String entityName;
+		int tupleId;
+		String tupleType;
+		String moduleName;
+		int peerId;
+		String peerName;
+	}
+
+	private final Slot[] slots;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+	private volatile long head = 0;
+
+	/**
+	 * @param capacity the number of slots, rounded up to a power of two
+	 */
+	TraceBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		slots = new Slot[size];
+		for (int i = 0; i < size; i++)
+			slots[i] = new Slot();
+		mask = size - 1;
+	}
+
+	/**
+	 * Claims the slot of the next record, waiting for the consumer if the buffer is full. The caller fills the
+	 * slot and then calls {@link #publish(long)}.
+	 * @return the sequence number of the record
+	 */
+	long claim() {
+		long sequence = tail.getAndIncrement();
+		while (sequence - head >= slots.length)
+			Thread.yield();
+		return sequence;
+	}
+
+	Slot slot(long sequence) {
+		return slots[(int) sequence & mask];
+	}
+
+	/**
+	 * Makes a filled slot visible to the consumer.
+	 */
+	void publish(long sequence) {
+		slots[(int) sequence & mask].sequence = sequence;
+	}
+
+	/**
+	 * Gets the next record, if it has been published. Only the consumer calls this method; the slot stays
+	 * valid until it calls {@link #release()}.
+	 * @return the slot of the next record, or null if there is none yet
+	 */
+	Slot peek() {
+		Slot slot = slots[(int) head & mask];
+		return slot.sequence == head ? slot : null;
+	}
+
+	/**
+	 * Frees the slot returned by {@link #peek()} for the producers.
+	 */
+	void release() {
+		Slot slot = slots[(int) head & mask];
+		slot.entityName = null;
+		slot.tupleType = null;
+		slot.moduleName = null;
+		slot.peerName = null;
+		head = head + 1;
+	}
+
+	/**
+	 * @return whether every claimed record has been consumed
+	 */
+	boolean isEmpty() {
+		return head == tail.get();
+	}
+}
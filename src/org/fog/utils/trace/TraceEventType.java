@@ -0,0 +1,19 @@
+package org.fog.utils.trace;
+
+/**
+ * The types of the events recorded by the {@link Tracer}.
+ */
+public enum TraceEventType {
+	/** A tuple arrived at an entity; the peer is the entity that sent it. */
+	TUPLE_ARRIVAL,
+	/** A tuple was sent by an entity; the peer is the entity it was sent to, if known. */
+	TUPLE_SEND,
+	/** A module started executing a tuple on a device. */
+	EXECUTION_START,
+	/** A module finished executing a tuple on a device. */
+	EXECUTION_END,
+	/** A module was migrated; the entity is the device it leaves and the peer the device it moves to. */
+	MIGRATION,
+	/** A module was placed on a device. */
+	PLACEMENT
+}
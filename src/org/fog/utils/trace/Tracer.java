@@ -0,0 +1,275 @@
+package org.fog.utils.trace;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.locks.LockSupport;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.fog.entities.Tuple;
+import org.fog.utils.Logger;
+
+/**
+ * Records typed simulation events, such as tuple arrivals and module placements, into a CSV trace file.
+ * <p>
+ * The trace points take the entities and tuples involved rather than messages, so that nothing is computed
+ * when tracing is off: a disabled trace point costs two reads of static flags. When tracing is on, a trace
+ * point copies the fields it needs into a {@link TraceBuffer}, which a background thread drains into the
+ * trace file; the simulation threads never format or write anything. The trace points also print the debug
+ * messages of the {@link Logger} when it is enabled.
+ * <p>
+ * Tracing is started with {@link #start(String)} before the simulation and stopped with {@link #stop()} after
+ * it, which writes the remaining events. Simulations run in parallel all write to the same trace.
+ */
+public class Tracer {
+
+	/** The number of events buffered for the writer before the simulation waits for it. */
+	public static int BUFFER_CAPACITY = 1 << 16;
+
+	/** Whether events are recorded; set by {@link #start(String)} and {@link #stop()}. */
+	public static boolean ENABLED = false;
+
+	private static final String HEADER = "time,event,entityId,entity,tupleId,tupleType,module,peerId,peer";
+
+	private static TraceBuffer buffer;
+	private static TraceWriter writer;
+
+	/**
+	 * Starts recording events into a trace file.
+	 * @param fileName the CSV file to write, replaced if it exists
+	 * @throws IOException if the file cannot be created
+	 */
+	public static synchronized void start(String fileName) throws IOException {
+		if (writer != null)
+			throw new IllegalStateException("Tracing has already been started");
+		buffer = new TraceBuffer(BUFFER_CAPACITY);
+		writer = new TraceWriter(buffer, new BufferedWriter(new FileWriter(fileName), 1 << 16));
+		writer.start();
+		ENABLED = true;
+	}
+
+	/**
+	 * Stops recording events, and waits until the recorded events have been written and the trace file closed.
+	 * @throws IOException if the trace file could not be written
+	 */
+	public static synchronized void stop() throws IOException {
+		if (writer == null)
+			return;
+		ENABLED = false;
+		TraceWriter stopped = writer;
+		writer = null;
+		stopped.finish();
+		buffer = null;
+		if (stopped.failure != null)
+			throw stopped.failure;
+	}
+
+	/**
+	 * A tuple arrived at an entity.
+	 * @param entity the entity the tuple arrived at
+	 * @param tuple the tuple
+	 * @param sourceId id of the entity that sent the tuple
+	 */
+	public static void tupleArrival(SimEntity entity, Tuple tuple, int sourceId) {
+		if (ENABLED)
+			record(TraceEventType.TUPLE_ARRIVAL, entity, tuple, tuple.getDestModuleName(), sourceId);
+		if (Logger.ENABLED)
+			Logger.debug(entity.getName(), "Received tuple " + tuple.getCloudletId() + "with tupleType = "
+					+ tuple.getTupleType() + "\t| Source : " + CloudSim.getEntityName(sourceId) + "|Dest : "
+					+ entity.getName());
+	}
+
+	/**
+	 * A tuple was sent by an entity.
+	 * @param entity the entity that sent the tuple
+	 * @param tuple the tuple
+	 * @param destinationId id of the entity the tuple was sent to, or -1 if it is routed later
+	 */
+	public static void tupleSend(SimEntity entity, Tuple tuple, int destinationId) {
+		if (ENABLED)
+			record(TraceEventType.TUPLE_SEND, entity, tuple, tuple.getDestModuleName(), destinationId);
+		if (Logger.ENABLED)
+			Logger.debug(entity.getName(), "Sending tuple with tupleId = " + tuple.getCloudletId());
+	}
+
+	/**
+	 * A module started executing a tuple.
+	 * @param device the device the module runs on
+	 * @param tuple the tuple
+	 * @param moduleName name of the module
+	 */
+	public static void executionStart(SimEntity device, Tuple tuple, String moduleName) {
+		if (ENABLED)
+			record(TraceEventType.EXECUTION_START, device, tuple, moduleName, -1);
+		if (Logger.ENABLED)
+			Logger.debug(device.getName(), "Executing tuple on module " + moduleName);
+	}
+
+	/**
+	 * A module finished executing a tuple.
+	 * @param device the device the module runs on
+	 * @param tuple the tuple
+	 */
+	public static void executionEnd(SimEntity device, Tuple tuple) {
+		if (ENABLED)
+			record(TraceEventType.EXECUTION_END, device, tuple, tuple.getDestModuleName(), -1);
+		if (Logger.ENABLED)
+			Logger.debug(device.getName(), "Completed execution of tuple " + tuple.getCloudletId() + "on "
+					+ tuple.getDestModuleName());
+	}
+
+	/**
+	 * A module is migrated from a device to another.
+	 * @param moduleName name of the module
+	 * @param source the device the module leaves
+	 * @param destination the device the module moves to
+	 */
+	public static void migration(String moduleName, SimEntity source, SimEntity destination) {
+		if (ENABLED)
+			record(TraceEventType.MIGRATION, source, null, moduleName, destination.getId());
+		if (Logger.ENABLED)
+			Logger.debug(source.getName(), "Migrating " + moduleName + " to " + destination.getName());
+	}
+
+	/**
+	 * A module was placed on a device.
+	 * @param moduleName name of the module
+	 * @param device the device
+	 */
+	public static void placement(String moduleName, SimEntity device) {
+		if (ENABLED)
+			record(TraceEventType.PLACEMENT, device, null, moduleName, -1);
+		if (Logger.ENABLED)
+			Logger.debug(device.getName(), "Placed module " + moduleName);
+	}
+
+	private static void record(TraceEventType type, SimEntity entity, Tuple tuple, String moduleName, int peerId) {
+		TraceBuffer buffer = Tracer.buffer;
+		if (buffer == null)
+			return;
+		long sequence = buffer.claim();
+		TraceBuffer.Slot slot = buffer.slot(sequence);
+		slot.time = CloudSim.clock();
+		slot.type = type;
+		slot.entityId = entity.getId();
+		slot.entityName = entity.getName();
+		slot.tupleId = tuple != null ? tuple.getCloudletId() : -1;
+		slot.tupleType = tuple != null ? tuple.getTupleType() : null;
+		slot.moduleName = moduleName;
+		slot.peerId = peerId;
+		slot.peerName = peerId >= 0 ? CloudSim.getEntityName(peerId) : null;
+		buffer.publish(sequence);
+	}
+
+	/**
+	 * Drains the buffer into the trace file until tracing is stopped.
+	 */
+	private static class TraceWriter extends Thread {
+
+		private static final long IDLE_NANOS = 1000000;
+
+		private final TraceBuffer buffer;
+		private final Writer out;
+		private volatile boolean running = true;
+		private IOException failure;
+
+		TraceWriter(TraceBuffer buffer, Writer out) {
+			super("trace-writer");
+			setDaemon(true);
+			this.buffer = buffer;
+			this.out = out;
+		}
+
+		@Override
+		public void run() {
+			try {
+				out.write(HEADER);
+				out.write('\n');
+				while (running) {
+					if (drain() == 0)
+						LockSupport.parkNanos(IDLE_NANOS);
+				}
+				// events claimed before tracing was stopped
+				while (!buffer.isEmpty()) {
+					if (drain() == 0)
+						Thread.yield();
+				}
+			} catch (IOException e) {
+				failure = e;
+				ENABLED = false;
+				// keep consuming so that the simulation is not blocked
+				while (running || !buffer.isEmpty()) {
+					if (buffer.peek() != null)
+						buffer.release();
+					else
+						Thread.yield();
+				}
+			} finally {
+				try {
+					out.close();
+				} catch (IOException e) {
+					if (failure == null)
+						failure = e;
+				}
+			}
+		}
+
+		private int drain() throws IOException {
+			int drained = 0;
+			TraceBuffer.Slot slot;
+			while ((slot = buffer.peek()) != null) {
+				write(slot);
+				buffer.release();
+				drained++;
+			}
+			return drained;
+		}
+
+		private void write(TraceBuffer.Slot slot) throws IOException {
+			out.write(Double.toString(slot.time));
+			out.write(',');
+			out.write(slot.type.name());
+			out.write(',');
+			out.write(Integer.toString(slot.entityId));
+			out.write(',');
+			writeString(slot.entityName);
+			out.write(',');
+			if (slot.tupleId >= 0)
+				out.write(Integer.toString(slot.tupleId));
+			out.write(',');
+			writeString(slot.tupleType);
+			out.write(',');
+			writeString(slot.moduleName);
+			out.write(',');
+			if (slot.peerId >= 0)
+				out.write(Integer.toString(slot.peerId));
+			out.write(',');
+			writeString(slot.peerName);
+			out.write('\n');
+		}
+
+		private void writeString(String value) throws IOException {
+			if (value == null)
+				return;
+			if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+				out.write(value);
+				return;
+			}
+			out.write('"');
+			out.write(value.replace("\"", "\"\""));
+			out.write('"');
+		}
+
+		void finish() {
+			running = false;
+			LockSupport.unpark(this);
+			try {
+				join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}